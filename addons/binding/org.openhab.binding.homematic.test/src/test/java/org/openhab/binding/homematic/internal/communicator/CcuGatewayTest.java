@@ -0,0 +1,235 @@
+/**
+ * Copyright (c) 2010-2017 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.binding.homematic.internal.communicator;
+
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import javax.xml.stream.XMLStreamException;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.openhab.binding.homematic.internal.common.HomematicConfig;
+import org.openhab.binding.homematic.internal.communicator.message.TclScriptDataListReader;
+import org.openhab.binding.homematic.internal.model.HmChannel;
+import org.openhab.binding.homematic.internal.model.HmDatapoint;
+import org.openhab.binding.homematic.internal.model.HmDevice;
+
+/**
+ * Tests for the incremental variable sync of the {@link CcuGateway}, the CCU is simulated with queued script results.
+ *
+ * @author agent - Initial contribution
+ */
+public class CcuGatewayTest {
+    private static final long START = 1508230000000L;
+
+    private final HomematicConfig config = new HomematicConfig();
+    private final TestGateway gateway = new TestGateway(config);
+    private HmChannel channel;
+
+    @Before
+    public void setUp() {
+        HmDevice device = new HmDevice();
+        device.setAddress(HmDevice.ADDRESS_GATEWAY_EXTRAS);
+        channel = new HmChannel();
+        channel.setNumber(HmChannel.CHANNEL_NUMBER_VARIABLE);
+        channel.setType(HmChannel.TYPE_GATEWAY_VARIABLE);
+        device.addChannel(channel);
+    }
+
+    @Test
+    public void testFirstSyncLoadsAllVariables() throws IOException {
+        load(list("1000", entry("Presence", "1"), entry("Temperature", "21.5")));
+
+        assertEquals(Arrays.asList("getAllVariables"), gateway.scriptNames);
+        assertEquals(1, getValue("Presence"));
+        assertEquals(21.5, getValue("Temperature"));
+    }
+
+    @Test
+    public void testIncrementalSyncMergesChangedVariables() throws IOException {
+        load(list("1000", entry("Presence", "1"), entry("Temperature", "21.5"), entry("Alarm", "false")));
+        load(list("1060", unchanged("Presence"), entry("Temperature", "22"), unchanged("Alarm"),
+                entry("Holiday", "true")));
+
+        assertEquals(Arrays.asList("getAllVariables", "getChangedVariables"), gateway.scriptNames);
+        assertEquals("1000", gateway.lastSyncs.get(1));
+        assertEquals(4, channel.getDatapoints().size());
+        assertEquals(1, getValue("Presence"));
+        assertEquals(22, getValue("Temperature"));
+        assertEquals(false, getValue("Alarm"));
+        assertEquals(true, getValue("Holiday"));
+        assertSame(channel, getDatapoint("Presence").getChannel());
+    }
+
+    @Test
+    public void testRemovedVariableIsNotMerged() throws IOException {
+        load(list("1000", entry("Presence", "1"), entry("Temperature", "21.5")));
+        load(list("1060", unchanged("Temperature")));
+
+        assertEquals(1, channel.getDatapoints().size());
+        assertNull(getDatapoint("Presence"));
+        assertEquals(21.5, getValue("Temperature"));
+    }
+
+    @Test
+    public void testIncrementalSyncUsesTimestampOfLastSync() throws IOException {
+        load(list("1000", entry("Presence", "1")));
+        load(list("1060", unchanged("Presence")));
+        load(list("1120", entry("Presence", "0")));
+
+        assertEquals(Arrays.asList(null, "1000", "1060"), gateway.lastSyncs);
+        assertEquals(0, getValue("Presence"));
+    }
+
+    @Test
+    public void testMergedVariablesAreKeptForTheNextSync() throws IOException {
+        load(list("1000", entry("Presence", "1"), entry("Temperature", "21.5")));
+        load(list("1060", unchanged("Presence"), entry("Temperature", "22")));
+        load(list("1120", unchanged("Presence"), unchanged("Temperature")));
+
+        assertEquals(Arrays.asList("getAllVariables", "getChangedVariables", "getChangedVariables"),
+                gateway.scriptNames);
+        assertEquals(1, getValue("Presence"));
+        assertEquals(22, getValue("Temperature"));
+    }
+
+    @Test
+    public void testUnknownUnchangedVariableLoadsAllVariables() throws IOException {
+        load(list("1000", entry("Presence", "1")));
+        gateway.results.add(list("1060", unchanged("Presence"), unchanged("Unknown")));
+        load(list("1060", entry("Presence", "0"), entry("Unknown", "3")));
+
+        assertEquals(Arrays.asList("getAllVariables", "getChangedVariables", "getAllVariables"), gateway.scriptNames);
+        assertEquals(2, channel.getDatapoints().size());
+        assertEquals(0, getValue("Presence"));
+        assertEquals(3, getValue("Unknown"));
+    }
+
+    @Test
+    public void testFullSyncIsDueAfterAnHour() throws IOException {
+        load(list("1000", entry("Presence", "1")));
+        gateway.time += TimeUnit.MINUTES.toMillis(59);
+        load(list("1060", unchanged("Presence")));
+        gateway.time += TimeUnit.MINUTES.toMillis(2);
+        load(list("1180", entry("Presence", "0")));
+        load(list("1240", unchanged("Presence")));
+
+        assertEquals(Arrays.asList("getAllVariables", "getChangedVariables", "getAllVariables", "getChangedVariables"),
+                gateway.scriptNames);
+        assertEquals(0, getValue("Presence"));
+    }
+
+    @Test
+    public void testInvalidTimestampLoadsAllVariables() throws IOException {
+        load(list("", entry("Presence", "1")));
+        load(list("1060", entry("Presence", "0")));
+
+        assertEquals(Arrays.asList("getAllVariables", "getAllVariables"), gateway.scriptNames);
+    }
+
+    @Test
+    public void testDisabledIncrementalSyncLoadsAllVariables() throws IOException {
+        config.setIncrementalVariableSync(false);
+        load(list("1000", entry("Presence", "1")));
+        load(list("1060", entry("Presence", "0")));
+
+        assertEquals(Arrays.asList("getAllVariables", "getAllVariables"), gateway.scriptNames);
+        assertEquals(0, getValue("Presence"));
+    }
+
+    /**
+     * Loads the variables like the gateway does, after the given result is queued.
+     */
+    private void load(String result) throws IOException {
+        gateway.results.add(result);
+        channel.getDatapoints().clear();
+        gateway.loadVariables(channel);
+        assertTrue("Not all results have been sent", gateway.results.isEmpty());
+    }
+
+    private HmDatapoint getDatapoint(String name) {
+        for (HmDatapoint dp : channel.getDatapoints().values()) {
+            if (name.equals(dp.getName())) {
+                return dp;
+            }
+        }
+        return null;
+    }
+
+    private Object getValue(String name) {
+        HmDatapoint dp = getDatapoint(name);
+        assertNotNull("Variable " + name + " not found", dp);
+        return dp.getValue();
+    }
+
+    private static String list(String timestamp, String... entries) {
+        StringBuilder sb = new StringBuilder("<?xml version=\"1.0\" encoding=\"ISO-8859-1\" standalone=\"yes\"?>\n");
+        sb.append("<list timestamp='").append(timestamp).append("'>\n");
+        for (String entry : entries) {
+            sb.append(entry);
+        }
+        return sb.append("</list>\n").toString();
+    }
+
+    private static String entry(String name, String value) {
+        return "  <entry name='" + name + "' description='' info='" + name + "' value='" + value
+                + "' valueType='STRING' unit='' readOnly='false' />\n";
+    }
+
+    private static String unchanged(String name) {
+        return "  <entry name='" + name + "' unchanged='true' />\n";
+    }
+
+    /**
+     * A CCU gateway, which returns the queued script results and records the sent scripts.
+     */
+    private static class TestGateway extends CcuGateway {
+        private final TclScriptDataListReader reader = new TclScriptDataListReader();
+        private final LinkedList<String> results = new LinkedList<String>();
+        private final List<String> scriptNames = new ArrayList<String>();
+        private final List<String> lastSyncs = new ArrayList<String>();
+        private long time = START;
+
+        TestGateway(HomematicConfig config) {
+            super("ccu", config, null);
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        <T> T sendScriptByName(String scriptName, Class<T> clazz, String[] variableNames, String[] values)
+                throws IOException {
+            Map<String, String> variables = new HashMap<String, String>();
+            for (int i = 0; i < variableNames.length; i++) {
+                variables.put(variableNames[i], values[i]);
+            }
+            scriptNames.add(scriptName);
+            lastSyncs.add(variables.get("last_sync"));
+            try {
+                return (T) reader.read(new StringReader(results.remove()));
+            } catch (XMLStreamException ex) {
+                throw new IOException(ex.getMessage(), ex);
+            }
+        }
+
+        @Override
+        long currentTimeMillis() {
+            return time;
+        }
+    }
+}
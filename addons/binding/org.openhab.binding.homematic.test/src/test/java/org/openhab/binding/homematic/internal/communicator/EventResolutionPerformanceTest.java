@@ -0,0 +1,167 @@
+/**
+ * Copyright (c) 2010-2017 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.binding.homematic.internal.communicator;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.net.ServerSocket;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.io.FileUtils;
+import org.eclipse.smarthome.config.core.ConfigConstants;
+import org.eclipse.smarthome.config.core.Configuration;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.openhab.binding.homematic.internal.common.HomematicConfig;
+import org.openhab.binding.homematic.internal.communicator.GatewaySimulator.Mode;
+import org.openhab.binding.homematic.internal.communicator.HomematicGatewayPerformanceTest.RecordingListener;
+import org.openhab.binding.homematic.internal.communicator.parser.EventParser;
+import org.openhab.binding.homematic.internal.communicator.server.RpcEventListener;
+import org.openhab.binding.homematic.internal.model.HmDatapointInfo;
+import org.openhab.binding.homematic.test.PerformanceTests;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Measures the resolution of events to datapoints, from the parsing of the event arguments to the state update of the
+ * gateway listener, with several callback threads like the BIN-RPC server uses. The devices are loaded from the
+ * {@link GatewaySimulator}. The load can be changed with the system properties homematic.resolution.devices,
+ * homematic.resolution.threads, homematic.resolution.events and homematic.resolution.minEventsPerSecond.
+ *
+ * @author agent - Initial contribution
+ */
+@Category(PerformanceTests.class)
+public class EventResolutionPerformanceTest {
+    private final Logger logger = LoggerFactory.getLogger(EventResolutionPerformanceTest.class);
+    private static final int DEVICE_COUNT = Integer.getInteger("homematic.resolution.devices", 250);
+    private static final int THREAD_COUNT = Integer.getInteger("homematic.resolution.threads", 4);
+    private static final int EVENT_COUNT = Integer.getInteger("homematic.resolution.events", 100000);
+    private static final int MIN_EVENTS_PER_SECOND = Integer.getInteger("homematic.resolution.minEventsPerSecond",
+            5000);
+    private static final int RUNS = 3;
+    private static final long TIMEOUT_SECONDS = 60;
+
+    private File userDataFolder;
+    private String previousUserDataFolder;
+    private GatewaySimulator simulator;
+    private HomematicGateway gateway;
+    private ExecutorService callbackThreads;
+
+    @Before
+    public void setUp() throws IOException {
+        userDataFolder = Files.createTempDirectory("homematic-test").toFile();
+        previousUserDataFolder = System.getProperty(ConfigConstants.USERDATA_DIR_PROG_ARGUMENT);
+        System.setProperty(ConfigConstants.USERDATA_DIR_PROG_ARGUMENT, userDataFolder.getAbsolutePath());
+        callbackThreads = Executors.newFixedThreadPool(THREAD_COUNT);
+    }
+
+    @After
+    public void tearDown() {
+        callbackThreads.shutdownNow();
+        if (gateway != null) {
+            gateway.dispose();
+        }
+        if (simulator != null) {
+            simulator.stop();
+        }
+        if (previousUserDataFolder == null) {
+            System.clearProperty(ConfigConstants.USERDATA_DIR_PROG_ARGUMENT);
+        } else {
+            System.setProperty(ConfigConstants.USERDATA_DIR_PROG_ARGUMENT, previousUserDataFolder);
+        }
+        FileUtils.deleteQuietly(userDataFolder);
+    }
+
+    @Test
+    public void resolveEventsFromSeveralCallbackThreads() throws Exception {
+        simulator = new GatewaySimulator(Mode.HOMEGEAR, DEVICE_COUNT);
+        simulator.start();
+        RecordingListener listener = new RecordingListener();
+        gateway = HomematicGatewayFactory.createGateway("simresolution", createConfig(simulator.getPort()), listener);
+        gateway.initialize();
+        gateway.loadAllDeviceMetadata();
+        assertEquals(DEVICE_COUNT, listener.getLoadedDeviceCount());
+
+        // the first run warms up the JIT
+        runEvents((RpcEventListener) gateway);
+        long bestNanos = Long.MAX_VALUE;
+        for (int i = 0; i < RUNS; i++) {
+            bestNanos = Math.min(bestNanos, runEvents((RpcEventListener) gateway));
+        }
+        assertEquals((RUNS + 1) * EVENT_COUNT, listener.getStateUpdateCount());
+
+        double eventsPerSecond = EVENT_COUNT * 1000000000.0 / bestNanos;
+        logger.info("Resolved {} events of {} devices with {} threads in {} ms ({} events/s)", EVENT_COUNT,
+                DEVICE_COUNT, THREAD_COUNT, TimeUnit.NANOSECONDS.toMillis(bestNanos), Math.round(eventsPerSecond));
+        assertTrue("Only " + Math.round(eventsPerSecond) + " events/s", eventsPerSecond >= MIN_EVENTS_PER_SECOND);
+    }
+
+    /**
+     * Passes the events to the gateway from all callback threads, returns the needed time in nanoseconds.
+     */
+    private long runEvents(final RpcEventListener eventListener) throws Exception {
+        List<Future<Void>> results = new ArrayList<Future<Void>>();
+        long start = System.nanoTime();
+        for (int thread = 0; thread < THREAD_COUNT; thread++) {
+            final int firstEvent = thread;
+            results.add(callbackThreads.submit(new Callable<Void>() {
+
+                @Override
+                public Void call() throws Exception {
+                    EventParser eventParser = new EventParser();
+                    for (int i = firstEvent; i < EVENT_COUNT; i += THREAD_COUNT) {
+                        Object[] event = new Object[] { "simresolution-BidCos-RF",
+                                simulator.getDeviceAddress(i % DEVICE_COUNT) + ":1", "STATE", i % 2 == 0 };
+                        HmDatapointInfo dpInfo = eventParser.parse(event);
+                        eventListener.eventReceived(dpInfo, eventParser.getValue());
+                    }
+                    return null;
+                }
+            }));
+        }
+        for (Future<Void> result : results) {
+            result.get(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        }
+        return System.nanoTime() - start;
+    }
+
+    private HomematicConfig createConfig(int gatewayPort) throws IOException {
+        Map<String, Object> properties = new HashMap<String, Object>();
+        properties.put("gatewayAddress", "127.0.0.1");
+        properties.put("callbackHost", "127.0.0.1");
+        properties.put("rfPort", new BigDecimal(gatewayPort));
+        properties.put("xmlCallbackPort", new BigDecimal(getFreePort()));
+        properties.put("binCallbackPort", new BigDecimal(getFreePort()));
+        properties.put("timeout", new BigDecimal(5));
+        return new Configuration(properties).as(HomematicConfig.class);
+    }
+
+    private int getFreePort() throws IOException {
+        ServerSocket socket = new ServerSocket(0);
+        try {
+            return socket.getLocalPort();
+        } finally {
+            socket.close();
+        }
+    }
+}
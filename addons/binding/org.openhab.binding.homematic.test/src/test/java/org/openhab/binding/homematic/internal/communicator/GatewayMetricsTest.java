@@ -0,0 +1,59 @@
+/**
+ * Copyright (c) 2010-2017 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.binding.homematic.internal.communicator;
+
+import static org.junit.Assert.*;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+/**
+ * Tests for the intervals of the {@link GatewayMetrics}.
+ *
+ * @author agent - Initial contribution
+ */
+public class GatewayMetricsTest {
+
+    @Test
+    public void histogramsCoverTheLastCompletedInterval() {
+        GatewayMetrics metrics = new GatewayMetrics();
+        metrics.dispatched(TimeUnit.MILLISECONDS.toNanos(100));
+        metrics.rpcCompleted("getValue", TimeUnit.MILLISECONDS.toNanos(20));
+        assertEquals(0, metrics.getDispatchLatency().getCount());
+
+        metrics.completeInterval();
+        assertEquals(1, metrics.getDispatchLatency().getCount());
+        assertEquals(100.0, metrics.getDispatchLatency().getMaxMillis(), 0.001);
+        assertEquals(1, metrics.getRpcRoundTripTime().getCount());
+        assertEquals(1, metrics.getRpcRoundTripTimePerMethod().get("getValue").getCount());
+
+        // a slow event of an earlier interval does not stay in the percentiles
+        metrics.dispatched(TimeUnit.MILLISECONDS.toNanos(1));
+        metrics.completeInterval();
+        assertEquals(1, metrics.getDispatchLatency().getCount());
+        assertTrue(metrics.getDispatchLatency().getPercentileMillis(95) <= 1.0);
+        assertEquals(0, metrics.getRpcRoundTripTime().getCount());
+        assertNull(metrics.getRpcRoundTripTimePerMethod().get("getValue"));
+    }
+
+    @Test
+    public void eventCountersAreCumulative() {
+        GatewayMetrics metrics = new GatewayMetrics();
+        metrics.echoEventSuppressed();
+        metrics.eventReceived("RF-ccu");
+        metrics.completeInterval();
+        metrics.echoEventSuppressed();
+        metrics.eventReceived("RF-ccu");
+        metrics.completeInterval();
+
+        assertEquals(2, metrics.getEchoEvents());
+        assertEquals(Long.valueOf(2), metrics.getEventsPerInterface().get("RF"));
+    }
+}
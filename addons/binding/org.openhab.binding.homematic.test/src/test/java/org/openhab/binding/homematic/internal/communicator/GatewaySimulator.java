@@ -0,0 +1,466 @@
+/**
+ * Copyright (c) 2010-2017 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.binding.homematic.internal.communicator;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.URI;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.commons.io.IOUtils;
+import org.openhab.binding.homematic.internal.communicator.message.BinRpcMessage;
+import org.openhab.binding.homematic.internal.communicator.message.RpcRequest;
+import org.openhab.binding.homematic.internal.communicator.message.XmlRpcRequest;
+import org.openhab.binding.homematic.internal.communicator.message.XmlRpcResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Local stand-in for a Homematic gateway. It answers the BIN-RPC and XML-RPC requests of the binding on one port,
+ * like Homegear does, and sends events to the callback registered with init. In {@link Mode#HOMEGEAR} the binding
+ * detects a Homegear gateway and uses BIN-RPC, in {@link Mode#DEFAULT} it uses XML-RPC only.
+ *
+ * Each simulated device is a switch actuator with a maintenance channel 0 (UNREACH) and a switch channel 1 (STATE).
+ *
+ * @author agent - Initial contribution
+ */
+public class GatewaySimulator {
+    private final Logger logger = LoggerFactory.getLogger(GatewaySimulator.class);
+    private static final String ENCODING = "ISO-8859-1";
+    private static final String DEVICE_TYPE = "HM-LC-Sw1-Pl-2";
+
+    public enum Mode {
+        HOMEGEAR,
+        DEFAULT;
+    }
+
+    private Mode mode;
+    private int deviceCount;
+    private ServerSocket serverSocket;
+    private ExecutorService connectionExecutor = Executors.newCachedThreadPool();
+    private ExecutorService eventExecutor = Executors.newSingleThreadExecutor();
+    private volatile boolean running;
+
+    private Map<String, String> callbacks = new ConcurrentHashMap<String, String>();
+    private CountDownLatch callbackLatch = new CountDownLatch(1);
+    private Map<String, Object> values = new ConcurrentHashMap<String, Object>();
+    private ConcurrentMap<String, AtomicInteger> requestCounts = new ConcurrentHashMap<String, AtomicInteger>();
+    private Socket eventSocket;
+
+    public GatewaySimulator(Mode mode, int deviceCount) {
+        this.mode = mode;
+        this.deviceCount = deviceCount;
+    }
+
+    /**
+     * Starts listening on a free port of the loopback interface.
+     */
+    public void start() throws IOException {
+        serverSocket = new ServerSocket(0, 50, InetAddress.getLoopbackAddress());
+        running = true;
+        connectionExecutor.execute(new Runnable() {
+
+            @Override
+            public void run() {
+                while (running) {
+                    try {
+                        final Socket socket = serverSocket.accept();
+                        connectionExecutor.execute(new Runnable() {
+
+                            @Override
+                            public void run() {
+                                handleConnection(socket);
+                            }
+                        });
+                    } catch (IOException ex) {
+                        if (running) {
+                            logger.warn("Simulator accept failed: {}", ex.getMessage());
+                        }
+                    }
+                }
+            }
+        });
+    }
+
+    /**
+     * Stops the simulator and closes all connections.
+     */
+    public void stop() {
+        running = false;
+        IOUtils.closeQuietly(serverSocket);
+        connectionExecutor.shutdownNow();
+        eventExecutor.shutdownNow();
+        synchronized (this) {
+            IOUtils.closeQuietly(eventSocket);
+        }
+    }
+
+    /**
+     * Returns the port of the simulator.
+     */
+    public int getPort() {
+        return serverSocket.getLocalPort();
+    }
+
+    /**
+     * Returns the address of the simulated device with the given index.
+     */
+    public String getDeviceAddress(int index) {
+        return String.format("SIM%07d", index);
+    }
+
+    /**
+     * Returns the number of requests received for the given method.
+     */
+    public int getRequestCount(String methodName) {
+        AtomicInteger count = requestCounts.get(methodName);
+        return count == null ? 0 : count.get();
+    }
+
+    /**
+     * Waits until the binding has registered its callback with init.
+     */
+    public boolean waitForCallback(long timeout, TimeUnit unit) throws InterruptedException {
+        return callbackLatch.await(timeout, unit);
+    }
+
+    /**
+     * Sends STATE events for the switch channels of all devices round robin, limited to the given rate. A rate of
+     * zero sends the events as fast as the binding accepts them.
+     */
+    public void sendEvents(int count, int eventsPerSecond) throws IOException, InterruptedException {
+        long start = System.nanoTime();
+        for (int i = 0; i < count; i++) {
+            if (eventsPerSecond > 0) {
+                long due = start + TimeUnit.SECONDS.toNanos(i) / eventsPerSecond;
+                long wait = due - System.nanoTime();
+                if (wait > 0) {
+                    TimeUnit.NANOSECONDS.sleep(wait);
+                }
+            }
+            String address = getDeviceAddress(i % deviceCount) + ":1";
+            sendEvent(address, "STATE", i % 2 == 0);
+        }
+    }
+
+    /**
+     * Sends an event to all registered callbacks.
+     */
+    public synchronized void sendEvent(String address, String datapointName, Object value) throws IOException {
+        values.put(address + "." + datapointName, value);
+        for (Map.Entry<String, String> callback : callbacks.entrySet()) {
+            URI uri = URI.create(callback.getValue());
+            if ("binary".equals(uri.getScheme())) {
+                BinRpcMessage request = new BinRpcMessage("event", ENCODING);
+                addEventArgs(request, callback.getKey(), address, datapointName, value);
+                if (eventSocket == null || eventSocket.isClosed()) {
+                    eventSocket = new Socket(uri.getHost(), uri.getPort());
+                }
+                try {
+                    eventSocket.getOutputStream().write(request.createMessage());
+                    new BinRpcMessage(eventSocket.getInputStream(), false, ENCODING);
+                } catch (IOException ex) {
+                    IOUtils.closeQuietly(eventSocket);
+                    eventSocket = null;
+                    throw ex;
+                }
+            } else {
+                XmlRpcRequest request = new XmlRpcRequest("event");
+                addEventArgs(request, callback.getKey(), address, datapointName, value);
+                HttpURLConnection connection = (HttpURLConnection) new URL(callback.getValue()).openConnection();
+                connection.setDoOutput(true);
+                connection.setRequestMethod("POST");
+                connection.setRequestProperty("Content-Type", "text/xml");
+                OutputStream os = connection.getOutputStream();
+                os.write(request.createMessage().getBytes(ENCODING));
+                os.close();
+                IOUtils.toByteArray(connection.getInputStream());
+                connection.disconnect();
+            }
+        }
+    }
+
+    private void addEventArgs(RpcRequest<?> request, String interfaceId, String address, String datapointName,
+            Object value) {
+        request.addArg(interfaceId);
+        request.addArg(address);
+        request.addArg(datapointName);
+        request.addArg(value);
+    }
+
+    /**
+     * Handles all requests of a connection, the protocol is detected by the first byte.
+     */
+    private void handleConnection(Socket socket) {
+        try {
+            InputStream is = new BufferedInputStream(socket.getInputStream());
+            OutputStream os = socket.getOutputStream();
+            while (running) {
+                is.mark(1);
+                int firstByte = is.read();
+                if (firstByte == -1) {
+                    break;
+                }
+                is.reset();
+                if (firstByte == 'B') {
+                    handleBinRpc(is, os);
+                } else {
+                    handleXmlRpc(is, os);
+                }
+            }
+        } catch (Exception ex) {
+            logger.debug("Simulator connection closed: {}", ex.getMessage());
+        } finally {
+            IOUtils.closeQuietly(socket);
+        }
+    }
+
+    private void handleBinRpc(InputStream is, OutputStream os) throws IOException {
+        BinRpcMessage request = new BinRpcMessage(is, true, ENCODING);
+        BinRpcMessage response = new BinRpcMessage(null, BinRpcMessage.TYPE.RESPONSE, ENCODING);
+        response.addArg(toBinRpcValue(handleMethodCall(request.getMethodName(), request.getResponseData())));
+        os.write(response.createMessage());
+        os.flush();
+    }
+
+    /**
+     * Converts arrays to lists, BIN-RPC messages only encode lists.
+     */
+    private Object toBinRpcValue(Object value) {
+        if (value instanceof Object[]) {
+            List<Object> list = new ArrayList<Object>();
+            for (Object element : (Object[]) value) {
+                list.add(toBinRpcValue(element));
+            }
+            return list;
+        } else if (value instanceof Map<?, ?>) {
+            Map<Object, Object> map = new HashMap<Object, Object>();
+            for (Map.Entry<?, ?> entry : ((Map<?, ?>) value).entrySet()) {
+                map.put(entry.getKey(), toBinRpcValue(entry.getValue()));
+            }
+            return map;
+        }
+        return value;
+    }
+
+    private void handleXmlRpc(InputStream is, OutputStream os) throws Exception {
+        int contentLength = 0;
+        String line;
+        while (!(line = readLine(is)).isEmpty()) {
+            if (line.toLowerCase().startsWith("content-length:")) {
+                contentLength = Integer.parseInt(line.substring(15).trim());
+            }
+        }
+        byte[] body = new byte[contentLength];
+        IOUtils.readFully(is, body);
+
+        XmlRpcResponse request = new XmlRpcResponse(new ByteArrayInputStream(body), ENCODING);
+        XmlRpcRequest response = new XmlRpcRequest(null, XmlRpcRequest.TYPE.RESPONSE);
+        response.addArg(handleMethodCall(request.getMethodName(), request.getResponseData()));
+        byte[] responseBody = response.createMessage().getBytes(ENCODING);
+
+        String header = "HTTP/1.1 200 OK\r\nContent-Type: text/xml\r\nContent-Length: " + responseBody.length
+                + "\r\n\r\n";
+        os.write(header.getBytes(ENCODING));
+        os.write(responseBody);
+        os.flush();
+    }
+
+    private String readLine(InputStream is) throws IOException {
+        ByteArrayOutputStream line = new ByteArrayOutputStream();
+        int b;
+        while ((b = is.read()) != '\n') {
+            if (b == -1) {
+                throw new IOException("Connection closed");
+            }
+            if (b != '\r') {
+                line.write(b);
+            }
+        }
+        return line.toString(ENCODING);
+    }
+
+    /**
+     * Returns the result of a RPC method call.
+     */
+    private Object handleMethodCall(String methodName, Object[] params) {
+        AtomicInteger count = requestCounts.get(methodName);
+        if (count == null) {
+            AtomicInteger newCount = new AtomicInteger();
+            count = requestCounts.putIfAbsent(methodName, newCount);
+            if (count == null) {
+                count = newCount;
+            }
+        }
+        count.incrementAndGet();
+
+        switch (methodName) {
+            case "getDeviceDescription":
+                Map<String, Object> description = new HashMap<String, Object>();
+                description.put("TYPE", mode == Mode.HOMEGEAR ? "Homegear" : "HM-CFG-LAN");
+                description.put("FIRMWARE", "1.0.0");
+                description.put("INTERFACE", getDeviceAddress(0));
+                return description;
+            case "listBidcosInterfaces":
+                Map<String, Object> bidcosInterface = new HashMap<String, Object>();
+                bidcosInterface.put("ADDRESS", getDeviceAddress(0));
+                bidcosInterface.put("TYPE", "HM-CFG-LAN");
+                bidcosInterface.put("FIRMWARE_VERSION", "1.0.0");
+                bidcosInterface.put("DEFAULT", Boolean.TRUE);
+                return new Object[] { bidcosInterface };
+            case "init":
+                return handleInit(params);
+            case "listDevices":
+                return listDevices();
+            case "getDeviceInfo":
+                List<Object> names = new ArrayList<Object>();
+                for (int i = 0; i < deviceCount; i++) {
+                    Map<String, Object> info = new HashMap<String, Object>();
+                    info.put("ID", i);
+                    info.put("NAME", "Simulated switch " + i);
+                    names.add(info);
+                }
+                return names.toArray();
+            case "getAllSystemVariables":
+                Map<String, Object> variables = new HashMap<String, Object>();
+                variables.put("SimulatedVariable", 1);
+                return variables;
+            case "getAllScripts":
+                return new Object[] { "SimulatedScript" };
+            case "getParamsetDescription":
+                return getParamsetDescription(String.valueOf(params[0]), String.valueOf(params[1]));
+            case "getParamset":
+                return getParamset(String.valueOf(params[0]), String.valueOf(params[1]));
+            case "getValue":
+                return getValue(params[0] + "." + params[1]);
+            case "setValue":
+                final String address = String.valueOf(params[0]);
+                final String datapointName = String.valueOf(params[1]);
+                final Object value = params[2];
+                values.put(address + "." + datapointName, value);
+                // the gateway confirms a new value with an event
+                eventExecutor.execute(new Runnable() {
+
+                    @Override
+                    public void run() {
+                        try {
+                            sendEvent(address, datapointName, value);
+                        } catch (IOException ex) {
+                            logger.warn("Simulator can't send event: {}", ex.getMessage());
+                        }
+                    }
+                });
+                return "";
+            case "system.listMethods":
+                return new Object[] { "system.listMethods", "system.multicall", "init", "listDevices",
+                        "getParamsetDescription", "getParamset", "getValue", "setValue" };
+            case "system.multicall":
+                List<Object> results = new ArrayList<Object>();
+                for (Object call : (Object[]) params[0]) {
+                    Map<?, ?> callMap = (Map<?, ?>) call;
+                    String callMethodName = String.valueOf(callMap.get("methodName"));
+                    results.add(new Object[] { handleMethodCall(callMethodName, (Object[]) callMap.get("params")) });
+                }
+                return results.toArray();
+            default:
+                logger.warn("Simulator received unsupported method '{}'", methodName);
+                Map<String, Object> fault = new HashMap<String, Object>();
+                fault.put("faultCode", -1);
+                fault.put("faultString", "Failure");
+                return fault;
+        }
+    }
+
+    private Object handleInit(Object[] params) {
+        String url = String.valueOf(params[0]);
+        if (params.length > 1 && !String.valueOf(params[1]).isEmpty()) {
+            callbacks.put(String.valueOf(params[1]), url);
+            callbackLatch.countDown();
+        } else {
+            callbacks.values().remove(url);
+        }
+        return "";
+    }
+
+    private Object[] listDevices() {
+        List<Object> devices = new ArrayList<Object>();
+        for (int i = 0; i < deviceCount; i++) {
+            String address = getDeviceAddress(i);
+            Map<String, Object> device = new HashMap<String, Object>();
+            device.put("ADDRESS", address);
+            device.put("TYPE", DEVICE_TYPE);
+            device.put("ID", i);
+            device.put("FIRMWARE", "2.5");
+            devices.add(device);
+            devices.add(createChannel(address, 0, "MAINTENANCE"));
+            devices.add(createChannel(address, 1, "SWITCH"));
+        }
+        return devices.toArray();
+    }
+
+    private Map<String, Object> createChannel(String deviceAddress, int index, String type) {
+        Map<String, Object> channel = new HashMap<String, Object>();
+        channel.put("ADDRESS", deviceAddress + ":" + index);
+        channel.put("PARENT", deviceAddress);
+        channel.put("INDEX", index);
+        channel.put("TYPE", type);
+        return channel;
+    }
+
+    private Map<String, Object> getParamsetDescription(String address, String paramsetKey) {
+        Map<String, Object> datapoints = new HashMap<String, Object>();
+        if ("VALUES".equals(paramsetKey)) {
+            String datapointName = getDatapointName(address);
+            Map<String, Object> description = new HashMap<String, Object>();
+            description.put("TYPE", "BOOL");
+            description.put("OPERATIONS", "STATE".equals(datapointName) ? 7 : 5);
+            description.put("DEFAULT", Boolean.FALSE);
+            description.put("UNIT", "");
+            datapoints.put(datapointName, description);
+        }
+        return datapoints;
+    }
+
+    private Map<String, Object> getParamset(String address, String paramsetKey) {
+        Map<String, Object> paramset = new HashMap<String, Object>();
+        if ("VALUES".equals(paramsetKey)) {
+            String datapointName = getDatapointName(address);
+            paramset.put(datapointName, getValue(address + "." + datapointName));
+        }
+        return paramset;
+    }
+
+    private String getDatapointName(String address) {
+        return address.endsWith(":0") ? "UNREACH" : "STATE";
+    }
+
+    private Object getValue(String key) {
+        Object value = values.get(key);
+        return value == null ? Boolean.FALSE : value;
+    }
+}
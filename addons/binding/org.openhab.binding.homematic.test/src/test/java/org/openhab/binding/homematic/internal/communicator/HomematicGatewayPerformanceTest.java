@@ -0,0 +1,288 @@
+/**
+ * Copyright (c) 2010-2017 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.binding.homematic.internal.communicator;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.net.ServerSocket;
+import java.nio.file.Files;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.commons.io.FileUtils;
+import org.eclipse.smarthome.config.core.ConfigConstants;
+import org.eclipse.smarthome.config.core.Configuration;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.openhab.binding.homematic.internal.common.HomematicConfig;
+import org.openhab.binding.homematic.internal.communicator.GatewaySimulator.Mode;
+import org.openhab.binding.homematic.internal.misc.LatencyHistogram;
+import org.openhab.binding.homematic.internal.model.HmDatapoint;
+import org.openhab.binding.homematic.internal.model.HmDatapointConfig;
+import org.openhab.binding.homematic.internal.model.HmDatapointInfo;
+import org.openhab.binding.homematic.internal.model.HmDevice;
+import org.openhab.binding.homematic.internal.model.HmParamsetType;
+import org.openhab.binding.homematic.test.PerformanceTests;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * End-to-end throughput test of the gateway against the {@link GatewaySimulator}. It measures the startup time with
+ * an empty and a filled metadata cache, the event throughput and the command latency, logs the results and checks
+ * them against thresholds. The startup with the metadata cache must be faster than without it.
+ *
+ * The load can be changed with the system properties homematic.simulator.devices, homematic.simulator.events,
+ * homematic.simulator.eventRate (events per second, 0 = unlimited) and homematic.simulator.commands, the thresholds
+ * with homematic.simulator.maxStartupMillis and per mode with homematic.simulator.&lt;mode&gt;.minEventsPerSecond and
+ * homematic.simulator.&lt;mode&gt;.maxCommandLatencyMillis (95th percentile), e.g.
+ * homematic.simulator.homegear.minEventsPerSecond. XML-RPC needs a HTTP request per event, so its thresholds are
+ * lower.
+ *
+ * @author agent - Initial contribution
+ */
+@Category(PerformanceTests.class)
+public class HomematicGatewayPerformanceTest {
+    private final Logger logger = LoggerFactory.getLogger(HomematicGatewayPerformanceTest.class);
+    private static final int DEVICE_COUNT = Integer.getInteger("homematic.simulator.devices", 50);
+    private static final int EVENT_COUNT = Integer.getInteger("homematic.simulator.events", 2000);
+    private static final int EVENT_RATE = Integer.getInteger("homematic.simulator.eventRate", 0);
+    private static final int COMMAND_COUNT = Integer.getInteger("homematic.simulator.commands", 200);
+    private static final int MAX_STARTUP_MILLIS = Integer.getInteger("homematic.simulator.maxStartupMillis", 10000);
+    private static final long TIMEOUT_SECONDS = 60;
+
+    private File userDataFolder;
+    private String previousUserDataFolder;
+    private GatewaySimulator simulator;
+    private HomematicGateway gateway;
+
+    @Before
+    public void setUp() throws IOException {
+        userDataFolder = Files.createTempDirectory("homematic-test").toFile();
+        previousUserDataFolder = System.getProperty(ConfigConstants.USERDATA_DIR_PROG_ARGUMENT);
+        System.setProperty(ConfigConstants.USERDATA_DIR_PROG_ARGUMENT, userDataFolder.getAbsolutePath());
+    }
+
+    @After
+    public void tearDown() {
+        if (gateway != null) {
+            gateway.dispose();
+        }
+        if (simulator != null) {
+            simulator.stop();
+        }
+        if (previousUserDataFolder == null) {
+            System.clearProperty(ConfigConstants.USERDATA_DIR_PROG_ARGUMENT);
+        } else {
+            System.setProperty(ConfigConstants.USERDATA_DIR_PROG_ARGUMENT, previousUserDataFolder);
+        }
+        FileUtils.deleteQuietly(userDataFolder);
+    }
+
+    @Test
+    public void homegearGatewayWithBinRpc() throws Exception {
+        runBenchmark(Mode.HOMEGEAR);
+    }
+
+    @Test
+    public void defaultGatewayWithXmlRpc() throws Exception {
+        runBenchmark(Mode.DEFAULT);
+    }
+
+    private void runBenchmark(Mode mode) throws Exception {
+        simulator = new GatewaySimulator(mode, DEVICE_COUNT);
+        simulator.start();
+        HomematicConfig config = createConfig(simulator.getPort());
+        String id = "sim" + mode.toString().toLowerCase();
+
+        // startup without metadata cache
+        RecordingListener listener = new RecordingListener();
+        long coldStartupNanos = startGateway(id, config, listener);
+        assertEquals(DEVICE_COUNT, listener.getLoadedDeviceCount());
+        int paramsetDescriptionRequests = simulator.getRequestCount("getParamsetDescription");
+        gateway.dispose();
+
+        // startup with metadata cache
+        listener = new RecordingListener();
+        long warmStartupNanos = startGateway(id, config, listener);
+        assertEquals(DEVICE_COUNT, listener.getLoadedDeviceCount());
+        assertEquals(paramsetDescriptionRequests, simulator.getRequestCount("getParamsetDescription"));
+        assertTrue("Binding has not registered its callback",
+                simulator.waitForCallback(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+
+        // event throughput
+        int updatesBefore = listener.getStateUpdateCount();
+        long start = System.nanoTime();
+        simulator.sendEvents(EVENT_COUNT, EVENT_RATE);
+        assertTrue("Not all events have been received",
+                listener.awaitStateUpdates(updatesBefore + EVENT_COUNT, TIMEOUT_SECONDS, TimeUnit.SECONDS));
+        long eventNanos = System.nanoTime() - start;
+
+        // command latency, from sending the command until the state update of the confirming event
+        LatencyHistogram commandLatency = new LatencyHistogram();
+        for (int i = 0; i < COMMAND_COUNT; i++) {
+            HmDatapoint dp = gateway.getDatapoint(new HmDatapointInfo(simulator.getDeviceAddress(i % DEVICE_COUNT),
+                    HmParamsetType.VALUES, 1, "STATE"));
+            CountDownLatch latch = listener.expectStateUpdate(dp);
+            start = System.nanoTime();
+            gateway.sendDatapoint(dp, new HmDatapointConfig(), i % 2 == 0);
+            assertTrue("Command has not been confirmed", latch.await(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+            commandLatency.record(System.nanoTime() - start);
+        }
+        assertEquals(COMMAND_COUNT, simulator.getRequestCount("setValue"));
+
+        logger.info("{} gateway with {} devices: cold startup {} ms, warm startup {} ms", mode, DEVICE_COUNT,
+                TimeUnit.NANOSECONDS.toMillis(coldStartupNanos), TimeUnit.NANOSECONDS.toMillis(warmStartupNanos));
+        logger.info("{} gateway: {} events in {} ms ({} events/s)", mode, EVENT_COUNT,
+                TimeUnit.NANOSECONDS.toMillis(eventNanos), Math.round(EVENT_COUNT * 1000000000.0 / eventNanos));
+        logger.info("{} gateway: command latency {}", mode, commandLatency);
+        logger.info("{} gateway: {}", mode, gateway.getMetrics());
+
+        assertTrue("Cold startup took " + TimeUnit.NANOSECONDS.toMillis(coldStartupNanos) + " ms",
+                TimeUnit.NANOSECONDS.toMillis(coldStartupNanos) <= MAX_STARTUP_MILLIS);
+        assertTrue("Startup with metadata cache is not faster", warmStartupNanos < coldStartupNanos);
+        if (EVENT_RATE == 0) {
+            double eventsPerSecond = EVENT_COUNT * 1000000000.0 / eventNanos;
+            assertTrue("Only " + Math.round(eventsPerSecond) + " events/s",
+                    eventsPerSecond >= getThreshold(mode, "minEventsPerSecond", 2000, 200));
+        }
+        assertTrue("Command latency " + commandLatency,
+                commandLatency.getPercentileMillis(95) <= getThreshold(mode, "maxCommandLatencyMillis", 50, 200));
+    }
+
+    /**
+     * Returns the threshold of the mode from the system properties or its default.
+     */
+    private int getThreshold(Mode mode, String name, int homegearDefault, int defaultModeDefault) {
+        return Integer.getInteger("homematic.simulator." + mode.toString().toLowerCase() + "." + name,
+                mode == Mode.HOMEGEAR ? homegearDefault : defaultModeDefault);
+    }
+
+    /**
+     * Creates, initializes and loads the gateway, returns the needed time in nanoseconds.
+     */
+    private long startGateway(String id, HomematicConfig config, RecordingListener listener) throws IOException {
+        long start = System.nanoTime();
+        gateway = HomematicGatewayFactory.createGateway(id, config, listener);
+        gateway.initialize();
+        gateway.loadAllDeviceMetadata();
+        return System.nanoTime() - start;
+    }
+
+    private HomematicConfig createConfig(int gatewayPort) throws IOException {
+        Map<String, Object> properties = new HashMap<String, Object>();
+        properties.put("gatewayAddress", "127.0.0.1");
+        properties.put("callbackHost", "127.0.0.1");
+        properties.put("rfPort", new BigDecimal(gatewayPort));
+        properties.put("xmlCallbackPort", new BigDecimal(getFreePort()));
+        properties.put("binCallbackPort", new BigDecimal(getFreePort()));
+        properties.put("timeout", new BigDecimal(5));
+        return new Configuration(properties).as(HomematicConfig.class);
+    }
+
+    private int getFreePort() throws IOException {
+        ServerSocket socket = new ServerSocket(0);
+        try {
+            return socket.getLocalPort();
+        } finally {
+            socket.close();
+        }
+    }
+
+    /**
+     * Listener which counts the loaded devices and state updates, like the bridge handler receives them.
+     */
+    static class RecordingListener implements HomematicGatewayListener {
+        private AtomicInteger loadedDevices = new AtomicInteger();
+        private AtomicInteger stateUpdates = new AtomicInteger();
+        private Map<HmDatapointInfo, CountDownLatch> expectedUpdates =
+                new ConcurrentHashMap<HmDatapointInfo, CountDownLatch>();
+
+        public int getLoadedDeviceCount() {
+            return loadedDevices.get();
+        }
+
+        public int getStateUpdateCount() {
+            return stateUpdates.get();
+        }
+
+        public CountDownLatch expectStateUpdate(HmDatapoint dp) {
+            CountDownLatch latch = new CountDownLatch(1);
+            expectedUpdates.put(new HmDatapointInfo(dp), latch);
+            return latch;
+        }
+
+        public boolean awaitStateUpdates(int count, long timeout, TimeUnit unit) throws InterruptedException {
+            long end = System.nanoTime() + unit.toNanos(timeout);
+            while (stateUpdates.get() < count) {
+                if (System.nanoTime() > end) {
+                    return false;
+                }
+                Thread.sleep(10);
+            }
+            return true;
+        }
+
+        @Override
+        public void onStateUpdated(HmDatapoint dp) {
+            stateUpdates.incrementAndGet();
+            CountDownLatch latch = expectedUpdates.remove(new HmDatapointInfo(dp));
+            if (latch != null) {
+                latch.countDown();
+            }
+        }
+
+        @Override
+        public void onDeviceLoaded(HmDevice device) {
+            if (!device.isGatewayExtras()) {
+                loadedDevices.incrementAndGet();
+            }
+        }
+
+        @Override
+        public void onNewDevice(HmDevice device) {
+        }
+
+        @Override
+        public void onDeviceDeleted(HmDevice device) {
+        }
+
+        @Override
+        public void reloadDeviceValues(HmDevice device) {
+        }
+
+        @Override
+        public void reloadAllDeviceValues() {
+        }
+
+        @Override
+        public void onServerRestart() {
+        }
+
+        @Override
+        public void onConnectionLost() {
+        }
+
+        @Override
+        public void onConnectionResumed() {
+        }
+
+        @Override
+        public void onMetricsUpdated(GatewayMetrics metrics) {
+        }
+    }
+}
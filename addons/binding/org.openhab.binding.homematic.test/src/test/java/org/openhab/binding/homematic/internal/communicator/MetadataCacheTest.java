@@ -0,0 +1,220 @@
+/**
+ * Copyright (c) 2010-2017 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.binding.homematic.internal.communicator;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.openhab.binding.homematic.internal.communicator.message.BinRpcMessage;
+import org.openhab.binding.homematic.internal.model.HmChannel;
+import org.openhab.binding.homematic.internal.model.HmDatapoint;
+import org.openhab.binding.homematic.internal.model.HmDevice;
+import org.openhab.binding.homematic.internal.model.HmParamsetType;
+import org.openhab.binding.homematic.internal.model.HmValueType;
+
+/**
+ * Tests for the persistent {@link MetadataCache}.
+ *
+ * @author agent - Initial contribution
+ */
+public class MetadataCacheTest {
+    private static final String DEVICE_TYPE = "HM-LC-Dim1T-Pl";
+    private static final String FIRMWARE = "2.9";
+
+    private File folder;
+    private File file;
+
+    @Before
+    public void setUp() throws IOException {
+        folder = File.createTempFile("homematic", "");
+        folder.delete();
+        folder.mkdirs();
+        file = new File(folder, "gateway-metadata.bin");
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        FileUtils.deleteDirectory(folder);
+    }
+
+    @Test
+    public void datapointsRoundTrip() {
+        HmChannel channel = createChannel(FIRMWARE);
+        MetadataCache cache = new MetadataCache(file);
+        cache.load();
+        assertNull(cache.get(channel));
+        cache.put(channel);
+        cache.save();
+        assertTrue(file.exists());
+
+        MetadataCache reloaded = new MetadataCache(file);
+        reloaded.load();
+        Collection<HmDatapoint> datapoints = reloaded.get(createChannel(FIRMWARE));
+        assertNotNull(datapoints);
+        assertEquals(2, datapoints.size());
+
+        Map<String, HmDatapoint> byName = new TreeMap<String, HmDatapoint>();
+        for (HmDatapoint dp : datapoints) {
+            assertNull(dp.getChannel());
+            byName.put(dp.getName(), dp);
+        }
+        Iterator<HmDatapoint> expected = createChannel(FIRMWARE).getDatapoints().values().iterator();
+        while (expected.hasNext()) {
+            HmDatapoint dp = expected.next();
+            if (!dp.isVirtual()) {
+                assertDatapoint(dp, byName.get(dp.getName()));
+            }
+        }
+    }
+
+    @Test
+    public void virtualDatapointsAreNotCached() {
+        MetadataCache cache = new MetadataCache(file);
+        cache.put(createChannel(FIRMWARE));
+        for (HmDatapoint dp : cache.get(createChannel(FIRMWARE))) {
+            assertFalse(dp.isVirtual());
+        }
+    }
+
+    @Test
+    public void otherFirmwareIsNotFound() {
+        MetadataCache cache = new MetadataCache(file);
+        cache.put(createChannel(FIRMWARE));
+        cache.save();
+
+        MetadataCache reloaded = new MetadataCache(file);
+        reloaded.load();
+        assertNotNull(reloaded.get(createChannel(FIRMWARE)));
+        assertNull(reloaded.get(createChannel("3.0")));
+    }
+
+    @Test
+    public void unknownFormatVersionIsIgnored() throws IOException {
+        MetadataCache cache = new MetadataCache(file);
+        cache.put(createChannel(FIRMWARE));
+        cache.save();
+
+        Map<String, Object> channels = new HashMap<String, Object>();
+        channels.put(MetadataCache.getChannelId(createChannel(FIRMWARE)), new ArrayList<Object>());
+        Map<String, Object> content = new HashMap<String, Object>();
+        content.put("version", 99);
+        content.put("channels", channels);
+        BinRpcMessage message = new BinRpcMessage(null, BinRpcMessage.TYPE.RESPONSE, "UTF-8");
+        message.addArg(content);
+        write(message.createMessage());
+
+        MetadataCache reloaded = new MetadataCache(file);
+        reloaded.load();
+        assertNull(reloaded.get(createChannel(FIRMWARE)));
+    }
+
+    @Test
+    public void corruptFileFallsBackToEmptyCache() throws IOException {
+        MetadataCache cache = new MetadataCache(file);
+        cache.put(createChannel(FIRMWARE));
+        cache.save();
+
+        byte[] content = FileUtils.readFileToByteArray(file);
+        byte[] truncated = new byte[content.length / 2];
+        System.arraycopy(content, 0, truncated, 0, truncated.length);
+        write(truncated);
+
+        MetadataCache reloaded = new MetadataCache(file);
+        reloaded.load();
+        assertNull(reloaded.get(createChannel(FIRMWARE)));
+
+        // the cache is usable and written again after the fallback
+        reloaded.put(createChannel(FIRMWARE));
+        reloaded.save();
+        MetadataCache repaired = new MetadataCache(file);
+        repaired.load();
+        assertNotNull(repaired.get(createChannel(FIRMWARE)));
+    }
+
+    @Test
+    public void garbageFileFallsBackToEmptyCache() throws IOException {
+        write("no BIN-RPC data".getBytes("UTF-8"));
+
+        MetadataCache cache = new MetadataCache(file);
+        cache.load();
+        assertNull(cache.get(createChannel(FIRMWARE)));
+    }
+
+    private void write(byte[] content) throws IOException {
+        FileOutputStream os = new FileOutputStream(file);
+        try {
+            os.write(content);
+        } finally {
+            IOUtils.closeQuietly(os);
+        }
+    }
+
+    private static HmChannel createChannel(String firmware) {
+        HmDevice device = new HmDevice();
+        device.setAddress("LEQ0000001");
+        device.setType(DEVICE_TYPE);
+        device.setFirmware(firmware);
+
+        HmChannel channel = new HmChannel();
+        channel.setNumber(1);
+        channel.setDevice(device);
+
+        HmDatapoint level = new HmDatapoint("LEVEL", "Level", HmValueType.FLOAT, 0.5, false, HmParamsetType.VALUES);
+        level.setMinValue(0.0);
+        level.setMaxValue(1.005);
+        level.setUnit("100%");
+        level.setDefaultValue(0.0);
+        level.setReadable(true);
+        channel.addDatapoint(level);
+
+        HmDatapoint direction = new HmDatapoint("DIRECTION", null, HmValueType.ENUM, 0, true,
+                HmParamsetType.VALUES);
+        direction.setMinValue(0);
+        direction.setMaxValue(3);
+        direction.setOptions(new String[] { "NONE", "UP", "DOWN", "UNDEFINED" });
+        direction.setReadable(true);
+        channel.addDatapoint(direction);
+
+        HmDatapoint virtual = new HmDatapoint("ON_TIME", null, HmValueType.FLOAT, null, false,
+                HmParamsetType.VALUES);
+        virtual.setVirtual(true);
+        channel.addDatapoint(virtual);
+        return channel;
+    }
+
+    private static void assertDatapoint(HmDatapoint expected, HmDatapoint actual) {
+        assertNotNull(expected.getName(), actual);
+        assertEquals(expected.getDescription(), actual.getDescription());
+        assertEquals(expected.getType(), actual.getType());
+        assertEquals(expected.getParamsetType(), actual.getParamsetType());
+        assertEquals(expected.getMinValue(), actual.getMinValue());
+        assertEquals(expected.getMaxValue(), actual.getMaxValue());
+        assertEquals(expected.getStep(), actual.getStep());
+        assertArrayEquals(expected.getOptions(), actual.getOptions());
+        assertEquals(expected.getUnit(), actual.getUnit());
+        assertEquals(expected.getInfo(), actual.getInfo());
+        assertEquals(expected.getDefaultValue(), actual.getDefaultValue());
+        assertEquals(expected.isReadOnly(), actual.isReadOnly());
+        assertEquals(expected.isReadable(), actual.isReadable());
+    }
+}
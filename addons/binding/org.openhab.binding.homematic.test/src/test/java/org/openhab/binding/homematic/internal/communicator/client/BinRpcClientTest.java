@@ -0,0 +1,161 @@
+/**
+ * Copyright (c) 2010-2017 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.binding.homematic.internal.communicator.client;
+
+import static org.junit.Assert.*;
+
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Test;
+import org.openhab.binding.homematic.internal.common.HomematicConfig;
+import org.openhab.binding.homematic.internal.communicator.GatewayMetrics;
+import org.openhab.binding.homematic.internal.communicator.message.BinRpcMessage;
+
+/**
+ * Tests that the {@link BinRpcClient} closes the socket of a broken response, a gateway on the loopback interface
+ * answers every request with the same response.
+ *
+ * @author agent - Initial contribution
+ */
+public class BinRpcClientTest {
+    private static final String ENCODING = "ISO-8859-1";
+    private static final int SOCKET_TIMEOUT = 10000;
+
+    private ServerSocket serverSocket;
+    private final AtomicInteger connections = new AtomicInteger();
+    private CountDownLatch closedConnections;
+
+    @After
+    public void tearDown() throws IOException {
+        if (serverSocket != null) {
+            serverSocket.close();
+        }
+    }
+
+    @Test
+    public void socketIsClosedIfTheResponseCanNotBeDecoded() throws Exception {
+        // an integer without its value
+        BinRpcClient client = startGateway(response(0, 0, 0, 1), 1);
+        try {
+            client.sendMessage(serverSocket.getLocalPort(), new BinRpcMessage("getValue", ENCODING));
+            fail("Expected a RuntimeException");
+        } catch (IOException ex) {
+            fail("Expected a RuntimeException, but got " + ex);
+        } catch (RuntimeException ex) {
+            // expected
+        }
+        assertTrue(closedConnections.await(SOCKET_TIMEOUT, TimeUnit.MILLISECONDS));
+        assertEquals(1, connections.get());
+    }
+
+    @Test
+    public void socketIsClosedIfTheResponseHasANegativeLength() throws Exception {
+        assertConnectionsClosed(startGateway(header(-1), 2));
+    }
+
+    @Test
+    public void socketIsClosedIfTheResponseIsTooLong() throws Exception {
+        assertConnectionsClosed(startGateway(header(BinRpcMessage.MAX_MESSAGE_LENGTH), 2));
+    }
+
+    /**
+     * Asserts that the request fails and that the sockets of the request and of its retry are closed.
+     */
+    private void assertConnectionsClosed(BinRpcClient client) throws Exception {
+        try {
+            client.sendMessage(serverSocket.getLocalPort(), new BinRpcMessage("getValue", ENCODING));
+            fail("Expected an IOException");
+        } catch (IOException ex) {
+            // expected
+        }
+        assertTrue(closedConnections.await(SOCKET_TIMEOUT, TimeUnit.MILLISECONDS));
+        assertEquals(2, connections.get());
+    }
+
+    /**
+     * Starts a gateway, which answers every request with the given response and waits for the given number of
+     * connections closed by the client.
+     */
+    private BinRpcClient startGateway(final byte[] response, int closedConnectionCount) throws IOException {
+        closedConnections = new CountDownLatch(closedConnectionCount);
+        serverSocket = new ServerSocket(0);
+        Thread acceptor = new Thread(new Runnable() {
+
+            @Override
+            public void run() {
+                try {
+                    while (true) {
+                        handleConnection(serverSocket.accept(), response);
+                    }
+                } catch (IOException ex) {
+                    // server socket closed
+                }
+            }
+        });
+        acceptor.setDaemon(true);
+        acceptor.start();
+
+        HomematicConfig config = new HomematicConfig();
+        config.setGatewayAddress("127.0.0.1");
+        config.setTimeout(SOCKET_TIMEOUT / 1000);
+        return new BinRpcClient(config, new GatewayMetrics());
+    }
+
+    private void handleConnection(final Socket socket, final byte[] response) {
+        connections.incrementAndGet();
+        Thread handler = new Thread(new Runnable() {
+
+            @Override
+            public void run() {
+                try {
+                    socket.setSoTimeout(SOCKET_TIMEOUT);
+                    DataInputStream in = new DataInputStream(socket.getInputStream());
+                    byte[] header = new byte[8];
+                    in.readFully(header);
+                    in.readFully(new byte[ByteBuffer.wrap(header).getInt(4)]);
+                    socket.getOutputStream().write(response);
+                    if (in.read() == -1) {
+                        closedConnections.countDown();
+                    }
+                } catch (IOException ex) {
+                    // connection reset or timed out, the client did not close it
+                } finally {
+                    try {
+                        socket.close();
+                    } catch (IOException ex) {
+                        // ignore
+                    }
+                }
+            }
+        });
+        handler.setDaemon(true);
+        handler.start();
+    }
+
+    private static byte[] header(int length) {
+        return ByteBuffer.allocate(8).put(new byte[] { 'B', 'i', 'n', 1 }).putInt(length).array();
+    }
+
+    private static byte[] response(int... data) {
+        ByteBuffer buffer = ByteBuffer.allocate(8 + data.length);
+        buffer.put(new byte[] { 'B', 'i', 'n', 1 }).putInt(data.length);
+        for (int value : data) {
+            buffer.put((byte) value);
+        }
+        return buffer.array();
+    }
+}
@@ -0,0 +1,107 @@
+/**
+ * Copyright (c) 2010-2017 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.binding.homematic.internal.communicator.message;
+
+import static org.junit.Assert.assertTrue;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.openhab.binding.homematic.test.PerformanceTests;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Measures the throughput of encoding and decoding BIN-RPC event messages, the same way the callback server receives
+ * them. The minimum throughput can be changed with the system property homematic.codec.minMessagesPerSecond.
+ *
+ * @author agent - Initial contribution
+ */
+@Category(PerformanceTests.class)
+public class BinRpcCodecPerformanceTest {
+    private final Logger logger = LoggerFactory.getLogger(BinRpcCodecPerformanceTest.class);
+
+    private static final String ENCODING = "ISO-8859-1";
+    private static final int MESSAGES = 200000;
+    private static final int RUNS = 5;
+    private static final int MIN_MESSAGES_PER_SECOND = Integer.getInteger("homematic.codec.minMessagesPerSecond",
+            50000);
+
+    private static final String[] DATAPOINTS = { "STATE", "LEVEL", "LOWBAT", "RSSI_DEVICE", "WORKING" };
+
+    @Test
+    public void encode() {
+        // the first run warms up the JIT
+        runEncode();
+        long bestNanos = Long.MAX_VALUE;
+        for (int i = 0; i < RUNS; i++) {
+            bestNanos = Math.min(bestNanos, runEncode());
+        }
+        assertThroughput("Encoded", bestNanos);
+    }
+
+    @Test
+    public void decode() throws Exception {
+        byte[][] messages = new byte[DATAPOINTS.length * 20][];
+        for (int i = 0; i < messages.length; i++) {
+            messages[i] = createEvent(i);
+        }
+        BinRpcStringCache stringCache = new BinRpcStringCache();
+
+        runDecode(messages, stringCache);
+        long bestNanos = Long.MAX_VALUE;
+        for (int i = 0; i < RUNS; i++) {
+            bestNanos = Math.min(bestNanos, runDecode(messages, stringCache));
+        }
+        assertThroughput("Decoded", bestNanos);
+    }
+
+    private long runEncode() {
+        long start = System.nanoTime();
+        int length = 0;
+        for (int i = 0; i < MESSAGES; i++) {
+            length += createEvent(i).length;
+        }
+        long nanos = System.nanoTime() - start;
+        assertTrue(length > 0);
+        return nanos;
+    }
+
+    private long runDecode(byte[][] messages, BinRpcStringCache stringCache) throws Exception {
+        long start = System.nanoTime();
+        int values = 0;
+        for (int i = 0; i < MESSAGES; i++) {
+            ByteBuffer buffer = ByteBuffer.wrap(messages[i % messages.length]);
+            values += new BinRpcMessage(buffer, true, ENCODING, stringCache).getResponseData().length;
+        }
+        long nanos = System.nanoTime() - start;
+        assertTrue(values == MESSAGES * 4);
+        return nanos;
+    }
+
+    private void assertThroughput(String operation, long nanos) {
+        double messagesPerSecond = MESSAGES * 1000000000.0 / nanos;
+        logger.info("{} {} messages in {} ms ({} messages/s)", operation, MESSAGES,
+                TimeUnit.NANOSECONDS.toMillis(nanos), Math.round(messagesPerSecond));
+        assertTrue("Only " + Math.round(messagesPerSecond) + " messages/s",
+                messagesPerSecond >= MIN_MESSAGES_PER_SECOND);
+    }
+
+    private static byte[] createEvent(int index) {
+        String datapoint = DATAPOINTS[index % DATAPOINTS.length];
+        BinRpcMessage request = new BinRpcMessage("event", ENCODING);
+        request.addArg("BidCos-RF");
+        request.addArg(String.format("LEQ%07d:1", index / DATAPOINTS.length % 20));
+        request.addArg(datapoint);
+        request.addArg(datapoint.equals("LEVEL") ? (Object) Double.valueOf(0.5) : Boolean.TRUE);
+        return request.createMessage();
+    }
+}
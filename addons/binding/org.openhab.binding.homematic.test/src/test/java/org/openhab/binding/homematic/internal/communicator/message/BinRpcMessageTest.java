@@ -0,0 +1,123 @@
+/**
+ * Copyright (c) 2010-2017 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.binding.homematic.internal.communicator.message;
+
+import static org.junit.Assert.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Date;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.junit.Test;
+
+/**
+ * Tests for encoding and decoding of BIN-RPC messages.
+ *
+ * @author agent - Initial contribution
+ */
+public class BinRpcMessageTest {
+    private static final String UTF_ENCODING = "UTF-8";
+    private static final String ISO_ENCODING = "ISO-8859-1";
+
+    private static final String UMLAUTS = "Küche Türöffner ÄÖÜß";
+
+    @Test
+    public void utf8StringIsEncodedWithItsByteLength() throws Exception {
+        byte[] message = createEvent(UTF_ENCODING, UMLAUTS);
+
+        ByteBuffer buffer = ByteBuffer.wrap(message);
+        assertEquals(message.length - 8, buffer.getInt(4));
+
+        Object[] data = new BinRpcMessage(message, true, UTF_ENCODING).getResponseData();
+        assertEquals(UMLAUTS, data[2]);
+        assertEquals(UMLAUTS, data[3]);
+    }
+
+    @Test
+    public void utf8StructKeyIsEncodedWithItsByteLength() throws Exception {
+        Map<String, Object> struct = new TreeMap<String, Object>();
+        struct.put(UMLAUTS, UMLAUTS);
+        struct.put("LEVEL", Double.valueOf(0.5));
+
+        BinRpcMessage request = new BinRpcMessage("putParamset", UTF_ENCODING);
+        request.addArg(struct);
+        request.addArg("after the struct");
+
+        Object[] data = new BinRpcMessage(request.createMessage(), true, UTF_ENCODING).getResponseData();
+        assertEquals(struct, data[0]);
+        assertEquals("after the struct", data[1]);
+    }
+
+    @Test
+    public void utf8StringIsDecodedFromTheStringCache() throws Exception {
+        BinRpcStringCache stringCache = new BinRpcStringCache();
+        byte[] message = createEvent(UTF_ENCODING, UMLAUTS);
+        for (int i = 0; i < 2; i++) {
+            BinRpcMessage decoded = new BinRpcMessage(ByteBuffer.wrap(message), true, UTF_ENCODING, stringCache);
+            assertEquals("event", decoded.getMethodName());
+            assertEquals(UMLAUTS, decoded.getResponseData()[2]);
+            assertEquals(UMLAUTS, decoded.getResponseData()[3]);
+        }
+    }
+
+    @Test
+    public void isoStringRoundTrip() throws Exception {
+        byte[] message = createEvent(ISO_ENCODING, UMLAUTS);
+        assertEquals(message.length - 8, ByteBuffer.wrap(message).getInt(4));
+
+        Object[] data = new BinRpcMessage(message, true, ISO_ENCODING).getResponseData();
+        assertEquals(UMLAUTS, data[3]);
+    }
+
+    @Test
+    public void dateIsDecodedWithoutOverflow() throws Exception {
+        // 2017-07-14, the seconds times 1000 do not fit into an int
+        Date date = new Date(1500000000000L);
+
+        BinRpcMessage request = new BinRpcMessage("event", ISO_ENCODING);
+        request.addArg("BidCos-RF");
+        request.addArg(date);
+
+        Object[] data = new BinRpcMessage(request.createMessage(), true, ISO_ENCODING).getResponseData();
+        assertEquals(date, data[1]);
+    }
+
+    @Test(expected = IOException.class)
+    public void negativeLengthIsRejected() throws Exception {
+        readFromStream(-1);
+    }
+
+    @Test(expected = IOException.class)
+    public void lengthOverTheMaximumIsRejected() throws Exception {
+        readFromStream(BinRpcMessage.MAX_MESSAGE_LENGTH);
+    }
+
+    /**
+     * Decodes a response header with the given length from a stream, the data itself is missing.
+     */
+    private static BinRpcMessage readFromStream(int length) throws IOException {
+        byte[] header = ByteBuffer.allocate(8).put(new byte[] { 'B', 'i', 'n', 1 }).putInt(length).array();
+        return new BinRpcMessage(new ByteArrayInputStream(header), false, ISO_ENCODING);
+    }
+
+    /**
+     * Creates an event message with the given string as datapoint name and value.
+     */
+    private static byte[] createEvent(String encoding, String value) {
+        BinRpcMessage request = new BinRpcMessage("event", encoding);
+        request.addArg("BidCos-RF");
+        request.addArg("LEQ0000001:1");
+        request.addArg(value);
+        request.addArg(value);
+        return request.createMessage();
+    }
+}
@@ -0,0 +1,121 @@
+/**
+ * Copyright (c) 2010-2017 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.binding.homematic.internal.communicator.message;
+
+import static org.junit.Assert.*;
+
+import java.io.StringReader;
+
+import javax.xml.stream.XMLStreamException;
+
+import org.junit.Test;
+import org.openhab.binding.homematic.internal.model.TclScriptDataEntry;
+import org.openhab.binding.homematic.internal.model.TclScriptDataList;
+
+/**
+ * Tests for the {@link TclScriptDataListReader} with results of the TclRega variable scripts.
+ *
+ * @author agent - Initial contribution
+ */
+public class TclScriptDataListReaderTest {
+    private static final String HEADER = "<?xml version=\"1.0\" encoding=\"ISO-8859-1\" standalone=\"yes\"?>\n";
+
+    private final TclScriptDataListReader reader = new TclScriptDataListReader();
+
+    @Test
+    public void testEntryAttributes() throws XMLStreamException {
+        TclScriptDataList list = read(HEADER + "<list timestamp='1508230000'>\n"
+                + "  <entry name='Presence' description='Somebody at &amp; around home' info='Presence'"
+                + " value='1' valueType='ENUM' options='away;home' min='0' max='1' unit='' readOnly='false' />\n"
+                + "  <entry name='Temperature' description='' info='Temperature' value='21.5' valueType='FLOAT'"
+                + " min='-20' max='40' unit='°C' readOnly='true' operations='5' timestamp='1508229000' />\n"
+                + "</list>\n");
+
+        assertEquals("1508230000", list.getTimestamp());
+        assertEquals(2, list.getEntries().size());
+
+        TclScriptDataEntry presence = list.getEntries().get(0);
+        assertEquals("Presence", presence.name);
+        assertEquals("Somebody at & around home", presence.description);
+        assertEquals("1", presence.value);
+        assertEquals("ENUM", presence.valueType);
+        assertEquals("away;home", presence.options);
+        assertEquals("0", presence.minValue);
+        assertEquals("1", presence.maxValue);
+        assertEquals("", presence.unit);
+        assertFalse(presence.readOnly);
+        assertFalse(presence.unchanged);
+
+        TclScriptDataEntry temperature = list.getEntries().get(1);
+        assertEquals("21.5", temperature.value);
+        assertEquals("FLOAT", temperature.valueType);
+        assertEquals("-20", temperature.minValue);
+        assertEquals("40", temperature.maxValue);
+        assertEquals("°C", temperature.unit);
+        assertEquals("5", temperature.operations);
+        assertEquals("1508229000", temperature.timestamp);
+        assertTrue(temperature.readOnly);
+    }
+
+    @Test
+    public void testUnchangedEntries() throws XMLStreamException {
+        TclScriptDataList list = read(HEADER + "<list timestamp='1508230060'>\n"
+                + "  <entry name='Presence' unchanged='true' />\n"
+                + "  <entry name='Temperature' description='' info='Temperature' value='22' valueType='FLOAT'"
+                + " min='-20' max='40' unit='°C' readOnly='false' />\n"
+                + "</list>\n");
+
+        assertEquals(2, list.getEntries().size());
+        TclScriptDataEntry presence = list.getEntries().get(0);
+        assertEquals("Presence", presence.name);
+        assertTrue(presence.unchanged);
+        assertNull(presence.value);
+        assertNull(presence.valueType);
+
+        TclScriptDataEntry temperature = list.getEntries().get(1);
+        assertFalse(temperature.unchanged);
+        assertEquals("22", temperature.value);
+    }
+
+    @Test
+    public void testListWithoutEntries() throws XMLStreamException {
+        TclScriptDataList list = read(HEADER + "<list timestamp='1508230000'>\n</list>\n");
+
+        assertEquals("1508230000", list.getTimestamp());
+        assertTrue(list.getEntries().isEmpty());
+    }
+
+    @Test
+    public void testListWithoutTimestamp() throws XMLStreamException {
+        TclScriptDataList list = read("<list><entry name='Presence' value='true' /></list>");
+
+        assertNull(list.getTimestamp());
+        assertEquals(1, list.getEntries().size());
+        assertEquals("true", list.getEntries().get(0).value);
+    }
+
+    @Test(expected = XMLStreamException.class)
+    public void testEmptyOutput() throws XMLStreamException {
+        read("");
+    }
+
+    @Test(expected = XMLStreamException.class)
+    public void testMalformedOutput() throws XMLStreamException {
+        read(HEADER + "<list timestamp='1508230000'>\n  <entry name='Presence value='1' />\n</list>\n");
+    }
+
+    @Test(expected = XMLStreamException.class)
+    public void testTruncatedOutput() throws XMLStreamException {
+        read(HEADER + "<list timestamp='1508230000'>\n  <entry name='Presence' value='1' />\n");
+    }
+
+    private TclScriptDataList read(String result) throws XMLStreamException {
+        return reader.read(new StringReader(result));
+    }
+}
@@ -0,0 +1,180 @@
+/**
+ * Copyright (c) 2010-2017 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.binding.homematic.internal.communicator.server;
+
+import static org.junit.Assert.*;
+import static org.openhab.binding.homematic.internal.communicator.server.BinRpcServerTest.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.openhab.binding.homematic.internal.common.HomematicConfig;
+import org.openhab.binding.homematic.internal.communicator.GatewayMetrics;
+import org.openhab.binding.homematic.internal.communicator.server.BinRpcServerTest.RecordingListener;
+import org.openhab.binding.homematic.test.PerformanceTests;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Replays the event burst of a CCU restart, where every device reports all its datapoints at once, against the BIN-RPC
+ * callback server. The burst is sent over several connections like the CCU interface processes do. The load can be
+ * changed with the system properties homematic.burst.devices, homematic.burst.connections and
+ * homematic.burst.minEventsPerSecond.
+ *
+ * @author agent - Initial contribution
+ */
+@Category(PerformanceTests.class)
+public class BinRpcServerLoadTest {
+    private final Logger logger = LoggerFactory.getLogger(BinRpcServerLoadTest.class);
+
+    private static final int DEVICE_COUNT = Integer.getInteger("homematic.burst.devices", 500);
+    private static final int CONNECTION_COUNT = Integer.getInteger("homematic.burst.connections", 4);
+    private static final int MIN_EVENTS_PER_SECOND = Integer.getInteger("homematic.burst.minEventsPerSecond", 2000);
+    private static final int REPLAYS = 5;
+    private static final long TIMEOUT_SECONDS = 60;
+
+    /**
+     * the datapoints a device reports after a restart of the CCU
+     */
+    private static final String[] BURST_DATAPOINTS = { "UNREACH", "STICKY_UNREACH", "CONFIG_PENDING", "LOWBAT",
+            "RSSI_DEVICE", "RSSI_PEER", "STATE", "LEVEL", "WORKING" };
+
+    private BinRpcServer server;
+    private RecordingListener listener;
+    private int port;
+    private ExecutorService gateway;
+
+    @Before
+    public void setUp() throws IOException {
+        ServerSocket socket = new ServerSocket(0);
+        port = socket.getLocalPort();
+        socket.close();
+
+        HomematicConfig config = new HomematicConfig();
+        config.setBinCallbackPort(port);
+        listener = new RecordingListener();
+        server = new BinRpcServer(listener, config, new GatewayMetrics());
+        server.start();
+        gateway = Executors.newFixedThreadPool(CONNECTION_COUNT);
+    }
+
+    @After
+    public void tearDown() {
+        gateway.shutdownNow();
+        server.shutdown();
+    }
+
+    @Test
+    public void replayRestartBurst() throws Exception {
+        List<byte[]> bursts = recordBursts();
+        int eventsPerReplay = DEVICE_COUNT * BURST_DATAPOINTS.length;
+
+        // the first replay warms up the JIT and the string cache
+        replay(bursts);
+        long bestNanos = Long.MAX_VALUE;
+        for (int i = 0; i < REPLAYS; i++) {
+            bestNanos = Math.min(bestNanos, replay(bursts));
+        }
+        assertEquals((REPLAYS + 1) * eventsPerReplay, listener.getEventCount());
+
+        double eventsPerSecond = eventsPerReplay * 1000000000.0 / bestNanos;
+        logger.info("Burst of {} events over {} connections replayed in {} ms ({} events/s)", eventsPerReplay,
+                CONNECTION_COUNT, TimeUnit.NANOSECONDS.toMillis(bestNanos), Math.round(eventsPerSecond));
+        assertTrue("Only " + Math.round(eventsPerSecond) + " events/s", eventsPerSecond >= MIN_EVENTS_PER_SECOND);
+    }
+
+    /**
+     * Creates the recorded frames of the burst, one stream per connection.
+     */
+    private List<byte[]> recordBursts() {
+        List<ByteArrayOutputStream> streams = new ArrayList<ByteArrayOutputStream>();
+        for (int i = 0; i < CONNECTION_COUNT; i++) {
+            streams.add(new ByteArrayOutputStream());
+        }
+        for (int device = 0; device < DEVICE_COUNT; device++) {
+            ByteArrayOutputStream stream = streams.get(device % CONNECTION_COUNT);
+            String address = String.format("LEQ%07d:1", device);
+            for (String datapoint : BURST_DATAPOINTS) {
+                Object value = datapoint.startsWith("RSSI") ? Integer.valueOf(-60 - device % 30)
+                        : datapoint.equals("LEVEL") ? Double.valueOf(device % 100 / 100.0) : Boolean.FALSE;
+                byte[] frame = createEvent(address, datapoint, value);
+                stream.write(frame, 0, frame.length);
+            }
+        }
+        List<byte[]> bursts = new ArrayList<byte[]>();
+        for (ByteArrayOutputStream stream : streams) {
+            bursts.add(stream.toByteArray());
+        }
+        return bursts;
+    }
+
+    /**
+     * Sends the bursts over parallel connections and waits for all responses, returns the needed time in nanoseconds.
+     */
+    private long replay(List<byte[]> bursts) throws Exception {
+        final int eventsPerConnection = DEVICE_COUNT / CONNECTION_COUNT * BURST_DATAPOINTS.length;
+        List<Future<Void>> results = new ArrayList<Future<Void>>();
+        long start = System.nanoTime();
+        for (int i = 0; i < bursts.size(); i++) {
+            final byte[] burst = bursts.get(i);
+            final int events = eventsPerConnection
+                    + (i < DEVICE_COUNT % CONNECTION_COUNT ? BURST_DATAPOINTS.length : 0);
+            results.add(gateway.submit(new Callable<Void>() {
+
+                @Override
+                public Void call() throws Exception {
+                    Socket socket = new Socket("127.0.0.1", port);
+                    try {
+                        socket.setSoTimeout((int) TimeUnit.SECONDS.toMillis(TIMEOUT_SECONDS));
+                        final OutputStream out = socket.getOutputStream();
+                        InputStream in = socket.getInputStream();
+                        // the responses are read while sending, a gateway must not block on a full socket buffer
+                        Thread writer = new Thread(new Runnable() {
+
+                            @Override
+                            public void run() {
+                                try {
+                                    out.write(burst);
+                                    out.flush();
+                                } catch (IOException ex) {
+                                    // detected by the missing responses
+                                }
+                            }
+                        });
+                        writer.start();
+                        readResponses(in, events);
+                        writer.join();
+                    } finally {
+                        socket.close();
+                    }
+                    return null;
+                }
+            }));
+        }
+        for (Future<Void> result : results) {
+            result.get(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        }
+        return System.nanoTime() - start;
+    }
+}
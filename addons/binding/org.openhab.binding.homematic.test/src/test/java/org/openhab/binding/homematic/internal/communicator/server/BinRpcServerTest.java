@@ -0,0 +1,226 @@
+/**
+ * Copyright (c) 2010-2017 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.binding.homematic.internal.communicator.server;
+
+import static org.junit.Assert.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.openhab.binding.homematic.internal.common.HomematicConfig;
+import org.openhab.binding.homematic.internal.communicator.GatewayMetrics;
+import org.openhab.binding.homematic.internal.communicator.message.BinRpcMessage;
+import org.openhab.binding.homematic.internal.model.HmDatapointInfo;
+
+/**
+ * Tests the selector based BIN-RPC callback server with real sockets on the loopback interface.
+ *
+ * @author agent - Initial contribution
+ */
+public class BinRpcServerTest {
+    static final String ENCODING = "ISO-8859-1";
+    private static final int SOCKET_TIMEOUT = 10000;
+
+    private BinRpcServer server;
+    private RecordingListener listener;
+    private int port;
+
+    @Before
+    public void setUp() throws IOException {
+        ServerSocket socket = new ServerSocket(0);
+        port = socket.getLocalPort();
+        socket.close();
+
+        HomematicConfig config = new HomematicConfig();
+        config.setBinCallbackPort(port);
+        listener = new RecordingListener();
+        server = new BinRpcServer(listener, config, new GatewayMetrics());
+        server.start();
+    }
+
+    @After
+    public void tearDown() {
+        listener.release();
+        server.shutdown();
+    }
+
+    @Test
+    public void pipelinedEventsAreHandledAndAnsweredInOrder() throws Exception {
+        // more frames than the backlog of a connection, sent before reading any response
+        int count = BinRpcConnection.MAX_BACKLOG * 10;
+        Socket socket = connect();
+        try {
+            OutputStream out = socket.getOutputStream();
+            for (int i = 0; i < count; i++) {
+                out.write(createEvent("DEV" + i + ":1", "STATE", i));
+            }
+            out.flush();
+            readResponses(socket.getInputStream(), count);
+        } finally {
+            socket.close();
+        }
+
+        List<Object> values = listener.getValues("STATE");
+        assertEquals(count, values.size());
+        for (int i = 0; i < count; i++) {
+            assertEquals(i, values.get(i));
+        }
+    }
+
+    @Test
+    public void slowListenerDoesNotBlockOtherConnections() throws Exception {
+        // the connections are distributed round robin, so the first and the third share an event loop
+        Socket slowSocket = connect();
+        Socket otherLoopSocket = connect();
+        Socket socket = connect();
+        try {
+            slowSocket.getOutputStream().write(createEvent("SLOW:1", "STATE", 1));
+            assertTrue("Slow event has not been received", listener.awaitBlocked(SOCKET_TIMEOUT));
+
+            socket.getOutputStream().write(createEvent("FAST:1", "LEVEL", 2));
+            readResponses(socket.getInputStream(), 1);
+            assertEquals(Collections.<Object> singletonList(2), listener.getValues("LEVEL"));
+        } finally {
+            listener.release();
+            slowSocket.close();
+            otherLoopSocket.close();
+            socket.close();
+        }
+    }
+
+    @Test
+    public void oversizedFrameClosesConnection() throws Exception {
+        Socket socket = connect();
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            DataOutputStream header = new DataOutputStream(bytes);
+            header.write(new byte[] { 'B', 'i', 'n', 0 });
+            header.writeInt(BinRpcConnection.MAX_FRAME_LENGTH);
+            socket.getOutputStream().write(bytes.toByteArray());
+            assertEquals(-1, socket.getInputStream().read());
+        } finally {
+            socket.close();
+        }
+
+        // the server still accepts other connections
+        socket = connect();
+        try {
+            socket.getOutputStream().write(createEvent("DEV:1", "STATE", true));
+            readResponses(socket.getInputStream(), 1);
+        } finally {
+            socket.close();
+        }
+    }
+
+    @Test
+    public void invalidSignatureClosesConnection() throws Exception {
+        Socket socket = connect();
+        try {
+            socket.getOutputStream().write(new byte[] { 'G', 'E', 'T', ' ', '/', ' ', 'H', 'T', 'T', 'P' });
+            assertEquals(-1, socket.getInputStream().read());
+        } finally {
+            socket.close();
+        }
+    }
+
+    private Socket connect() throws IOException {
+        Socket socket = new Socket("127.0.0.1", port);
+        socket.setSoTimeout(SOCKET_TIMEOUT);
+        return socket;
+    }
+
+    static byte[] createEvent(String address, String key, Object value) {
+        BinRpcMessage message = new BinRpcMessage("event", ENCODING);
+        message.addArg("RF-test");
+        message.addArg(address);
+        message.addArg(key);
+        message.addArg(value);
+        return message.createMessage();
+    }
+
+    static void readResponses(InputStream in, int count) throws IOException {
+        for (int i = 0; i < count; i++) {
+            try {
+                new BinRpcMessage(in, false, ENCODING);
+            } catch (SocketTimeoutException ex) {
+                fail("Only " + i + " of " + count + " responses received");
+            }
+        }
+    }
+
+    /**
+     * Records the received values, events of devices starting with SLOW block until released.
+     */
+    static class RecordingListener implements RpcEventListener {
+        private final List<HmDatapointInfo> datapoints = new ArrayList<HmDatapointInfo>();
+        private final List<Object> values = new ArrayList<Object>();
+        private final CountDownLatch blocked = new CountDownLatch(1);
+        private final CountDownLatch release = new CountDownLatch(1);
+
+        @Override
+        public void eventReceived(HmDatapointInfo dpInfo, Object newValue) {
+            if (dpInfo.getAddress().startsWith("SLOW")) {
+                blocked.countDown();
+                try {
+                    release.await(SOCKET_TIMEOUT, TimeUnit.MILLISECONDS);
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            synchronized (this) {
+                datapoints.add(dpInfo);
+                values.add(newValue);
+            }
+        }
+
+        public synchronized int getEventCount() {
+            return values.size();
+        }
+
+        public synchronized List<Object> getValues(String name) {
+            List<Object> result = new ArrayList<Object>();
+            for (int i = 0; i < datapoints.size(); i++) {
+                if (name.equals(datapoints.get(i).getName())) {
+                    result.add(values.get(i));
+                }
+            }
+            return result;
+        }
+
+        public boolean awaitBlocked(long millis) throws InterruptedException {
+            return blocked.await(millis, TimeUnit.MILLISECONDS);
+        }
+
+        public void release() {
+            release.countDown();
+        }
+
+        @Override
+        public void newDevices(List<String> adresses) {
+        }
+
+        @Override
+        public void deleteDevices(List<String> addresses) {
+        }
+    }
+}
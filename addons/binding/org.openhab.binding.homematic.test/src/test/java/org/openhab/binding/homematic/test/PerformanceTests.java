@@ -0,0 +1,19 @@
+/**
+ * Copyright (c) 2010-2017 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.binding.homematic.test;
+
+/**
+ * Category of the load tests and benchmarks, which bind sockets or run for a long time. They are excluded from the
+ * default test build, the excluded groups can be changed with -Dhomematic.test.excludedGroups.
+ *
+ * @author agent - Initial contribution
+ */
+public interface PerformanceTests {
+
+}
@@ -50,4 +50,18 @@ public class HomematicBindingConstants {
 
     public static final String PROPERTY_BATTERY_TYPE = "batteryType";
     public static final String PROPERTY_AES_KEY = "aesKey";
+
+    public static final String CHANNEL_GROUP_METRICS = "metrics";
+    public static final String CHANNEL_EVENT_RATE = "eventRate";
+    public static final String CHANNEL_ECHO_EVENTS = "echoEvents";
+    public static final String CHANNEL_DECODE_TIME = "decodeTime";
+    public static final String CHANNEL_DISPATCH_LATENCY = "dispatchLatency";
+    public static final String CHANNEL_RPC_ROUND_TRIP_TIME = "rpcRoundTripTime";
+    public static final String CHANNEL_RPC_IN_FLIGHT_REQUESTS = "rpcInFlightRequests";
+    public static final String CHANNEL_RPC_QUEUED_REQUESTS = "rpcQueuedRequests";
+    public static final String CHANNEL_GATEWAY_POOL_QUEUE = "gatewayPoolQueue";
+    public static final String CHANNEL_PENDING_DELAYED_EVENTS = "pendingDelayedEvents";
+    public static final String CHANNEL_DELAYED_EVENTS = "delayedEvents";
+    public static final String CHANNEL_COALESCED_DELAYED_EVENTS = "coalescedDelayedEvents";
+    public static final String CHANNEL_FIRED_DELAYED_EVENTS = "firedDelayedEvents";
 }
@@ -8,13 +8,19 @@
  */
 package org.openhab.binding.homematic.handler;
 
+import static org.openhab.binding.homematic.HomematicBindingConstants.*;
+
 import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
 import java.util.Hashtable;
 import java.util.concurrent.TimeUnit;
 
 import org.eclipse.smarthome.config.discovery.DiscoveryService;
+import org.eclipse.smarthome.core.library.types.DecimalType;
 import org.eclipse.smarthome.core.net.NetUtil;
 import org.eclipse.smarthome.core.thing.Bridge;
+import org.eclipse.smarthome.core.thing.Channel;
 import org.eclipse.smarthome.core.thing.ChannelUID;
 import org.eclipse.smarthome.core.thing.Thing;
 import org.eclipse.smarthome.core.thing.ThingStatus;
@@ -24,6 +30,7 @@ import org.eclipse.smarthome.core.types.Command;
 import org.eclipse.smarthome.core.types.RefreshType;
 import org.openhab.binding.homematic.discovery.HomematicDeviceDiscoveryService;
 import org.openhab.binding.homematic.internal.common.HomematicConfig;
+import org.openhab.binding.homematic.internal.communicator.GatewayMetrics;
 import org.openhab.binding.homematic.internal.communicator.HomematicGateway;
 import org.openhab.binding.homematic.internal.communicator.HomematicGatewayFactory;
 import org.openhab.binding.homematic.internal.communicator.HomematicGatewayListener;
@@ -201,9 +208,64 @@ public class HomematicBridgeHandler extends BaseBridgeHandler implements Homemat
     @Override
     public void handleCommand(ChannelUID channelUID, Command command) {
         if (RefreshType.REFRESH == command) {
-            logger.debug("Refreshing bridge '{}'", getThing().getUID().getId());
-            reloadAllDeviceValues();
+            if (CHANNEL_GROUP_METRICS.equals(channelUID.getGroupId())) {
+                if (gateway != null) {
+                    updateMetricState(channelUID, gateway.getMetrics());
+                }
+            } else {
+                logger.debug("Refreshing bridge '{}'", getThing().getUID().getId());
+                reloadAllDeviceValues();
+            }
+        }
+    }
+
+    /**
+     * Updates the state of a channel in the metrics channel group.
+     */
+    private void updateMetricState(ChannelUID channelUID, GatewayMetrics metrics) {
+        double value;
+        switch (channelUID.getIdWithoutGroup()) {
+            case CHANNEL_EVENT_RATE:
+                value = metrics.getEventRate();
+                break;
+            case CHANNEL_ECHO_EVENTS:
+                value = metrics.getEchoEvents();
+                break;
+            case CHANNEL_DECODE_TIME:
+                value = metrics.getDecodeTime().getPercentileMillis(95);
+                break;
+            case CHANNEL_DISPATCH_LATENCY:
+                value = metrics.getDispatchLatency().getPercentileMillis(95);
+                break;
+            case CHANNEL_RPC_ROUND_TRIP_TIME:
+                value = metrics.getRpcRoundTripTime().getPercentileMillis(95);
+                break;
+            case CHANNEL_RPC_IN_FLIGHT_REQUESTS:
+                value = metrics.getRpcInFlightRequests();
+                break;
+            case CHANNEL_RPC_QUEUED_REQUESTS:
+                value = metrics.getRpcQueuedRequests();
+                break;
+            case CHANNEL_GATEWAY_POOL_QUEUE:
+                value = metrics.getGatewayPoolQueue();
+                break;
+            case CHANNEL_PENDING_DELAYED_EVENTS:
+                value = metrics.getPendingDelayedEvents();
+                break;
+            case CHANNEL_DELAYED_EVENTS:
+                value = metrics.getDelayedEvents();
+                break;
+            case CHANNEL_COALESCED_DELAYED_EVENTS:
+                value = metrics.getCoalescedDelayedEvents();
+                break;
+            case CHANNEL_FIRED_DELAYED_EVENTS:
+                value = metrics.getFiredDelayedEvents();
+                break;
+            default:
+                logger.debug("Unknown metrics channel '{}'", channelUID);
+                return;
         }
+        updateState(channelUID, new DecimalType(new BigDecimal(value).setScale(2, RoundingMode.HALF_UP)));
     }
 
     /**
@@ -288,6 +350,19 @@ public class HomematicBridgeHandler extends BaseBridgeHandler implements Homemat
         reloadAllDeviceValues();
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void onMetricsUpdated(GatewayMetrics metrics) {
+        for (Channel channel : getThing().getChannels()) {
+            ChannelUID channelUID = channel.getUID();
+            if (CHANNEL_GROUP_METRICS.equals(channelUID.getGroupId()) && isLinked(channelUID.getId())) {
+                updateMetricState(channelUID, metrics);
+            }
+        }
+    }
+
     /**
      * {@inheritDoc}
      */
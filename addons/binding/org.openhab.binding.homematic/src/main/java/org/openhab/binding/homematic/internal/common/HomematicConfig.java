@@ -49,6 +49,8 @@ public class HomematicConfig {
     private Integer aliveInterval = 300;
     private int socketMaxAlive = 900;
     private int timeout = 15;
+    private int connectionsPerPort = 3;
+    private boolean incrementalVariableSync = true;
     private int reconnectInterval = 0;
 
     private HmGatewayInfo gatewayInfo;
@@ -185,6 +187,34 @@ public class HomematicConfig {
         this.timeout = timeout;
     }
 
+    /**
+     * Returns the maximum number of concurrent connections to each port of the Homematic gateway.
+     */
+    public int getConnectionsPerPort() {
+        return connectionsPerPort;
+    }
+
+    /**
+     * Sets the maximum number of concurrent connections to each port of the Homematic gateway.
+     */
+    public void setConnectionsPerPort(int connectionsPerPort) {
+        this.connectionsPerPort = connectionsPerPort;
+    }
+
+    /**
+     * Returns true, if only the changed variables should be loaded from a CCU.
+     */
+    public boolean isIncrementalVariableSync() {
+        return incrementalVariableSync;
+    }
+
+    /**
+     * Sets the incremental loading of the variables from a CCU.
+     */
+    public void setIncrementalVariableSync(boolean incrementalVariableSync) {
+        this.incrementalVariableSync = incrementalVariableSync;
+    }
+
     /**
      * Returns the interval in seconds to reconnect to the Homematic gateway.
      */
@@ -343,7 +373,9 @@ public class HomematicConfig {
                 .append("gatewayType", gatewayType).append("rfPort", getRfPort()).append("wiredPort", getWiredPort())
                 .append("hmIpPort", getHmIpPort()).append("cuxdPort", getCuxdPort()).append("groupPort", getGroupPort())
                 .append("aliveInterval", aliveInterval).append("reconnectInterval", reconnectInterval)
-                .append("timeout", timeout).append("socketMaxAlive", socketMaxAlive);
+                .append("timeout", timeout).append("socketMaxAlive", socketMaxAlive)
+                .append("connectionsPerPort", connectionsPerPort)
+                .append("incrementalVariableSync", incrementalVariableSync);
         return tsb.toString();
     }
 }
@@ -16,13 +16,20 @@ import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.Queue;
 import java.util.Set;
 import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
 
 import org.apache.commons.lang.StringUtils;
@@ -82,23 +89,30 @@ public abstract class AbstractHomematicGateway implements RpcEventListener, Home
     public static final double DEFAULT_DISABLE_DELAY = 2.0;
     private static final long CONNECTION_TRACKER_INTERVAL_SECONDS = 15;
     private static final String GATEWAY_POOL_NAME = "homematicGateway";
+    private static final long DEVICE_RELOAD_DELAY_MILLIS = 300;
+    private static final long METRICS_INTERVAL_SECONDS = 10;
 
-    private Map<TransferMode, RpcClient<?>> rpcClients = new HashMap<TransferMode, RpcClient<?>>();
+    private Map<TransferMode, RpcClient<?>> rpcClients = new ConcurrentHashMap<TransferMode, RpcClient<?>>();
     private Map<TransferMode, RpcServer> rpcServers = new HashMap<TransferMode, RpcServer>();
 
     protected HomematicConfig config;
     private String id;
     private HomematicGatewayListener eventListener;
     private long lastEventTime = System.currentTimeMillis();
-    private DelayedExecuter delayedExecutor = new DelayedExecuter();
-    private Set<HmDatapointInfo> echoEvents = Collections.synchronizedSet(new HashSet<HmDatapointInfo>());
+    private DelayedExecuter delayedExecutor;
+    private Set<HmDatapointInfo> echoEvents = Collections
+            .newSetFromMap(new ConcurrentHashMap<HmDatapointInfo, Boolean>());
     private ScheduledFuture<?> eventTrackerThread;
     private ScheduledFuture<?> connectionTrackerThread;
     private ScheduledFuture<?> reconnectThread;
-    private Map<String, HmDevice> devices = Collections.synchronizedMap(new HashMap<String, HmDevice>());
+    private ScheduledFuture<?> metricsThread;
+    private GatewayMetrics metrics = new GatewayMetrics();
+    private Map<String, HmDevice> devices = new ConcurrentHashMap<String, HmDevice>();
+    private MetadataCache metadataCache;
+    private Set<String> pendingDeviceReloads = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
     private Map<HmInterface, TransferMode> availableInterfaces = new TreeMap<HmInterface, TransferMode>();
     private static List<VirtualDatapointHandler> virtualDatapointHandlers = new ArrayList<VirtualDatapointHandler>();
-    private boolean cancelLoadAllMetadata;
+    private volatile boolean cancelLoadAllMetadata;
     private boolean initialized;
 
     static {
@@ -125,6 +139,8 @@ public abstract class AbstractHomematicGateway implements RpcEventListener, Home
         this.id = id;
         this.config = config;
         this.eventListener = eventListener;
+        metadataCache = new MetadataCache(id);
+        delayedExecutor = new DelayedExecuter(ThreadPoolManager.getScheduledPool(GATEWAY_POOL_NAME));
     }
 
     /**
@@ -199,8 +215,8 @@ public abstract class AbstractHomematicGateway implements RpcEventListener, Home
     protected void startClients() throws IOException {
         for (TransferMode mode : availableInterfaces.values()) {
             if (!rpcClients.containsKey(mode)) {
-                rpcClients.put(mode,
-                        mode == TransferMode.XML_RPC ? new XmlRpcClient(config) : new BinRpcClient(config));
+                rpcClients.put(mode, mode == TransferMode.XML_RPC ? new XmlRpcClient(config, metrics)
+                        : new BinRpcClient(config, metrics));
             }
         }
     }
@@ -221,8 +237,8 @@ public abstract class AbstractHomematicGateway implements RpcEventListener, Home
     private void startServers() throws IOException {
         for (TransferMode mode : availableInterfaces.values()) {
             if (!rpcServers.containsKey(mode)) {
-                RpcServer rpcServer = mode == TransferMode.XML_RPC ? new XmlRpcServer(this, config)
-                        : new BinRpcServer(this, config);
+                RpcServer rpcServer = mode == TransferMode.XML_RPC ? new XmlRpcServer(this, config, metrics)
+                        : new BinRpcServer(this, config, metrics);
                 rpcServers.put(mode, rpcServer);
                 rpcServer.start();
             }
@@ -269,6 +285,8 @@ public abstract class AbstractHomematicGateway implements RpcEventListener, Home
         logger.debug("Starting connection tracker for gateway with id '{}'", id);
         connectionTrackerThread = scheduler.scheduleWithFixedDelay(new ConnectionTrackerThread(), 30,
                 CONNECTION_TRACKER_INTERVAL_SECONDS, TimeUnit.SECONDS);
+        metricsThread = scheduler.scheduleWithFixedDelay(new MetricsThread(), METRICS_INTERVAL_SECONDS,
+                METRICS_INTERVAL_SECONDS, TimeUnit.SECONDS);
     }
 
     private void stopWatchdogs() {
@@ -281,6 +299,9 @@ public abstract class AbstractHomematicGateway implements RpcEventListener, Home
         if (connectionTrackerThread != null) {
             connectionTrackerThread.cancel(true);
         }
+        if (metricsThread != null) {
+            metricsThread.cancel(true);
+        }
     }
 
     /**
@@ -350,7 +371,7 @@ public abstract class AbstractHomematicGateway implements RpcEventListener, Home
      */
     @Override
     public HmDevice getDevice(String address) throws HomematicClientException {
-        HmDevice device = devices.get(address);
+        HmDevice device = address == null ? null : devices.get(address);
         if (device == null) {
             throw new HomematicClientException(
                     String.format("Device with address '%s' not found on gateway '%s'", address, id));
@@ -375,9 +396,12 @@ public abstract class AbstractHomematicGateway implements RpcEventListener, Home
         // load all device descriptions
         List<HmDevice> deviceDescriptions = getDeviceDescriptions();
 
+        // loading datapoints of all unknown channel types in parallel
+        metadataCache.load();
+        Set<HmChannel> loadedChannels = loadUnknownChannelDatapoints(deviceDescriptions);
+
         // loading datapoints for all channels
         Set<String> loadedDevices = new HashSet<String>();
-        Map<String, Collection<HmDatapoint>> datapointsByChannelIdCache = new HashMap<String, Collection<HmDatapoint>>();
         for (HmDevice device : deviceDescriptions) {
             if (!cancelLoadAllMetadata) {
                 try {
@@ -390,22 +414,16 @@ public abstract class AbstractHomematicGateway implements RpcEventListener, Home
                         for (HmChannel channel : device.getChannels()) {
                             logger.trace("  Loading channel {}", channel);
                             // speed up metadata generation a little bit for equal channels in the gateway devices
-                            if ((DEVICE_TYPE_VIRTUAL.equals(device.getType())
-                                    || DEVICE_TYPE_VIRTUAL_WIRED.equals(device.getType())) && channel.getNumber() > 1) {
+                            if (isClonedFromPreviousChannel(channel)) {
                                 HmChannel previousChannel = device.getChannel(channel.getNumber() - 1);
                                 cloneAllDatapointsIntoChannel(channel, previousChannel.getDatapoints().values());
-                            } else {
-                                String channelId = String.format("%s:%s:%s", channel.getDevice().getType(),
-                                        channel.getDevice().getFirmware(), channel.getNumber());
-                                Collection<HmDatapoint> cachedDatapoints = datapointsByChannelIdCache.get(channelId);
+                            } else if (!loadedChannels.contains(channel)) {
+                                Collection<HmDatapoint> cachedDatapoints = metadataCache.get(channel);
                                 if (cachedDatapoints != null) {
                                     // clone all datapoints
                                     cloneAllDatapointsIntoChannel(channel, cachedDatapoints);
                                 } else {
-                                    logger.trace("    Loading datapoints into channel {}", channel);
-                                    addChannelDatapoints(channel, HmParamsetType.MASTER);
-                                    addChannelDatapoints(channel, HmParamsetType.VALUES);
-                                    datapointsByChannelIdCache.put(channelId, channel.getDatapoints().values());
+                                    loadChannelDatapoints(channel);
                                 }
                             }
                         }
@@ -419,12 +437,97 @@ public abstract class AbstractHomematicGateway implements RpcEventListener, Home
                 }
             }
         }
+        metadataCache.save();
         if (!cancelLoadAllMetadata) {
             devices.keySet().retainAll(loadedDevices);
         }
         initialized = true;
     }
 
+    /**
+     * Loads the datapoints of one channel of every channel type which is not in the metadata cache. The requests are
+     * sent in parallel on all but one of the connections per port, the remaining connection stays free for other
+     * requests. The calling thread takes part in the loading, so this also completes if the gateway pool is busy.
+     * Returns the successfully loaded channels.
+     */
+    private Set<HmChannel> loadUnknownChannelDatapoints(List<HmDevice> deviceDescriptions) {
+        Map<String, HmChannel> unknownChannels = new LinkedHashMap<String, HmChannel>();
+        for (HmDevice device : deviceDescriptions) {
+            if (!device.isGatewayExtras()) {
+                for (HmChannel channel : device.getChannels()) {
+                    String channelId = MetadataCache.getChannelId(channel);
+                    if (!isClonedFromPreviousChannel(channel) && !unknownChannels.containsKey(channelId)
+                            && metadataCache.get(channel) == null) {
+                        unknownChannels.put(channelId, channel);
+                    }
+                }
+            }
+        }
+        final Set<HmChannel> loadedChannels = Collections
+                .newSetFromMap(new ConcurrentHashMap<HmChannel, Boolean>());
+        if (unknownChannels.isEmpty()) {
+            return loadedChannels;
+        }
+        logger.debug("Loading metadata of {} unknown channel types from gateway '{}'", unknownChannels.size(), id);
+
+        final Queue<HmChannel> channelQueue = new ConcurrentLinkedQueue<HmChannel>(unknownChannels.values());
+        Runnable loader = new Runnable() {
+
+            @Override
+            public void run() {
+                HmChannel channel;
+                while (!cancelLoadAllMetadata && (channel = channelQueue.poll()) != null) {
+                    try {
+                        loadChannelDatapoints(channel);
+                        loadedChannels.add(channel);
+                    } catch (IOException ex) {
+                        // retried while loading the device
+                        logger.debug("Can't load metadata for channel {} of device '{}': {}", channel.getNumber(),
+                                channel.getDevice().getAddress(), ex.getMessage());
+                    }
+                }
+            }
+        };
+
+        ScheduledExecutorService scheduler = ThreadPoolManager.getScheduledPool(GATEWAY_POOL_NAME);
+        int loaderCount = Math.min(Math.max(1, config.getConnectionsPerPort() - 1), unknownChannels.size());
+        List<Future<?>> loaderFutures = new ArrayList<Future<?>>();
+        for (int i = 1; i < loaderCount; i++) {
+            loaderFutures.add(scheduler.submit(loader));
+        }
+        loader.run();
+        for (Future<?> loaderFuture : loaderFutures) {
+            try {
+                loaderFuture.get();
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                cancelLoadAllMetadata = true;
+            } catch (ExecutionException ex) {
+                logger.error("{}", ex.getMessage(), ex);
+            }
+        }
+        return loadedChannels;
+    }
+
+    /**
+     * Loads the MASTER and VALUES datapoints of the channel from the gateway and adds them to the metadata cache.
+     */
+    private void loadChannelDatapoints(HmChannel channel) throws IOException {
+        logger.trace("    Loading datapoints into channel {}", channel);
+        addChannelDatapoints(channel, HmParamsetType.MASTER);
+        addChannelDatapoints(channel, HmParamsetType.VALUES);
+        metadataCache.put(channel);
+    }
+
+    /**
+     * Returns true, if the channel of a virtual gateway device is cloned from the previous channel.
+     */
+    private boolean isClonedFromPreviousChannel(HmChannel channel) {
+        String deviceType = channel.getDevice().getType();
+        return (DEVICE_TYPE_VIRTUAL.equals(deviceType) || DEVICE_TYPE_VIRTUAL_WIRED.equals(deviceType))
+                && channel.getNumber() > 1;
+    }
+
     /**
      * Loads all datapoints from the gateway.
      */
@@ -488,7 +591,38 @@ public abstract class AbstractHomematicGateway implements RpcEventListener, Home
             setChannelDatapointValues(channel, HmParamsetType.MASTER);
             setChannelDatapointValues(channel, HmParamsetType.VALUES);
         }
+        initializeChannelValues(channel);
+    }
+
+    /**
+     * Loads the values of all channels of the device. The paramsets of all channels are requested in one
+     * system.multicall if the gateway supports it, all other channels are loaded one by one.
+     */
+    protected void loadDeviceValues(HmDevice device) throws IOException {
+        if (device.isGatewayExtras()) {
+            for (HmChannel channel : device.getChannels()) {
+                loadChannelValues(channel);
+            }
+            return;
+        }
 
+        logger.debug("Loading values for all channels of device '{}'", device.getAddress());
+        List<HmChannel> channels = device.getChannels();
+        Collection<HmChannel> notLoadedChannels = getRpcClient(device.getHmInterface())
+                .setChannelDatapointValues(channels);
+        for (HmChannel channel : channels) {
+            if (notLoadedChannels.contains(channel)) {
+                loadChannelValues(channel);
+            } else {
+                initializeChannelValues(channel);
+            }
+        }
+    }
+
+    /**
+     * Handles the virtual datapoints of a channel after its values have been loaded and marks it as initialized.
+     */
+    private void initializeChannelValues(HmChannel channel) {
         for (HmDatapoint dp : channel.getDatapoints().values()) {
             for (VirtualDatapointHandler vdph : virtualDatapointHandlers) {
                 if (vdph.canHandleEvent(dp)) {
@@ -546,12 +680,29 @@ public abstract class AbstractHomematicGateway implements RpcEventListener, Home
      * {@inheritDoc}
      */
     @Override
-    public void triggerDeviceValuesReload(HmDevice device) {
-        logger.debug("Triggering values reload for device '{}'", device.getAddress());
-        for (HmChannel channel : device.getChannels()) {
-            channel.setInitialized(false);
+    public void triggerDeviceValuesReload(final HmDevice device) {
+        if (!pendingDeviceReloads.add(device.getAddress())) {
+            logger.debug("Values reload for device '{}' already pending", device.getAddress());
+            return;
         }
-        eventListener.reloadDeviceValues(device);
+        logger.debug("Triggering values reload for device '{}'", device.getAddress());
+        ThreadPoolManager.getScheduledPool(GATEWAY_POOL_NAME).schedule(new Runnable() {
+
+            @Override
+            public void run() {
+                pendingDeviceReloads.remove(device.getAddress());
+                for (HmChannel channel : device.getChannels()) {
+                    channel.setInitialized(false);
+                }
+                try {
+                    loadDeviceValues(device);
+                } catch (IOException ex) {
+                    // the channels are loaded again one by one while the thing is updated
+                    logger.debug("Can't load values for device '{}': {}", device.getAddress(), ex.getMessage());
+                }
+                eventListener.reloadDeviceValues(device);
+            }
+        }, DEVICE_RELOAD_DELAY_MILLIS, TimeUnit.MILLISECONDS);
     }
 
     /**
@@ -647,6 +798,7 @@ public abstract class AbstractHomematicGateway implements RpcEventListener, Home
         lastEventTime = System.currentTimeMillis();
 
         if (echoEvents.remove(dpInfo)) {
+            metrics.echoEventSuppressed();
             logger.debug("Echo event detected, ignoring '{}'", dpInfo);
         } else {
             try {
@@ -673,25 +825,39 @@ public abstract class AbstractHomematicGateway implements RpcEventListener, Home
      * {@inheritDoc}
      */
     @Override
-    public void newDevices(List<String> adresses) {
+    public void newDevices(final List<String> adresses) {
         if (initialized) {
-            for (String address : adresses) {
-                try {
-                    logger.debug("New device '{}' detected on gateway with id '{}'", address, id);
-                    List<HmDevice> deviceDescriptions = getDeviceDescriptions();
-                    for (HmDevice device : deviceDescriptions) {
-                        if (device.getAddress().equals(address)) {
-                            for (HmChannel channel : device.getChannels()) {
-                                addChannelDatapoints(channel, HmParamsetType.MASTER);
-                                addChannelDatapoints(channel, HmParamsetType.VALUES);
-                            }
-                            prepareDevice(device);
-                            eventListener.onNewDevice(device);
+            // loading the metadata needs several RPC calls, don't block the callback server
+            ThreadPoolManager.getScheduledPool(GATEWAY_POOL_NAME).execute(new Runnable() {
+
+                @Override
+                public void run() {
+                    loadNewDevices(adresses);
+                }
+            });
+        }
+    }
+
+    /**
+     * Loads the metadata of the new devices and notifies the listener.
+     */
+    private void loadNewDevices(List<String> adresses) {
+        for (String address : adresses) {
+            try {
+                logger.debug("New device '{}' detected on gateway with id '{}'", address, id);
+                List<HmDevice> deviceDescriptions = getDeviceDescriptions();
+                for (HmDevice device : deviceDescriptions) {
+                    if (device.getAddress().equals(address)) {
+                        for (HmChannel channel : device.getChannels()) {
+                            loadChannelDatapoints(channel);
                         }
+                        metadataCache.save();
+                        prepareDevice(device);
+                        eventListener.onNewDevice(device);
                     }
-                } catch (Exception ex) {
-                    logger.error("{}", ex.getMessage(), ex);
                 }
+            } catch (Exception ex) {
+                logger.error("{}", ex.getMessage(), ex);
             }
         }
     }
@@ -728,6 +894,14 @@ public abstract class AbstractHomematicGateway implements RpcEventListener, Home
         return eventListener;
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public GatewayMetrics getMetrics() {
+        return metrics;
+    }
+
     /**
      * Creates a virtual device for handling variables, scripts and other special gateway functions.
      */
@@ -874,9 +1048,9 @@ public abstract class AbstractHomematicGateway implements RpcEventListener, Home
                 RpcClient<?> rpcClient = null;
                 try {
                     if (config.getGatewayInfo().isHomegear() || config.getGatewayInfo().isCCU()) {
-                        rpcClient = new BinRpcClient(config);
+                        rpcClient = new BinRpcClient(config, metrics);
                     } else {
-                        rpcClient = new XmlRpcClient(config);
+                        rpcClient = new XmlRpcClient(config, metrics);
                     }
                     rpcClient.validateConnection(getDefaultInterface());
                 } finally {
@@ -888,6 +1062,35 @@ public abstract class AbstractHomematicGateway implements RpcEventListener, Home
         }
     }
 
+    /**
+     * Thread which samples the queue depths and event rates of the gateway and publishes the metrics.
+     */
+    private class MetricsThread implements Runnable {
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void run() {
+            int inFlightRequests = 0;
+            int queuedRequests = 0;
+            for (RpcClient<?> rpcClient : rpcClients.values()) {
+                inFlightRequests += rpcClient.getInFlightRequests();
+                queuedRequests += rpcClient.getQueuedRequests();
+            }
+            ScheduledExecutorService scheduler = ThreadPoolManager.getScheduledPool(GATEWAY_POOL_NAME);
+            int poolQueue = scheduler instanceof ThreadPoolExecutor
+                    ? ((ThreadPoolExecutor) scheduler).getQueue().size() : 0;
+
+            metrics.setQueueDepths(inFlightRequests, queuedRequests, poolQueue, delayedExecutor.getPendingCount());
+            metrics.setDelayedEventCounts(delayedExecutor.getDelayedCount(), delayedExecutor.getCoalescedCount(),
+                    delayedExecutor.getFiredCount());
+            metrics.completeInterval();
+            logger.trace("Metrics of gateway '{}': {}", id, metrics);
+            eventListener.onMetricsUpdated(metrics);
+        }
+    }
+
     /**
      * Threads which restarts the RPC server.
      */
@@ -10,6 +10,7 @@ package org.openhab.binding.homematic.internal.communicator;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.StringReader;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
@@ -25,6 +26,7 @@ import org.eclipse.jetty.http.HttpHeader;
 import org.openhab.binding.homematic.internal.common.HomematicConfig;
 import org.openhab.binding.homematic.internal.communicator.client.UnknownParameterSetException;
 import org.openhab.binding.homematic.internal.communicator.client.UnknownRpcFailureException;
+import org.openhab.binding.homematic.internal.communicator.message.TclScriptDataListReader;
 import org.openhab.binding.homematic.internal.communicator.parser.CcuLoadDeviceNamesParser;
 import org.openhab.binding.homematic.internal.communicator.parser.CcuParamsetDescriptionParser;
 import org.openhab.binding.homematic.internal.communicator.parser.CcuValueParser;
@@ -35,6 +37,7 @@ import org.openhab.binding.homematic.internal.model.HmDevice;
 import org.openhab.binding.homematic.internal.model.HmParamsetType;
 import org.openhab.binding.homematic.internal.model.HmResult;
 import org.openhab.binding.homematic.internal.model.TclScript;
+import org.openhab.binding.homematic.internal.model.TclScriptDataEntry;
 import org.openhab.binding.homematic.internal.model.TclScriptDataList;
 import org.openhab.binding.homematic.internal.model.TclScriptList;
 import org.slf4j.Logger;
@@ -50,10 +53,16 @@ import com.thoughtworks.xstream.io.xml.StaxDriver;
  */
 public class CcuGateway extends AbstractHomematicGateway {
     private final Logger logger = LoggerFactory.getLogger(CcuGateway.class);
+    private static final long FULL_VARIABLE_SYNC_INTERVAL_MILLIS = TimeUnit.HOURS.toMillis(1);
 
     private Map<String, String> tclregaScripts;
     private HttpClient httpClient;
     private XStream xStream = new XStream(new StaxDriver());
+    private TclScriptDataListReader dataListReader = new TclScriptDataListReader();
+
+    private Map<String, HmDatapoint> syncedVariables = new HashMap<String, HmDatapoint>();
+    private String lastVariableSync;
+    private long lastFullVariableSync;
 
     protected CcuGateway(String id, HomematicConfig config, HomematicGatewayListener eventListener) {
         super(id, config, eventListener);
@@ -104,9 +113,54 @@ public class CcuGateway extends AbstractHomematicGateway {
      * {@inheritDoc}
      */
     @Override
-    protected void loadVariables(HmChannel channel) throws IOException {
-        TclScriptDataList resultList = sendScriptByName("getAllVariables", TclScriptDataList.class);
+    protected synchronized void loadVariables(HmChannel channel) throws IOException {
+        TclScriptDataList resultList = null;
+        boolean fullSyncDue = currentTimeMillis() - lastFullVariableSync > FULL_VARIABLE_SYNC_INTERVAL_MILLIS;
+        if (config.isIncrementalVariableSync() && lastVariableSync != null && !fullSyncDue) {
+            resultList = sendScriptByName("getChangedVariables", TclScriptDataList.class,
+                    new String[] { "last_sync" }, new String[] { lastVariableSync });
+            if (!addUnchangedVariables(channel, resultList)) {
+                logger.debug("Unknown variable in incremental sync of gateway '{}', loading all variables", getId());
+                resultList = null;
+            }
+        }
+        if (resultList == null) {
+            resultList = sendScriptByName("getAllVariables", TclScriptDataList.class);
+            lastFullVariableSync = currentTimeMillis();
+        }
         new CcuVariablesAndScriptsParser(channel).parse(resultList);
+
+        String timestamp = StringUtils.trimToNull(resultList.getTimestamp());
+        lastVariableSync = StringUtils.isNumeric(timestamp) ? timestamp : null;
+        syncedVariables.clear();
+        for (HmDatapoint dp : channel.getDatapoints().values()) {
+            if (!dp.isVirtual()) {
+                HmDatapoint clonedDp = dp.clone();
+                clonedDp.setChannel(null);
+                syncedVariables.put(dp.getName(), clonedDp);
+            }
+        }
+    }
+
+    /**
+     * Adds the variables of the last sync which are marked as unchanged in the result of an incremental sync. Returns
+     * false, if an unchanged variable is unknown.
+     */
+    private boolean addUnchangedVariables(HmChannel channel, TclScriptDataList resultList) {
+        int unchangedCount = 0;
+        for (TclScriptDataEntry entry : resultList.getEntries()) {
+            if (entry.unchanged) {
+                if (!syncedVariables.containsKey(entry.name)) {
+                    channel.getDatapoints().clear();
+                    return false;
+                }
+                channel.addDatapoint(syncedVariables.get(entry.name).clone());
+                unchangedCount++;
+            }
+        }
+        logger.debug("Incremental sync of gateway '{}': {} changed, {} unchanged variable(s)", getId(),
+                resultList.getEntries().size() - unchangedCount, unchangedCount);
+        return true;
     }
 
     /**
@@ -214,9 +268,9 @@ public class CcuGateway extends AbstractHomematicGateway {
     }
 
     /**
-     * Sends a TclRega script with the specified variables to the CCU.
+     * Sends a TclRega script with the specified variables to the CCU, tests replace it to simulate the CCU.
      */
-    private <T> T sendScriptByName(String scriptName, Class<T> clazz, String[] variableNames, String[] values)
+    <T> T sendScriptByName(String scriptName, Class<T> clazz, String[] variableNames, String[] values)
             throws IOException {
         String script = tclregaScripts.get(scriptName);
         for (int i = 0; i < variableNames.length; i++) {
@@ -250,12 +304,22 @@ public class CcuGateway extends AbstractHomematicGateway {
                 logger.trace("Result TclRegaScript: {}", result);
             }
 
+            if (clazz == TclScriptDataList.class) {
+                return (T) dataListReader.read(new StringReader(result));
+            }
             return (T) xStream.fromXML(result);
         } catch (Exception ex) {
             throw new IOException(ex.getMessage(), ex);
         }
     }
 
+    /**
+     * Returns the current time in ms, tests replace the clock to let the full variable sync become due.
+     */
+    long currentTimeMillis() {
+        return System.currentTimeMillis();
+    }
+
     /**
      * Load predefined scripts from an XML file.
      */
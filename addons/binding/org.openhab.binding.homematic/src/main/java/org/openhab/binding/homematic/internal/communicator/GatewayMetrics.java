@@ -0,0 +1,254 @@
+/**
+ * Copyright (c) 2010-2017 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.binding.homematic.internal.communicator;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.commons.lang.StringUtils;
+import org.openhab.binding.homematic.internal.misc.LatencyHistogram;
+
+/**
+ * Collects runtime metrics of the event and RPC pipeline of a gateway. The event rates and the histograms cover the
+ * interval between the last two calls of {@link #completeInterval()}, the counters are cumulative since the start of
+ * the gateway and the queue depths are snapshots.
+ *
+ * @author agent - Initial contribution
+ */
+public class GatewayMetrics {
+    private ConcurrentMap<String, AtomicLong> eventsPerInterface = new ConcurrentHashMap<String, AtomicLong>();
+    private Map<String, Long> lastEventsPerInterface = new HashMap<String, Long>();
+    private volatile Map<String, Double> eventRatePerInterface = Collections.emptyMap();
+    private long lastRateUpdate = System.nanoTime();
+
+    private AtomicLong echoEvents = new AtomicLong();
+
+    // histograms of the current interval
+    private volatile LatencyHistogram decodeTime = new LatencyHistogram();
+    private volatile LatencyHistogram dispatchLatency = new LatencyHistogram();
+    private volatile LatencyHistogram rpcRoundTripTime = new LatencyHistogram();
+    private volatile ConcurrentMap<String, LatencyHistogram> rpcRoundTripTimePerMethod =
+            new ConcurrentHashMap<String, LatencyHistogram>();
+
+    // histograms of the last completed interval
+    private volatile LatencyHistogram lastDecodeTime = new LatencyHistogram();
+    private volatile LatencyHistogram lastDispatchLatency = new LatencyHistogram();
+    private volatile LatencyHistogram lastRpcRoundTripTime = new LatencyHistogram();
+    private volatile Map<String, LatencyHistogram> lastRpcRoundTripTimePerMethod = Collections.emptyMap();
+
+    private volatile int rpcInFlightRequests;
+    private volatile int rpcQueuedRequests;
+    private volatile int gatewayPoolQueue;
+    private volatile int pendingDelayedEvents;
+    private volatile long delayedEvents;
+    private volatile long coalescedDelayedEvents;
+    private volatile long firedDelayedEvents;
+
+    /**
+     * Counts an event received from the given interface id, e.g. RF-mygateway.
+     */
+    public void eventReceived(String interfaceId) {
+        String key = interfaceId == null ? "unknown" : StringUtils.substringBefore(interfaceId, "-");
+        AtomicLong counter = eventsPerInterface.get(key);
+        if (counter == null) {
+            AtomicLong newCounter = new AtomicLong();
+            counter = eventsPerInterface.putIfAbsent(key, newCounter);
+            if (counter == null) {
+                counter = newCounter;
+            }
+        }
+        counter.incrementAndGet();
+    }
+
+    /**
+     * Counts an event which has been suppressed, because it is the echo of a value sent by the binding.
+     */
+    public void echoEventSuppressed() {
+        echoEvents.incrementAndGet();
+    }
+
+    /**
+     * Records the time needed to decode a message received from the gateway.
+     */
+    public void decoded(long nanos) {
+        decodeTime.record(nanos);
+    }
+
+    /**
+     * Records the time from the receipt of an event until it has been dispatched to the gateway and the thing
+     * handlers, including the decoding and the wait for a worker thread.
+     */
+    public void dispatched(long nanos) {
+        dispatchLatency.record(nanos);
+    }
+
+    /**
+     * Records the round-trip time of a RPC request to the gateway, including the wait for a free connection.
+     */
+    public void rpcCompleted(String methodName, long nanos) {
+        rpcRoundTripTime.record(nanos);
+        ConcurrentMap<String, LatencyHistogram> histograms = rpcRoundTripTimePerMethod;
+        LatencyHistogram histogram = histograms.get(methodName);
+        if (histogram == null) {
+            LatencyHistogram newHistogram = new LatencyHistogram();
+            histogram = histograms.putIfAbsent(methodName, newHistogram);
+            if (histogram == null) {
+                histogram = newHistogram;
+            }
+        }
+        histogram.record(nanos);
+    }
+
+    /**
+     * Sets the current queue depths of the gateway.
+     */
+    public void setQueueDepths(int rpcInFlightRequests, int rpcQueuedRequests, int gatewayPoolQueue,
+            int pendingDelayedEvents) {
+        this.rpcInFlightRequests = rpcInFlightRequests;
+        this.rpcQueuedRequests = rpcQueuedRequests;
+        this.gatewayPoolQueue = gatewayPoolQueue;
+        this.pendingDelayedEvents = pendingDelayedEvents;
+    }
+
+    /**
+     * Sets the current counters of the delayed datapoint events.
+     */
+    public void setDelayedEventCounts(long delayedEvents, long coalescedDelayedEvents, long firedDelayedEvents) {
+        this.delayedEvents = delayedEvents;
+        this.coalescedDelayedEvents = coalescedDelayedEvents;
+        this.firedDelayedEvents = firedDelayedEvents;
+    }
+
+    /**
+     * Completes the current interval: calculates the event rates since the last call and starts new histograms. The
+     * getters return the histograms of the completed interval.
+     */
+    public synchronized void completeInterval() {
+        lastDecodeTime = decodeTime;
+        decodeTime = new LatencyHistogram();
+        lastDispatchLatency = dispatchLatency;
+        dispatchLatency = new LatencyHistogram();
+        lastRpcRoundTripTime = rpcRoundTripTime;
+        rpcRoundTripTime = new LatencyHistogram();
+        lastRpcRoundTripTimePerMethod = Collections.unmodifiableMap(rpcRoundTripTimePerMethod);
+        rpcRoundTripTimePerMethod = new ConcurrentHashMap<String, LatencyHistogram>();
+
+        long now = System.nanoTime();
+        double seconds = (now - lastRateUpdate) / 1000000000.0;
+        lastRateUpdate = now;
+
+        Map<String, Double> rates = new HashMap<String, Double>();
+        for (Map.Entry<String, AtomicLong> entry : eventsPerInterface.entrySet()) {
+            long count = entry.getValue().get();
+            Long lastCount = lastEventsPerInterface.put(entry.getKey(), count);
+            long delta = count - (lastCount == null ? 0 : lastCount);
+            rates.put(entry.getKey(), seconds <= 0 ? 0.0 : delta / seconds);
+        }
+        eventRatePerInterface = Collections.unmodifiableMap(rates);
+    }
+
+    /**
+     * Returns the number of events per second of each interface, calculated by the last {@link #completeInterval()}.
+     */
+    public Map<String, Double> getEventRatePerInterface() {
+        return eventRatePerInterface;
+    }
+
+    /**
+     * Returns the number of events per second of all interfaces.
+     */
+    public double getEventRate() {
+        double rate = 0.0;
+        for (Double interfaceRate : eventRatePerInterface.values()) {
+            rate += interfaceRate;
+        }
+        return rate;
+    }
+
+    /**
+     * Returns the total number of events received from each interface.
+     */
+    public Map<String, Long> getEventsPerInterface() {
+        Map<String, Long> events = new HashMap<String, Long>();
+        for (Map.Entry<String, AtomicLong> entry : eventsPerInterface.entrySet()) {
+            events.put(entry.getKey(), entry.getValue().get());
+        }
+        return events;
+    }
+
+    public long getEchoEvents() {
+        return echoEvents.get();
+    }
+
+    public LatencyHistogram getDecodeTime() {
+        return lastDecodeTime;
+    }
+
+    public LatencyHistogram getDispatchLatency() {
+        return lastDispatchLatency;
+    }
+
+    public LatencyHistogram getRpcRoundTripTime() {
+        return lastRpcRoundTripTime;
+    }
+
+    /**
+     * Returns the round-trip time histograms of the RPC requests by method name.
+     */
+    public Map<String, LatencyHistogram> getRpcRoundTripTimePerMethod() {
+        return lastRpcRoundTripTimePerMethod;
+    }
+
+    public int getRpcInFlightRequests() {
+        return rpcInFlightRequests;
+    }
+
+    public int getRpcQueuedRequests() {
+        return rpcQueuedRequests;
+    }
+
+    public int getGatewayPoolQueue() {
+        return gatewayPoolQueue;
+    }
+
+    public int getPendingDelayedEvents() {
+        return pendingDelayedEvents;
+    }
+
+    public long getDelayedEvents() {
+        return delayedEvents;
+    }
+
+    public long getCoalescedDelayedEvents() {
+        return coalescedDelayedEvents;
+    }
+
+    public long getFiredDelayedEvents() {
+        return firedDelayedEvents;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String toString() {
+        return String.format(
+                "%s[eventRate=%s, echoEvents=%d, decodeTime=(%s), dispatchLatency=(%s), rpcRoundTripTime=(%s), "
+                        + "rpcRoundTripTimePerMethod=%s, rpcInFlightRequests=%d, rpcQueuedRequests=%d, "
+                        + "gatewayPoolQueue=%d, pendingDelayedEvents=%d, delayedEvents=%d, "
+                        + "coalescedDelayedEvents=%d, firedDelayedEvents=%d]",
+                getClass().getSimpleName(), eventRatePerInterface, getEchoEvents(), lastDecodeTime,
+                lastDispatchLatency, lastRpcRoundTripTime, lastRpcRoundTripTimePerMethod, rpcInFlightRequests,
+                rpcQueuedRequests, gatewayPoolQueue, pendingDelayedEvents, delayedEvents, coalescedDelayedEvents, firedDelayedEvents);
+    }
+}
@@ -85,4 +85,9 @@ public interface HomematicGateway {
      */
     public void startWatchdogs();
 
+    /**
+     * Returns the event and RPC metrics of the gateway.
+     */
+    public GatewayMetrics getMetrics();
+
 }
\ No newline at end of file
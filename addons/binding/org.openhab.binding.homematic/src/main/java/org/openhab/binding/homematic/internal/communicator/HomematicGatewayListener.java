@@ -62,4 +62,9 @@ public interface HomematicGatewayListener {
      * Called when the connection is resumed to the gateway.
      */
     public void onConnectionResumed();
+
+    /**
+     * Called periodically with the current metrics of the gateway.
+     */
+    public void onMetricsUpdated(GatewayMetrics metrics);
 }
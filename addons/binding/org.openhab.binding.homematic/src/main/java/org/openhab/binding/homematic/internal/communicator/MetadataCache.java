@@ -0,0 +1,247 @@
+/**
+ * Copyright (c) 2010-2017 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.binding.homematic.internal.communicator;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.commons.io.IOUtils;
+import org.eclipse.smarthome.config.core.ConfigConstants;
+import org.openhab.binding.homematic.internal.communicator.message.BinRpcMessage;
+import org.openhab.binding.homematic.internal.model.HmChannel;
+import org.openhab.binding.homematic.internal.model.HmDatapoint;
+import org.openhab.binding.homematic.internal.model.HmParamsetType;
+import org.openhab.binding.homematic.internal.model.HmValueType;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Persistent cache for the datapoint descriptions of the channels, keyed by device type, firmware and channel number.
+ * The descriptions are stored in the userdata folder in BIN-RPC format, so a restart of the bridge only loads the
+ * descriptions of unknown device types from the gateway.
+ *
+ * @author agent - Initial contribution
+ */
+public class MetadataCache {
+    private final Logger logger = LoggerFactory.getLogger(MetadataCache.class);
+    private static final int FORMAT_VERSION = 1;
+    private static final String ENCODING = "UTF-8";
+
+    private Map<String, Collection<HmDatapoint>> datapointsByChannelId =
+            new ConcurrentHashMap<String, Collection<HmDatapoint>>();
+    private File file;
+    private boolean loaded;
+    private volatile boolean changed;
+
+    public MetadataCache(String gatewayId) {
+        this(new File(ConfigConstants.getUserDataFolder() + File.separator + "homematic" + File.separator
+                + gatewayId.replaceAll("[^A-Za-z0-9_-]", "_") + "-metadata.bin"));
+    }
+
+    /**
+     * Creates a cache stored in the given file.
+     */
+    MetadataCache(File file) {
+        this.file = file;
+    }
+
+    /**
+     * Returns the id of the channel used as key of the cache.
+     */
+    public static String getChannelId(HmChannel channel) {
+        return String.format("%s:%s:%s", channel.getDevice().getType(), channel.getDevice().getFirmware(),
+                channel.getNumber());
+    }
+
+    /**
+     * Returns the cached datapoints for the type of the channel or null, if the type is unknown.
+     */
+    public Collection<HmDatapoint> get(HmChannel channel) {
+        return datapointsByChannelId.get(getChannelId(channel));
+    }
+
+    /**
+     * Adds a copy of the datapoints of a freshly loaded channel to the cache.
+     */
+    public void put(HmChannel channel) {
+        List<HmDatapoint> datapoints = new ArrayList<HmDatapoint>();
+        for (HmDatapoint dp : channel.getDatapoints().values()) {
+            if (!dp.isVirtual()) {
+                HmDatapoint clonedDp = dp.clone();
+                clonedDp.setChannel(null);
+                datapoints.add(clonedDp);
+            }
+        }
+        datapointsByChannelId.put(getChannelId(channel), datapoints);
+        changed = true;
+    }
+
+    /**
+     * Loads the cache file once, a missing or unreadable file results in an empty cache.
+     */
+    public synchronized void load() {
+        if (loaded) {
+            return;
+        }
+        loaded = true;
+        if (!file.exists()) {
+            logger.debug("No metadata cache file '{}' found", file);
+            return;
+        }
+        InputStream is = null;
+        try {
+            is = new FileInputStream(file);
+            Object[] data = new BinRpcMessage(is, false, ENCODING).getResponseData();
+            Map<?, ?> content = data != null && data.length > 0 && data[0] instanceof Map ? (Map<?, ?>) data[0] : null;
+            if (content == null || !Integer.valueOf(FORMAT_VERSION).equals(content.get("version"))) {
+                logger.info("Ignoring metadata cache file '{}' with unknown format", file);
+                return;
+            }
+            Map<?, ?> channels = (Map<?, ?>) content.get("channels");
+            for (Map.Entry<?, ?> entry : channels.entrySet()) {
+                List<HmDatapoint> datapoints = new ArrayList<HmDatapoint>();
+                for (Object dpData : (Object[]) entry.getValue()) {
+                    datapoints.add(toDatapoint((Map<?, ?>) dpData));
+                }
+                datapointsByChannelId.put((String) entry.getKey(), datapoints);
+            }
+            logger.debug("Loaded metadata of {} channel types from '{}'", datapointsByChannelId.size(), file);
+        } catch (IOException | RuntimeException ex) {
+            logger.warn("Can't read metadata cache file '{}', loading all metadata from the gateway: {}", file,
+                    ex.getMessage());
+            datapointsByChannelId.clear();
+        } finally {
+            IOUtils.closeQuietly(is);
+        }
+    }
+
+    /**
+     * Writes the cache file if the cache has changed since the last load or save.
+     */
+    public synchronized void save() {
+        if (!changed) {
+            return;
+        }
+        changed = false;
+
+        Map<String, Object> channels = new HashMap<String, Object>();
+        for (Map.Entry<String, Collection<HmDatapoint>> entry : datapointsByChannelId.entrySet()) {
+            List<Object> datapoints = new ArrayList<Object>();
+            for (HmDatapoint dp : entry.getValue()) {
+                datapoints.add(toMap(dp));
+            }
+            channels.put(entry.getKey(), datapoints);
+        }
+        Map<String, Object> content = new HashMap<String, Object>();
+        content.put("version", FORMAT_VERSION);
+        content.put("channels", channels);
+
+        BinRpcMessage message = new BinRpcMessage(null, BinRpcMessage.TYPE.RESPONSE, ENCODING);
+        message.addArg(content);
+
+        File tempFile = new File(file.getPath() + ".tmp");
+        OutputStream os = null;
+        try {
+            file.getParentFile().mkdirs();
+            os = new FileOutputStream(tempFile);
+            os.write(message.createMessage());
+            os.close();
+            os = null;
+            if (!tempFile.renameTo(file) && !(file.delete() && tempFile.renameTo(file))) {
+                throw new IOException("Can't rename " + tempFile);
+            }
+            logger.debug("Saved metadata of {} channel types to '{}'", channels.size(), file);
+        } catch (IOException ex) {
+            logger.warn("Can't write metadata cache file '{}': {}", file, ex.getMessage());
+            tempFile.delete();
+        } finally {
+            IOUtils.closeQuietly(os);
+        }
+    }
+
+    /**
+     * Converts the metadata of the datapoint to a BIN-RPC struct, null values are omitted.
+     */
+    private Map<String, Object> toMap(HmDatapoint dp) {
+        Map<String, Object> map = new HashMap<String, Object>();
+        putIfNotNull(map, "name", dp.getName());
+        putIfNotNull(map, "description", dp.getDescription());
+        putIfNotNull(map, "type", dp.getType() == null ? null : dp.getType().toString());
+        putIfNotNull(map, "paramsetType", dp.getParamsetType() == null ? null : dp.getParamsetType().toString());
+        putIfNotNull(map, "min", toRpcValue(dp.getMinValue()));
+        putIfNotNull(map, "max", toRpcValue(dp.getMaxValue()));
+        putIfNotNull(map, "step", toRpcValue(dp.getStep()));
+        putIfNotNull(map, "options", dp.getOptions() == null ? null : Arrays.asList(dp.getOptions()));
+        putIfNotNull(map, "info", dp.getInfo());
+        putIfNotNull(map, "unit", dp.getUnit());
+        putIfNotNull(map, "default", toRpcValue(dp.getDefaultValue()));
+        map.put("readOnly", dp.isReadOnly());
+        map.put("readable", dp.isReadable());
+        return map;
+    }
+
+    /**
+     * Creates a datapoint from a BIN-RPC struct written by {@link #toMap(HmDatapoint)}.
+     */
+    private HmDatapoint toDatapoint(Map<?, ?> map) {
+        HmDatapoint dp = new HmDatapoint();
+        dp.setName((String) map.get("name"));
+        dp.setDescription((String) map.get("description"));
+        dp.setType(HmValueType.parse((String) map.get("type")));
+        if (map.get("paramsetType") != null) {
+            dp.setParamsetType(HmParamsetType.parse((String) map.get("paramsetType")));
+        }
+        dp.setMinValue((Number) map.get("min"));
+        dp.setMaxValue((Number) map.get("max"));
+        dp.setStep((Number) map.get("step"));
+        Object[] options = (Object[]) map.get("options");
+        if (options != null) {
+            dp.setOptions(Arrays.copyOf(options, options.length, String[].class));
+        }
+        dp.setInfo((String) map.get("info"));
+        dp.setUnit((String) map.get("unit"));
+        dp.setDefaultValue(map.get("default"));
+        dp.setReadOnly(Boolean.TRUE.equals(map.get("readOnly")));
+        dp.setReadable(Boolean.TRUE.equals(map.get("readable")));
+        return dp;
+    }
+
+    /**
+     * Converts a value to a type supported by the BIN-RPC encoder, unsupported values are dropped.
+     */
+    private Object toRpcValue(Object value) {
+        if (value instanceof Integer || value instanceof Double || value instanceof String
+                || value instanceof Boolean) {
+            return value;
+        } else if (value instanceof Short || value instanceof Byte || (value instanceof Long
+                && (Long) value >= Integer.MIN_VALUE && (Long) value <= Integer.MAX_VALUE)) {
+            return ((Number) value).intValue();
+        } else if (value instanceof Number) {
+            return ((Number) value).doubleValue();
+        }
+        return null;
+    }
+
+    private void putIfNotNull(Map<String, Object> map, String key, Object value) {
+        if (value != null) {
+            map.put(key, value);
+        }
+    }
+}
@@ -12,7 +12,9 @@ import java.io.IOException;
 import java.net.Socket;
 
 import org.openhab.binding.homematic.internal.common.HomematicConfig;
+import org.openhab.binding.homematic.internal.communicator.GatewayMetrics;
 import org.openhab.binding.homematic.internal.communicator.message.BinRpcMessage;
+import org.openhab.binding.homematic.internal.communicator.message.BinRpcStringCache;
 import org.openhab.binding.homematic.internal.communicator.message.RpcRequest;
 import org.openhab.binding.homematic.internal.communicator.parser.RpcResponseParser;
 import org.openhab.binding.homematic.internal.model.HmInterface;
@@ -28,9 +30,10 @@ public class BinRpcClient extends RpcClient<byte[]> {
     private final Logger logger = LoggerFactory.getLogger(BinRpcClient.class);
 
     private SocketHandler socketHandler;
+    private BinRpcStringCache stringCache = new BinRpcStringCache();
 
-    public BinRpcClient(HomematicConfig config) {
-        super(config);
+    public BinRpcClient(HomematicConfig config, GatewayMetrics metrics) {
+        super(config, metrics);
         socketHandler = new SocketHandler(config);
     }
 
@@ -71,11 +74,18 @@ public class BinRpcClient extends RpcClient<byte[]> {
      * Sends a BIN-RPC message and parses the response to see if there was an error.
      */
     @Override
-    protected synchronized Object[] sendMessage(int port, RpcRequest<byte[]> request) throws IOException {
+    protected Object[] sendMessage(int port, RpcRequest<byte[]> request) throws IOException {
         if (logger.isTraceEnabled()) {
             logger.trace("Client BinRpcRequest:\n{}", request);
         }
-        return sendMessage(port, request, 0);
+        long start = System.nanoTime();
+        requestLimiter.acquire(port, config.getTimeout() * 1000L);
+        try {
+            return sendMessage(port, request, 0);
+        } finally {
+            requestLimiter.release(port);
+            metrics.rpcCompleted(request.getMethodName(), System.nanoTime() - start);
+        }
     }
 
     /**
@@ -84,9 +94,17 @@ public class BinRpcClient extends RpcClient<byte[]> {
     private Object[] sendMessage(int port, RpcRequest<byte[]> request, int rpcRetryCounter) throws IOException {
         BinRpcMessage resp = null;
         try {
-            Socket socket = socketHandler.getSocket(port);
-            socket.getOutputStream().write(request.createMessage());
-            resp = new BinRpcMessage(socket.getInputStream(), false, config.getEncoding());
+            SocketInfo socketInfo = socketHandler.getSocket(port);
+            try {
+                Socket socket = socketInfo.getSocket();
+                socket.getOutputStream().write(request.createMessage());
+                resp = new BinRpcMessage(socket.getInputStream(), false, config.getEncoding(), stringCache);
+            } catch (IOException | RuntimeException ex) {
+                // the rest of a broken response is still unread, so the socket can't be reused
+                socketHandler.closeSocket(socketInfo);
+                throw ex;
+            }
+            socketHandler.releaseSocket(port, socketInfo);
             return new RpcResponseParser(request).parse(resp.getResponseData());
         } catch (UnknownRpcFailureException | UnknownParameterSetException rpcEx) {
             // throw immediately, don't retry the message
@@ -98,6 +116,7 @@ public class BinRpcClient extends RpcClient<byte[]> {
                 rpcRetryCounter++;
                 logger.debug("BinRpcMessage socket failure, sending message again {}/{}", rpcRetryCounter,
                         MAX_RPC_RETRY);
+                // the idle sockets to the port are most likely broken as well
                 socketHandler.removeSocket(port);
                 return sendMessage(port, request, rpcRetryCounter);
             }
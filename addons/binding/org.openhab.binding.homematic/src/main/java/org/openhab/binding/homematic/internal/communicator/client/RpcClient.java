@@ -9,13 +9,17 @@
 package org.openhab.binding.homematic.internal.communicator.client;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.apache.commons.lang.StringUtils;
 import org.openhab.binding.homematic.internal.common.HomematicConfig;
+import org.openhab.binding.homematic.internal.communicator.GatewayMetrics;
 import org.openhab.binding.homematic.internal.communicator.message.RpcRequest;
 import org.openhab.binding.homematic.internal.communicator.parser.GetAllScriptsParser;
 import org.openhab.binding.homematic.internal.communicator.parser.GetAllSystemVariablesParser;
@@ -47,9 +51,28 @@ public abstract class RpcClient<T> {
     protected static final int MAX_RPC_RETRY = 1;
 
     protected HomematicConfig config;
+    protected RpcRequestLimiter requestLimiter;
+    protected GatewayMetrics metrics;
+    private Map<Integer, Boolean> multicallSupportedPorts = new ConcurrentHashMap<Integer, Boolean>();
 
-    public RpcClient(HomematicConfig config) {
+    public RpcClient(HomematicConfig config, GatewayMetrics metrics) {
         this.config = config;
+        this.metrics = metrics;
+        requestLimiter = new RpcRequestLimiter(config.getConnectionsPerPort());
+    }
+
+    /**
+     * Returns the number of requests currently sent to the gateway and waiting for the response.
+     */
+    public int getInFlightRequests() {
+        return requestLimiter.getInFlightRequests();
+    }
+
+    /**
+     * Returns the number of requests waiting for a free connection to the gateway.
+     */
+    public int getQueuedRequests() {
+        return requestLimiter.getQueuedRequests();
     }
 
     /**
@@ -175,6 +198,81 @@ public abstract class RpcClient<T> {
         }
     }
 
+    /**
+     * Sets the MASTER and VALUES datapoint values of all given channels of a device with one system.multicall
+     * request, if the gateway supports it. Returns the channels which could not be loaded this way, they have to be
+     * loaded with {@link #setChannelDatapointValues(HmChannel, HmParamsetType)}.
+     */
+    public Collection<HmChannel> setChannelDatapointValues(Collection<HmChannel> channels) throws IOException {
+        List<HmChannel> notLoadedChannels = new ArrayList<HmChannel>();
+        if (channels.isEmpty()) {
+            return notLoadedChannels;
+        }
+        HmChannel firstChannel = channels.iterator().next();
+        int port = config.getRpcPort(firstChannel);
+        if (firstChannel.getDevice().getHmInterface() == HmInterface.CUXD || !isMulticallSupported(port)) {
+            notLoadedChannels.addAll(channels);
+            return notLoadedChannels;
+        }
+
+        List<Object> calls = new ArrayList<Object>();
+        for (HmChannel channel : channels) {
+            for (HmParamsetType paramsetType : HmParamsetType.values()) {
+                Map<String, Object> call = new HashMap<String, Object>();
+                call.put("methodName", "getParamset");
+                call.put("params", Arrays.asList(
+                        getRpcAddress(channel.getDevice().getAddress()) + ":" + channel.getNumber(),
+                        paramsetType.toString()));
+                calls.add(call);
+            }
+        }
+        RpcRequest<T> request = createRpcRequest("system.multicall");
+        request.addArg(calls);
+        Object[] results = (Object[]) sendMessage(port, request)[0];
+
+        int index = 0;
+        for (HmChannel channel : channels) {
+            boolean loaded = true;
+            for (HmParamsetType paramsetType : HmParamsetType.values()) {
+                Object result = index < results.length ? results[index] : null;
+                index++;
+                try {
+                    if (loaded && result instanceof Object[]) {
+                        new GetParamsetParser(channel, paramsetType).parse((Object[]) result);
+                    } else {
+                        loaded = false;
+                    }
+                } catch (IOException | RuntimeException ex) {
+                    logger.debug("Can't parse {} values of channel {} from multicall response: {}", paramsetType,
+                            channel.getNumber(), ex.getMessage());
+                    loaded = false;
+                }
+            }
+            if (!loaded) {
+                notLoadedChannels.add(channel);
+            }
+        }
+        return notLoadedChannels;
+    }
+
+    /**
+     * Returns true, if the interface on the given port supports system.multicall.
+     */
+    private boolean isMulticallSupported(int port) throws IOException {
+        Boolean supported = multicallSupportedPorts.get(port);
+        if (supported == null) {
+            supported = false;
+            RpcRequest<T> request = createRpcRequest("system.listMethods");
+            Object[] response = sendMessage(port, request);
+            if (response[0] instanceof Object[]) {
+                supported = Arrays.asList((Object[]) response[0]).contains("system.multicall");
+            }
+            logger.debug("Interface on port {} {} system.multicall", port, supported ? "supports" : "does not support");
+            multicallSupportedPorts.put(port, supported);
+        }
+        return supported;
+    }
+
     /**
      * Reads all VALUES datapoints individually, fallback method if setChannelDatapointValues throws a -1 Failure
      * exception.
@@ -0,0 +1,94 @@
+/**
+ * Copyright (c) 2010-2017 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.binding.homematic.internal.communicator.client;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Limits the number of concurrent requests per port of the Homematic gateway. Requests which exceed the limit are
+ * queued in order of arrival until a connection is available or the timeout is reached.
+ *
+ * @author agent - Initial contribution
+ */
+public class RpcRequestLimiter {
+    private Map<Integer, Semaphore> permitsPerPort = new ConcurrentHashMap<Integer, Semaphore>();
+    private int maxConcurrentRequests;
+
+    public RpcRequestLimiter(int maxConcurrentRequests) {
+        this.maxConcurrentRequests = Math.max(1, maxConcurrentRequests);
+    }
+
+    /**
+     * Waits until a request can be sent to the given port.
+     */
+    public void acquire(int port, long timeoutMillis) throws IOException {
+        boolean acquired;
+        try {
+            acquired = getPermits(port).tryAcquire(timeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while waiting for a connection to port " + port, ex);
+        }
+        if (!acquired) {
+            throw new IOException("Timeout waiting for a free connection to port " + port);
+        }
+    }
+
+    /**
+     * Releases a request previously acquired for the given port.
+     */
+    public void release(int port) {
+        getPermits(port).release();
+    }
+
+    /**
+     * Returns the maximum number of concurrent requests per port.
+     */
+    public int getMaxConcurrentRequests() {
+        return maxConcurrentRequests;
+    }
+
+    /**
+     * Returns the number of requests currently in flight on all ports.
+     */
+    public int getInFlightRequests() {
+        int inFlight = 0;
+        for (Semaphore permits : permitsPerPort.values()) {
+            inFlight += maxConcurrentRequests - permits.availablePermits();
+        }
+        return inFlight;
+    }
+
+    /**
+     * Returns the number of requests waiting for a connection on all ports.
+     */
+    public int getQueuedRequests() {
+        int queued = 0;
+        for (Semaphore permits : permitsPerPort.values()) {
+            queued += permits.getQueueLength();
+        }
+        return queued;
+    }
+
+    private Semaphore getPermits(int port) {
+        Semaphore permits = permitsPerPort.get(port);
+        if (permits == null) {
+            permits = new Semaphore(maxConcurrentRequests, true);
+            Semaphore existing = permitsPerPort.putIfAbsent(port, permits);
+            if (existing != null) {
+                permits = existing;
+            }
+        }
+        return permits;
+    }
+}
@@ -11,7 +11,11 @@ package org.openhab.binding.homematic.internal.communicator.client;
 import java.io.IOException;
 import java.net.InetSocketAddress;
 import java.net.Socket;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 import org.openhab.binding.homematic.internal.common.HomematicConfig;
@@ -19,14 +23,15 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 /**
- * Simple socket cache class.
+ * Simple socket pool class. A socket is borrowed exclusively for one request and handed back afterwards, so several
+ * requests to the same port can use their own connection at the same time.
  *
  * @author Gerhard Riegler - Initial contribution
  */
 public class SocketHandler {
     private final Logger logger = LoggerFactory.getLogger(SocketHandler.class);
 
-    private Map<Integer, SocketInfo> socketsPerPort = new HashMap<Integer, SocketInfo>();
+    private Map<Integer, Deque<SocketInfo>> idleSocketsPerPort = new HashMap<Integer, Deque<SocketInfo>>();
     private HomematicConfig config;
 
     public SocketHandler(HomematicConfig config) {
@@ -34,55 +39,103 @@ public class SocketHandler {
     }
 
     /**
-     * Returns a socket for the given port, (re)creates it if required.
+     * Returns an idle socket for the given port or creates a new one if there is none.
      */
-    public Socket getSocket(int port) throws IOException {
-        SocketInfo socketInfo = socketsPerPort.get(port);
-        if (socketInfo == null) {
-            logger.trace("Creating new socket for port {}", port);
-            Socket socket = new Socket();
-            socket.setSoTimeout(config.getTimeout() * 1000);
+    public SocketInfo getSocket(int port) throws IOException {
+        SocketInfo socketInfo;
+        while ((socketInfo = pollIdleSocket(port)) != null) {
+            if (isMaxAliveReached(socketInfo)) {
+                logger.debug("Max alive time reached for socket on port {}", port);
+                closeSilent(socketInfo.getSocket());
+            } else {
+                logger.trace("Returning socket for port {}", port);
+                return socketInfo;
+            }
+        }
+
+        logger.trace("Creating new socket for port {}", port);
+        Socket socket = new Socket();
+        socket.setSoTimeout(config.getTimeout() * 1000);
+        try {
             socket.connect(new InetSocketAddress(config.getGatewayAddress(), port), socket.getSoTimeout());
-            socketInfo = new SocketInfo(socket);
-            socketsPerPort.put(port, socketInfo);
-        } else {
-            boolean isMaxAliveReached = System.currentTimeMillis()
-                    - socketInfo.getCreated() > (config.getSocketMaxAlive() * 1000);
+        } catch (IOException ex) {
+            closeSilent(socket);
+            throw ex;
+        }
+        return new SocketInfo(socket);
+    }
 
-            if (isMaxAliveReached) {
-                logger.debug("Max alive time reached for socket on port {}", port);
-                removeSocket(port);
-                return getSocket(port);
+    /**
+     * Hands back a socket after a successful request, it is reused by the next request to the port.
+     */
+    public void releaseSocket(int port, SocketInfo socketInfo) {
+        if (isMaxAliveReached(socketInfo)) {
+            logger.debug("Max alive time reached for socket on port {}", port);
+            closeSilent(socketInfo.getSocket());
+            return;
+        }
+        synchronized (idleSocketsPerPort) {
+            Deque<SocketInfo> idleSockets = idleSocketsPerPort.get(port);
+            if (idleSockets == null) {
+                idleSockets = new ArrayDeque<SocketInfo>();
+                idleSocketsPerPort.put(port, idleSockets);
             }
-            logger.trace("Returning socket for port {}", port);
+            idleSockets.push(socketInfo);
         }
-        return socketInfo.getSocket();
     }
 
     /**
-     * Removes the socket for the given port from the cache.
+     * Closes a socket after a failed request.
+     */
+    public void closeSocket(SocketInfo socketInfo) {
+        closeSilent(socketInfo.getSocket());
+    }
+
+    /**
+     * Closes all idle sockets for the given port.
      */
     public void removeSocket(int port) {
-        SocketInfo socketInfo = socketsPerPort.get(port);
-        if (socketInfo != null) {
-            logger.trace("Closing Socket on port {}", port);
-            socketsPerPort.remove(port);
+        List<SocketInfo> socketsToClose;
+        synchronized (idleSocketsPerPort) {
+            Deque<SocketInfo> idleSockets = idleSocketsPerPort.remove(port);
+            if (idleSockets == null) {
+                return;
+            }
+            socketsToClose = new ArrayList<SocketInfo>(idleSockets);
+        }
+        logger.trace("Closing {} socket(s) on port {}", socketsToClose.size(), port);
+        for (SocketInfo socketInfo : socketsToClose) {
             closeSilent(socketInfo.getSocket());
         }
     }
 
     /**
-     * Removes all cached sockets.
+     * Removes all idle sockets.
      */
     public void flush() {
-        synchronized (SocketHandler.class) {
-            Integer[] portsToRemove = socketsPerPort.keySet().toArray(new Integer[0]);
-            for (Integer key : portsToRemove) {
-                removeSocket(key);
-            }
+        Integer[] portsToRemove;
+        synchronized (idleSocketsPerPort) {
+            portsToRemove = idleSocketsPerPort.keySet().toArray(new Integer[0]);
+        }
+        for (Integer key : portsToRemove) {
+            removeSocket(key);
         }
     }
 
+    /**
+     * Returns the most recently used idle socket for the port.
+     */
+    private SocketInfo pollIdleSocket(int port) {
+        synchronized (idleSocketsPerPort) {
+            Deque<SocketInfo> idleSockets = idleSocketsPerPort.get(port);
+            return idleSockets == null ? null : idleSockets.poll();
+        }
+    }
+
+    private boolean isMaxAliveReached(SocketInfo socketInfo) {
+        return System.currentTimeMillis() - socketInfo.getCreated() > (config.getSocketMaxAlive() * 1000);
+    }
+
     /**
      * Silently closes the given socket.
      */
@@ -17,6 +17,7 @@ import org.eclipse.jetty.client.api.ContentResponse;
 import org.eclipse.jetty.client.util.BytesContentProvider;
 import org.eclipse.jetty.http.HttpHeader;
 import org.openhab.binding.homematic.internal.common.HomematicConfig;
+import org.openhab.binding.homematic.internal.communicator.GatewayMetrics;
 import org.openhab.binding.homematic.internal.communicator.message.RpcRequest;
 import org.openhab.binding.homematic.internal.communicator.message.XmlRpcRequest;
 import org.openhab.binding.homematic.internal.communicator.message.XmlRpcResponse;
@@ -33,10 +34,11 @@ public class XmlRpcClient extends RpcClient<String> {
     private final Logger logger = LoggerFactory.getLogger(XmlRpcClient.class);
     private HttpClient httpClient;
 
-    public XmlRpcClient(HomematicConfig config) throws IOException {
-        super(config);
+    public XmlRpcClient(HomematicConfig config, GatewayMetrics metrics) throws IOException {
+        super(config, metrics);
         httpClient = new HttpClient();
         httpClient.setConnectTimeout(config.getTimeout() * 1000L);
+        httpClient.setMaxConnectionsPerDestination(requestLimiter.getMaxConcurrentRequests());
 
         try {
             httpClient.start();
@@ -75,17 +77,24 @@ public class XmlRpcClient extends RpcClient<String> {
      * {@inheritDoc}
      */
     @Override
-    protected synchronized Object[] sendMessage(int port, RpcRequest<String> request) throws IOException {
+    protected Object[] sendMessage(int port, RpcRequest<String> request) throws IOException {
         if (logger.isTraceEnabled()) {
             logger.trace("Client XmlRpcRequest (port {}):\n{}", port, request);
         }
-        return sendMessage(port, request, 0);
+        long start = System.nanoTime();
+        requestLimiter.acquire(port, config.getTimeout() * 1000L);
+        try {
+            return sendMessage(port, request, 0);
+        } finally {
+            requestLimiter.release(port);
+            metrics.rpcCompleted(request.getMethodName(), System.nanoTime() - start);
+        }
     }
 
     /**
      * Sends the message, retries if there was an error.
      */
-    private synchronized Object[] sendMessage(int port, RpcRequest<String> request, int rpcRetryCounter)
+    private Object[] sendMessage(int port, RpcRequest<String> request, int rpcRetryCounter)
             throws IOException {
         try {
             BytesContentProvider content = new BytesContentProvider(
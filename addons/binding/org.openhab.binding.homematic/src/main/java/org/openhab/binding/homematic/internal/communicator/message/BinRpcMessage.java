@@ -15,6 +15,7 @@ import java.io.UnsupportedEncodingException;
 import java.math.BigDecimal;
 import java.math.BigInteger;
 import java.math.RoundingMode;
+import java.nio.ByteBuffer;
 import java.text.ParseException;
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -26,7 +27,6 @@ import java.util.Map;
 import java.util.TreeMap;
 
 import org.apache.commons.io.IOUtils;
-import org.apache.commons.lang.ArrayUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -38,6 +38,12 @@ import org.slf4j.LoggerFactory;
 public class BinRpcMessage implements RpcRequest<byte[]>, RpcResponse {
     private final Logger logger = LoggerFactory.getLogger(BinRpcMessage.class);
 
+    /**
+     * Maximum length of a BIN-RPC message including its header, a newDevices call of a big installation is a few
+     * megabytes.
+     */
+    public static final int MAX_MESSAGE_LENGTH = 16 * 1024 * 1024;
+
     public enum TYPE {
         REQUEST,
         RESPONSE;
@@ -45,7 +51,10 @@ public class BinRpcMessage implements RpcRequest<byte[]>, RpcResponse {
 
     private Object[] messageData;
     private byte binRpcData[];
+    private ByteBuffer decodeData;
     private int offset;
+    private BinRpcStringCache stringCache;
+    private boolean decoded;
 
     private String methodName;
     private TYPE type;
@@ -70,7 +79,16 @@ public class BinRpcMessage implements RpcRequest<byte[]>, RpcResponse {
      * Decodes a BIN-RPC message from the given InputStream.
      */
     public BinRpcMessage(InputStream is, boolean methodHeader, String encoding) throws IOException {
+        this(is, methodHeader, encoding, null);
+    }
+
+    /**
+     * Decodes a BIN-RPC message from the given InputStream, the repeated strings are taken from the cache.
+     */
+    public BinRpcMessage(InputStream is, boolean methodHeader, String encoding, BinRpcStringCache stringCache)
+            throws IOException {
         this.encoding = encoding;
+        this.stringCache = stringCache;
         byte sig[] = new byte[8];
         int length = is.read(sig, 0, 4);
         if (length != 4) {
@@ -81,9 +99,15 @@ public class BinRpcMessage implements RpcRequest<byte[]>, RpcResponse {
         if (length != 4) {
             throw new EOFException("Only " + length + " bytes received reading message length");
         }
-        int datasize = (new BigInteger(ArrayUtils.subarray(sig, 4, 8))).intValue();
-        byte[] message = ArrayUtils.addAll(sig, IOUtils.toByteArray(is, datasize));
-        decodeMessage(message, methodHeader);
+        int datasize = ByteBuffer.wrap(sig).getInt(4);
+        if (datasize < 0 || datasize > MAX_MESSAGE_LENGTH - 8) {
+            throw new IOException("Invalid message length " + datasize);
+        }
+        byte[] message = new byte[8 + datasize];
+        System.arraycopy(sig, 0, message, 0, 8);
+        IOUtils.readFully(is, message, 8, datasize);
+        binRpcData = message;
+        decodeMessage(ByteBuffer.wrap(message), methodHeader);
     }
 
     private void validateBinXSignature(byte[] sig) throws UnsupportedEncodingException {
@@ -101,12 +125,31 @@ public class BinRpcMessage implements RpcRequest<byte[]>, RpcResponse {
             throw new EOFException("Only " + message.length + " bytes received");
         }
         validateBinXSignature(message);
-        decodeMessage(message, methodHeader);
+        binRpcData = message;
+        decodeMessage(ByteBuffer.wrap(message), methodHeader);
     }
 
-    private void decodeMessage(byte[] message, boolean methodHeader) throws IOException {
-        binRpcData = message;
+    /**
+     * Decodes a BIN-RPC message from the remaining bytes of the given buffer without copying it. The repeated strings
+     * are taken from the cache, if one is given.
+     */
+    public BinRpcMessage(ByteBuffer message, boolean methodHeader, String encoding, BinRpcStringCache stringCache)
+            throws IOException {
+        this.encoding = encoding;
+        this.stringCache = stringCache;
+        if (message.remaining() < 8) {
+            throw new EOFException("Only " + message.remaining() + " bytes received");
+        }
+        ByteBuffer data = message.slice();
+        if (data.get(0) != 'B' || data.get(1) != 'i' || data.get(2) != 'n') {
+            throw new UnsupportedEncodingException("No BinX signature");
+        }
+        decodeMessage(data, methodHeader);
+    }
 
+    private void decodeMessage(ByteBuffer data, boolean methodHeader) throws IOException {
+        decodeData = data;
+        decoded = true;
         offset = 8;
 
         if (methodHeader) {
@@ -114,6 +157,7 @@ public class BinRpcMessage implements RpcRequest<byte[]>, RpcResponse {
             readInt();
         }
         generateResponseData();
+        decodeData = null;
     }
 
     public void setType(TYPE type) {
@@ -121,13 +165,14 @@ public class BinRpcMessage implements RpcRequest<byte[]>, RpcResponse {
     }
 
     private void generateResponseData() throws IOException {
-        offset = 8 + (methodName != null ? methodName.length() + 8 : 0);
+        if (!decoded) {
+            offset = 8 + (methodName != null ? methodName.length() + 8 : 0);
+        }
         List<Object> values = new ArrayList<Object>();
-        while (offset < binRpcData.length) {
+        while (offset < decodeData.limit()) {
             values.add(readRpcValue());
         }
         messageData = values.toArray();
-        values.clear();
     }
 
     private void createHeader() {
@@ -175,6 +220,9 @@ public class BinRpcMessage implements RpcRequest<byte[]>, RpcResponse {
     }
 
     private void trimBinRpcData() {
+        if (binRpcData.length == offset) {
+            return;
+        }
         byte[] trimmed = new byte[offset];
         System.arraycopy(binRpcData, 0, trimmed, 0, offset);
         binRpcData = trimmed;
@@ -190,25 +238,34 @@ public class BinRpcMessage implements RpcRequest<byte[]>, RpcResponse {
 
     // read rpc values
     private int readInt() {
-        byte bi[] = new byte[4];
-        System.arraycopy(binRpcData, offset, bi, 0, 4);
+        int value = decodeData.getInt(offset);
         offset += 4;
-        return (new BigInteger(bi)).intValue();
+        return value;
     }
 
     private String readString() throws UnsupportedEncodingException {
         int len = readInt();
         offset += len;
-        return new String(binRpcData, offset - len, len, encoding);
+        if (stringCache != null) {
+            return stringCache.get(decodeData, offset - len, len, encoding);
+        }
+        if (decodeData.hasArray()) {
+            return new String(decodeData.array(), decodeData.arrayOffset() + offset - len, len, encoding);
+        }
+        byte[] bytes = new byte[len];
+        for (int i = 0; i < len; i++) {
+            bytes[i] = decodeData.get(offset - len + i);
+        }
+        return new String(bytes, encoding);
     }
 
     private Object readRpcValue() throws IOException {
         int type = readInt();
         switch (type) {
             case 1:
-                return new Integer(readInt());
+                return Integer.valueOf(readInt());
             case 2:
-                return binRpcData[offset++] != 0 ? Boolean.TRUE : Boolean.FALSE;
+                return decodeData.get(offset++) != 0 ? Boolean.TRUE : Boolean.FALSE;
             case 3:
                 return readString();
             case 4:
@@ -217,7 +274,7 @@ public class BinRpcMessage implements RpcRequest<byte[]>, RpcResponse {
                 BigDecimal bd = new BigDecimal((double) mantissa / (double) (1 << 30) * Math.pow(2, exponent));
                 return bd.setScale(6, RoundingMode.HALF_DOWN).doubleValue();
             case 5:
-                return new Date(readInt() * 1000);
+                return new Date(readInt() * 1000L);
             case 0x100:
                 // Array
                 int numElements = readInt();
@@ -237,8 +294,8 @@ public class BinRpcMessage implements RpcRequest<byte[]>, RpcResponse {
                 return struct;
 
             default:
-                for (int i = 0; i < binRpcData.length; i++) {
-                    logger.info("{} {}", Integer.toHexString(binRpcData[i]), (char) binRpcData[i]);
+                for (int i = 0; i < decodeData.limit(); i++) {
+                    logger.info("{} {}", Integer.toHexString(decodeData.get(i)), (char) decodeData.get(i));
                 }
                 throw new IOException("Unknown data type " + type);
         }
@@ -252,19 +309,16 @@ public class BinRpcMessage implements RpcRequest<byte[]>, RpcResponse {
     }
 
     private void addByte(byte b) {
-        if (offset == binRpcData.length) {
-            byte newdata[] = new byte[binRpcData.length * 2];
-            System.arraycopy(binRpcData, 0, newdata, 0, binRpcData.length);
-            binRpcData = newdata;
-        }
+        ensureCapacity(1);
         binRpcData[offset++] = b;
     }
 
     private void addInt(int value) {
-        addByte((byte) (value >> 24));
-        addByte((byte) (value >> 16));
-        addByte((byte) (value >> 8));
-        addByte((byte) (value));
+        ensureCapacity(4);
+        binRpcData[offset++] = (byte) (value >> 24);
+        binRpcData[offset++] = (byte) (value >> 16);
+        binRpcData[offset++] = (byte) (value >> 8);
+        binRpcData[offset++] = (byte) value;
     }
 
     private void addDouble(double value) {
@@ -290,14 +344,37 @@ public class BinRpcMessage implements RpcRequest<byte[]>, RpcResponse {
     }
 
     private void addString(String string) {
-        byte sd[];
+        addBytes(encode(string));
+    }
+
+    /**
+     * Adds the string with its encoded length.
+     */
+    private void addStringWithLength(String string) {
+        byte sd[] = encode(string);
+        addInt(sd.length);
+        addBytes(sd);
+    }
+
+    private byte[] encode(String string) {
         try {
-            sd = string.getBytes(encoding);
+            return string.getBytes(encoding);
         } catch (UnsupportedEncodingException use) {
-            sd = string.getBytes();
+            return string.getBytes();
         }
-        for (byte ch : sd) {
-            addByte(ch);
+    }
+
+    private void addBytes(byte[] bytes) {
+        ensureCapacity(bytes.length);
+        System.arraycopy(bytes, 0, binRpcData, offset, bytes.length);
+        offset += bytes.length;
+    }
+
+    private void ensureCapacity(int length) {
+        if (offset + length > binRpcData.length) {
+            byte newdata[] = new byte[Math.max(binRpcData.length * 2, offset + length)];
+            System.arraycopy(binRpcData, 0, newdata, 0, offset);
+            binRpcData = newdata;
         }
     }
 
@@ -310,9 +387,7 @@ public class BinRpcMessage implements RpcRequest<byte[]>, RpcResponse {
     private void addObject(Object object) {
         if (object.getClass() == String.class) {
             addInt(3);
-            String string = (String) object;
-            addInt(string.length());
-            addString(string);
+            addStringWithLength((String) object);
         } else if (object.getClass() == Boolean.class) {
             addInt(2);
             addByte(((Boolean) object).booleanValue() ? (byte) 1 : (byte) 0);
@@ -334,7 +409,7 @@ public class BinRpcMessage implements RpcRequest<byte[]>, RpcResponse {
             addDouble(((BigInteger) object).doubleValue());
         } else if (object.getClass() == Date.class) {
             addInt(5);
-            addInt((int) ((Date) object).getTime() / 1000);
+            addInt((int) (((Date) object).getTime() / 1000));
         } else if (object instanceof List<?>) {
             Collection<?> list = (Collection<?>) object;
             addInt(0x100);
@@ -345,9 +420,7 @@ public class BinRpcMessage implements RpcRequest<byte[]>, RpcResponse {
             addInt(0x101);
             addInt(map.size());
             for (Map.Entry<?, ?> entry : map.entrySet()) {
-                String key = (String) entry.getKey();
-                addInt(key.length());
-                addString(key);
+                addStringWithLength((String) entry.getKey());
                 addList(Collections.singleton(entry.getValue()));
             }
         }
@@ -360,8 +433,12 @@ public class BinRpcMessage implements RpcRequest<byte[]>, RpcResponse {
     @Override
     public String toString() {
         try {
-            trimBinRpcData();
-            generateResponseData();
+            if (!decoded) {
+                trimBinRpcData();
+                decodeData = ByteBuffer.wrap(binRpcData);
+                generateResponseData();
+                decodeData = null;
+            }
             return RpcUtils.dumpRpcMessage(methodName, messageData);
         } catch (Exception e) {
             throw new RuntimeException(e.getMessage(), e);
@@ -0,0 +1,113 @@
+/**
+ * Copyright (c) 2010-2017 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.binding.homematic.internal.communicator.message;
+
+import java.io.UnsupportedEncodingException;
+import java.nio.ByteBuffer;
+
+/**
+ * Bounded cache for the short strings which are repeated in almost every BIN-RPC message (interface ids, addresses,
+ * datapoint names). A string is looked up by its encoded bytes, so a cache hit does not allocate anything. The cache
+ * is direct mapped, a colliding string simply replaces the previous entry.
+ *
+ * @author agent - Initial contribution
+ */
+public class BinRpcStringCache {
+    private static final int DEFAULT_SIZE = 1024;
+    private static final int MAX_STRING_LENGTH = 64;
+
+    private final Entry[] entries;
+    private final int mask;
+
+    public BinRpcStringCache() {
+        this(DEFAULT_SIZE);
+    }
+
+    /**
+     * Creates a cache with the given number of entries, rounded up to the next power of two.
+     */
+    public BinRpcStringCache(int size) {
+        int capacity = Integer.highestOneBit(Math.max(size - 1, 1)) << 1;
+        entries = new Entry[capacity];
+        mask = capacity - 1;
+    }
+
+    /**
+     * Returns the decoded string of the bytes at the given position in the buffer.
+     */
+    public String get(ByteBuffer buffer, int position, int length, String encoding)
+            throws UnsupportedEncodingException {
+        if (length > MAX_STRING_LENGTH) {
+            return decode(buffer, position, length, encoding);
+        }
+
+        int hash = 1;
+        for (int i = 0; i < length; i++) {
+            hash = 31 * hash + buffer.get(position + i);
+        }
+        int index = (hash ^ (hash >>> 16)) & mask;
+
+        Entry entry = entries[index];
+        if (entry != null && entry.matches(buffer, position, length, hash, encoding)) {
+            return entry.value;
+        }
+
+        String value = decode(buffer, position, length, encoding);
+        byte[] bytes = new byte[length];
+        for (int i = 0; i < length; i++) {
+            bytes[i] = buffer.get(position + i);
+        }
+        entries[index] = new Entry(bytes, hash, encoding, value);
+        return value;
+    }
+
+    /**
+     * Decodes the bytes at the given position without caching.
+     */
+    private static String decode(ByteBuffer buffer, int position, int length, String encoding)
+            throws UnsupportedEncodingException {
+        if (buffer.hasArray()) {
+            return new String(buffer.array(), buffer.arrayOffset() + position, length, encoding);
+        }
+        byte[] bytes = new byte[length];
+        for (int i = 0; i < length; i++) {
+            bytes[i] = buffer.get(position + i);
+        }
+        return new String(bytes, encoding);
+    }
+
+    /**
+     * Immutable cache entry, safe to be published to other threads without synchronization.
+     */
+    private static final class Entry {
+        private final byte[] bytes;
+        private final int hash;
+        private final String encoding;
+        private final String value;
+
+        private Entry(byte[] bytes, int hash, String encoding, String value) {
+            this.bytes = bytes;
+            this.hash = hash;
+            this.encoding = encoding;
+            this.value = value;
+        }
+
+        private boolean matches(ByteBuffer buffer, int position, int length, int hash, String encoding) {
+            if (this.hash != hash || bytes.length != length || !this.encoding.equals(encoding)) {
+                return false;
+            }
+            for (int i = 0; i < length; i++) {
+                if (bytes[i] != buffer.get(position + i)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+}
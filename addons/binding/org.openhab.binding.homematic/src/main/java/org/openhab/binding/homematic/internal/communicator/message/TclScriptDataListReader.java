@@ -0,0 +1,112 @@
+/**
+ * Copyright (c) 2010-2017 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.binding.homematic.internal.communicator.message;
+
+import java.io.Reader;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+import org.openhab.binding.homematic.internal.model.TclScriptDataEntry;
+import org.openhab.binding.homematic.internal.model.TclScriptDataList;
+
+/**
+ * Streaming StAX reader for the list of entries returned from a TclRega script. The entries are created directly
+ * from the attributes without building an object tree of the whole document first.
+ *
+ * @author agent - Initial contribution
+ */
+public class TclScriptDataListReader {
+    private static final String ELEMENT_LIST = "list";
+    private static final String ELEMENT_ENTRY = "entry";
+
+    private XMLInputFactory factory;
+
+    public TclScriptDataListReader() {
+        factory = XMLInputFactory.newInstance();
+        factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+    }
+
+    /**
+     * Reads all entries of the TclRega script result.
+     */
+    public TclScriptDataList read(Reader reader) throws XMLStreamException {
+        TclScriptDataList resultList = new TclScriptDataList();
+        XMLStreamReader xmlReader = factory.createXMLStreamReader(reader);
+        try {
+            while (xmlReader.hasNext()) {
+                if (xmlReader.next() == XMLStreamConstants.START_ELEMENT) {
+                    String elementName = xmlReader.getLocalName();
+                    if (ELEMENT_ENTRY.equals(elementName)) {
+                        resultList.getEntries().add(readEntry(xmlReader));
+                    } else if (ELEMENT_LIST.equals(elementName)) {
+                        resultList.setTimestamp(xmlReader.getAttributeValue(null, "timestamp"));
+                    }
+                }
+            }
+        } finally {
+            xmlReader.close();
+        }
+        return resultList;
+    }
+
+    /**
+     * Creates an entry from the attributes of the current element.
+     */
+    private TclScriptDataEntry readEntry(XMLStreamReader xmlReader) {
+        TclScriptDataEntry entry = new TclScriptDataEntry();
+        for (int i = 0; i < xmlReader.getAttributeCount(); i++) {
+            String value = xmlReader.getAttributeValue(i);
+            switch (xmlReader.getAttributeLocalName(i)) {
+                case "name":
+                    entry.name = value;
+                    break;
+                case "description":
+                    entry.description = value;
+                    break;
+                case "value":
+                    entry.value = value;
+                    break;
+                case "valueType":
+                    entry.valueType = value;
+                    break;
+                case "readOnly":
+                    entry.readOnly = Boolean.parseBoolean(value);
+                    break;
+                case "options":
+                    entry.options = value;
+                    break;
+                case "min":
+                    entry.minValue = value;
+                    break;
+                case "max":
+                    entry.maxValue = value;
+                    break;
+                case "unit":
+                    entry.unit = value;
+                    break;
+                case "operations":
+                    entry.operations = value;
+                    break;
+                case "timestamp":
+                    entry.timestamp = value;
+                    break;
+                case "unchanged":
+                    entry.unchanged = Boolean.parseBoolean(value);
+                    break;
+                default:
+                    // attribute not mapped
+            }
+        }
+        return entry;
+    }
+}
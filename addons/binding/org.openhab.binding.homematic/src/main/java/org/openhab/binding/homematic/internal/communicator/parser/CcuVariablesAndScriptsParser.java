@@ -19,7 +19,8 @@ import org.openhab.binding.homematic.internal.model.TclScriptDataEntry;
 import org.openhab.binding.homematic.internal.model.TclScriptDataList;
 
 /**
- * Parses a TclRega script result containing variables and scripts.
+ * Parses a TclRega script result containing variables and scripts. Unchanged entries of an incremental sync are
+ * skipped.
  *
  * @author Gerhard Riegler - Initial contribution
  */
@@ -37,6 +38,10 @@ public class CcuVariablesAndScriptsParser extends CommonRpcParser<TclScriptDataL
     public Void parse(TclScriptDataList resultList) throws IOException {
         if (resultList.getEntries() != null) {
             for (TclScriptDataEntry entry : resultList.getEntries()) {
+                if (entry.unchanged) {
+                    // only the name of an unchanged variable is sent by an incremental sync
+                    continue;
+                }
                 HmDatapoint dp = new HmDatapoint();
                 dp.setName(entry.name);
                 dp.setInfo(entry.name);
@@ -24,6 +24,7 @@ import org.openhab.binding.homematic.internal.model.HmParamsetType;
  */
 public class EventParser extends CommonRpcParser<Object[], HmDatapointInfo> {
     private Object value;
+    private String interfaceId;
 
     /**
      * {@inheritDoc}
@@ -44,6 +45,7 @@ public class EventParser extends CommonRpcParser<Object[], HmDatapointInfo> {
             }
         }
 
+        interfaceId = toString(message[0]);
         String name = toString(message[2]);
         value = message[3];
 
@@ -56,4 +58,11 @@ public class EventParser extends CommonRpcParser<Object[], HmDatapointInfo> {
     public Object getValue() {
         return value;
     }
+
+    /**
+     * Returns the id of the interface which has sent the event.
+     */
+    public String getInterfaceId() {
+        return interfaceId;
+    }
 }
@@ -0,0 +1,281 @@
+/**
+ * Copyright (c) 2010-2017 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.binding.homematic.internal.communicator.server;
+
+import java.io.IOException;
+import java.io.UnsupportedEncodingException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayDeque;
+import java.util.Queue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+import org.openhab.binding.homematic.internal.communicator.message.BinRpcMessage;
+import org.openhab.binding.homematic.internal.communicator.message.BinRpcStringCache;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Non-blocking BIN-RPC connection from a Homematic gateway. Collects the received bytes until a complete BIN-RPC
+ * frame is available and decodes it on the thread of the {@link BinRpcEventLoop}. The method calls are handled one
+ * after the other on a worker thread, so a slow listener does not block the other connections of the event loop and
+ * the responses are written in the order of the calls. A connection may carry several frames, it is closed when the
+ * gateway closes its side.
+ *
+ * @author agent - Initial contribution
+ */
+public class BinRpcConnection {
+    private final Logger logger = LoggerFactory.getLogger(BinRpcConnection.class);
+
+    private static final int HEADER_LENGTH = 8;
+    private static final int INITIAL_BUFFER_SIZE = 1024;
+
+    static final int MAX_FRAME_LENGTH = BinRpcMessage.MAX_MESSAGE_LENGTH;
+
+    /**
+     * Maximum number of calls and responses of a connection waiting to be handled or written, the connection is not
+     * read until the backlog is below this limit again.
+     */
+    static final int MAX_BACKLOG = 16;
+
+    private SocketChannel channel;
+    private RpcResponseHandler<byte[]> rpcResponseHandler;
+    private String encoding;
+    private BinRpcStringCache stringCache;
+    private BinRpcEventLoop eventLoop;
+    private Executor workerPool;
+    private SelectionKey key;
+
+    private ByteBuffer readBuffer = ByteBuffer.allocate(INITIAL_BUFFER_SIZE);
+
+    // guarded by this
+    private Queue<PendingCall> pendingCalls = new ArrayDeque<PendingCall>();
+    private Queue<ByteBuffer> pendingWrites = new ArrayDeque<ByteBuffer>();
+    private boolean callRunning;
+
+    private Runnable callHandler = new CallHandler();
+
+    public BinRpcConnection(SocketChannel channel, RpcResponseHandler<byte[]> rpcResponseHandler, String encoding,
+            BinRpcStringCache stringCache, BinRpcEventLoop eventLoop, Executor workerPool) {
+        this.channel = channel;
+        this.rpcResponseHandler = rpcResponseHandler;
+        this.encoding = encoding;
+        this.stringCache = stringCache;
+        this.eventLoop = eventLoop;
+        this.workerPool = workerPool;
+    }
+
+    /**
+     * Sets the key of the connection, after it has been registered with the selector of the event loop.
+     */
+    public void setKey(SelectionKey key) {
+        this.key = key;
+    }
+
+    public SelectionKey getKey() {
+        return key;
+    }
+
+    /**
+     * Reads the available bytes from the channel and decodes every complete frame, until the backlog is full. Returns
+     * false, if the connection has been closed by the gateway.
+     */
+    public boolean read() throws IOException {
+        int count = 0;
+        while (!isBacklogFull() && (count = channel.read(readBuffer)) > 0) {
+            readBuffer.flip();
+            decodeFrames();
+            readBuffer.compact();
+        }
+        if (count < 0) {
+            return false;
+        }
+        updateInterest();
+        return true;
+    }
+
+    /**
+     * Writes the pending responses to the channel and decodes the frames which have been received while the backlog
+     * was full. Called by the event loop, if the channel is writable or a call has been handled.
+     */
+    public void write() throws IOException {
+        writePendingResponses();
+        readBuffer.flip();
+        decodeFrames();
+        readBuffer.compact();
+        updateInterest();
+    }
+
+    private void writePendingResponses() throws IOException {
+        ByteBuffer buffer;
+        while ((buffer = peekWrite()) != null) {
+            // only the event loop thread removes buffers, so the peeked buffer can be written outside the lock
+            channel.write(buffer);
+            if (buffer.hasRemaining()) {
+                break;
+            }
+            synchronized (this) {
+                pendingWrites.poll();
+            }
+        }
+    }
+
+    private synchronized ByteBuffer peekWrite() {
+        return pendingWrites.peek();
+    }
+
+    private synchronized boolean isBacklogFull() {
+        return pendingCalls.size() + (callRunning ? 1 : 0) + pendingWrites.size() >= MAX_BACKLOG;
+    }
+
+    /**
+     * Writes if there are pending responses and reads if the backlog is not full, this throttles a gateway which
+     * sends faster than the calls are handled or does not read its responses.
+     */
+    private void updateInterest() {
+        if (!key.isValid()) {
+            return;
+        }
+        int ops = 0;
+        synchronized (this) {
+            if (!pendingWrites.isEmpty()) {
+                ops |= SelectionKey.OP_WRITE;
+            }
+        }
+        if (!isBacklogFull()) {
+            ops |= SelectionKey.OP_READ;
+        }
+        key.interestOps(ops);
+    }
+
+    /**
+     * Decodes all complete frames in the read buffer, until the backlog is full. Grows the buffer if a frame does not
+     * fit.
+     */
+    private void decodeFrames() throws IOException {
+        while (!isBacklogFull() && readBuffer.remaining() >= HEADER_LENGTH) {
+            int start = readBuffer.position();
+            if (readBuffer.get(start) != 'B' || readBuffer.get(start + 1) != 'i' || readBuffer.get(start + 2) != 'n') {
+                throw new UnsupportedEncodingException("No BinX signature");
+            }
+            long frameLength = HEADER_LENGTH + (long) readBuffer.getInt(start + 4);
+            if (frameLength < HEADER_LENGTH || frameLength > MAX_FRAME_LENGTH) {
+                throw new IOException("Invalid BIN-RPC frame length " + frameLength);
+            }
+            if (readBuffer.remaining() < frameLength) {
+                if (readBuffer.capacity() < frameLength) {
+                    int capacity = (int) Math.min(MAX_FRAME_LENGTH, Math.max(frameLength, readBuffer.capacity() * 2L));
+                    ByteBuffer newBuffer = ByteBuffer.allocate(capacity);
+                    newBuffer.put(readBuffer);
+                    newBuffer.flip();
+                    readBuffer = newBuffer;
+                }
+                return;
+            }
+
+            // decode directly from the read buffer, the decoded message does not reference it afterwards
+            ByteBuffer frame = readBuffer.duplicate();
+            frame.limit(start + (int) frameLength);
+            readBuffer.position(start + (int) frameLength);
+            decodeFrame(frame);
+        }
+    }
+
+    /**
+     * Decodes the method call of a single frame and queues it for the worker.
+     */
+    private void decodeFrame(ByteBuffer frame) throws IOException {
+        long start = System.nanoTime();
+        BinRpcMessage message = new BinRpcMessage(frame, true, encoding, stringCache);
+        rpcResponseHandler.getMetrics().decoded(System.nanoTime() - start);
+        logger.trace("Event BinRpcMessage: {}", message);
+
+        boolean startWorker;
+        synchronized (this) {
+            pendingCalls.add(new PendingCall(message, start));
+            startWorker = !callRunning;
+            callRunning = true;
+        }
+        if (startWorker) {
+            try {
+                workerPool.execute(callHandler);
+            } catch (RejectedExecutionException ex) {
+                throw new IOException("Can't handle BIN-RPC call: " + ex.getMessage(), ex);
+            }
+        }
+    }
+
+    private synchronized PendingCall nextCall() {
+        PendingCall call = pendingCalls.poll();
+        if (call == null) {
+            callRunning = false;
+        }
+        return call;
+    }
+
+    /**
+     * Silently closes the connection and discards the pending calls.
+     */
+    public void close() {
+        synchronized (this) {
+            pendingCalls.clear();
+            pendingWrites.clear();
+        }
+        try {
+            channel.close();
+        } catch (IOException ex) {
+            // ignore
+        }
+    }
+
+    /**
+     * A decoded call with the {@link System#nanoTime()} its frame has been received.
+     */
+    private static class PendingCall {
+        private final BinRpcMessage message;
+        private final long receivedNanos;
+
+        private PendingCall(BinRpcMessage message, long receivedNanos) {
+            this.message = message;
+            this.receivedNanos = receivedNanos;
+        }
+    }
+
+    /**
+     * Handles the queued calls of the connection one after the other and hands the responses over to the event loop.
+     */
+    private class CallHandler implements Runnable {
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void run() {
+            PendingCall call;
+            while ((call = nextCall()) != null) {
+                try {
+                    byte[] returnValue = rpcResponseHandler.handleMethodCall(call.message.getMethodName(),
+                            call.message.getResponseData(), call.receivedNanos);
+                    if (returnValue != null) {
+                        synchronized (BinRpcConnection.this) {
+                            pendingWrites.add(ByteBuffer.wrap(returnValue));
+                        }
+                    }
+                } catch (Exception ex) {
+                    logger.error("{}", ex.getMessage(), ex);
+                    close();
+                    return;
+                }
+                eventLoop.callHandled(BinRpcConnection.this);
+            }
+        }
+    }
+}
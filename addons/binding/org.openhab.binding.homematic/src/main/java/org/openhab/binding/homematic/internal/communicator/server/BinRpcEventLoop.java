@@ -0,0 +1,184 @@
+/**
+ * Copyright (c) 2010-2017 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.binding.homematic.internal.communicator.server;
+
+import java.io.IOException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+
+import org.openhab.binding.homematic.internal.common.HomematicConfig;
+import org.openhab.binding.homematic.internal.communicator.message.BinRpcStringCache;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Selector based event loop which multiplexes many BIN-RPC connections from a Homematic gateway on one thread. The
+ * decoded method calls are handled on the worker pool, the responses are written by the event loop.
+ *
+ * @author agent - Initial contribution
+ */
+public class BinRpcEventLoop implements Runnable {
+    private final Logger logger = LoggerFactory.getLogger(BinRpcEventLoop.class);
+
+    private Selector selector;
+    private Queue<SocketChannel> newChannels = new ConcurrentLinkedQueue<SocketChannel>();
+    private Queue<BinRpcConnection> handledConnections = new ConcurrentLinkedQueue<BinRpcConnection>();
+    private volatile boolean running = true;
+    private RpcResponseHandler<byte[]> rpcResponseHandler;
+    private HomematicConfig config;
+    private BinRpcStringCache stringCache;
+    private Executor workerPool;
+
+    public BinRpcEventLoop(RpcResponseHandler<byte[]> rpcResponseHandler, HomematicConfig config,
+            BinRpcStringCache stringCache, Executor workerPool) throws IOException {
+        this.rpcResponseHandler = rpcResponseHandler;
+        this.config = config;
+        this.stringCache = stringCache;
+        this.workerPool = workerPool;
+        selector = Selector.open();
+    }
+
+    /**
+     * Hands over an accepted connection to this event loop.
+     */
+    public void register(SocketChannel channel) {
+        newChannels.add(channel);
+        selector.wakeup();
+    }
+
+    /**
+     * Called by a worker, after it has handled a call of the connection, to write the response on the event loop.
+     */
+    public void callHandled(BinRpcConnection connection) {
+        handledConnections.add(connection);
+        selector.wakeup();
+    }
+
+    /**
+     * Handles the IO of all connections of this event loop.
+     */
+    @Override
+    public void run() {
+        try {
+            while (running) {
+                selector.select();
+                registerNewChannels();
+                resumeHandledConnections();
+
+                Iterator<SelectionKey> it = selector.selectedKeys().iterator();
+                while (it.hasNext()) {
+                    SelectionKey key = it.next();
+                    it.remove();
+                    handleKey(key);
+                }
+            }
+        } catch (IOException ex) {
+            logger.error("{}", ex.getMessage(), ex);
+        } finally {
+            closeAll();
+        }
+    }
+
+    /**
+     * Registers the connections accepted since the last select.
+     */
+    private void registerNewChannels() {
+        SocketChannel channel;
+        while ((channel = newChannels.poll()) != null) {
+            BinRpcConnection connection = new BinRpcConnection(channel, rpcResponseHandler, config.getEncoding(),
+                    stringCache, this, workerPool);
+            try {
+                channel.configureBlocking(false);
+                connection.setKey(channel.register(selector, SelectionKey.OP_READ, connection));
+            } catch (IOException ex) {
+                logger.debug("Can't register BIN-RPC connection: {}", ex.getMessage());
+                connection.close();
+            }
+        }
+    }
+
+    /**
+     * Writes the responses of the calls handled by the workers since the last select.
+     */
+    private void resumeHandledConnections() {
+        BinRpcConnection connection;
+        while ((connection = handledConnections.poll()) != null) {
+            SelectionKey key = connection.getKey();
+            if (key == null || !key.isValid()) {
+                continue;
+            }
+            try {
+                connection.write();
+            } catch (IOException ex) {
+                logger.debug("Closing BIN-RPC connection: {}", ex.getMessage());
+                key.cancel();
+                connection.close();
+            }
+        }
+    }
+
+    /**
+     * Reads or writes the connection of the key, closes it on EOF or error.
+     */
+    private void handleKey(SelectionKey key) {
+        BinRpcConnection connection = (BinRpcConnection) key.attachment();
+        try {
+            if (key.isValid() && key.isWritable()) {
+                connection.write();
+            }
+            if (key.isValid() && key.isReadable() && !connection.read()) {
+                key.cancel();
+                connection.close();
+            }
+        } catch (IOException ex) {
+            logger.debug("Closing BIN-RPC connection: {}", ex.getMessage());
+            key.cancel();
+            connection.close();
+        } catch (Exception ex) {
+            logger.error("{}", ex.getMessage(), ex);
+            key.cancel();
+            connection.close();
+        }
+    }
+
+    /**
+     * Closes all connections and the selector.
+     */
+    private void closeAll() {
+        for (SelectionKey key : selector.keys()) {
+            ((BinRpcConnection) key.attachment()).close();
+        }
+        SocketChannel channel;
+        while ((channel = newChannels.poll()) != null) {
+            try {
+                channel.close();
+            } catch (IOException ex) {
+                // ignore
+            }
+        }
+        try {
+            selector.close();
+        } catch (IOException ex) {
+            // ignore
+        }
+    }
+
+    /**
+     * Stops the event loop and closes all connections.
+     */
+    public void shutdown() {
+        running = false;
+        selector.wakeup();
+    }
+}
@@ -10,16 +10,19 @@ package org.openhab.binding.homematic.internal.communicator.server;
 
 import java.io.IOException;
 import java.net.InetSocketAddress;
-import java.net.ServerSocket;
-import java.net.Socket;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
 
 import org.eclipse.smarthome.core.common.ThreadPoolManager;
 import org.openhab.binding.homematic.internal.common.HomematicConfig;
+import org.openhab.binding.homematic.internal.communicator.GatewayMetrics;
 import org.openhab.binding.homematic.internal.communicator.message.BinRpcMessage;
+import org.openhab.binding.homematic.internal.communicator.message.BinRpcStringCache;
 import org.openhab.binding.homematic.internal.communicator.message.RpcRequest;
 
 /**
- * Waits for a message from the Homematic gateway and starts the RpcCallbackHandler to handle the message.
+ * Accepts the connections from the Homematic gateway and distributes them to a fixed number of
+ * {@link BinRpcEventLoop}s, which decode the messages. The method calls are handled on the shared RPC thread pool.
  *
  * @author Gerhard Riegler - Initial contribution
  */
@@ -30,22 +33,24 @@ public class BinRpcNetworkService implements Runnable {
             3, 0, 0, 0, 5, 'e', 'v', 'e', 'n', 't' };
 
     private static final String RPC_POOL_NAME = "homematicRpc";
-    private ServerSocket serverSocket;
-    private boolean accept = true;
-    private HomematicConfig config;
+    private static final int EVENT_LOOP_COUNT = 2;
+    private ServerSocketChannel serverSocketChannel;
+    private volatile boolean accept = true;
     private RpcResponseHandler<byte[]> rpcResponseHandler;
+    private BinRpcEventLoop[] eventLoops = new BinRpcEventLoop[EVENT_LOOP_COUNT];
+    private int nextEventLoop;
+    private BinRpcStringCache stringCache = new BinRpcStringCache();
 
     /**
-     * Creates the socket for listening to events from the Homematic gateway.
+     * Creates the socket for listening to events from the Homematic gateway and starts the event loops.
      */
-    public BinRpcNetworkService(RpcEventListener listener, HomematicConfig config) throws IOException {
-        this.config = config;
+    public BinRpcNetworkService(RpcEventListener listener, HomematicConfig config, GatewayMetrics metrics)
+            throws IOException {
+        serverSocketChannel = ServerSocketChannel.open();
+        serverSocketChannel.socket().setReuseAddress(true);
+        serverSocketChannel.bind(new InetSocketAddress(config.getBinCallbackPort()));
 
-        serverSocket = new ServerSocket();
-        serverSocket.setReuseAddress(true);
-        serverSocket.bind(new InetSocketAddress(config.getBinCallbackPort()));
-
-        this.rpcResponseHandler = new RpcResponseHandler<byte[]>(listener) {
+        this.rpcResponseHandler = new RpcResponseHandler<byte[]>(listener, metrics) {
 
             /**
              * {@inheritDoc}
@@ -79,34 +84,55 @@ public class BinRpcNetworkService implements Runnable {
                 return new BinRpcMessage(null, BinRpcMessage.TYPE.RESPONSE, config.getEncoding());
             }
         };
+
+        try {
+            for (int i = 0; i < EVENT_LOOP_COUNT; i++) {
+                eventLoops[i] = new BinRpcEventLoop(rpcResponseHandler, config, stringCache,
+                        ThreadPoolManager.getPool(RPC_POOL_NAME));
+                Thread eventLoopThread = new Thread(eventLoops[i]);
+                eventLoopThread.setName("HomematicRpcEventLoop-" + config.getBinCallbackPort() + "-" + i);
+                eventLoopThread.setDaemon(true);
+                eventLoopThread.start();
+            }
+        } catch (IOException ex) {
+            shutdown();
+            throw ex;
+        }
     }
 
     /**
-     * Listening for events and starts the callbackHandler if a event received.
+     * Listening for connections and hands them over to the event loops.
      */
     @Override
     public void run() {
         while (accept) {
             try {
-                Socket cs = serverSocket.accept();
-                BinRpcResponseHandler rpcHandler = new BinRpcResponseHandler(cs, rpcResponseHandler, config);
-                ThreadPoolManager.getPool(RPC_POOL_NAME).execute(rpcHandler);
+                SocketChannel channel = serverSocketChannel.accept();
+                eventLoops[nextEventLoop].register(channel);
+                nextEventLoop = (nextEventLoop + 1) % EVENT_LOOP_COUNT;
             } catch (IOException ex) {
-                // ignore
+                if (!serverSocketChannel.isOpen()) {
+                    accept = false;
+                }
             }
         }
     }
 
     /**
-     * Stops the listening.
+     * Stops the listening and the event loops.
      */
     public void shutdown() {
         accept = false;
         try {
-            serverSocket.close();
+            serverSocketChannel.close();
         } catch (IOException ioe) {
             // ignore
         }
+        for (BinRpcEventLoop eventLoop : eventLoops) {
+            if (eventLoop != null) {
+                eventLoop.shutdown();
+            }
+        }
     }
 
 }
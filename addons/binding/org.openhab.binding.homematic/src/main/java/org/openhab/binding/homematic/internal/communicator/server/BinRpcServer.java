@@ -11,6 +11,7 @@ package org.openhab.binding.homematic.internal.communicator.server;
 import java.io.IOException;
 
 import org.openhab.binding.homematic.internal.common.HomematicConfig;
+import org.openhab.binding.homematic.internal.communicator.GatewayMetrics;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -26,10 +27,12 @@ public class BinRpcServer implements RpcServer {
     private BinRpcNetworkService networkService;
     private HomematicConfig config;
     private RpcEventListener listener;
+    private GatewayMetrics metrics;
 
-    public BinRpcServer(RpcEventListener listener, HomematicConfig config) {
+    public BinRpcServer(RpcEventListener listener, HomematicConfig config, GatewayMetrics metrics) {
         this.listener = listener;
         this.config = config;
+        this.metrics = metrics;
     }
 
     /**
@@ -39,7 +42,7 @@ public class BinRpcServer implements RpcServer {
     public void start() throws IOException {
         logger.debug("Initializing BIN-RPC server at port {}", config.getBinCallbackPort());
 
-        networkService = new BinRpcNetworkService(listener, config);
+        networkService = new BinRpcNetworkService(listener, config, metrics);
         networkServiceThread = new Thread(networkService);
         networkServiceThread.setName("HomematicRpcServer");
         networkServiceThread.start();
@@ -15,6 +15,7 @@ import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 
+import org.openhab.binding.homematic.internal.communicator.GatewayMetrics;
 import org.openhab.binding.homematic.internal.communicator.message.RpcRequest;
 import org.openhab.binding.homematic.internal.communicator.parser.DeleteDevicesParser;
 import org.openhab.binding.homematic.internal.communicator.parser.EventParser;
@@ -33,17 +34,34 @@ public abstract class RpcResponseHandler<T> {
     private final Logger logger = LoggerFactory.getLogger(RpcResponseHandler.class);
 
     private RpcEventListener listener;
+    private GatewayMetrics metrics;
 
-    public RpcResponseHandler(RpcEventListener listener) {
+    public RpcResponseHandler(RpcEventListener listener, GatewayMetrics metrics) {
         this.listener = listener;
+        this.metrics = metrics;
+    }
+
+    /**
+     * Returns the metrics of the gateway.
+     */
+    public GatewayMetrics getMetrics() {
+        return metrics;
     }
 
     /**
      * Returns a valid result of the method called by the Homematic gateway.
      */
     public T handleMethodCall(String methodName, Object[] responseData) throws IOException {
+        return handleMethodCall(methodName, responseData, System.nanoTime());
+    }
+
+    /**
+     * Returns a valid result of the method called by the Homematic gateway, the call has been received at the given
+     * {@link System#nanoTime()}.
+     */
+    public T handleMethodCall(String methodName, Object[] responseData, long receivedNanos) throws IOException {
         if (RPC_METHODNAME_EVENT.equals(methodName)) {
-            return handleEvent(responseData);
+            return handleEvent(responseData, receivedNanos);
         } else if (RPC_METHODNAME_LIST_DEVICES.equals(methodName) || RPC_METHODNAME_UPDATE_DEVICE.equals(methodName)) {
             return getEmptyArrayResult();
         } else if (RPC_METHODNAME_DELETE_DEVICES.equals(methodName)) {
@@ -59,7 +77,7 @@ public abstract class RpcResponseHandler<T> {
                 Map<?, ?> call = (Map<?, ?>) o;
                 String method = call.get("methodName").toString();
                 Object[] data = (Object[]) call.get("params");
-                handleMethodCall(method, data);
+                handleMethodCall(method, data, receivedNanos);
             }
             return getEmptyEventListResult();
         } else if (RPC_METHODNAME_SET_CONFIG_READY.equals(methodName)) {
@@ -85,10 +103,12 @@ public abstract class RpcResponseHandler<T> {
     /**
      * Populates the extracted event to the listener.
      */
-    private T handleEvent(Object[] message) throws IOException {
+    private T handleEvent(Object[] message, long receivedNanos) throws IOException {
         EventParser eventParser = new EventParser();
         HmDatapointInfo dpInfo = eventParser.parse(message);
+        metrics.eventReceived(eventParser.getInterfaceId());
         listener.eventReceived(dpInfo, eventParser.getValue());
+        metrics.dispatched(System.nanoTime() - receivedNanos);
         return getEmptyStringResult();
     }
 
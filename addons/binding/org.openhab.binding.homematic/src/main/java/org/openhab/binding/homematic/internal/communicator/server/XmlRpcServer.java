@@ -20,6 +20,7 @@ import org.eclipse.jetty.server.Request;
 import org.eclipse.jetty.server.Server;
 import org.eclipse.jetty.server.handler.AbstractHandler;
 import org.openhab.binding.homematic.internal.common.HomematicConfig;
+import org.openhab.binding.homematic.internal.communicator.GatewayMetrics;
 import org.openhab.binding.homematic.internal.communicator.message.RpcRequest;
 import org.openhab.binding.homematic.internal.communicator.message.XmlRpcRequest;
 import org.openhab.binding.homematic.internal.communicator.message.XmlRpcResponse;
@@ -44,9 +45,9 @@ public class XmlRpcServer implements RpcServer {
     private RpcResponseHandler<String> rpcResponseHander;
     private ResponseHandler jettyResponseHandler = new ResponseHandler();
 
-    public XmlRpcServer(RpcEventListener listener, HomematicConfig config) {
+    public XmlRpcServer(RpcEventListener listener, HomematicConfig config, GatewayMetrics metrics) {
         this.config = config;
-        this.rpcResponseHander = new RpcResponseHandler<String>(listener) {
+        this.rpcResponseHander = new RpcResponseHandler<String>(listener, metrics) {
 
             /**
              * {@inheritDoc}
@@ -134,12 +135,14 @@ public class XmlRpcServer implements RpcServer {
             response.setStatus(HttpServletResponse.SC_OK);
             final PrintWriter respWriter = response.getWriter();
             try {
+                long start = System.nanoTime();
                 XmlRpcResponse xmlResponse = new XmlRpcResponse(request.getInputStream(), config.getEncoding());
+                rpcResponseHander.getMetrics().decoded(System.nanoTime() - start);
                 if (logger.isTraceEnabled()) {
                     logger.trace("Server parsed XmlRpcMessage:\n{}", xmlResponse);
                 }
                 final String returnValue = rpcResponseHander.handleMethodCall(xmlResponse.getMethodName(),
-                        xmlResponse.getResponseData());
+                        xmlResponse.getResponseData(), start);
                 if (logger.isTraceEnabled()) {
                     logger.trace("Server XmlRpcResponse:\n{}", returnValue);
                 }
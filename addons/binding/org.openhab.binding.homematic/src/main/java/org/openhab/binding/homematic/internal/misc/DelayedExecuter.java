@@ -9,24 +9,36 @@
 package org.openhab.binding.homematic.internal.misc;
 
 import java.io.IOException;
-import java.util.HashMap;
 import java.util.Map;
-import java.util.Timer;
-import java.util.TimerTask;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.openhab.binding.homematic.internal.model.HmDatapointInfo;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 /**
- * Executes a callback method either immediately or after a given delay for a datapoint.
+ * Executes a callback method either immediately or after a given delay for a datapoint. All delayed callbacks share
+ * one scheduler, a new event for a datapoint replaces the pending event of the same datapoint.
  *
  * @author Gerhard Riegler - Initial contribution
  */
 public class DelayedExecuter {
     private final Logger logger = LoggerFactory.getLogger(DelayedExecuter.class);
 
-    private Map<HmDatapointInfo, Timer> delayedEvents = new HashMap<HmDatapointInfo, Timer>();
+    private Map<HmDatapointInfo, DelayedEvent> delayedEvents = new ConcurrentHashMap<HmDatapointInfo, DelayedEvent>();
+    private ScheduledExecutorService scheduler;
+
+    private AtomicLong delayedCount = new AtomicLong();
+    private AtomicLong coalescedCount = new AtomicLong();
+    private AtomicLong firedCount = new AtomicLong();
+
+    public DelayedExecuter(ScheduledExecutorService scheduler) {
+        this.scheduler = scheduler;
+    }
 
     /**
      * Executes a callback method either immediately or after a given delay.
@@ -34,29 +46,16 @@ public class DelayedExecuter {
     public void start(final HmDatapointInfo dpInfo, final double delay, final DelayedExecuterCallback callback)
             throws IOException, HomematicClientException {
         if (delay > 0.0) {
-            synchronized (DelayedExecuter.class) {
-                logger.debug("Delaying event for {} seconds: '{}'", delay, dpInfo);
-
-                Timer timer = delayedEvents.get(dpInfo);
-                if (timer != null) {
-                    timer.cancel();
-                }
-
-                timer = new Timer();
-                delayedEvents.put(dpInfo, timer);
-                timer.schedule(new TimerTask() {
-                    @Override
-                    public void run() {
-                        logger.debug("Executing delayed event for '{}'", dpInfo);
-                        delayedEvents.remove(dpInfo);
-                        try {
-                            callback.execute();
-                        } catch (Exception ex) {
-                            logger.error("{}", ex.getMessage(), ex);
-                        }
-                    }
-                }, (long) (delay * 1000));
+            logger.debug("Delaying event for {} seconds: '{}'", delay, dpInfo);
+            delayedCount.incrementAndGet();
+
+            DelayedEvent event = new DelayedEvent(dpInfo, callback);
+            DelayedEvent previousEvent = delayedEvents.put(dpInfo, event);
+            if (previousEvent != null) {
+                coalescedCount.incrementAndGet();
+                previousEvent.cancel();
             }
+            event.future = scheduler.schedule(event, (long) (delay * 1000), TimeUnit.MILLISECONDS);
         } else {
             callback.execute();
         }
@@ -66,12 +65,75 @@ public class DelayedExecuter {
      * Stops all delayed events.
      */
     public void stop() {
-        for (Timer timer : delayedEvents.values()) {
-            timer.cancel();
+        for (DelayedEvent event : delayedEvents.values()) {
+            event.cancel();
         }
         delayedEvents.clear();
     }
 
+    /**
+     * Returns the number of events which have been delayed.
+     */
+    public long getDelayedCount() {
+        return delayedCount.get();
+    }
+
+    /**
+     * Returns the number of delayed events which have been replaced by a newer event for the same datapoint.
+     */
+    public long getCoalescedCount() {
+        return coalescedCount.get();
+    }
+
+    /**
+     * Returns the number of delayed events which have been executed.
+     */
+    public long getFiredCount() {
+        return firedCount.get();
+    }
+
+    /**
+     * Returns the number of delayed events waiting for execution.
+     */
+    public int getPendingCount() {
+        return delayedEvents.size();
+    }
+
+    /**
+     * A delayed callback, only executed if it is still the current event of the datapoint.
+     */
+    private class DelayedEvent implements Runnable {
+        private HmDatapointInfo dpInfo;
+        private DelayedExecuterCallback callback;
+        private volatile ScheduledFuture<?> future;
+
+        private DelayedEvent(HmDatapointInfo dpInfo, DelayedExecuterCallback callback) {
+            this.dpInfo = dpInfo;
+            this.callback = callback;
+        }
+
+        @Override
+        public void run() {
+            if (!delayedEvents.remove(dpInfo, this)) {
+                return;
+            }
+            logger.debug("Executing delayed event for '{}'", dpInfo);
+            firedCount.incrementAndGet();
+            try {
+                callback.execute();
+            } catch (Exception ex) {
+                logger.error("{}", ex.getMessage(), ex);
+            }
+        }
+
+        private void cancel() {
+            ScheduledFuture<?> scheduledFuture = future;
+            if (scheduledFuture != null) {
+                scheduledFuture.cancel(false);
+            }
+        }
+    }
+
     /**
      * Callback interface for the {@link DelayedExecuter}.
      *
@@ -0,0 +1,102 @@
+/**
+ * Copyright (c) 2010-2017 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.binding.homematic.internal.misc;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Lock-free histogram for durations. The values are counted in buckets with power of two microsecond bounds, so the
+ * percentiles are upper bounds with a maximum error of factor two.
+ *
+ * @author agent - Initial contribution
+ */
+public class LatencyHistogram {
+    private static final int BUCKET_COUNT = 32;
+
+    private AtomicLongArray buckets = new AtomicLongArray(BUCKET_COUNT);
+    private AtomicLong count = new AtomicLong();
+    private AtomicLong totalNanos = new AtomicLong();
+    private AtomicLong maxNanos = new AtomicLong();
+
+    /**
+     * Adds a duration in nanoseconds.
+     */
+    public void record(long nanos) {
+        if (nanos < 0) {
+            nanos = 0;
+        }
+        long micros = nanos / 1000;
+        int bucket = micros == 0 ? 0 : Math.min(64 - Long.numberOfLeadingZeros(micros), BUCKET_COUNT - 1);
+        buckets.incrementAndGet(bucket);
+        count.incrementAndGet();
+        totalNanos.addAndGet(nanos);
+
+        long max;
+        while (nanos > (max = maxNanos.get()) && !maxNanos.compareAndSet(max, nanos)) {
+            // retry
+        }
+    }
+
+    /**
+     * Returns the number of recorded durations.
+     */
+    public long getCount() {
+        return count.get();
+    }
+
+    /**
+     * Returns the average duration in milliseconds.
+     */
+    public double getAverageMillis() {
+        long currentCount = count.get();
+        return currentCount == 0 ? 0.0 : totalNanos.get() / (double) currentCount / 1000000.0;
+    }
+
+    /**
+     * Returns the maximum duration in milliseconds.
+     */
+    public double getMaxMillis() {
+        return maxNanos.get() / 1000000.0;
+    }
+
+    /**
+     * Returns the upper bound of the given percentile (0 - 100) in milliseconds.
+     */
+    public double getPercentileMillis(double percentile) {
+        long currentCount = 0;
+        long[] snapshot = new long[BUCKET_COUNT];
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            snapshot[i] = buckets.get(i);
+            currentCount += snapshot[i];
+        }
+        if (currentCount == 0) {
+            return 0.0;
+        }
+
+        long threshold = (long) Math.ceil(currentCount * percentile / 100.0);
+        long sum = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            sum += snapshot[i];
+            if (sum >= threshold) {
+                return Math.min((1L << i) / 1000.0, getMaxMillis());
+            }
+        }
+        return getMaxMillis();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String toString() {
+        return String.format("count=%d, avg=%.3fms, p95=%.3fms, max=%.3fms", getCount(), getAverageMillis(),
+                getPercentileMillis(95), getMaxMillis());
+    }
+}
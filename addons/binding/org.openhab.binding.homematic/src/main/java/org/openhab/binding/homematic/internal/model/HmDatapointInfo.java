@@ -8,8 +8,7 @@
  */
 package org.openhab.binding.homematic.internal.model;
 
-import org.apache.commons.lang.builder.EqualsBuilder;
-import org.apache.commons.lang.builder.HashCodeBuilder;
+import org.apache.commons.lang.ObjectUtils;
 
 /**
  * Simple representation of a datapoint.
@@ -21,6 +20,7 @@ public class HmDatapointInfo {
     private Integer channel;
     private String name;
     private HmParamsetType paramsetType;
+    private int hash;
 
     public HmDatapointInfo(HmDatapoint dp) {
         this(dp.getParamsetType(), dp.getChannel(), dp.getName());
@@ -70,6 +70,7 @@ public class HmDatapointInfo {
      */
     public void setName(String name) {
         this.name = name;
+        hash = 0;
     }
 
     /**
@@ -84,7 +85,15 @@ public class HmDatapointInfo {
      */
     @Override
     public int hashCode() {
-        return new HashCodeBuilder().append(address).append(paramsetType).append(channel).append(name).toHashCode();
+        int result = hash;
+        if (result == 0) {
+            result = ObjectUtils.hashCode(address);
+            result = 31 * result + ObjectUtils.hashCode(paramsetType);
+            result = 31 * result + ObjectUtils.hashCode(channel);
+            result = 31 * result + ObjectUtils.hashCode(name);
+            hash = result;
+        }
+        return result;
     }
 
     /**
@@ -92,12 +101,16 @@ public class HmDatapointInfo {
      */
     @Override
     public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
         if (obj == null || !(obj instanceof HmDatapointInfo)) {
             return false;
         }
         HmDatapointInfo comp = (HmDatapointInfo) obj;
-        return new EqualsBuilder().append(address, comp.getAddress()).append(paramsetType, comp.getParamsetType())
-                .append(channel, comp.getChannel()).append(name, comp.getName()).isEquals();
+        return hashCode() == comp.hashCode() && paramsetType == comp.getParamsetType()
+                && ObjectUtils.equals(channel, comp.getChannel()) && ObjectUtils.equals(name, comp.getName())
+                && ObjectUtils.equals(address, comp.getAddress());
     }
 
     /**
@@ -11,7 +11,9 @@ package org.openhab.binding.homematic.internal.model;
 import static org.openhab.binding.homematic.internal.misc.HomematicConstants.*;
 
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 import org.apache.commons.lang.builder.EqualsBuilder;
 import org.apache.commons.lang.builder.HashCodeBuilder;
@@ -37,6 +39,7 @@ public class HmDevice {
     private String homegearId;
 
     private List<HmChannel> channels = new ArrayList<HmChannel>();
+    private Map<Integer, HmChannel> channelsByNumber = new HashMap<Integer, HmChannel>();
 
     /**
      * Returns the address of the device.
@@ -149,18 +152,14 @@ public class HmDevice {
     public void addChannel(HmChannel channel) {
         channel.setDevice(this);
         channels.add(channel);
+        channelsByNumber.putIfAbsent(channel.getNumber(), channel);
     }
 
     /**
      * Returns the channel with the given channelNumber.
      */
     public HmChannel getChannel(int channelNumber) {
-        for (HmChannel hmChannel : channels) {
-            if (hmChannel.getNumber() == channelNumber) {
-                return hmChannel;
-            }
-        }
-        return null;
+        return channelsByNumber.get(channelNumber);
     }
 
     /**
@@ -50,4 +50,10 @@ public class TclScriptDataEntry {
 
     @XStreamAsAttribute
     public String operations;
+
+    @XStreamAsAttribute
+    public String timestamp;
+
+    @XStreamAsAttribute
+    public boolean unchanged;
 }
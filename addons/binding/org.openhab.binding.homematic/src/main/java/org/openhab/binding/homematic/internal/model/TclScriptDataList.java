@@ -12,6 +12,7 @@ import java.util.ArrayList;
 import java.util.List;
 
 import com.thoughtworks.xstream.annotations.XStreamAlias;
+import com.thoughtworks.xstream.annotations.XStreamAsAttribute;
 import com.thoughtworks.xstream.annotations.XStreamImplicit;
 
 /**
@@ -22,6 +23,9 @@ import com.thoughtworks.xstream.annotations.XStreamImplicit;
 @XStreamAlias("list")
 public class TclScriptDataList {
 
+    @XStreamAsAttribute
+    private String timestamp;
+
     @XStreamImplicit(itemFieldName = "entry")
     private List<TclScriptDataEntry> entries = new ArrayList<TclScriptDataEntry>();
 
@@ -32,4 +36,18 @@ public class TclScriptDataList {
         return entries;
     }
 
+    /**
+     * Returns the time of the CCU when the script has been executed.
+     */
+    public String getTimestamp() {
+        return timestamp;
+    }
+
+    /**
+     * Sets the time of the CCU when the script has been executed.
+     */
+    public void setTimestamp(String timestamp) {
+        this.timestamp = timestamp;
+    }
+
 }
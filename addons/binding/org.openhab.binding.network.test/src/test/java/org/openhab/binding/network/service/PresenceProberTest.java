@@ -0,0 +1,161 @@
+/**
+ * Copyright (c) 2010-2017 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.binding.network.service;
+
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+import org.junit.After;
+import org.junit.Test;
+
+/**
+ * Tests for the {@link PresenceProber}.
+ *
+ * @author agent - Initial contribution
+ */
+public class PresenceProberTest {
+    private static final int TIMEOUT = 1000;
+    private static final long WAIT_SECONDS = 10;
+
+    /**
+     * The TCP and UDP checks of the broadcast address fail immediately, so only the isReachable check is running.
+     */
+    private static final String BROADCAST_ADDRESS = "255.255.255.255";
+
+    private PresenceProber prober;
+
+    @After
+    public void tearDown() {
+        if (prober != null) {
+            prober.shutdown();
+        }
+    }
+
+    @Test
+    public void testOpenPortIsReachable() throws Exception {
+        prober = new PresenceProber();
+        try (ServerSocket serverSocket = new ServerSocket(0, 1, InetAddress.getLoopbackAddress())) {
+            double latency = prober.probe("127.0.0.1", serverSocket.getLocalPort(), TIMEOUT, 0).get(WAIT_SECONDS,
+                    TimeUnit.SECONDS);
+            assertTrue("Latency " + latency, latency >= 0);
+        }
+    }
+
+    @Test
+    public void testClosedPortIsNotReachable() throws Exception {
+        prober = new PresenceProber();
+        int port;
+        try (ServerSocket serverSocket = new ServerSocket(0, 1, InetAddress.getLoopbackAddress())) {
+            port = serverSocket.getLocalPort();
+        }
+        assertEquals(-1, prober.probe("127.0.0.1", port, TIMEOUT, 2).get(WAIT_SECONDS, TimeUnit.SECONDS), 0);
+    }
+
+    @Test
+    public void testUnknownHostIsNotReachable() throws Exception {
+        prober = new PresenceProber();
+        assertEquals(-1, prober.probe("unknown.host.invalid", 80, TIMEOUT, 0).get(WAIT_SECONDS, TimeUnit.SECONDS),
+                0);
+    }
+
+    @Test
+    public void testSaturatedReachableChecksAreSkippedAndCancelled() throws Exception {
+        BlockingProber blockingProber = new BlockingProber();
+        prober = blockingProber;
+        int probeCount = 100;
+        List<CompletableFuture<Double>> results = new ArrayList<>();
+        for (int i = 0; i < probeCount; i++) {
+            results.add(prober.probe(BROADCAST_ADDRESS, 0, TIMEOUT, 0));
+        }
+        for (CompletableFuture<Double> result : results) {
+            assertEquals(-1, result.get(WAIT_SECONDS, TimeUnit.SECONDS), 0);
+        }
+
+        assertEquals("Skipped checks",
+                probeCount - PresenceProber.REACHABLE_THREADS - PresenceProber.REACHABLE_QUEUE_SIZE,
+                prober.getSkippedReachableChecks());
+        assertEquals("Queued checks", 0, prober.getQueuedReachableChecks());
+        waitFor(() -> blockingProber.interrupted.get() == blockingProber.started.get());
+        assertTrue("Started checks", blockingProber.started.get() >= PresenceProber.REACHABLE_THREADS);
+    }
+
+    @Test
+    public void testProbeWithoutReachableCheck() throws Exception {
+        BlockingProber blockingProber = new BlockingProber();
+        prober = blockingProber;
+        assertEquals(-1, prober.probe(BROADCAST_ADDRESS, 0, TIMEOUT, 0, false).get(WAIT_SECONDS, TimeUnit.SECONDS),
+                0);
+        assertEquals("Started checks", 0, blockingProber.started.get());
+    }
+
+    @Test
+    public void testCancelledScheduleDoesNotUpdateState() throws Exception {
+        prober = new PresenceProber();
+        NetworkService service = new NetworkService("127.0.0.1", 0, 0, false, 100, TIMEOUT, false);
+        final AtomicInteger updates = new AtomicInteger();
+        ScheduledFuture<?> job = prober.schedule(service, new StateUpdate() {
+            @Override
+            public void newState(double state) {
+                updates.incrementAndGet();
+            }
+
+            @Override
+            public void invalidConfig() {
+            }
+        });
+        waitFor(() -> updates.get() > 0);
+
+        job.cancel(true);
+        int updatesAfterCancel = updates.get();
+        Thread.sleep(500);
+        assertEquals("Updates after cancel", updatesAfterCancel, updates.get());
+    }
+
+    private void waitFor(BooleanSupplier condition) throws InterruptedException {
+        long end = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(WAIT_SECONDS);
+        while (!condition.getAsBoolean()) {
+            if (System.currentTimeMillis() > end) {
+                fail("Condition not met within " + WAIT_SECONDS + " seconds");
+            }
+            Thread.sleep(10);
+        }
+    }
+
+    /**
+     * A prober, whose isReachable checks block until they are cancelled.
+     */
+    private static class BlockingProber extends PresenceProber {
+        private final AtomicInteger started = new AtomicInteger();
+        private final AtomicInteger interrupted = new AtomicInteger();
+
+        private BlockingProber() throws IOException {
+        }
+
+        @Override
+        boolean isReachable(InetAddress address, int timeout) {
+            started.incrementAndGet();
+            try {
+                Thread.sleep(Long.MAX_VALUE);
+            } catch (InterruptedException e) {
+                interrupted.incrementAndGet();
+            }
+            return false;
+        }
+    }
+}
@@ -0,0 +1,79 @@
+/**
+ * Copyright (c) 2010-2017 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.binding.network.service.dhcp;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+/**
+ * Tests for the {@link DHCPLeaseTable}.
+ *
+ * @author agent - Initial contribution
+ */
+public class DHCPLeaseTableTest {
+    private static final long ALWAYS = Long.MAX_VALUE;
+
+    private final DHCPLeaseTable leaseTable = new DHCPLeaseTable();
+
+    @Test
+    public void testSeenDevice() {
+        leaseTable.seen("00:11:22:33:44:55", "192.168.0.10", System.currentTimeMillis());
+        assertTrue(leaseTable.isSeenWithin("192.168.0.10", 1000));
+        assertFalse(leaseTable.isSeenWithin("192.168.0.11", ALWAYS));
+    }
+
+    @Test
+    public void testDeviceWithoutAddressKeepsLastAddress() {
+        long now = System.currentTimeMillis();
+        leaseTable.seen("00:11:22:33:44:55", "192.168.0.10", now - 10000);
+        leaseTable.seen("00:11:22:33:44:55", null, now);
+        assertTrue(leaseTable.isSeenWithin("192.168.0.10", 1000));
+    }
+
+    @Test
+    public void testNewAddressOfDevice() {
+        long now = System.currentTimeMillis();
+        leaseTable.seen("00:11:22:33:44:55", "192.168.0.10", now);
+        leaseTable.seen("00:11:22:33:44:55", "192.168.0.11", now);
+        assertFalse(leaseTable.isSeenWithin("192.168.0.10", ALWAYS));
+        assertTrue(leaseTable.isSeenWithin("192.168.0.11", 1000));
+    }
+
+    @Test
+    public void testReleasedDevice() {
+        leaseTable.seen("00:11:22:33:44:55", "192.168.0.10", System.currentTimeMillis());
+        leaseTable.released("00:11:22:33:44:55", "192.168.0.10");
+        assertFalse(leaseTable.isSeenWithin("192.168.0.10", ALWAYS));
+    }
+
+    @Test
+    public void testExpiredDevicesAreRemoved() {
+        long now = System.currentTimeMillis();
+        leaseTable.seen("00:11:22:33:44:55", "192.168.0.10", now - DHCPLeaseTable.MAX_AGE - 1);
+        leaseTable.seen("00:11:22:33:44:56", "192.168.0.11", now);
+        assertFalse(leaseTable.isSeenWithin("192.168.0.10", ALWAYS));
+        assertTrue(leaseTable.isSeenWithin("192.168.0.11", 1000));
+    }
+
+    @Test
+    public void testLeastRecentlySeenDevicesAreRemovedAboveCapacity() {
+        long now = System.currentTimeMillis();
+        int count = DHCPLeaseTable.MAX_ENTRIES + 1;
+        for (int i = 0; i < count; i++) {
+            leaseTable.seen(String.format("00:11:22:33:%02x:%02x", i >> 8, i & 0xff), address(i), now - count + i);
+        }
+        assertFalse("Oldest device", leaseTable.isSeenWithin(address(0), ALWAYS));
+        assertTrue("Newest device", leaseTable.isSeenWithin(address(count - 1), ALWAYS));
+    }
+
+    private String address(int i) {
+        return "10.0." + (i >> 8) + "." + (i & 0xff);
+    }
+}
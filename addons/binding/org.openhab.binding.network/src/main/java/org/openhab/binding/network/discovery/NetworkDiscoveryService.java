@@ -10,78 +10,122 @@ package org.openhab.binding.network.discovery;
 
 import static org.openhab.binding.network.NetworkBindingConstants.*;
 
+import java.io.IOException;
 import java.util.HashMap;
-import java.util.Iterator;
 import java.util.LinkedHashSet;
 import java.util.Map;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
-import java.util.concurrent.TimeUnit;
 
 import org.eclipse.smarthome.config.discovery.AbstractDiscoveryService;
 import org.eclipse.smarthome.config.discovery.DiscoveryResultBuilder;
 import org.eclipse.smarthome.core.thing.ThingUID;
 import org.openhab.binding.network.service.DiscoveryCallback;
 import org.openhab.binding.network.service.NetworkUtils;
+import org.openhab.binding.network.service.PresenceProber;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 /**
  * The {@link NetworkDiscoveryService} is responsible for discovering devices on
  * the current Network. It uses every Network Interface which is connected to a network.
+ * The addresses are probed with a limited rate, which can be configured with the {@link #PACKETS_PER_SECOND}
+ * property.
  *
  * @author Marc Mettke - Initial contribution
  */
 public class NetworkDiscoveryService extends AbstractDiscoveryService implements DiscoveryCallback {
     private final Logger logger = LoggerFactory.getLogger(NetworkDiscoveryService.class);
-    private ExecutorService executorService = null;
     static final int PING_TIMEOUT_IN_MS = 500;
-    private int scanningNetworkSize = 0;
+    static final String PACKETS_PER_SECOND = "packetsPerSecond";
+    static final int DEFAULT_PACKETS_PER_SECOND = 200;
+
+    private int packetsPerSecond = DEFAULT_PACKETS_PER_SECOND;
+    private SubnetSweep sweep = null;
+    private int scanCount = 0;
 
     public NetworkDiscoveryService() {
         super(SUPPORTED_THING_TYPES_UIDS, 900, false);
     }
 
+    @Override
+    protected void activate(Map<String, Object> configProperties) {
+        super.activate(configProperties);
+        readConfiguration(configProperties);
+    }
+
+    @Override
+    protected void modified(Map<String, Object> configProperties) {
+        super.modified(configProperties);
+        readConfiguration(configProperties);
+    }
+
+    private void readConfiguration(Map<String, Object> configProperties) {
+        Object value = configProperties == null ? null : configProperties.get(PACKETS_PER_SECOND);
+        if (value != null) {
+            try {
+                packetsPerSecond = Math.max(1, Integer.parseInt(value.toString()));
+            } catch (NumberFormatException e) {
+                logger.warn("Invalid {} '{}', using {}", PACKETS_PER_SECOND, value, DEFAULT_PACKETS_PER_SECOND);
+                packetsPerSecond = DEFAULT_PACKETS_PER_SECOND;
+            }
+        }
+    }
+
     /**
-     * Starts the DiscoveryThread for each IP on each interface on the network
-     *
+     * Starts probing each IP on each interface on the network. The discovered devices are reported while the scan
+     * is running and the scan is stopped, when all IPs are probed.
      */
     @Override
-    protected void startScan() {
-        if (executorService != null) {
+    protected synchronized void startScan() {
+        if (sweep != null) {
             stopScan();
         }
 
         logger.debug("Starting Discovery");
+        final PresenceProber prober;
+        try {
+            prober = PresenceProber.acquire();
+        } catch (IOException e) {
+            logger.error("Cannot start the presence prober: {}", e.getMessage());
+            return;
+        }
+
         LinkedHashSet<String> networkIPs = NetworkUtils.getNetworkIPs(NetworkUtils.getInterfaceIPs());
-        scanningNetworkSize = networkIPs.size();
-        executorService = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors() * 10);
+        final int scan = ++scanCount;
+        sweep = new SubnetSweep(prober, networkIPs, packetsPerSecond, PING_TIMEOUT_IN_MS, this, new Runnable() {
+            @Override
+            public void run() {
+                PresenceProber.release();
+                scheduler.execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        sweepFinished(scan);
+                    }
+                });
+            }
+        });
+        sweep.start(scheduler);
+    }
 
-        for (Iterator<String> it = networkIPs.iterator(); it.hasNext();) {
-            final String ip = it.next();
-            executorService.execute(new PingRunnable(ip, this));
+    private synchronized void sweepFinished(int scan) {
+        // a cancelled or restarted scan has been stopped already
+        if (scan == scanCount && sweep != null) {
+            stopScan();
         }
-        stopScan();
     }
 
     @Override
     protected synchronized void stopScan() {
         super.stopScan();
-        if (executorService == null) {
+        if (sweep == null) {
             return;
         }
 
-        try {
-            executorService.awaitTermination(PING_TIMEOUT_IN_MS * scanningNetworkSize, TimeUnit.MILLISECONDS);
-        } catch (InterruptedException e) {
-        }
-        executorService.shutdown();
-        executorService = null;
-
+        sweep.cancel();
+        sweep = null;
     }
 
     /**
-     * Submit newly discovered devices. This method is called by the spawned threads in {@link startScan}.
+     * Submit newly discovered devices. This method is called by the probes started in {@link #startScan()}.
      *
      * @param ip The device IP, received by the
      */
@@ -0,0 +1,141 @@
+/**
+ * Copyright (c) 2010-2017 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.binding.network.discovery;
+
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.openhab.binding.network.service.DiscoveryCallback;
+import org.openhab.binding.network.service.PresenceProber;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Probes a list of addresses with the {@link PresenceProber} within a packets per second budget. The probes run
+ * asynchronously, so only the scheduler thread is used to start them. Every reachable address is passed to the
+ * {@link DiscoveryCallback} as soon as it answers.
+ *
+ * The sweep uses the TCP and UDP checks only, the blocking isReachable checks would saturate the small pool shared
+ * with the network things and their ICMP or TCP packets would not be accounted in the budget.
+ *
+ * @author agent - Initial contribution
+ */
+class SubnetSweep {
+    private final Logger logger = LoggerFactory.getLogger(SubnetSweep.class);
+
+    /** A probe without port and isReachable check sends a TCP connect and an UDP datagram */
+    static final int PACKETS_PER_PROBE = 2;
+    private static final long TICK_INTERVAL = 100;
+
+    private final PresenceProber prober;
+    private final Iterator<String> addresses;
+    private final int addressCount;
+    private final double probesPerTick;
+    private final int timeout;
+    private final DiscoveryCallback callback;
+    private final Runnable finishedCallback;
+
+    private ScheduledFuture<?> tickJob;
+    private double credit;
+    private volatile boolean allStarted;
+    private final AtomicInteger pendingProbes = new AtomicInteger();
+    private final AtomicInteger foundDevices = new AtomicInteger();
+    private final AtomicBoolean finished = new AtomicBoolean();
+    private long startTime;
+
+    /**
+     * @param packetsPerSecond the maximum number of probe packets per second
+     * @param timeout the timeout of a probe in ms
+     * @param finishedCallback called once, when all addresses are probed or the sweep is cancelled
+     */
+    SubnetSweep(PresenceProber prober, Collection<String> addresses, int packetsPerSecond, int timeout,
+            DiscoveryCallback callback, Runnable finishedCallback) {
+        this.prober = prober;
+        this.addresses = addresses.iterator();
+        this.addressCount = addresses.size();
+        this.probesPerTick = Math.max(1.0, (double) packetsPerSecond / PACKETS_PER_PROBE) * TICK_INTERVAL / 1000;
+        this.timeout = timeout;
+        this.callback = callback;
+        this.finishedCallback = finishedCallback;
+    }
+
+    synchronized void start(ScheduledExecutorService scheduler) {
+        logger.debug("Probing {} addresses with {} probes per second", addressCount,
+                probesPerTick * 1000 / TICK_INTERVAL);
+        startTime = System.currentTimeMillis();
+        tickJob = scheduler.scheduleAtFixedRate(this::tick, 0, TICK_INTERVAL, TimeUnit.MILLISECONDS);
+    }
+
+    private void tick() {
+        // finish outside of the lock, the callback may cancel the sweep from another thread
+        if (startProbes()) {
+            finish();
+        }
+    }
+
+    /**
+     * Starts the probes within the budget of one tick.
+     *
+     * @return true if all probes are started and finished
+     */
+    private synchronized boolean startProbes() {
+        if (finished.get()) {
+            return false;
+        }
+        credit = Math.min(credit + probesPerTick, Math.max(1.0, probesPerTick));
+        while (credit >= 1 && addresses.hasNext()) {
+            credit--;
+            startProbe(addresses.next());
+        }
+        if (!addresses.hasNext()) {
+            tickJob.cancel(false);
+            allStarted = true;
+            return pendingProbes.get() == 0;
+        }
+        return false;
+    }
+
+    private void startProbe(final String ip) {
+        pendingProbes.incrementAndGet();
+        prober.probe(ip, 0, timeout, 0, false).whenComplete((latency, e) -> {
+            if (latency != null && latency >= 0 && !finished.get()) {
+                foundDevices.incrementAndGet();
+                callback.newDevice(ip);
+            }
+            if (pendingProbes.decrementAndGet() == 0 && allStarted) {
+                finish();
+            }
+        });
+    }
+
+    /**
+     * Stops starting new probes, the results of running probes are ignored.
+     */
+    void cancel() {
+        synchronized (this) {
+            if (tickJob != null) {
+                tickJob.cancel(false);
+            }
+        }
+        finish();
+    }
+
+    private void finish() {
+        if (finished.compareAndSet(false, true)) {
+            logger.debug("Probed {} addresses in {} ms, found {} devices", addressCount,
+                    System.currentTimeMillis() - startTime, foundDevices.get());
+            finishedCallback.run();
+        }
+    }
+}
@@ -17,7 +17,7 @@ import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
 
-import org.eclipse.smarthome.model.script.actions.Ping;
+import org.openhab.binding.network.service.dhcp.DHCPLeaseTable;
 import org.openhab.binding.network.service.dhcp.ReceiveDHCPRequestPackets;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -27,12 +27,15 @@ import org.slf4j.LoggerFactory;
  *
  * @author Marc Mettke
  * @author David Gräff, 2016 - Add DHCP listen for request packets
+ * @author agent - Probe with the shared {@link PresenceProber}
  */
 public class NetworkService {
 
     private Logger logger = LoggerFactory.getLogger(NetworkService.class);
 
     private ScheduledFuture<?> refreshJob;
+    private PresenceProber presenceProber;
+    private String dhcpAddress;
 
     private String hostname;
     private int port;
@@ -112,22 +115,38 @@ public class NetworkService {
 
     public void startAutomaticRefresh(ScheduledExecutorService scheduledExecutorService,
             final StateUpdate stateUpdate) {
-        Runnable runnable = new Runnable() {
-            @Override
-            public void run() {
-                try {
-                    stateUpdate.newState(updateDeviceState());
-                } catch (InvalidConfigurationException e) {
-                    stateUpdate.invalidConfig();
+        if (useSystemPing) {
+            Runnable runnable = new Runnable() {
+                @Override
+                public void run() {
+                    if (isSeenByDHCP()) {
+                        stateUpdate.newState(0);
+                        return;
+                    }
+                    try {
+                        stateUpdate.newState(updateDeviceState());
+                    } catch (InvalidConfigurationException e) {
+                        stateUpdate.invalidConfig();
+                    }
                 }
-            }
-        };
+            };
 
-        refreshJob = scheduledExecutorService.scheduleAtFixedRate(runnable, 0, refreshInterval, TimeUnit.MILLISECONDS);
+            refreshJob = scheduledExecutorService.scheduleAtFixedRate(runnable, 0, refreshInterval,
+                    TimeUnit.MILLISECONDS);
+        } else {
+            try {
+                presenceProber = PresenceProber.acquire();
+                refreshJob = presenceProber.schedule(this, stateUpdate);
+            } catch (IOException e) {
+                logger.error("Cannot start the presence prober: {}", e.getMessage());
+                stateUpdate.invalidConfig();
+            }
+        }
 
         if (dhcplisten) {
             try {
-                ReceiveDHCPRequestPackets.register(InetAddress.getByName(hostname).getHostAddress(), stateUpdate);
+                dhcpAddress = InetAddress.getByName(hostname).getHostAddress();
+                ReceiveDHCPRequestPackets.register(dhcpAddress, stateUpdate);
             } catch (SocketException | UnknownHostException e) {
                 logger.error("Cannot use DHCP listen: {}", e.getMessage());
             }
@@ -135,17 +154,47 @@ public class NetworkService {
     }
 
     public void stopAutomaticRefresh() {
-        refreshJob.cancel(true);
+        if (refreshJob != null) {
+            refreshJob.cancel(true);
+            refreshJob = null;
+        }
+        if (presenceProber != null) {
+            presenceProber = null;
+            PresenceProber.release();
+        }
         try {
             ReceiveDHCPRequestPackets.unregister(InetAddress.getByName(hostname).getHostAddress());
         } catch (UnknownHostException e) {
         }
     }
 
+    /**
+     * Returns true, if the device has been seen in DHCP traffic within the refresh interval. An active check of the
+     * device is not necessary then.
+     */
+    public boolean isSeenByDHCP() {
+        return dhcplisten && DHCPLeaseTable.getInstance().isSeenWithin(dhcpAddress, refreshInterval);
+    }
+
     /**
      * Updates one device to a new status
      */
     public double updateDeviceState() throws InvalidConfigurationException {
+        if (!useSystemPing) {
+            PresenceProber prober;
+            try {
+                prober = PresenceProber.acquire();
+            } catch (IOException e) {
+                logger.error("Cannot start the presence prober: {}", e.getMessage());
+                return -1;
+            }
+            try {
+                return prober.probeAndWait(hostname, port, timeout, retry);
+            } finally {
+                PresenceProber.release();
+            }
+        }
+
         int currentTry = 0;
         do {
             boolean success;
@@ -153,11 +202,7 @@ public class NetworkService {
 
             try {
                 pingTime = System.nanoTime();
-                if (!useSystemPing) {
-                    success = Ping.checkVitality(hostname, port, timeout);
-                } else {
-                    success = NetworkUtils.nativePing(hostname, port, timeout);
-                }
+                success = NetworkUtils.nativePing(hostname, port, timeout);
                 pingTime = System.nanoTime() - pingTime;
                 if (success) {
                     logger.debug("established connection [host '{}' port '{}' timeout '{}']",
@@ -0,0 +1,575 @@
+/**
+ * Copyright (c) 2010-2017 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.binding.network.service;
+
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.PortUnreachableException;
+import java.net.UnknownHostException;
+import java.nio.ByteBuffer;
+import java.nio.channels.DatagramChannel;
+import java.nio.channels.SelectableChannel;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A singleton presence probing engine, which is shared by all network things. The probes of all things are
+ * multiplexed over one NIO selector thread instead of blocking a thread or forking a ping process per check:
+ * <ul>
+ * <li>If a port is configured, the device is online if a TCP connection to the port can be established.</li>
+ * <li>Without a port, the device is online if it answers a TCP connect to the echo port, even with a refused
+ * connection, a UDP datagram to the echo port, even with an ICMP port unreachable, or
+ * {@link InetAddress#isReachable(int)}. The latter runs on a small thread pool, because it blocks. If the pool is
+ * saturated, the check is skipped and only the other checks are used.</li>
+ * </ul>
+ * The host names are resolved on their own threads, so a slow DNS server does not delay the other probes. The first
+ * probe of a thing is delayed by a random time, so that the probes of many things do not run in bursts.
+ *
+ * The engine is started with the first registration and stopped, if the last one is removed.
+ *
+ * @author agent - Initial contribution
+ */
+public class PresenceProber {
+    private static final int ECHO_PORT = 7;
+    static final int REACHABLE_THREADS = 2;
+    static final int REACHABLE_QUEUE_SIZE = 64;
+    private static final int RESOLVER_THREADS = 2;
+    private static final long MAX_INITIAL_DELAY = 10000;
+    private static final long MAX_SELECT_TIMEOUT = 1000;
+
+    private static PresenceProber instance;
+    private static int users;
+
+    private final Logger logger = LoggerFactory.getLogger(PresenceProber.class);
+
+    private final Selector selector;
+    private final Thread selectorThread;
+    private final ScheduledExecutorService scheduler;
+    private final ThreadPoolExecutor reachableExecutor;
+    private final ThreadPoolExecutor resolverExecutor;
+    private final AtomicLong skippedReachableChecks = new AtomicLong();
+    private final Queue<Runnable> selectorTasks = new ConcurrentLinkedQueue<>();
+    private final Set<Probe> activeProbes = ConcurrentHashMap.newKeySet();
+    private final Random random = new Random();
+    private volatile boolean running = true;
+
+    /**
+     * Returns the shared instance and starts it, if necessary. Every call must be followed by a call of
+     * {@link #release()}.
+     */
+    public static synchronized PresenceProber acquire() throws IOException {
+        if (instance == null) {
+            instance = new PresenceProber();
+        }
+        users++;
+        return instance;
+    }
+
+    /**
+     * Releases the shared instance, the last release stops the engine.
+     */
+    public static synchronized void release() {
+        if (users > 0 && --users == 0 && instance != null) {
+            instance.shutdown();
+            instance = null;
+        }
+    }
+
+    PresenceProber() throws IOException {
+        selector = Selector.open();
+        scheduler = Executors.newSingleThreadScheduledExecutor(r -> newThread(r, "network-probe-scheduler"));
+        reachableExecutor = new ThreadPoolExecutor(REACHABLE_THREADS, REACHABLE_THREADS, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<Runnable>(REACHABLE_QUEUE_SIZE), r -> newThread(r, "network-probe-reachable"));
+        // every thing has at most one probe in flight, so the queue is bounded by the number of things
+        resolverExecutor = new ThreadPoolExecutor(RESOLVER_THREADS, RESOLVER_THREADS, 0, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<Runnable>(), r -> newThread(r, "network-probe-resolver"));
+        selectorThread = newThread(this::selectLoop, "network-probe-selector");
+        selectorThread.start();
+    }
+
+    /**
+     * Checks the reachability of the address with ICMP or a TCP connect to the echo port, blocks up to the timeout.
+     */
+    boolean isReachable(InetAddress address, int timeout) throws IOException {
+        return address.isReachable(timeout);
+    }
+
+    private static Thread newThread(Runnable runnable, String name) {
+        Thread thread = new Thread(runnable, name);
+        thread.setDaemon(true);
+        return thread;
+    }
+
+    /**
+     * Probes the device of the given network service periodically with its refresh interval.
+     *
+     * @return the job, cancel it to stop the probing. The result of a check, which is running at that time, is
+     *         dropped.
+     */
+    public ScheduledFuture<?> schedule(NetworkService service, StateUpdate stateUpdate) {
+        long interval = service.getRefreshInterval();
+        long initialDelay = (long) (random.nextDouble() * Math.min(interval, MAX_INITIAL_DELAY));
+
+        ScheduledCheck check = new ScheduledCheck(service, stateUpdate);
+        synchronized (check) {
+            check.job = scheduler.scheduleAtFixedRate(check, initialDelay, interval, TimeUnit.MILLISECONDS);
+        }
+        return check.job;
+    }
+
+    /**
+     * Probes the device once and blocks until the result is available.
+     *
+     * @return the latency in ms or -1 if the device is not reachable
+     */
+    public double probeAndWait(String hostname, int port, int timeout, int retry) {
+        try {
+            return probe(hostname, port, timeout, retry).get();
+        } catch (ExecutionException e) {
+            return -1;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return -1;
+        }
+    }
+
+    /**
+     * Probes the device once.
+     *
+     * @param retry number of additional attempts, before the device is considered offline
+     * @return a future with the latency in ms or -1 if the device is not reachable
+     */
+    public CompletableFuture<Double> probe(String hostname, int port, int timeout, int retry) {
+        return probe(hostname, port, timeout, retry, true);
+    }
+
+    /**
+     * Probes the device once.
+     *
+     * @param retry number of additional attempts, before the device is considered offline
+     * @param useIsReachable false to check a device without port with the TCP and UDP checks only, so a probe sends
+     *            exactly two packets and does not occupy the isReachable pool
+     * @return a future with the latency in ms or -1 if the device is not reachable
+     */
+    public CompletableFuture<Double> probe(String hostname, int port, int timeout, int retry,
+            boolean useIsReachable) {
+        final Probe probe = new Probe(hostname, port, timeout, retry + 1, useIsReachable);
+        try {
+            resolverExecutor.execute(probe::resolve);
+        } catch (RejectedExecutionException e) {
+            probe.result.complete(-1.0);
+        }
+        return probe.result;
+    }
+
+    /**
+     * Returns the number of isReachable checks, which have been skipped because the pool was saturated.
+     */
+    long getSkippedReachableChecks() {
+        return skippedReachableChecks.get();
+    }
+
+    /**
+     * Returns the number of isReachable checks, which are waiting for a thread of the pool.
+     */
+    int getQueuedReachableChecks() {
+        return reachableExecutor.getQueue().size();
+    }
+
+    void shutdown() {
+        running = false;
+        scheduler.shutdownNow();
+        reachableExecutor.shutdownNow();
+        resolverExecutor.shutdownNow();
+        selector.wakeup();
+        try {
+            selectorThread.join(MAX_SELECT_TIMEOUT);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void selectLoop() {
+        logger.debug("Network presence prober started");
+        try {
+            while (running) {
+                Runnable task;
+                while ((task = selectorTasks.poll()) != null) {
+                    task.run();
+                }
+
+                long now = System.nanoTime();
+                long timeout = MAX_SELECT_TIMEOUT;
+                for (Probe probe : activeProbes) {
+                    long remaining = TimeUnit.NANOSECONDS.toMillis(probe.deadline - now);
+                    if (remaining <= 0) {
+                        probe.attemptTimedOut();
+                    } else {
+                        timeout = Math.min(timeout, remaining);
+                    }
+                }
+
+                selector.select(timeout);
+
+                Set<SelectionKey> selectedKeys = selector.selectedKeys();
+                for (SelectionKey key : selectedKeys) {
+                    if (key.isValid()) {
+                        ((ChannelProbe) key.attachment()).ready(key);
+                    }
+                }
+                selectedKeys.clear();
+            }
+        } catch (IOException e) {
+            logger.error("Network presence prober stopped: {}", e.getMessage());
+        } finally {
+            for (Probe probe : activeProbes) {
+                probe.finish(-1);
+            }
+            try {
+                selector.close();
+            } catch (IOException e) {
+            }
+        }
+        logger.debug("Network presence prober stopped");
+    }
+
+    /**
+     * The periodic check of a network service, which skips a check if the previous one has not finished because of
+     * many retries.
+     */
+    private class ScheduledCheck implements Runnable {
+        private final NetworkService service;
+        private final StateUpdate stateUpdate;
+        private ScheduledFuture<?> job;
+        private boolean probing;
+
+        private ScheduledCheck(NetworkService service, StateUpdate stateUpdate) {
+            this.service = service;
+            this.stateUpdate = stateUpdate;
+        }
+
+        @Override
+        public synchronized void run() {
+            if (service.isSeenByDHCP()) {
+                // the device has been seen passively, no need to probe it
+                stateUpdate.newState(0);
+                return;
+            }
+            if (probing) {
+                return;
+            }
+            probing = true;
+            probe(service.getHostname(), service.getPort(), service.getTimeout(), service.getRetry())
+                    .whenCompleteAsync((latency, e) -> completed(latency), scheduler);
+        }
+
+        private synchronized void completed(Double latency) {
+            probing = false;
+            if (latency != null && !job.isCancelled()) {
+                stateUpdate.newState(latency);
+            }
+        }
+    }
+
+    /**
+     * A check of a device with all its attempts.
+     */
+    private class Probe {
+        private final String hostname;
+        private final int port;
+        private final int timeout;
+        private final boolean useIsReachable;
+        private final CompletableFuture<Double> result = new CompletableFuture<>();
+
+        private int remainingAttempts;
+        private int attempt;
+        private long start;
+        private volatile long deadline;
+        private int pendingChecks;
+        private InetAddress address;
+        private final List<SelectableChannel> channels = new ArrayList<>();
+        private final List<Future<?>> reachableChecks = new ArrayList<>();
+
+        private Probe(String hostname, int port, int timeout, int attempts, boolean useIsReachable) {
+            this.hostname = hostname;
+            this.port = port;
+            this.timeout = timeout;
+            this.remainingAttempts = attempts;
+            this.useIsReachable = useIsReachable;
+        }
+
+        /**
+         * Resolves the host name once for all attempts and starts the first attempt, runs on a resolver thread,
+         * because the name resolution may block.
+         */
+        private void resolve() {
+            try {
+                address = InetAddress.getByName(hostname);
+            } catch (UnknownHostException e) {
+                logger.debug("Unknown host '{}'", hostname);
+                finish(-1);
+                return;
+            }
+            try {
+                scheduler.execute(this::startAttempt);
+            } catch (RejectedExecutionException e) {
+                finish(-1);
+            }
+        }
+
+        /**
+         * Starts the next attempt, runs on the scheduler thread.
+         */
+        private void startAttempt() {
+            synchronized (this) {
+                if (result.isDone()) {
+                    return;
+                }
+                remainingAttempts--;
+                attempt++;
+                start = System.nanoTime();
+                deadline = start + TimeUnit.MILLISECONDS.toNanos(timeout);
+                pendingChecks = 0;
+                if (port > 0) {
+                    openTcpChannel(new InetSocketAddress(address, port), false);
+                } else {
+                    // a check which can't be started does not prevent the others
+                    openTcpChannel(new InetSocketAddress(address, ECHO_PORT), true);
+                    if (!result.isDone()) {
+                        openUdpChannel(new InetSocketAddress(address, ECHO_PORT));
+                        if (useIsReachable) {
+                            submitIsReachable(address);
+                        }
+                    }
+                }
+                if (result.isDone()) {
+                    return;
+                }
+                if (pendingChecks == 0) {
+                    attemptFailed();
+                    return;
+                }
+            }
+            activeProbes.add(this);
+            selector.wakeup();
+        }
+
+        private void openTcpChannel(InetSocketAddress address, boolean refusedIsReachable) {
+            SocketChannel channel;
+            try {
+                channel = SocketChannel.open();
+                channels.add(channel);
+                channel.configureBlocking(false);
+                if (channel.connect(address)) {
+                    succeeded();
+                    return;
+                }
+            } catch (IOException e) {
+                logger.debug("TCP check of '{}' failed: {}", hostname, e.getMessage());
+                return;
+            }
+            pendingChecks++;
+            register(channel, SelectionKey.OP_CONNECT, new ChannelProbe(this, attempt) {
+                @Override
+                void ready(SelectionKey key) {
+                    try {
+                        ((SocketChannel) key.channel()).finishConnect();
+                        probe.checkSucceeded(attempt);
+                    } catch (ConnectException e) {
+                        // the device actively refused the connection, so it is there
+                        if (refusedIsReachable) {
+                            probe.checkSucceeded(attempt);
+                        } else {
+                            probe.checkFailed(attempt);
+                        }
+                    } catch (IOException e) {
+                        probe.checkFailed(attempt);
+                    }
+                    key.cancel();
+                }
+            });
+        }
+
+        private void openUdpChannel(InetSocketAddress address) {
+            DatagramChannel channel;
+            try {
+                channel = DatagramChannel.open();
+                channels.add(channel);
+                channel.configureBlocking(false);
+                channel.connect(address);
+                channel.write(ByteBuffer.wrap(new byte[] { 0 }));
+            } catch (IOException e) {
+                logger.debug("UDP check of '{}' failed: {}", hostname, e.getMessage());
+                return;
+            }
+            pendingChecks++;
+            register(channel, SelectionKey.OP_READ, new ChannelProbe(this, attempt) {
+                @Override
+                void ready(SelectionKey key) {
+                    try {
+                        ((DatagramChannel) key.channel()).read(ByteBuffer.allocate(16));
+                        probe.checkSucceeded(attempt);
+                    } catch (PortUnreachableException e) {
+                        // the device answered with an ICMP port unreachable, so it is there
+                        probe.checkSucceeded(attempt);
+                    } catch (IOException e) {
+                        probe.checkFailed(attempt);
+                    }
+                    key.cancel();
+                }
+            });
+        }
+
+        private void submitIsReachable(final InetAddress address) {
+            final int currentAttempt = attempt;
+            try {
+                reachableChecks.add(reachableExecutor.submit(() -> {
+                    try {
+                        if (isReachable(address, timeout)) {
+                            checkSucceeded(currentAttempt);
+                            return;
+                        }
+                    } catch (IOException e) {
+                    }
+                    checkFailed(currentAttempt);
+                }));
+                pendingChecks++;
+            } catch (RejectedExecutionException e) {
+                // all reachability threads are busy, rely on the other checks
+                logger.debug("Skipping isReachable for '{}', {} checks skipped in total", hostname,
+                        skippedReachableChecks.incrementAndGet());
+            }
+        }
+
+        private void register(final SelectableChannel channel, final int ops, final ChannelProbe channelProbe) {
+            selectorTasks.add(() -> {
+                try {
+                    if (channel.isOpen()) {
+                        channel.register(selector, ops, channelProbe);
+                    }
+                } catch (IOException e) {
+                    checkFailed(channelProbe.attempt);
+                }
+            });
+        }
+
+        private synchronized void checkSucceeded(int checkAttempt) {
+            if (checkAttempt == attempt) {
+                succeeded();
+            }
+        }
+
+        private synchronized void checkFailed(int checkAttempt) {
+            if (checkAttempt == attempt && --pendingChecks == 0) {
+                attemptFailed();
+            }
+        }
+
+        private synchronized void attemptTimedOut() {
+            if (System.nanoTime() - deadline >= 0) {
+                attemptFailed();
+            }
+        }
+
+        private void succeeded() {
+            double latency = (System.nanoTime() - start) / 1000000.0;
+            logger.debug("established connection [host '{}' port '{}' timeout '{}']", hostname, port, timeout);
+            finish(latency);
+        }
+
+        private void attemptFailed() {
+            if (result.isDone()) {
+                return;
+            }
+            cancelChecks();
+            activeProbes.remove(this);
+            if (remainingAttempts > 0) {
+                // invalidate the checks of this attempt
+                attempt++;
+                deadline = Long.MAX_VALUE;
+                try {
+                    scheduler.execute(this::startAttempt);
+                } catch (RejectedExecutionException e) {
+                    finish(-1);
+                }
+            } else {
+                logger.debug("couldn't establish network connection [host '{}' port '{}' timeout '{}']", hostname,
+                        port, timeout);
+                finish(-1);
+            }
+        }
+
+        private synchronized void finish(double latency) {
+            cancelChecks();
+            activeProbes.remove(this);
+            result.complete(latency);
+        }
+
+        /**
+         * Closes the channels and cancels the isReachable checks of the current attempt, a queued check is removed
+         * from the pool.
+         */
+        private void cancelChecks() {
+            for (SelectableChannel channel : channels) {
+                try {
+                    channel.close();
+                } catch (IOException e) {
+                }
+            }
+            channels.clear();
+            if (!reachableChecks.isEmpty()) {
+                for (Future<?> check : reachableChecks) {
+                    check.cancel(true);
+                }
+                reachableChecks.clear();
+                reachableExecutor.purge();
+            }
+        }
+    }
+
+    /**
+     * Handles the readiness of a channel of a probe attempt.
+     */
+    private abstract static class ChannelProbe {
+        protected final Probe probe;
+        protected final int attempt;
+
+        private ChannelProbe(Probe probe, int attempt) {
+            this.probe = probe;
+            this.attempt = attempt;
+        }
+
+        abstract void ready(SelectionKey key);
+    }
+}
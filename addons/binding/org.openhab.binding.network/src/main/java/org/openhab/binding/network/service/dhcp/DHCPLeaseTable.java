@@ -0,0 +1,156 @@
+/**
+ * Copyright (c) 2010-2017 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.binding.network.service.dhcp;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * An in-memory table of the devices seen in DHCP traffic, keyed by MAC address and by IP address. It is filled by
+ * the {@link ReceiveDHCPRequestPackets} listener and allows to detect the presence of a device passively.
+ *
+ * @author agent - Initial contribution
+ */
+public class DHCPLeaseTable {
+    /** Entries not seen for this time are removed */
+    static final long MAX_AGE = TimeUnit.DAYS.toMillis(1);
+    /** Expired entries are removed at most once within this time */
+    private static final long PRUNE_INTERVAL = TimeUnit.MINUTES.toMillis(1);
+    /** Maximum number of devices, e.g. if the network is flooded with requests of random MAC addresses */
+    static final int MAX_ENTRIES = 4096;
+
+    private static final DHCPLeaseTable instance = new DHCPLeaseTable();
+
+    /**
+     * A device seen in DHCP traffic. The IP address may be null if the device has only asked for an address, the
+     * last seen time is in milliseconds since the epoch.
+     */
+    private static class Lease {
+        private final String macAddress;
+        private final String ipAddress;
+        private final long lastSeen;
+
+        private Lease(String macAddress, String ipAddress, long lastSeen) {
+            this.macAddress = macAddress;
+            this.ipAddress = ipAddress;
+            this.lastSeen = lastSeen;
+        }
+    }
+
+    private final Map<String, Lease> leasesByMac = new ConcurrentHashMap<>();
+    private final Map<String, Lease> leasesByIp = new ConcurrentHashMap<>();
+    private long lastPrune;
+
+    public static DHCPLeaseTable getInstance() {
+        return instance;
+    }
+
+    DHCPLeaseTable() {
+    }
+
+    /**
+     * Records that the device with the given MAC address has been seen.
+     *
+     * @param macAddress the MAC address of the device
+     * @param ipAddress the IP address used or requested by the device, null to keep the last known address
+     */
+    synchronized void seen(String macAddress, String ipAddress, long now) {
+        Lease previous = macAddress == null ? null : leasesByMac.get(macAddress);
+        if (ipAddress == null && previous != null) {
+            ipAddress = previous.ipAddress;
+        }
+        if (previous != null && previous.ipAddress != null && !previous.ipAddress.equals(ipAddress)) {
+            // the device got a new address
+            leasesByIp.remove(previous.ipAddress, previous);
+        }
+
+        Lease lease = new Lease(macAddress, ipAddress, now);
+        if (macAddress != null) {
+            leasesByMac.put(macAddress, lease);
+        }
+        if (ipAddress != null) {
+            Lease replaced = leasesByIp.put(ipAddress, lease);
+            if (replaced != null && replaced.macAddress != null && !replaced.macAddress.equals(macAddress)) {
+                // the address has been passed on to another device
+                leasesByMac.remove(replaced.macAddress, replaced);
+            }
+        }
+
+        prune(now);
+    }
+
+    /**
+     * Removes the device, e.g. because it has released its address.
+     */
+    synchronized void released(String macAddress, String ipAddress) {
+        Lease lease = macAddress == null ? null : leasesByMac.remove(macAddress);
+        if (lease != null && lease.ipAddress != null) {
+            leasesByIp.remove(lease.ipAddress, lease);
+        }
+        if (ipAddress != null) {
+            leasesByIp.remove(ipAddress);
+        }
+    }
+
+    /**
+     * Removes the expired devices and the least recently seen ones, if there are too many devices.
+     */
+    private void prune(long now) {
+        if (now - lastPrune >= PRUNE_INTERVAL) {
+            lastPrune = now;
+            removeExpired(leasesByMac, now);
+            removeExpired(leasesByIp, now);
+        }
+        if (leasesByMac.size() > MAX_ENTRIES || leasesByIp.size() > MAX_ENTRIES) {
+            removeLeastRecentlySeen();
+        }
+    }
+
+    private void removeExpired(Map<String, Lease> leases, long now) {
+        for (Iterator<Lease> it = leases.values().iterator(); it.hasNext();) {
+            if (now - it.next().lastSeen > MAX_AGE) {
+                it.remove();
+            }
+        }
+    }
+
+    /**
+     * Removes the least recently seen quarter of the devices, so a flood of requests does not sort the table for
+     * every request.
+     */
+    private void removeLeastRecentlySeen() {
+        Set<Lease> leases = new HashSet<>(leasesByMac.values());
+        leases.addAll(leasesByIp.values());
+        List<Lease> sortedLeases = new ArrayList<>(leases);
+        sortedLeases.sort(Comparator.comparingLong(lease -> lease.lastSeen));
+        for (Lease lease : sortedLeases.subList(0, sortedLeases.size() - MAX_ENTRIES * 3 / 4)) {
+            if (lease.macAddress != null) {
+                leasesByMac.remove(lease.macAddress, lease);
+            }
+            if (lease.ipAddress != null) {
+                leasesByIp.remove(lease.ipAddress, lease);
+            }
+        }
+    }
+
+    /**
+     * Returns true, if the device with the given IP address has been seen within the given time.
+     */
+    public boolean isSeenWithin(String ipAddress, long millis) {
+        Lease lease = ipAddress == null ? null : leasesByIp.get(ipAddress);
+        return lease != null && System.currentTimeMillis() - lease.lastSeen <= millis;
+    }
+}
@@ -14,6 +14,7 @@ import java.io.IOException;
 import java.net.DatagramPacket;
 import java.net.InetAddress;
 import java.net.UnknownHostException;
+import java.util.Arrays;
 import java.util.LinkedHashMap;
 import java.util.Map;
 
@@ -85,6 +86,8 @@ class DHCPPacket {
     }
 
     private byte op;
+    private byte[] ciaddr = new byte[4];
+    private byte[] chaddr;
     private Map<Byte, byte[]> options;
 
     /**
@@ -117,16 +120,19 @@ class DHCPPacket {
         // parse static part of packet
         this.op = inStream.readByte();
         inStream.readByte(); // read hardware type (ETHERNET)
-        inStream.readByte(); // read hardware address length (6 bytes)
+        int hlen = inStream.readUnsignedByte(); // read hardware address length (6 bytes)
         inStream.readByte(); // read hops
         inStream.readInt(); // read transaction id
         inStream.readShort(); // read secsonds elapsed
         inStream.readShort(); // read flags
-        inStream.readFully(dummy, 0, 4); // ciaddr
+        inStream.readFully(ciaddr, 0, 4); // ciaddr
         inStream.readFully(dummy, 0, 4); // yiaddr
         inStream.readFully(dummy, 0, 4); // siaddr
         inStream.readFully(dummy, 0, 4); // giaddr
         inStream.readFully(dummy, 0, 16); // chaddr
+        if (hlen > 0 && hlen <= 16) {
+            chaddr = Arrays.copyOf(dummy, hlen);
+        }
         inStream.readFully(dummy, 0, 64); // sname
         inStream.readFully(dummy, 0, 128); // file
 
@@ -180,6 +186,40 @@ class DHCPPacket {
         return this.op;
     }
 
+    /**
+     * Returns the client hardware address (chaddr field) as lower case MAC address string, e.g. "00:11:22:aa:bb:cc".
+     *
+     * @return the hardware address or <tt>null</tt> if not present.
+     */
+    String getClientHardwareAddress() {
+        if (chaddr == null) {
+            return null;
+        }
+        StringBuilder mac = new StringBuilder();
+        for (byte b : chaddr) {
+            if (mac.length() > 0) {
+                mac.append(':');
+            }
+            mac.append(String.format("%02x", b));
+        }
+        return mac.toString();
+    }
+
+    /**
+     * Returns the client IP address (ciaddr field), which is only set if the client already has an address, e.g. when
+     * renewing its lease.
+     *
+     * @return the client address or <tt>null</tt> if not set.
+     */
+    InetAddress getClientIPAddress() throws UnknownHostException {
+        for (byte b : ciaddr) {
+            if (b != 0) {
+                return InetAddress.getByAddress(ciaddr);
+            }
+        }
+        return null;
+    }
+
     /**
      * Return the DHCP Option Type.
      *
@@ -27,6 +27,7 @@ import org.slf4j.LoggerFactory;
  * receiver thread will be started. If the last StateUpdate is removed, the thread will be stopped
  * after the receive socket is closed. This instance listens to the UDP port 67 and will call
  * StateUpdate.newState(0) for the address that is registered and matches the DHO_DHCP_REQUESTED_ADDRESS address field.
+ * All devices seen in DHCP traffic are recorded in the {@link DHCPLeaseTable}.
  *
  * @author David Graeff <david.graeff@web.de>
  */
@@ -38,6 +39,7 @@ public class ReceiveDHCPRequestPackets extends Thread {
     private Logger logger = LoggerFactory.getLogger(ReceiveDHCPRequestPackets.class);
     private static ReceiveDHCPRequestPackets instance;
     private static Map<String, StateUpdate> registeredListeners = new TreeMap<>();
+    private final DHCPLeaseTable leaseTable = DHCPLeaseTable.getInstance();
 
     public static synchronized void register(String hostAddress, StateUpdate receiveParseSimpleUDP)
             throws SocketException {
@@ -97,17 +99,37 @@ public class ReceiveDHCPRequestPackets extends Thread {
                 }
 
                 Byte dhcpMessageType = request.getDHCPMessageType();
+                if (dhcpMessageType == null) {
+                    continue;
+                }
 
-                if (dhcpMessageType == null || dhcpMessageType != DHCPPacket.DHCPREQUEST) {
-                    continue; // skipping non DHCPREQUEST message types
+                String macAddress = request.getClientHardwareAddress();
+                InetAddress clientAddress = request.getClientIPAddress();
+                long now = System.currentTimeMillis();
+
+                if (dhcpMessageType == DHCPPacket.DHCPDISCOVER) {
+                    // the device has no address yet, but it is there
+                    leaseTable.seen(macAddress, null, now);
+                    continue;
+                } else if (dhcpMessageType == DHCPPacket.DHCPRELEASE) {
+                    leaseTable.released(macAddress, clientAddress == null ? null : clientAddress.getHostAddress());
+                    continue;
+                } else if (dhcpMessageType != DHCPPacket.DHCPREQUEST && dhcpMessageType != DHCPPacket.DHCPINFORM) {
+                    continue; // skipping other message types
                 }
 
+                // a renewing client has no requested address option, but its current address
                 InetAddress requestedAddress = request.getRequestedIPAddress();
+                if (requestedAddress == null) {
+                    requestedAddress = clientAddress;
+                }
                 if (requestedAddress == null) {
                     logger.error("DHCPREQUEST field is missing");
                     continue;
                 }
                 String requestedAddressStr = requestedAddress.getHostAddress();
+                leaseTable.seen(macAddress, requestedAddressStr, now);
+
                 StateUpdate receiver = registeredListeners.get(requestedAddressStr);
                 if (receiver != null) {
                     logger.info("DHCP request for registered address: {}", requestedAddressStr);
@@ -0,0 +1,121 @@
+/**
+ * Copyright (c) 2010-2017 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.binding.rfxcom.internal;
+
+import static org.junit.Assert.*;
+import static org.openhab.binding.rfxcom.RFXComBindingConstants.*;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.xml.bind.DatatypeConverter;
+
+import org.eclipse.smarthome.core.thing.ThingTypeUID;
+import org.eclipse.smarthome.core.thing.ThingUID;
+import org.junit.Before;
+import org.junit.Test;
+import org.openhab.binding.rfxcom.internal.exceptions.RFXComException;
+import org.openhab.binding.rfxcom.internal.messages.RFXComBaseMessage;
+import org.openhab.binding.rfxcom.internal.messages.RFXComBaseMessage.PacketType;
+import org.openhab.binding.rfxcom.internal.messages.RFXComMessage;
+import org.openhab.binding.rfxcom.internal.messages.RFXComMessageFactory;
+
+/**
+ * Test for the {@link DeviceMessageDispatcher}.
+ *
+ * @author agent - Initial contribution
+ */
+public class DeviceMessageDispatcherTest {
+    private static final ThingTypeUID THING_TYPE_TEMPERATURE = PACKET_TYPE_THING_TYPE_UID_MAP
+            .get(PacketType.TEMPERATURE);
+    private static final ThingTypeUID THING_TYPE_HUMIDITY = PACKET_TYPE_THING_TYPE_UID_MAP.get(PacketType.HUMIDITY);
+    private static final ThingUID BRIDGE_UID = new ThingUID(BRIDGE_MANUAL, "bridge");
+
+    private DeviceMessageDispatcher dispatcher;
+    private RecordingListener deviceListener;
+    private RecordingListener unknownDeviceListener;
+
+    private static class RecordingListener implements DeviceMessageListener {
+        private List<RFXComMessage> messages = new ArrayList<>();
+
+        @Override
+        public void onDeviceMessageReceived(ThingUID bridge, RFXComMessage message) {
+            messages.add(message);
+        }
+    }
+
+    private RFXComBaseMessage createMessage(String hexMsg) throws RFXComException {
+        return (RFXComBaseMessage) RFXComMessageFactory.createMessage(DatatypeConverter.parseHexBinary(hexMsg));
+    }
+
+    @Before
+    public void setUp() {
+        dispatcher = new DeviceMessageDispatcher();
+        deviceListener = new RecordingListener();
+        unknownDeviceListener = new RecordingListener();
+        dispatcher.registerUnknownDeviceListener(unknownDeviceListener);
+    }
+
+    @Test
+    public void testKnownDevice() throws RFXComException {
+        dispatcher.register(THING_TYPE_TEMPERATURE, "64257", deviceListener);
+
+        assertTrue(dispatcher.dispatch(BRIDGE_UID, createMessage("0850021DFB0100D770")));
+
+        assertEquals(1, deviceListener.messages.size());
+        assertEquals(0, unknownDeviceListener.messages.size());
+        assertEquals(1, dispatcher.getDispatchedMessageCount());
+        assertEquals(0, dispatcher.getUnknownDeviceMessageCount());
+    }
+
+    @Test
+    public void testUnknownDevice() throws RFXComException {
+        dispatcher.register(THING_TYPE_TEMPERATURE, "64257", deviceListener);
+
+        assertFalse(dispatcher.dispatch(BRIDGE_UID, createMessage("08500502770000D389")));
+
+        assertEquals(0, deviceListener.messages.size());
+        assertEquals(1, unknownDeviceListener.messages.size());
+        assertEquals(0, dispatcher.getDispatchedMessageCount());
+        assertEquals(1, dispatcher.getUnknownDeviceMessageCount());
+    }
+
+    @Test
+    public void testOtherThingTypeWithSameDeviceId() throws RFXComException {
+        dispatcher.register(THING_TYPE_HUMIDITY, "64257", deviceListener);
+
+        assertFalse(dispatcher.dispatch(BRIDGE_UID, createMessage("0850021DFB0100D770")));
+
+        assertEquals(0, deviceListener.messages.size());
+        assertEquals(1, unknownDeviceListener.messages.size());
+    }
+
+    @Test
+    public void testRegistrationIsReplaced() throws RFXComException {
+        dispatcher.register(THING_TYPE_TEMPERATURE, "64257", deviceListener);
+        dispatcher.register(THING_TYPE_TEMPERATURE, "30464", deviceListener);
+
+        dispatcher.dispatch(BRIDGE_UID, createMessage("0850021DFB0100D770"));
+        dispatcher.dispatch(BRIDGE_UID, createMessage("08500502770000D389"));
+
+        assertEquals(1, deviceListener.messages.size());
+        assertEquals("30464", deviceListener.messages.get(0).getDeviceId());
+    }
+
+    @Test
+    public void testUnregister() throws RFXComException {
+        dispatcher.register(THING_TYPE_TEMPERATURE, "64257", deviceListener);
+        assertTrue(dispatcher.unregister(deviceListener));
+
+        dispatcher.dispatch(BRIDGE_UID, createMessage("0850021DFB0100D770"));
+
+        assertEquals(0, deviceListener.messages.size());
+        assertEquals(1, unknownDeviceListener.messages.size());
+    }
+}
@@ -0,0 +1,209 @@
+/**
+ * Copyright (c) 2010-2017 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.binding.rfxcom.internal;
+
+import static org.junit.Assert.*;
+import static org.openhab.binding.rfxcom.RFXComValueSelector.COMMAND;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.smarthome.core.library.types.OnOffType;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.openhab.binding.rfxcom.internal.TransmitScheduler.Priority;
+import org.openhab.binding.rfxcom.internal.config.RFXComDeviceConfigurationBuilder;
+import org.openhab.binding.rfxcom.internal.exceptions.RFXComException;
+import org.openhab.binding.rfxcom.internal.messages.RFXComBaseMessage;
+import org.openhab.binding.rfxcom.internal.messages.RFXComBaseMessage.PacketType;
+import org.openhab.binding.rfxcom.internal.messages.RFXComMessage;
+import org.openhab.binding.rfxcom.internal.messages.RFXComMessageFactory;
+
+/**
+ * Test for the {@link TransmitScheduler} with a simulated transceiver.
+ *
+ * @author agent - Initial contribution
+ */
+public class TransmitSchedulerTest {
+    private static final long ACK_TIMEOUT = 2000;
+
+    private ScheduledExecutorService executor;
+    private SimulatedTransceiver transceiver;
+    private TransmitScheduler transmitScheduler;
+
+    /**
+     * Simulated transceiver, which records the transmitted messages. The messages are acknowledged by the test.
+     */
+    private static class SimulatedTransceiver implements TransmitScheduler.Transmitter {
+        private List<RFXComMessage> messages = new CopyOnWriteArrayList<>();
+        private List<Long> transmitTimes = new CopyOnWriteArrayList<>();
+
+        @Override
+        public void transmit(byte[] data) throws IOException {
+            try {
+                messages.add(RFXComMessageFactory.createMessage(data));
+                transmitTimes.add(System.nanoTime());
+            } catch (RFXComException e) {
+                throw new IOException(e);
+            }
+        }
+
+        private String getDeviceId(int index) throws RFXComException {
+            return messages.get(index).getDeviceId();
+        }
+
+        private OnOffType getCommand(int index) throws RFXComException {
+            return (OnOffType) messages.get(index).convertToState(COMMAND);
+        }
+    }
+
+    private RFXComBaseMessage createMessage(PacketType packetType, String subType, String deviceId, OnOffType command)
+            throws RFXComException {
+        RFXComMessage msg = RFXComMessageFactory.createMessage(packetType);
+        msg.setConfig(new RFXComDeviceConfigurationBuilder().withDeviceId(deviceId).withSubType(subType).build());
+        msg.convertFromState(COMMAND, command);
+        return (RFXComBaseMessage) msg;
+    }
+
+    private RFXComBaseMessage createLighting2Message(String deviceId, OnOffType command) throws RFXComException {
+        return createMessage(PacketType.LIGHTING2, "AC", deviceId, command);
+    }
+
+    private void waitForMessages(int count) throws InterruptedException {
+        long end = System.currentTimeMillis() + ACK_TIMEOUT;
+        while (transceiver.messages.size() < count && System.currentTimeMillis() < end) {
+            Thread.sleep(10);
+        }
+    }
+
+    @Before
+    public void setUp() {
+        executor = Executors.newSingleThreadScheduledExecutor();
+        transceiver = new SimulatedTransceiver();
+        transmitScheduler = new TransmitScheduler(transceiver, executor, ACK_TIMEOUT);
+    }
+
+    @After
+    public void tearDown() {
+        transmitScheduler.clear();
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void testMessagesAreSentAfterAcknowledge() throws Exception {
+        transmitScheduler.enqueue(createLighting2Message("100001.1", OnOffType.ON), Priority.INTERACTIVE);
+        transmitScheduler.enqueue(createLighting2Message("100001.2", OnOffType.ON), Priority.INTERACTIVE);
+
+        assertEquals(1, transceiver.messages.size());
+        assertEquals(2, transmitScheduler.getQueueDepth());
+
+        transmitScheduler.acknowledged();
+
+        assertEquals(2, transceiver.messages.size());
+        assertEquals("100001.2", transceiver.getDeviceId(1));
+
+        transmitScheduler.acknowledged();
+
+        assertEquals(0, transmitScheduler.getQueueDepth());
+        assertEquals(2, transmitScheduler.getAcknowledgedMessageCount());
+    }
+
+    @Test
+    public void testQueuedMessageIsReplaced() throws Exception {
+        transmitScheduler.enqueue(createLighting2Message("100001.1", OnOffType.ON), Priority.INTERACTIVE);
+        transmitScheduler.enqueue(createLighting2Message("100001.2", OnOffType.ON), Priority.INTERACTIVE);
+        transmitScheduler.enqueue(createLighting2Message("100001.2", OnOffType.OFF), Priority.INTERACTIVE);
+
+        transmitScheduler.acknowledged();
+        transmitScheduler.acknowledged();
+
+        assertEquals(2, transceiver.messages.size());
+        assertEquals("100001.2", transceiver.getDeviceId(1));
+        assertEquals(OnOffType.OFF, transceiver.getCommand(1));
+        assertEquals(1, transmitScheduler.getReplacedMessageCount());
+    }
+
+    @Test
+    public void testMessageInTransitIsNotReplaced() throws Exception {
+        transmitScheduler.enqueue(createLighting2Message("100001.1", OnOffType.ON), Priority.INTERACTIVE);
+        transmitScheduler.enqueue(createLighting2Message("100001.1", OnOffType.OFF), Priority.INTERACTIVE);
+
+        transmitScheduler.acknowledged();
+
+        assertEquals(2, transceiver.messages.size());
+        assertEquals(OnOffType.ON, transceiver.getCommand(0));
+        assertEquals(OnOffType.OFF, transceiver.getCommand(1));
+    }
+
+    @Test
+    public void testInteractiveMessagesAreSentFirst() throws Exception {
+        transmitScheduler.enqueue(createLighting2Message("100001.1", OnOffType.ON), Priority.BULK);
+        transmitScheduler.enqueue(createLighting2Message("100001.2", OnOffType.ON), Priority.BULK);
+        transmitScheduler.enqueue(createLighting2Message("100001.3", OnOffType.ON), Priority.INTERACTIVE);
+
+        transmitScheduler.acknowledged();
+        transmitScheduler.acknowledged();
+
+        assertEquals(3, transceiver.messages.size());
+        assertEquals("100001.1", transceiver.getDeviceId(0));
+        assertEquals("100001.3", transceiver.getDeviceId(1));
+        assertEquals("100001.2", transceiver.getDeviceId(2));
+    }
+
+    @Test
+    public void testTransmitIntervalPerProtocol() throws Exception {
+        transmitScheduler.setTransmitInterval(200);
+        transmitScheduler.enqueue(createLighting2Message("100001.1", OnOffType.ON), Priority.INTERACTIVE);
+        transmitScheduler.enqueue(createLighting2Message("100001.2", OnOffType.ON), Priority.INTERACTIVE);
+        transmitScheduler.enqueue(createMessage(PacketType.LIGHTING5, "LIGHTWAVERF", "100001.1", OnOffType.ON),
+                Priority.INTERACTIVE);
+
+        long ackTime = System.nanoTime();
+        transmitScheduler.acknowledged();
+
+        // the message of the other protocol is sent without waiting
+        assertEquals(2, transceiver.messages.size());
+        assertEquals(PacketType.LIGHTING5, ((RFXComBaseMessage) transceiver.messages.get(1)).packetType);
+
+        transmitScheduler.acknowledged();
+        waitForMessages(3);
+
+        assertEquals(3, transceiver.messages.size());
+        assertEquals("100001.2", transceiver.getDeviceId(2));
+        assertTrue(transceiver.transmitTimes.get(2) - ackTime >= TimeUnit.MILLISECONDS.toNanos(200));
+    }
+
+    @Test
+    public void testAcknowledgeTimeout() throws Exception {
+        transmitScheduler = new TransmitScheduler(transceiver, executor, 50);
+        transmitScheduler.enqueue(createLighting2Message("100001.1", OnOffType.ON), Priority.INTERACTIVE);
+        transmitScheduler.enqueue(createLighting2Message("100001.2", OnOffType.ON), Priority.INTERACTIVE);
+
+        waitForMessages(2);
+
+        assertEquals(2, transceiver.messages.size());
+        assertEquals(1, transmitScheduler.getTimedOutMessageCount());
+    }
+
+    @Test
+    public void testRestartSendsMessageInTransitAgain() throws Exception {
+        transmitScheduler.enqueue(createLighting2Message("100001.1", OnOffType.ON), Priority.INTERACTIVE);
+
+        transmitScheduler.restart();
+
+        assertEquals(2, transceiver.messages.size());
+        assertEquals("100001.1", transceiver.getDeviceId(1));
+        assertEquals(1, transmitScheduler.getQueueDepth());
+    }
+}
@@ -0,0 +1,134 @@
+/**
+ * Copyright (c) 2010-2017 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.binding.rfxcom.internal.connector;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import javax.xml.bind.DatatypeConverter;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.openhab.binding.rfxcom.internal.config.RFXComBridgeConfiguration;
+
+/**
+ * Test for recording packets with the {@link RFXComCaptureWriter} and replaying them with the
+ * {@link RFXComReplayConnector}.
+ *
+ * @author agent - Initial contribution
+ */
+public class RFXComCaptureTest {
+    private static final byte[] TEMPERATURE = DatatypeConverter.parseHexBinary("0850021DFB0100D770");
+    private static final byte[] LIGHTING2 = DatatypeConverter.parseHexBinary("0B11000600109B520B000080");
+    private static final byte[] RESPONSE = DatatypeConverter.parseHexBinary("0402010000");
+
+    private File captureFile;
+    private RFXComReplayConnector connector;
+    private RecordingListener listener;
+
+    private static class RecordingListener implements RFXComEventListener {
+        private List<byte[]> packets = new CopyOnWriteArrayList<>();
+        private List<Long> receiveTimes = new CopyOnWriteArrayList<>();
+
+        @Override
+        public void packetReceived(byte[] data) {
+            packets.add(data);
+            receiveTimes.add(System.nanoTime());
+        }
+
+        @Override
+        public void errorOccurred(String error) {
+            fail(error);
+        }
+    }
+
+    @Before
+    public void setUp() throws IOException {
+        captureFile = File.createTempFile("rfxcom", ".cap");
+        connector = new RFXComReplayConnector();
+        listener = new RecordingListener();
+    }
+
+    @After
+    public void tearDown() {
+        connector.removeEventListener(listener);
+        connector.disconnect();
+        captureFile.delete();
+    }
+
+    private void replay(boolean realTime, int expectedPackets) throws Exception {
+        RFXComBridgeConfiguration configuration = new RFXComBridgeConfiguration();
+        configuration.replayFile = captureFile.getPath();
+        configuration.replayRealTime = realTime;
+        connector.connect(configuration);
+        connector.addEventListener(listener);
+
+        long end = System.currentTimeMillis() + 2000;
+        while (listener.packets.size() < expectedPackets && System.currentTimeMillis() < end) {
+            Thread.sleep(10);
+        }
+    }
+
+    @Test
+    public void testReceivedPacketsAreReplayed() throws Exception {
+        try (RFXComCaptureWriter writer = new RFXComCaptureWriter(captureFile.getPath())) {
+            writer.packetReceived(TEMPERATURE);
+            writer.packetTransmitted(LIGHTING2);
+            writer.packetReceived(RESPONSE);
+        }
+
+        replay(false, 2);
+
+        assertEquals(2, listener.packets.size());
+        assertArrayEquals(TEMPERATURE, listener.packets.get(0));
+        assertArrayEquals(RESPONSE, listener.packets.get(1));
+    }
+
+    @Test
+    public void testAppendedSessionsAreReplayed() throws Exception {
+        try (RFXComCaptureWriter writer = new RFXComCaptureWriter(captureFile.getPath())) {
+            writer.packetReceived(TEMPERATURE);
+        }
+        try (RFXComCaptureWriter writer = new RFXComCaptureWriter(captureFile.getPath())) {
+            writer.packetReceived(RESPONSE);
+        }
+
+        replay(false, 2);
+
+        assertEquals(2, listener.packets.size());
+        assertArrayEquals(RESPONSE, listener.packets.get(1));
+    }
+
+    @Test
+    public void testOriginalTimingIsKept() throws Exception {
+        try (RFXComCaptureWriter writer = new RFXComCaptureWriter(captureFile.getPath())) {
+            writer.packetReceived(TEMPERATURE);
+            Thread.sleep(300);
+            writer.packetReceived(TEMPERATURE);
+        }
+
+        replay(true, 2);
+
+        assertEquals(2, listener.packets.size());
+        long intervalMillis = (listener.receiveTimes.get(1) - listener.receiveTimes.get(0)) / 1000000;
+        assertTrue("Interval " + intervalMillis + " ms", intervalMillis >= 250);
+    }
+
+    @Test(expected = IOException.class)
+    public void testInvalidCaptureFile() throws Exception {
+        RFXComBridgeConfiguration configuration = new RFXComBridgeConfiguration();
+        configuration.replayFile = captureFile.getPath();
+        connector.connect(configuration);
+    }
+}
@@ -0,0 +1,52 @@
+/**
+ * Copyright (c) 2010-2017 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.binding.rfxcom.internal.messages;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import javax.xml.bind.DatatypeConverter;
+
+import org.junit.Test;
+import org.openhab.binding.rfxcom.internal.exceptions.RFXComException;
+import org.openhab.binding.rfxcom.internal.exceptions.RFXComMessageNotImplementedException;
+import org.openhab.binding.rfxcom.internal.messages.RFXComBaseMessage.PacketType;
+
+/**
+ * Test for the message registry of the {@link RFXComMessageFactory}.
+ *
+ * @author agent - Initial contribution
+ */
+public class RFXComMessageFactoryTest {
+
+    @Test
+    public void testCreatedMessagesHaveRequestedPacketType() throws RFXComException {
+        for (PacketType packetType : PacketType.values()) {
+            try {
+                RFXComBaseMessage msg = (RFXComBaseMessage) RFXComMessageFactory.createMessage(packetType);
+                assertEquals("Packet type", packetType, msg.packetType);
+            } catch (RFXComMessageNotImplementedException e) {
+                // message type without constructor
+            }
+        }
+    }
+
+    @Test
+    public void testTruncatedPacketIsRejected() {
+        // temperature packet cut off after the sensor id
+        byte[] packet = DatatypeConverter.parseHexBinary("08500110000180");
+        try {
+            RFXComMessageFactory.createMessage(packet);
+            fail("Truncated packet decoded");
+        } catch (RFXComException e) {
+            assertTrue("Cause", e.getCause() instanceof ArrayIndexOutOfBoundsException);
+        }
+    }
+}
@@ -96,6 +96,15 @@ public class RFXComBindingConstants {
     public static final String CHANNEL_DATE_TIME = "dateTime";
     public static final String CHANNEL_CHIME_SOUND = "chimeSound";
 
+    // List of all bridge metrics channel ids
+    public static final String CHANNEL_GROUP_METRICS = "metrics";
+    public static final String CHANNEL_DISPATCHED_MESSAGES = "dispatchedMessages";
+    public static final String CHANNEL_UNKNOWN_DEVICE_MESSAGES = "unknownDeviceMessages";
+    public static final String CHANNEL_DROPPED_MESSAGES = "droppedMessages";
+    public static final String CHANNEL_TRANSMIT_QUEUE_DEPTH = "transmitQueueDepth";
+    public static final String CHANNEL_AVERAGE_ACK_LATENCY = "averageAckLatency";
+    public static final String CHANNEL_MAX_ACK_LATENCY = "maxAckLatency";
+
     // List of all Thing Type UIDs
     private static final ThingTypeUID THING_TYPE_BAROMETRIC = new ThingTypeUID(BINDING_ID, "barometric");
     private static final ThingTypeUID THING_TYPE_BBQ_TEMPERATURE = new ThingTypeUID(BINDING_ID, "bbqtemperature");
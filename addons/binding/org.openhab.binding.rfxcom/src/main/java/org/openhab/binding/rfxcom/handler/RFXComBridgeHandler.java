@@ -8,30 +8,39 @@
  */
 package org.openhab.binding.rfxcom.handler;
 
+import static org.openhab.binding.rfxcom.RFXComBindingConstants.*;
+
 import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
 import java.util.HashSet;
-import java.util.List;
-import java.util.Queue;
 import java.util.Set;
-import java.util.concurrent.CopyOnWriteArrayList;
-import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
 
 import javax.xml.bind.DatatypeConverter;
 
+import org.eclipse.smarthome.core.library.types.DecimalType;
 import org.eclipse.smarthome.core.thing.Bridge;
+import org.eclipse.smarthome.core.thing.Channel;
 import org.eclipse.smarthome.core.thing.ChannelUID;
 import org.eclipse.smarthome.core.thing.ThingStatus;
 import org.eclipse.smarthome.core.thing.ThingStatusDetail;
+import org.eclipse.smarthome.core.thing.ThingTypeUID;
 import org.eclipse.smarthome.core.thing.ThingUID;
 import org.eclipse.smarthome.core.thing.binding.BaseBridgeHandler;
 import org.eclipse.smarthome.core.types.Command;
+import org.eclipse.smarthome.core.types.RefreshType;
+import org.openhab.binding.rfxcom.internal.DeviceMessageDispatcher;
 import org.openhab.binding.rfxcom.internal.DeviceMessageListener;
+import org.openhab.binding.rfxcom.internal.TransmitScheduler;
+import org.openhab.binding.rfxcom.internal.TransmitScheduler.Priority;
 import org.openhab.binding.rfxcom.internal.config.RFXComBridgeConfiguration;
 import org.openhab.binding.rfxcom.internal.connector.RFXComConnectorInterface;
 import org.openhab.binding.rfxcom.internal.connector.RFXComEventListener;
 import org.openhab.binding.rfxcom.internal.connector.RFXComJD2XXConnector;
+import org.openhab.binding.rfxcom.internal.connector.RFXComRecordingConnector;
+import org.openhab.binding.rfxcom.internal.connector.RFXComReplayConnector;
 import org.openhab.binding.rfxcom.internal.connector.RFXComSerialConnector;
 import org.openhab.binding.rfxcom.internal.connector.RFXComTcpConnector;
 import org.openhab.binding.rfxcom.internal.exceptions.RFXComException;
@@ -59,71 +68,100 @@ import gnu.io.NoSuchPortException;
 public class RFXComBridgeHandler extends BaseBridgeHandler {
     private static final int TIMEOUT = 5000;
 
+    /**
+     * Time in milliseconds to wait for the transceiver to acknowledge a transmitted message, a transmission with
+     * repeats takes a few seconds.
+     */
+    private static final int ACK_TIMEOUT = 5000;
+
     private Logger logger = LoggerFactory.getLogger(RFXComBridgeHandler.class);
 
     RFXComConnectorInterface connector = null;
     private MessageListener eventListener = new MessageListener();
 
-    private List<DeviceMessageListener> deviceStatusListeners = new CopyOnWriteArrayList<>();
+    private DeviceMessageDispatcher deviceMessageDispatcher = new DeviceMessageDispatcher();
 
     private RFXComBridgeConfiguration configuration = null;
     private ScheduledFuture<?> connectorTask;
     private Set<ThingUID> knownDevices = new HashSet<>();
 
-    private class TransmitQueue {
-        private Queue<RFXComBaseMessage> queue = new LinkedBlockingQueue<RFXComBaseMessage>();
+    private TransmitScheduler transmitScheduler = new TransmitScheduler(new TransmitScheduler.Transmitter() {
 
-        public synchronized void enqueue(RFXComBaseMessage msg) throws IOException {
-            boolean wasEmpty = queue.isEmpty();
-            if (queue.offer(msg)) {
-                if (wasEmpty) {
-                    send();
-                }
-            } else {
-                logger.error("Transmit queue overflow. Lost message: {}", msg);
+        @Override
+        public void transmit(byte[] data) throws IOException {
+            if (connector == null) {
+                throw new IOException("Not connected to the RFXCOM transceiver");
             }
+            connector.sendMessage(data);
         }
+    }, scheduler, ACK_TIMEOUT);
 
-        public synchronized void sendNext() throws IOException {
-            queue.poll();
-            send();
+    public RFXComBridgeHandler(Bridge br) {
+        super(br);
+    }
+
+    @Override
+    public void handleCommand(ChannelUID channelUID, Command command) {
+        if (command == RefreshType.REFRESH && CHANNEL_GROUP_METRICS.equals(channelUID.getGroupId())) {
+            updateMetricState(channelUID);
+        } else {
+            logger.debug("Bridge commands not supported.");
         }
+    }
 
-        public synchronized void send() throws IOException {
-            while (!queue.isEmpty()) {
-                RFXComBaseMessage msg = queue.peek();
-
-                try {
-                    logger.debug("Transmitting message '{}'", msg);
-                    byte[] data = msg.decodeMessage();
-                    connector.sendMessage(data);
-                    break;
-                } catch (RFXComException rfxe) {
-                    logger.error("Error during send of {}", msg, rfxe);
-                    queue.poll();
-                }
+    /**
+     * Updates the states of the linked channels in the metrics channel group.
+     */
+    private void updateMetrics() {
+        for (Channel channel : getThing().getChannels()) {
+            ChannelUID channelUID = channel.getUID();
+            if (CHANNEL_GROUP_METRICS.equals(channelUID.getGroupId()) && isLinked(channelUID.getId())) {
+                updateMetricState(channelUID);
             }
         }
     }
 
-    private TransmitQueue transmitQueue = new TransmitQueue();
-
-    public RFXComBridgeHandler(Bridge br) {
-        super(br);
+    /**
+     * Updates the state of a channel in the metrics channel group.
+     */
+    private void updateMetricState(ChannelUID channelUID) {
+        DecimalType state;
+        switch (channelUID.getIdWithoutGroup()) {
+            case CHANNEL_DISPATCHED_MESSAGES:
+                state = new DecimalType(deviceMessageDispatcher.getDispatchedMessageCount());
+                break;
+            case CHANNEL_UNKNOWN_DEVICE_MESSAGES:
+                state = new DecimalType(deviceMessageDispatcher.getUnknownDeviceMessageCount());
+                break;
+            case CHANNEL_DROPPED_MESSAGES:
+                state = new DecimalType(deviceMessageDispatcher.getDroppedMessageCount());
+                break;
+            case CHANNEL_TRANSMIT_QUEUE_DEPTH:
+                state = new DecimalType(transmitScheduler.getQueueDepth());
+                break;
+            case CHANNEL_AVERAGE_ACK_LATENCY:
+                state = toLatencyState(transmitScheduler.getAverageAckLatency());
+                break;
+            case CHANNEL_MAX_ACK_LATENCY:
+                state = toLatencyState(transmitScheduler.getMaxAckLatency());
+                break;
+            default:
+                logger.debug("Unknown metrics channel '{}'", channelUID);
+                return;
+        }
+        updateState(channelUID, state);
     }
 
-    @Override
-    public void handleCommand(ChannelUID channelUID, Command command) {
-        logger.debug("Bridge commands not supported.");
+    private DecimalType toLatencyState(double millis) {
+        return new DecimalType(new BigDecimal(millis).setScale(1, RoundingMode.HALF_UP));
     }
 
     @Override
     public synchronized void dispose() {
         logger.debug("Handler disposed.");
 
-        for (DeviceMessageListener deviceStatusListener : deviceStatusListeners) {
-            unregisterDeviceStatusListener(deviceStatusListener);
-        }
+        deviceMessageDispatcher.unregisterAll();
+        transmitScheduler.clear();
 
         if (connector != null) {
             connector.removeEventListener(eventListener);
@@ -145,6 +183,7 @@ public class RFXComBridgeHandler extends BaseBridgeHandler {
         updateStatus(ThingStatus.OFFLINE);
 
         configuration = getConfigAs(RFXComBridgeConfiguration.class);
+        transmitScheduler.setTransmitInterval(configuration.transmitInterval);
 
         if (connectorTask == null || connectorTask.isCancelled()) {
             connectorTask = scheduler.scheduleAtFixedRate(new Runnable() {
@@ -152,6 +191,7 @@ public class RFXComBridgeHandler extends BaseBridgeHandler {
                 @Override
                 public void run() {
                     logger.debug("Checking RFXCOM transceiver connection, thing status = {}", thing.getStatus());
+                    updateMetrics();
                     if (thing.getStatus() != ThingStatus.ONLINE) {
                         connect();
                     }
@@ -164,7 +204,11 @@ public class RFXComBridgeHandler extends BaseBridgeHandler {
         logger.debug("Connecting to RFXCOM transceiver");
 
         try {
-            if (configuration.serialPort != null) {
+            if (configuration.replayFile != null) {
+                if (connector == null) {
+                    connector = new RFXComReplayConnector();
+                }
+            } else if (configuration.serialPort != null) {
                 if (connector == null) {
                     connector = new RFXComSerialConnector();
                 }
@@ -178,6 +222,11 @@ public class RFXComBridgeHandler extends BaseBridgeHandler {
                 }
             }
 
+            if (connector != null && configuration.captureFile != null
+                    && !(connector instanceof RFXComRecordingConnector)) {
+                connector = new RFXComRecordingConnector(connector);
+            }
+
             if (connector != null) {
                 connector.disconnect();
                 connector.connect(configuration);
@@ -216,9 +265,16 @@ public class RFXComBridgeHandler extends BaseBridgeHandler {
     }
 
     public void sendMessage(RFXComMessage msg) throws RFXComException {
+        sendMessage(msg, Priority.INTERACTIVE);
+    }
+
+    /**
+     * Queues the message for transmission, interactive messages are sent before bulk messages.
+     */
+    public void sendMessage(RFXComMessage msg, Priority priority) throws RFXComException {
         try {
             RFXComBaseMessage baseMsg = (RFXComBaseMessage) msg;
-            transmitQueue.enqueue(baseMsg);
+            transmitScheduler.enqueue(baseMsg, priority);
         } catch (IOException e) {
             logger.error("I/O Error", e);
             updateStatus(ThingStatus.OFFLINE, ThingStatusDetail.COMMUNICATION_ERROR, e.getMessage());
@@ -276,7 +332,7 @@ public class RFXComBridgeHandler extends BaseBridgeHandler {
                         }
                     } else if (msg.subType == SubType.START_RECEIVER) {
                         logger.debug("Start TX of any queued messages");
-                        transmitQueue.send();
+                        transmitScheduler.restart();
 
                         updateStatus(ThingStatus.ONLINE);
                     }
@@ -285,20 +341,15 @@ public class RFXComBridgeHandler extends BaseBridgeHandler {
 
                     logger.debug("Transmitter response received: {}", resp);
 
-                    transmitQueue.sendNext();
+                    transmitScheduler.acknowledged();
                 } else {
-
-                    for (DeviceMessageListener deviceStatusListener : deviceStatusListeners) {
-                        try {
-                            deviceStatusListener.onDeviceMessageReceived(getThing().getUID(), message);
-                        } catch (Exception e) {
-                            logger.error("An exception occurred while calling the DeviceStatusListener", e);
-                        }
-                    }
+                    deviceMessageDispatcher.dispatch(getThing().getUID(), (RFXComBaseMessage) message);
                 }
             } catch (RFXComMessageNotImplementedException e) {
+                deviceMessageDispatcher.messageDropped();
                 logger.debug("Message not supported, data: {}", DatatypeConverter.printHexBinary(packet));
             } catch (RFXComException e) {
+                deviceMessageDispatcher.messageDropped();
                 logger.error("Error occurred during packet receiving, data: {}",
                         DatatypeConverter.printHexBinary(packet), e);
             } catch (IOException e) {
@@ -313,19 +364,36 @@ public class RFXComBridgeHandler extends BaseBridgeHandler {
         }
     }
 
+    /**
+     * Registers a listener for the messages of the device with the given thing type and device id.
+     */
+    public boolean registerDeviceStatusListener(ThingTypeUID thingTypeUID, String deviceId,
+            DeviceMessageListener deviceStatusListener) {
+        if (deviceStatusListener == null) {
+            throw new IllegalArgumentException("It's not allowed to pass a null deviceStatusListener.");
+        }
+        return deviceMessageDispatcher.register(thingTypeUID, deviceId, deviceStatusListener);
+    }
+
+    /**
+     * Registers a listener for the messages of all devices without a registered thing handler.
+     */
     public boolean registerDeviceStatusListener(DeviceMessageListener deviceStatusListener) {
         if (deviceStatusListener == null) {
             throw new IllegalArgumentException("It's not allowed to pass a null deviceStatusListener.");
         }
-        return deviceStatusListeners.contains(deviceStatusListener) ? false
-                : deviceStatusListeners.add(deviceStatusListener);
+        return deviceMessageDispatcher.registerUnknownDeviceListener(deviceStatusListener);
     }
 
     public boolean unregisterDeviceStatusListener(DeviceMessageListener deviceStatusListener) {
         if (deviceStatusListener == null) {
             throw new IllegalArgumentException("It's not allowed to pass a null deviceStatusListener.");
         }
-        return deviceStatusListeners.remove(deviceStatusListener);
+        return deviceMessageDispatcher.unregister(deviceStatusListener);
+    }
+
+    public DeviceMessageDispatcher getDeviceMessageDispatcher() {
+        return deviceMessageDispatcher;
     }
 
     public RFXComBridgeConfiguration getConfiguration() {
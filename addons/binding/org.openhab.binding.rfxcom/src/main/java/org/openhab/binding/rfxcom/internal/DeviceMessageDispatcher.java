@@ -0,0 +1,171 @@
+/**
+ * Copyright (c) 2010-2017 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.binding.rfxcom.internal;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.eclipse.smarthome.core.thing.ThingTypeUID;
+import org.eclipse.smarthome.core.thing.ThingUID;
+import org.openhab.binding.rfxcom.RFXComBindingConstants;
+import org.openhab.binding.rfxcom.internal.messages.RFXComBaseMessage;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * The {@link DeviceMessageDispatcher} routes received messages to the {@link DeviceMessageListener}s registered for
+ * the thing type and device id of the message. Messages of unknown devices are passed to the listeners registered
+ * for unknown devices, e.g. the discovery service.
+ *
+ * @author agent - Initial contribution
+ */
+public class DeviceMessageDispatcher {
+    private final Logger logger = LoggerFactory.getLogger(DeviceMessageDispatcher.class);
+
+    private final Map<ThingTypeUID, Map<String, List<DeviceMessageListener>>> deviceListeners =
+            new ConcurrentHashMap<>();
+    private final List<DeviceMessageListener> unknownDeviceListeners = new CopyOnWriteArrayList<>();
+
+    private final AtomicLong dispatchedMessages = new AtomicLong();
+    private final AtomicLong unknownDeviceMessages = new AtomicLong();
+    private final AtomicLong droppedMessages = new AtomicLong();
+
+    /**
+     * Registers the listener for the messages of the device with the given thing type and device id. A previous
+     * registration of the listener is replaced.
+     *
+     * @return true if the listener was not registered for this device before
+     */
+    public boolean register(ThingTypeUID thingTypeUID, String deviceId, DeviceMessageListener listener) {
+        if (thingTypeUID == null || deviceId == null || listener == null) {
+            throw new IllegalArgumentException("It's not allowed to pass a null thingTypeUID, deviceId or listener.");
+        }
+        Map<String, List<DeviceMessageListener>> listenersByDeviceId = deviceListeners.get(thingTypeUID);
+        if (listenersByDeviceId == null) {
+            deviceListeners.putIfAbsent(thingTypeUID, new ConcurrentHashMap<String, List<DeviceMessageListener>>());
+            listenersByDeviceId = deviceListeners.get(thingTypeUID);
+        }
+        List<DeviceMessageListener> listeners = listenersByDeviceId.get(deviceId);
+        if (listeners == null) {
+            listenersByDeviceId.putIfAbsent(deviceId, new CopyOnWriteArrayList<DeviceMessageListener>());
+            listeners = listenersByDeviceId.get(deviceId);
+        }
+        if (listeners.contains(listener)) {
+            return false;
+        }
+        unregister(listener);
+        return listeners.add(listener);
+    }
+
+    /**
+     * Registers the listener for the messages of all devices without a registered listener.
+     */
+    public boolean registerUnknownDeviceListener(DeviceMessageListener listener) {
+        if (listener == null) {
+            throw new IllegalArgumentException("It's not allowed to pass a null listener.");
+        }
+        return unknownDeviceListeners.contains(listener) ? false : unknownDeviceListeners.add(listener);
+    }
+
+    /**
+     * Removes all registrations of the listener.
+     */
+    public boolean unregister(DeviceMessageListener listener) {
+        if (listener == null) {
+            throw new IllegalArgumentException("It's not allowed to pass a null listener.");
+        }
+        boolean removed = unknownDeviceListeners.remove(listener);
+        for (Map<String, List<DeviceMessageListener>> listenersByDeviceId : deviceListeners.values()) {
+            for (List<DeviceMessageListener> listeners : listenersByDeviceId.values()) {
+                removed |= listeners.remove(listener);
+            }
+        }
+        return removed;
+    }
+
+    /**
+     * Removes all listeners.
+     */
+    public void unregisterAll() {
+        unknownDeviceListeners.clear();
+        deviceListeners.clear();
+    }
+
+    /**
+     * Passes the message to the listeners of the device or to the listeners for unknown devices, if no listener is
+     * registered for the device.
+     *
+     * @return true if the message was passed to the listener of a known device
+     */
+    public boolean dispatch(ThingUID bridge, RFXComBaseMessage message) {
+        List<DeviceMessageListener> listeners = getListeners(message);
+        if (listeners != null && !listeners.isEmpty()) {
+            dispatchedMessages.incrementAndGet();
+            notifyListeners(listeners, bridge, message);
+            return true;
+        }
+
+        unknownDeviceMessages.incrementAndGet();
+        notifyListeners(unknownDeviceListeners, bridge, message);
+        return false;
+    }
+
+    private List<DeviceMessageListener> getListeners(RFXComBaseMessage message) {
+        ThingTypeUID thingTypeUID = RFXComBindingConstants.PACKET_TYPE_THING_TYPE_UID_MAP.get(message.packetType);
+        if (thingTypeUID == null) {
+            return null;
+        }
+        Map<String, List<DeviceMessageListener>> listenersByDeviceId = deviceListeners.get(thingTypeUID);
+        if (listenersByDeviceId == null) {
+            return null;
+        }
+        return listenersByDeviceId.get(message.getDeviceId());
+    }
+
+    private void notifyListeners(List<DeviceMessageListener> listeners, ThingUID bridge, RFXComBaseMessage message) {
+        for (DeviceMessageListener listener : listeners) {
+            try {
+                listener.onDeviceMessageReceived(bridge, message);
+            } catch (Exception e) {
+                logger.error("An exception occurred while calling the DeviceStatusListener", e);
+            }
+        }
+    }
+
+    /**
+     * Counts a received message, which could not be decoded or dispatched.
+     */
+    public void messageDropped() {
+        droppedMessages.incrementAndGet();
+    }
+
+    /**
+     * Returns the number of messages passed to the listener of a known device.
+     */
+    public long getDispatchedMessageCount() {
+        return dispatchedMessages.get();
+    }
+
+    /**
+     * Returns the number of messages of devices without a registered listener, e.g. a weather station of a neighbour.
+     */
+    public long getUnknownDeviceMessageCount() {
+        return unknownDeviceMessages.get();
+    }
+
+    /**
+     * Returns the number of messages which could not be decoded.
+     */
+    public long getDroppedMessageCount() {
+        return droppedMessages.get();
+    }
+}
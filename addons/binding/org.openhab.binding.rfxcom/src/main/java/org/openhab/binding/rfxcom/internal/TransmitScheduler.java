@@ -0,0 +1,320 @@
+/**
+ * Copyright (c) 2010-2017 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.binding.rfxcom.internal;
+
+import static org.openhab.binding.rfxcom.internal.messages.RFXComBaseMessage.ID_DELIMITER;
+
+import java.io.IOException;
+import java.util.EnumMap;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.Map;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.openhab.binding.rfxcom.internal.exceptions.RFXComException;
+import org.openhab.binding.rfxcom.internal.messages.RFXComBaseMessage;
+import org.openhab.binding.rfxcom.internal.messages.RFXComBaseMessage.PacketType;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * The {@link TransmitScheduler} sends the messages to the RFXCOM transceiver one by one, the next message is sent
+ * when the transceiver has acknowledged the previous one. A queued message is replaced by a newer message for the
+ * same device, interactive messages are sent before bulk messages and two messages of the same protocol are sent
+ * with a minimum interval.
+ *
+ * @author agent - Initial contribution
+ */
+public class TransmitScheduler {
+    private final Logger logger = LoggerFactory.getLogger(TransmitScheduler.class);
+
+    public enum Priority {
+        INTERACTIVE,
+        BULK
+    }
+
+    /**
+     * Sends the raw bytes of a message to the transceiver.
+     */
+    public interface Transmitter {
+        void transmit(byte[] data) throws IOException;
+    }
+
+    private static class Entry {
+        private final String key;
+        private RFXComBaseMessage message;
+        private Priority priority;
+
+        private Entry(String key, RFXComBaseMessage message, Priority priority) {
+            this.key = key;
+            this.message = message;
+            this.priority = priority;
+        }
+    }
+
+    private final Transmitter transmitter;
+    private final ScheduledExecutorService scheduler;
+    private final long ackTimeoutMillis;
+    private long transmitIntervalNanos;
+
+    private final Map<Priority, LinkedList<Entry>> queues = new EnumMap<>(Priority.class);
+    private final Map<PacketType, Long> lastTransmits = new EnumMap<>(PacketType.class);
+    private Entry inFlight;
+    private long inFlightSince;
+    private ScheduledFuture<?> ackTimeoutFuture;
+    private ScheduledFuture<?> pacingFuture;
+
+    private long acknowledgedMessages;
+    private long timedOutMessages;
+    private long replacedMessages;
+    private long totalAckNanos;
+    private long maxAckNanos;
+
+    public TransmitScheduler(Transmitter transmitter, ScheduledExecutorService scheduler, long ackTimeoutMillis) {
+        this.transmitter = transmitter;
+        this.scheduler = scheduler;
+        this.ackTimeoutMillis = ackTimeoutMillis;
+        for (Priority priority : Priority.values()) {
+            queues.put(priority, new LinkedList<Entry>());
+        }
+    }
+
+    /**
+     * Sets the minimum interval between two transmissions of the same protocol.
+     */
+    public synchronized void setTransmitInterval(long transmitIntervalMillis) {
+        this.transmitIntervalNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(0, transmitIntervalMillis));
+    }
+
+    /**
+     * Queues the message and sends it if the transceiver is idle. A queued message for the same device which has not
+     * been sent yet is replaced by the new message.
+     */
+    public synchronized void enqueue(RFXComBaseMessage msg, Priority priority) throws IOException {
+        String key = getKey(msg);
+        for (LinkedList<Entry> queue : queues.values()) {
+            for (Entry entry : queue) {
+                if (key.equals(entry.key)) {
+                    logger.debug("Replacing queued message '{}' with '{}'", entry.message, msg);
+                    entry.message = msg;
+                    if (priority.compareTo(entry.priority) < 0) {
+                        queue.remove(entry);
+                        entry.priority = priority;
+                        queues.get(priority).add(entry);
+                    }
+                    replacedMessages++;
+                    send();
+                    return;
+                }
+            }
+        }
+        queues.get(priority).add(new Entry(key, msg, priority));
+        send();
+    }
+
+    /**
+     * Returns the key of the device the message is addressed to, messages with the same key supersede each other.
+     */
+    private String getKey(RFXComBaseMessage msg) {
+        return msg.packetType + ID_DELIMITER + msg.getDeviceId();
+    }
+
+    /**
+     * Called when the transceiver has acknowledged the last message, sends the next one.
+     */
+    public synchronized void acknowledged() throws IOException {
+        if (inFlight != null) {
+            long ackNanos = System.nanoTime() - inFlightSince;
+            acknowledgedMessages++;
+            totalAckNanos += ackNanos;
+            maxAckNanos = Math.max(maxAckNanos, ackNanos);
+            completeInFlight();
+        }
+        send();
+    }
+
+    /**
+     * Sends the message in transit again and continues with the queued messages, e.g. after the transceiver has been
+     * restarted.
+     */
+    public synchronized void restart() throws IOException {
+        if (inFlight != null) {
+            queues.get(inFlight.priority).addFirst(inFlight);
+            inFlight = null;
+            cancelAckTimeout();
+        }
+        send();
+    }
+
+    /**
+     * Sends the next message, if the transceiver is idle and a message is ready to send.
+     */
+    public synchronized void send() throws IOException {
+        while (inFlight == null) {
+            long now = System.nanoTime();
+            long minWait = Long.MAX_VALUE;
+            Entry next = null;
+
+            search: for (LinkedList<Entry> queue : queues.values()) {
+                for (Iterator<Entry> it = queue.iterator(); it.hasNext();) {
+                    Entry entry = it.next();
+                    long wait = getWaitTime(entry.message.packetType, now);
+                    if (wait <= 0) {
+                        it.remove();
+                        next = entry;
+                        break search;
+                    }
+                    minWait = Math.min(minWait, wait);
+                }
+            }
+
+            if (next == null) {
+                if (minWait != Long.MAX_VALUE) {
+                    schedulePacing(minWait);
+                }
+                return;
+            }
+
+            try {
+                logger.debug("Transmitting message '{}'", next.message);
+                byte[] data = next.message.decodeMessage();
+                inFlight = next;
+                inFlightSince = System.nanoTime();
+                transmitter.transmit(data);
+                scheduleAckTimeout();
+            } catch (RFXComException rfxe) {
+                logger.error("Error during send of {}", next.message, rfxe);
+                inFlight = null;
+            } catch (IOException e) {
+                // keep the message, it is sent again when the connection has been restored
+                queues.get(next.priority).addFirst(next);
+                inFlight = null;
+                throw e;
+            }
+        }
+    }
+
+    /**
+     * Returns the time in nanoseconds until the next message of the protocol may be sent.
+     */
+    private long getWaitTime(PacketType packetType, long now) {
+        Long lastTransmit = lastTransmits.get(packetType);
+        return lastTransmit == null ? 0 : transmitIntervalNanos - (now - lastTransmit);
+    }
+
+    private void completeInFlight() {
+        lastTransmits.put(inFlight.message.packetType, System.nanoTime());
+        inFlight = null;
+        cancelAckTimeout();
+    }
+
+    private void scheduleAckTimeout() {
+        cancelAckTimeout();
+        final Entry sent = inFlight;
+        ackTimeoutFuture = scheduler.schedule(new Runnable() {
+
+            @Override
+            public void run() {
+                synchronized (TransmitScheduler.this) {
+                    if (inFlight == sent) {
+                        logger.warn("No acknowledge received for message '{}'", sent.message);
+                        timedOutMessages++;
+                        completeInFlight();
+                        sendQuietly();
+                    }
+                }
+            }
+        }, ackTimeoutMillis, TimeUnit.MILLISECONDS);
+    }
+
+    private void cancelAckTimeout() {
+        if (ackTimeoutFuture != null) {
+            ackTimeoutFuture.cancel(false);
+            ackTimeoutFuture = null;
+        }
+    }
+
+    private void schedulePacing(long delayNanos) {
+        if (pacingFuture != null && !pacingFuture.isDone()) {
+            return;
+        }
+        pacingFuture = scheduler.schedule(new Runnable() {
+
+            @Override
+            public void run() {
+                sendQuietly();
+            }
+        }, delayNanos, TimeUnit.NANOSECONDS);
+    }
+
+    private synchronized void sendQuietly() {
+        try {
+            send();
+        } catch (IOException e) {
+            logger.error("I/O Error", e);
+        }
+    }
+
+    /**
+     * Removes all queued messages and stops the timers.
+     */
+    public synchronized void clear() {
+        for (LinkedList<Entry> queue : queues.values()) {
+            queue.clear();
+        }
+        inFlight = null;
+        cancelAckTimeout();
+        if (pacingFuture != null) {
+            pacingFuture.cancel(false);
+            pacingFuture = null;
+        }
+    }
+
+    /**
+     * Returns the number of messages waiting to be sent, including the message in transit.
+     */
+    public synchronized int getQueueDepth() {
+        int depth = inFlight == null ? 0 : 1;
+        for (LinkedList<Entry> queue : queues.values()) {
+            depth += queue.size();
+        }
+        return depth;
+    }
+
+    public synchronized long getAcknowledgedMessageCount() {
+        return acknowledgedMessages;
+    }
+
+    public synchronized long getTimedOutMessageCount() {
+        return timedOutMessages;
+    }
+
+    /**
+     * Returns the number of queued messages which have been replaced by a newer message for the same device.
+     */
+    public synchronized long getReplacedMessageCount() {
+        return replacedMessages;
+    }
+
+    /**
+     * Returns the average time in milliseconds between sending a message and receiving its acknowledge.
+     */
+    public synchronized double getAverageAckLatency() {
+        return acknowledgedMessages == 0 ? 0.0 : totalAckNanos / (double) acknowledgedMessages / 1000000.0;
+    }
+
+    /**
+     * Returns the maximum time in milliseconds between sending a message and receiving its acknowledge.
+     */
+    public synchronized double getMaxAckLatency() {
+        return maxAckNanos / 1000000.0;
+    }
+}
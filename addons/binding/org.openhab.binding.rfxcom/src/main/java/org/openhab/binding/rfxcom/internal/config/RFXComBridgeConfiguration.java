@@ -38,6 +38,18 @@ public class RFXComBridgeConfiguration {
 
     public int transmitPower;
 
+    // Minimum time in milliseconds between two transmissions of the same protocol
+    public int transmitInterval;
+
+    // File to record all packets sent to and received from the RFXCOM transceiver
+    public String captureFile;
+
+    // Capture file to replay instead of communicating with the RFXCOM transceiver
+    public String replayFile;
+
+    // Replay the capture file with the original timing rather than as fast as possible
+    public boolean replayRealTime;
+
     // Won't configure protocols to RFXCOM transceiver
     public boolean ignoreConfig;
 
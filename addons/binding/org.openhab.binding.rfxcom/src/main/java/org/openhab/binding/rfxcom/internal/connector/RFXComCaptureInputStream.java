@@ -0,0 +1,183 @@
+/**
+ * Copyright (c) 2010-2017 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.binding.rfxcom.internal.connector;
+
+import static org.openhab.binding.rfxcom.internal.connector.RFXComCaptureWriter.*;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Input stream, which returns the received packets of a capture file written by the {@link RFXComCaptureWriter}
+ * like the RFXCOM transceiver would send them. The packets are returned either with the original timing or as fast
+ * as possible. Transmitted packets are skipped.
+ *
+ * At the end of the capture, the stream behaves like an idle transceiver with a read timeout and returns 0.
+ *
+ * @author agent - Initial contribution
+ */
+public class RFXComCaptureInputStream extends InputStream {
+    private final Logger logger = LoggerFactory.getLogger(RFXComCaptureInputStream.class);
+
+    private static final int IDLE_READ_TIMEOUT = 100;
+
+    private final DataInputStream in;
+    private final boolean realTime;
+
+    private byte[] packet = new byte[0];
+    private int packetIndex;
+    private long elapsedMillis;
+    private long startNanos;
+    private boolean finished;
+    private long replayedPackets;
+
+    public RFXComCaptureInputStream(InputStream inputStream, boolean realTime) throws IOException {
+        this.in = new DataInputStream(new BufferedInputStream(inputStream));
+        this.realTime = realTime;
+
+        readSessionHeader(in.readUnsignedByte());
+    }
+
+    private void readSessionHeader(int firstByte) throws IOException {
+        byte[] magic = new byte[MAGIC.length];
+        magic[0] = (byte) firstByte;
+        in.readFully(magic, 1, magic.length - 1);
+        if (!Arrays.equals(MAGIC, magic)) {
+            throw new IOException("Not a RFXCOM capture file");
+        }
+        int version = in.readUnsignedByte();
+        if (version != VERSION) {
+            throw new IOException("Unsupported RFXCOM capture file version " + version);
+        }
+        long startTime = in.readLong();
+        logger.debug("Replaying RFXCOM capture session started at {}", startTime);
+    }
+
+    @Override
+    public int read() throws IOException {
+        byte[] b = new byte[1];
+        while (read(b, 0, 1) == 0) {
+            if (finished || Thread.currentThread().isInterrupted()) {
+                return -1;
+            }
+        }
+        return b[0] & 0xFF;
+    }
+
+    @Override
+    public synchronized int read(byte[] b, int off, int len) throws IOException {
+        if (len == 0) {
+            return 0;
+        }
+        if (packetIndex == packet.length && !nextPacket()) {
+            return 0;
+        }
+        int bytesRead = Math.min(len, packet.length - packetIndex);
+        System.arraycopy(packet, packetIndex, b, off, bytesRead);
+        packetIndex += bytesRead;
+        return bytesRead;
+    }
+
+    /**
+     * Reads the next received packet of the capture and waits until it is due.
+     *
+     * @return false if no packet is available before the read timeout
+     */
+    private boolean nextPacket() throws IOException {
+        while (!finished) {
+            int direction;
+            try {
+                direction = in.read();
+                if (direction < 0) {
+                    finish();
+                    break;
+                }
+                if (direction == MAGIC[0]) {
+                    // the recording was continued after a reconnect
+                    readSessionHeader(direction);
+                    continue;
+                }
+                elapsedMillis += readDelta();
+                int packetLength = in.readUnsignedByte();
+                byte[] data = new byte[packetLength + 1];
+                data[0] = (byte) packetLength;
+                in.readFully(data, 1, packetLength);
+                if (direction != DIRECTION_RECEIVED) {
+                    continue;
+                }
+                packet = data;
+                packetIndex = 0;
+            } catch (EOFException e) {
+                logger.warn("RFXCOM capture file is truncated");
+                finish();
+                break;
+            }
+
+            replayedPackets++;
+            if (realTime) {
+                waitUntilDue();
+            }
+            return true;
+        }
+
+        // behave like a read timeout of an idle transceiver
+        try {
+            Thread.sleep(IDLE_READ_TIMEOUT);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return false;
+    }
+
+    private long readDelta() throws IOException {
+        long delta = 0;
+        int shift = 0;
+        int b;
+        do {
+            b = in.readUnsignedByte();
+            delta |= (long) (b & 0x7F) << shift;
+            shift += 7;
+        } while ((b & 0x80) != 0);
+        return delta;
+    }
+
+    private void waitUntilDue() throws IOException {
+        if (startNanos == 0) {
+            startNanos = System.nanoTime() - TimeUnit.MILLISECONDS.toNanos(elapsedMillis);
+        }
+        long waitNanos = startNanos + TimeUnit.MILLISECONDS.toNanos(elapsedMillis) - System.nanoTime();
+        if (waitNanos > 0) {
+            try {
+                TimeUnit.NANOSECONDS.sleep(waitNanos);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private void finish() {
+        finished = true;
+        packet = new byte[0];
+        packetIndex = 0;
+        logger.info("Replay of RFXCOM capture finished, {} packets replayed", replayedPackets);
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+}
@@ -0,0 +1,86 @@
+/**
+ * Copyright (c) 2010-2017 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.binding.rfxcom.internal.connector;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Writes raw RFXCOM packets to a capture file, which can be replayed with the {@link RFXComReplayConnector}.
+ *
+ * Every recording session starts with the magic bytes "RFXC", a version byte and the start time in milliseconds since
+ * the epoch. Sessions are appended to an existing file, so a reconnect does not overwrite the capture. Each packet is
+ * stored as a direction byte, the milliseconds since the previous packet as an unsigned variable length integer and
+ * the packet itself, whose first byte is the packet length.
+ *
+ * @author agent - Initial contribution
+ */
+public class RFXComCaptureWriter implements Closeable {
+    static final byte[] MAGIC = { 'R', 'F', 'X', 'C' };
+    static final int VERSION = 1;
+
+    static final int DIRECTION_RECEIVED = 0;
+    static final int DIRECTION_TRANSMITTED = 1;
+
+    private final DataOutputStream out;
+    private long lastPacketNanos;
+
+    public RFXComCaptureWriter(String fileName) throws IOException {
+        this(new FileOutputStream(fileName, true));
+    }
+
+    public RFXComCaptureWriter(OutputStream outputStream) throws IOException {
+        out = new DataOutputStream(new BufferedOutputStream(outputStream));
+        out.write(MAGIC);
+        out.writeByte(VERSION);
+        out.writeLong(System.currentTimeMillis());
+        out.flush();
+        lastPacketNanos = System.nanoTime();
+    }
+
+    /**
+     * Writes a packet received from the transceiver.
+     */
+    public void packetReceived(byte[] data) throws IOException {
+        write(DIRECTION_RECEIVED, data);
+    }
+
+    /**
+     * Writes a packet sent to the transceiver.
+     */
+    public void packetTransmitted(byte[] data) throws IOException {
+        write(DIRECTION_TRANSMITTED, data);
+    }
+
+    private synchronized void write(int direction, byte[] data) throws IOException {
+        long now = System.nanoTime();
+        long delta = TimeUnit.NANOSECONDS.toMillis(now - lastPacketNanos);
+        // keep the remainder, so that rounding errors do not add up over a long capture
+        lastPacketNanos += TimeUnit.MILLISECONDS.toNanos(delta);
+
+        out.writeByte(direction);
+        while ((delta & ~0x7FL) != 0) {
+            out.writeByte((int) ((delta & 0x7F) | 0x80));
+            delta >>>= 7;
+        }
+        out.writeByte((int) delta);
+        out.write(data);
+        out.flush();
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        out.close();
+    }
+}
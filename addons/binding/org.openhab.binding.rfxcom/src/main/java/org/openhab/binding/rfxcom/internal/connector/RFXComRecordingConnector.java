@@ -0,0 +1,104 @@
+/**
+ * Copyright (c) 2010-2017 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.binding.rfxcom.internal.connector;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import org.apache.commons.io.IOUtils;
+import org.openhab.binding.rfxcom.internal.config.RFXComBridgeConfiguration;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * RFXCOM connector, which passes all communication to another connector and records every packet to a capture file.
+ * The capture can be replayed with the {@link RFXComReplayConnector}.
+ *
+ * @author agent - Initial contribution
+ */
+public class RFXComRecordingConnector implements RFXComConnectorInterface, RFXComEventListener {
+    private final Logger logger = LoggerFactory.getLogger(RFXComRecordingConnector.class);
+
+    private final RFXComConnectorInterface connector;
+    private final List<RFXComEventListener> listeners = new CopyOnWriteArrayList<>();
+    private RFXComCaptureWriter writer;
+
+    public RFXComRecordingConnector(RFXComConnectorInterface connector) {
+        this.connector = connector;
+    }
+
+    @Override
+    public void connect(RFXComBridgeConfiguration device) throws Exception {
+        logger.info("Recording RFXCOM packets to capture file {}", device.captureFile);
+        writer = new RFXComCaptureWriter(device.captureFile);
+        connector.addEventListener(this);
+        connector.connect(device);
+    }
+
+    @Override
+    public void disconnect() {
+        connector.removeEventListener(this);
+        connector.disconnect();
+        if (writer != null) {
+            IOUtils.closeQuietly(writer);
+            writer = null;
+        }
+    }
+
+    @Override
+    public void sendMessage(byte[] data) throws IOException {
+        record(data, true);
+        connector.sendMessage(data);
+    }
+
+    @Override
+    public void addEventListener(RFXComEventListener listener) {
+        if (!listeners.contains(listener)) {
+            listeners.add(listener);
+        }
+    }
+
+    @Override
+    public void removeEventListener(RFXComEventListener listener) {
+        listeners.remove(listener);
+    }
+
+    @Override
+    public void packetReceived(byte[] data) {
+        record(data, false);
+        for (RFXComEventListener listener : listeners) {
+            listener.packetReceived(data);
+        }
+    }
+
+    @Override
+    public void errorOccurred(String error) {
+        for (RFXComEventListener listener : listeners) {
+            listener.errorOccurred(error);
+        }
+    }
+
+    private void record(byte[] data, boolean transmitted) {
+        RFXComCaptureWriter captureWriter = writer;
+        if (captureWriter == null) {
+            return;
+        }
+        try {
+            if (transmitted) {
+                captureWriter.packetTransmitted(data);
+            } else {
+                captureWriter.packetReceived(data);
+            }
+        } catch (IOException e) {
+            // recording must never disturb the communication with the transceiver
+            logger.warn("Writing to RFXCOM capture file failed: {}", e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,86 @@
+/**
+ * Copyright (c) 2010-2017 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.binding.rfxcom.internal.connector;
+
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+import javax.xml.bind.DatatypeConverter;
+
+import org.apache.commons.io.IOUtils;
+import org.openhab.binding.rfxcom.internal.config.RFXComBridgeConfiguration;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * RFXCOM connector, which replays the received packets of a capture file written by the
+ * {@link RFXComRecordingConnector} instead of communicating with a transceiver. Transmitted packets are discarded.
+ *
+ * @author agent - Initial contribution
+ */
+public class RFXComReplayConnector extends RFXComBaseConnector {
+    private final Logger logger = LoggerFactory.getLogger(RFXComReplayConnector.class);
+
+    private InputStream in;
+
+    private Thread readerThread;
+
+    @Override
+    public void connect(RFXComBridgeConfiguration device) throws IOException {
+        logger.info("Replaying RFXCOM capture file {}{}", device.replayFile,
+                device.replayRealTime ? "" : " as fast as possible");
+        FileInputStream fileInputStream = new FileInputStream(device.replayFile);
+        try {
+            in = new RFXComCaptureInputStream(fileInputStream, device.replayRealTime);
+        } catch (IOException e) {
+            IOUtils.closeQuietly(fileInputStream);
+            throw e;
+        }
+    }
+
+    @Override
+    public synchronized void addEventListener(RFXComEventListener rfxComEventListener) {
+        super.addEventListener(rfxComEventListener);
+
+        // start the replay when the first listener is ready, otherwise the first packets would be lost
+        if (readerThread == null && in != null) {
+            readerThread = new RFXComStreamReader(this, in);
+            readerThread.start();
+        }
+    }
+
+    @Override
+    public void disconnect() {
+        logger.debug("Disconnecting");
+
+        if (readerThread != null) {
+            logger.debug("Interrupt stream listener");
+            readerThread.interrupt();
+            try {
+                readerThread.join();
+            } catch (InterruptedException e) {}
+        }
+
+        if (in != null) {
+            logger.debug("Close capture file");
+            IOUtils.closeQuietly(in);
+        }
+
+        readerThread = null;
+        in = null;
+
+        logger.debug("Closed");
+    }
+
+    @Override
+    public void sendMessage(byte[] data) throws IOException {
+        logger.trace("Discard data (len={}): {}", data.length, DatatypeConverter.printHexBinary(data));
+    }
+}
@@ -0,0 +1,117 @@
+/**
+ * Copyright (c) 2010-2017 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.binding.systeminfo.test
+
+import static org.hamcrest.CoreMatchers.*
+import static org.junit.Assert.*
+
+import org.junit.Test
+import org.openhab.binding.systeminfo.model.ProcessTracker
+
+import oshi.software.os.OSProcess
+
+/**
+ * Tests for the CPU load and the keys of the {@link ProcessTracker}.
+ *
+ * @author agent - Initial contribution
+ *
+ */
+class ProcessTrackerTest {
+    def START = 1000000L
+
+    ProcessTracker tracker = ProcessTracker.create("mosquitto, 1234", null)
+
+    @Test
+    public void 'the load is undefined at the first sample'() {
+        def samples = tracker.sample([process(1234, "java", 5000)], START)
+
+        assertThat samples["1234"].cpuLoad, is(nullValue())
+        assertThat samples["1234"].processCount, is(1)
+    }
+
+    @Test
+    public void 'the load is the CPU time used since the previous sample'() {
+        tracker.sample([process(1234, "java", 5000)], START)
+        def samples = tracker.sample([process(1234, "java", 5500)], START + 1000)
+
+        assertThat samples["1234"].cpuLoad, is(50.0d)
+    }
+
+    @Test
+    public void 'the load of all matching processes is summed up'() {
+        tracker.sample([
+            process(10, "mosquitto", 100),
+            process(11, "mosquitto", 100)
+        ], START)
+        def samples = tracker.sample([
+            process(10, "mosquitto", 1100),
+            process(11, "mosquitto", 600)
+        ], START + 1000)
+
+        assertThat samples["mosquitto"].cpuLoad, is(150.0d)
+        assertThat samples["mosquitto"].processCount, is(2)
+    }
+
+    @Test
+    public void 'a process started after the previous sample counts with its whole CPU time'() {
+        tracker.sample([], START)
+        def samples = tracker.sample([
+            process(10, "mosquitto", 200, START + 500)
+        ], START + 1000)
+
+        assertThat samples["mosquitto"].cpuLoad, is(20.0d)
+    }
+
+    @Test
+    public void 'a reused PID does not count the CPU time of the previous process'() {
+        tracker.sample([process(1234, "java", 5000)], START)
+        def samples = tracker.sample([
+            process(1234, "java", 300, START + 500)
+        ], START + 1000)
+
+        assertThat samples["1234"].cpuLoad, is(30.0d)
+    }
+
+    @Test
+    public void 'a process which was not tracked at the previous sample does not count'() {
+        tracker.sample([], START)
+        def samples = tracker.sample([process(10, "mosquitto", 5000)], START + 1000)
+
+        assertThat samples["mosquitto"].cpuLoad, is(0.0d)
+        assertThat samples["mosquitto"].processCount, is(1)
+    }
+
+    @Test
+    public void 'the load is not negative, if the CPU time decreases'() {
+        tracker.sample([process(1234, "java", 5000)], START)
+        def samples = tracker.sample([process(1234, "java", 4000)], START + 1000)
+
+        assertThat samples["1234"].cpuLoad, is(0.0d)
+    }
+
+    @Test
+    public void 'an entry listed twice is tracked once'() {
+        assertThat ProcessTracker.create("mysql.*, mysql.*", null).keys, is(equalTo(["mysql__"]))
+    }
+
+    @Test(expected = IllegalArgumentException)
+    public void 'entries with the same key are rejected'() {
+        ProcessTracker.create("mysql.*, mysql_*", null)
+    }
+
+    def process(int pid, String name, long cpuTime, long startTime = START - 10000) {
+        OSProcess process = new OSProcess()
+        process.processID = pid
+        process.name = name
+        process.kernelTime = cpuTime.intdiv(2)
+        process.userTime = cpuTime - process.kernelTime
+        process.startTime = startTime
+        return process
+    }
+}
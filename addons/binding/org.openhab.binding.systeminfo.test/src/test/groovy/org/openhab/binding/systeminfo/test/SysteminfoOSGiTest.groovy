@@ -229,6 +229,35 @@ class SysteminfoOSGiTest extends OSGiTest{
         }, DEFAULT_THING_INITIALIZE_MAX_TIME)
     }
 
+    @Test
+    public void 'assert invalid tracked process is handled'() {
+        Configuration configuration = new Configuration()
+        configuration.put(SysteminfoBindingConstants.HIGH_PRIORITY_REFRESH_TIME, new BigDecimal(DEFAULT_TEST_INTERVAL_HIGH))
+        configuration.put(SysteminfoBindingConstants.MEDIUM_PRIORITY_REFRESH_TIME, new BigDecimal(DEFAULT_TEST_INTERVAL_MEDIUM))
+        //invalid regular expression
+        configuration.put(SysteminfoBindingConstants.TRACKED_PROCESSES, "java, (invalid")
+        initializeThingWithConfiguration(configuration)
+
+        testInvalidConfiguration()
+    }
+
+    @Test
+    public void 'assert channels of tracked processes are created' () {
+        Configuration configuration = new Configuration()
+        configuration.put(SysteminfoBindingConstants.HIGH_PRIORITY_REFRESH_TIME, new BigDecimal(DEFAULT_TEST_INTERVAL_HIGH))
+        configuration.put(SysteminfoBindingConstants.MEDIUM_PRIORITY_REFRESH_TIME, new BigDecimal(DEFAULT_TEST_INTERVAL_MEDIUM))
+        configuration.put(SysteminfoBindingConstants.TRACKED_PROCESSES, "self")
+        initializeThingWithConfiguration(configuration)
+
+        waitForAssert({
+            Thing thing = thingRegistry.get(systemInfoThing.getUID())
+            assertThat thing.getChannel("tracked-self#load"), is(notNullValue())
+            assertThat thing.getChannel("tracked-self#used"), is(notNullValue())
+            assertThat thing.getChannel("tracked-self#threads"), is(notNullValue())
+            assertThat thing.getChannel("tracked-self#count"), is(notNullValue())
+        }, DEFAULT_THING_INITIALIZE_MAX_TIME)
+    }
+
     @Test
     public void 'assert medium priority channel is updated' () {
         String channnelID = DEFAULT_TEST_CHANNEL_ID;
@@ -798,6 +827,42 @@ class SysteminfoOSGiTest extends OSGiTest{
         assertItemState(acceptedItemType, DEFAULT_TEST_ITEM_NAME, DEFAULT_CHANNEL_TEST_PRIORITY)
     }
 
+    @Test
+    public void 'assert channel jvm#heapUsed is updated' () {
+        String channnelID = SysteminfoBindingConstants.CHANNEL_JVM_HEAP_USED
+        String acceptedItemType = "Number";
+
+        initializeThingWithChannel(channnelID,acceptedItemType);
+        assertItemState(acceptedItemType,DEFAULT_TEST_ITEM_NAME,DEFAULT_CHANNEL_TEST_PRIORITY);
+    }
+
+    @Test
+    public void 'assert channel jvm#threads is updated' () {
+        String channnelID = SysteminfoBindingConstants.CHANNEL_JVM_THREADS
+        String acceptedItemType = "Number";
+
+        initializeThingWithChannel(channnelID,acceptedItemType);
+        assertItemState(acceptedItemType,DEFAULT_TEST_ITEM_NAME,DEFAULT_CHANNEL_TEST_PRIORITY);
+    }
+
+    @Test
+    public void 'assert channel jvm#allocationRate is updated' () {
+        String channnelID = SysteminfoBindingConstants.CHANNEL_JVM_ALLOCATION_RATE
+        String acceptedItemType = "Number";
+
+        initializeThingWithChannel(channnelID,acceptedItemType);
+        assertItemState(acceptedItemType,DEFAULT_TEST_ITEM_NAME,DEFAULT_CHANNEL_TEST_PRIORITY);
+    }
+
+    @Test
+    public void 'assert channel gc#count is updated' () {
+        String channnelID = SysteminfoBindingConstants.CHANNEL_GC_COUNT
+        String acceptedItemType = "Number";
+
+        initializeThingWithChannel(channnelID,acceptedItemType);
+        assertItemState(acceptedItemType,DEFAULT_TEST_ITEM_NAME,DEFAULT_CHANNEL_TEST_PRIORITY);
+    }
+
     @Test
     public void 'test thing handles channel priority change' () {
         def priorityKey = "priority"
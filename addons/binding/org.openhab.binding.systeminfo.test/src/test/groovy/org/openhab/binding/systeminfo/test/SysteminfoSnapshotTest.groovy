@@ -0,0 +1,145 @@
+/**
+ * Copyright (c) 2010-2017 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.binding.systeminfo.test
+
+import static org.hamcrest.CoreMatchers.*
+import static org.junit.Assert.*
+
+import org.junit.Before
+import org.junit.Test
+import org.junit.experimental.categories.Category
+import org.openhab.binding.systeminfo.model.DeviceNotFoundException
+import org.openhab.binding.systeminfo.model.OshiSysteminfo
+import org.openhab.binding.systeminfo.model.SysteminfoInterface
+import org.slf4j.Logger
+import org.slf4j.LoggerFactory
+
+/**
+ * Tests for the snapshot of the system information, which serves all channels of a refresh.
+ *
+ * @author agent - Initial contribution
+ *
+ */
+class SysteminfoSnapshotTest {
+    def LINKED_CHANNELS = 50
+    def BENCHMARK_REFRESHES = 20
+
+    Logger logger = LoggerFactory.getLogger(SysteminfoSnapshotTest.class)
+
+    OshiSysteminfo systeminfo
+
+    /**
+     * The channels of a typical thing with all memory, swap, cpu, sensor, storage and network channels linked.
+     */
+    List<Closure> channels = [
+        { SysteminfoInterface s -> s.getMemoryAvailable() },
+        { SysteminfoInterface s -> s.getMemoryUsed() },
+        { SysteminfoInterface s -> s.getMemoryTotal() },
+        { SysteminfoInterface s -> s.getMemoryAvailablePercent() },
+        { SysteminfoInterface s -> s.getMemoryUsedPercent() },
+        { SysteminfoInterface s -> s.getSwapAvailable() },
+        { SysteminfoInterface s -> s.getSwapUsed() },
+        { SysteminfoInterface s -> s.getSwapTotal() },
+        { SysteminfoInterface s -> s.getSwapAvailablePercent() },
+        { SysteminfoInterface s -> s.getSwapUsedPercent() },
+        { SysteminfoInterface s -> s.getCpuLoad() },
+        { SysteminfoInterface s -> s.getCpuLoad1() },
+        { SysteminfoInterface s -> s.getCpuLoad5() },
+        { SysteminfoInterface s -> s.getCpuLoad15() },
+        { SysteminfoInterface s -> s.getCpuUptime() },
+        { SysteminfoInterface s -> s.getCpuThreads() },
+        { SysteminfoInterface s -> s.getSensorsCpuTemperature() },
+        { SysteminfoInterface s -> s.getSensorsCpuVoltage() },
+        { SysteminfoInterface s -> s.getSensorsFanSpeed(0) }
+    ]
+
+    @Before
+    public void setUp() {
+        systeminfo = new OshiSysteminfo()
+
+        // each closure needs its own index
+        (0..1).each { int index ->
+            channels.addAll([
+                { SysteminfoInterface s -> s.getStorageAvailable(index) },
+                { SysteminfoInterface s -> s.getStorageUsed(index) },
+                { SysteminfoInterface s -> s.getStorageTotal(index) },
+                { SysteminfoInterface s -> s.getStorageAvailablePercent(index) },
+                { SysteminfoInterface s -> s.getStorageUsedPercent(index) },
+                { SysteminfoInterface s -> s.getNetworkDataSent(index) },
+                { SysteminfoInterface s -> s.getNetworkDataReceived(index) },
+                { SysteminfoInterface s -> s.getNetworkPacketsSent(index) },
+                { SysteminfoInterface s -> s.getNetworkPacketsReceived(index) },
+                { SysteminfoInterface s -> s.getNetworkIp(index) }
+            ])
+        }
+        while (channels.size() < LINKED_CHANNELS) {
+            channels.add({ SysteminfoInterface s -> s.getCpuLoad() })
+        }
+    }
+
+    private void refresh(SysteminfoInterface source) {
+        channels.each { channel ->
+            try {
+                channel(source)
+            } catch (DeviceNotFoundException e) {
+                // the device is not available on this platform
+            }
+        }
+    }
+
+    @Test
+    public void 'assert snapshot returns the same value on each call' () {
+        SysteminfoInterface snapshot = systeminfo.createSnapshot()
+
+        def memoryAvailable = snapshot.getMemoryAvailable()
+        def cpuLoad = snapshot.getCpuLoad()
+        def uptime = snapshot.getCpuUptime()
+        sleep(100)
+
+        assertThat snapshot.getMemoryAvailable(), is(equalTo(memoryAvailable))
+        assertThat snapshot.getCpuLoad(), is(equalTo(cpuLoad))
+        assertThat snapshot.getCpuUptime(), is(equalTo(uptime))
+    }
+
+    @Test
+    public void 'assert snapshot is consistent' () {
+        SysteminfoInterface snapshot = systeminfo.createSnapshot()
+
+        def total = snapshot.getMemoryTotal().longValue()
+        def available = snapshot.getMemoryAvailable().longValue()
+        def used = snapshot.getMemoryUsed().longValue()
+
+        // the values are rounded to MB separately
+        assertThat Math.abs(total - available - used) <= 1, is(true)
+    }
+
+    @Category(PlatformDependentTestsInterface.class)
+    @Test
+    public void 'benchmark refresh of 50 linked channels' () {
+        // warm up
+        refresh(systeminfo)
+        refresh(systeminfo.createSnapshot())
+
+        long start = System.nanoTime()
+        for (int i = 0; i < BENCHMARK_REFRESHES; i++) {
+            refresh(systeminfo)
+        }
+        long perChannel = (System.nanoTime() - start) / BENCHMARK_REFRESHES
+
+        start = System.nanoTime()
+        for (int i = 0; i < BENCHMARK_REFRESHES; i++) {
+            refresh(systeminfo.createSnapshot())
+        }
+        long withSnapshot = (System.nanoTime() - start) / BENCHMARK_REFRESHES
+
+        logger.info("Refresh of {} channels: {} us when reading per channel, {} us with a snapshot",
+                channels.size(), perChannel / 1000, withSnapshot / 1000)
+        assertThat withSnapshot <= perChannel, is(true)
+    }
+}
@@ -301,6 +301,97 @@ public class SysteminfoBindingConstants {
      */
     public static final String CHANNEL_PROCESS_PATH = "process#path";
 
+    /**
+     * Heap memory used by the Java virtual machine in MB
+     */
+    public static final String CHANNEL_JVM_HEAP_USED = "jvm#heapUsed";
+
+    /**
+     * Heap memory committed by the Java virtual machine in MB
+     */
+    public static final String CHANNEL_JVM_HEAP_COMMITTED = "jvm#heapCommitted";
+
+    /**
+     * Maximum heap memory of the Java virtual machine in MB
+     */
+    public static final String CHANNEL_JVM_HEAP_MAX = "jvm#heapMax";
+
+    /**
+     * Non-heap memory used by the Java virtual machine in MB
+     */
+    public static final String CHANNEL_JVM_NON_HEAP_USED = "jvm#nonHeapUsed";
+
+    /**
+     * Number of live threads of the Java virtual machine
+     */
+    public static final String CHANNEL_JVM_THREADS = "jvm#threads";
+
+    /**
+     * Number of live daemon threads of the Java virtual machine
+     */
+    public static final String CHANNEL_JVM_DAEMON_THREADS = "jvm#daemonThreads";
+
+    /**
+     * Peak number of live threads of the Java virtual machine
+     */
+    public static final String CHANNEL_JVM_PEAK_THREADS = "jvm#peakThreads";
+
+    /**
+     * Number of threads of a thread pool
+     */
+    public static final String CHANNEL_JVM_POOL_THREADS = "jvm#poolThreads";
+
+    /**
+     * Heap memory allocated per second in MB
+     */
+    public static final String CHANNEL_JVM_ALLOCATION_RATE = "jvm#allocationRate";
+
+    /**
+     * Name of the garbage collector
+     */
+    public static final String CHANNEL_GC_NAME = "gc#name";
+
+    /**
+     * Number of collections of the garbage collector
+     */
+    public static final String CHANNEL_GC_COUNT = "gc#count";
+
+    /**
+     * Accumulated collection time of the garbage collector in ms
+     */
+    public static final String CHANNEL_GC_TIME = "gc#time";
+
+    /**
+     * Channel group of the processes tracked with the thing configuration parameter processes. The channel group of a
+     * tracked process is followed by its key, e.g. tracked-mosquitto#load
+     */
+    public static final String CHANNEL_GROUP_TRACKED_PROCESS = "tracked";
+
+    /**
+     * Prefix of the channel group ID of a tracked process
+     */
+    public static final String TRACKED_PROCESS_GROUP_PREFIX = CHANNEL_GROUP_TRACKED_PROCESS + "-";
+
+    /**
+     * CPU load of a tracked process since the previous update in percent
+     */
+    public static final String CHANNEL_TRACKED_PROCESS_LOAD = "tracked#load";
+
+    /**
+     * Size of memory used from a tracked process in MB
+     */
+    public static final String CHANNEL_TRACKED_PROCESS_MEMORY = "tracked#used";
+
+    /**
+     * Number of threads of a tracked process
+     */
+    public static final String CHANNEL_TRACKED_PROCESS_THREADS = "tracked#threads";
+
+    /**
+     * Number of running processes matching a tracked process
+     */
+    public static final String CHANNEL_TRACKED_PROCESS_COUNT = "tracked#count";
+
     // Thing configuraion
     /**
      * Name of the configuration parameter of the thing that defines refresh time for High priority channels
@@ -312,6 +403,11 @@ public class SysteminfoBindingConstants {
      */
     public static final String MEDIUM_PRIORITY_REFRESH_TIME = "interval_medium";
 
+    /**
+     * Name of the configuration parameter of the thing that defines the tracked processes
+     */
+    public static final String TRACKED_PROCESSES = "processes";
+
     // Channel configuration
 
     /**
@@ -325,4 +421,9 @@ public class SysteminfoBindingConstants {
      */
     public static final String PID_PARAM = "pid";
 
+    /**
+     * Name of the channel configuration parameter pool
+     */
+    public static final String POOL_PARAM = "pool";
+
 }
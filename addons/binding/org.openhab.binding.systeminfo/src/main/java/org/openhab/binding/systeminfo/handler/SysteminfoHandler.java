@@ -26,6 +26,9 @@ import org.eclipse.smarthome.core.thing.Thing;
 import org.eclipse.smarthome.core.thing.ThingStatus;
 import org.eclipse.smarthome.core.thing.ThingStatusDetail;
 import org.eclipse.smarthome.core.thing.binding.BaseThingHandler;
+import org.eclipse.smarthome.core.thing.binding.builder.ChannelBuilder;
+import org.eclipse.smarthome.core.thing.binding.builder.ThingBuilder;
+import org.eclipse.smarthome.core.thing.type.ChannelTypeUID;
 import org.eclipse.smarthome.core.types.Command;
 import org.eclipse.smarthome.core.types.RefreshType;
 import org.eclipse.smarthome.core.types.State;
@@ -81,6 +84,32 @@ public class SysteminfoHandler extends BaseThingHandler {
      */
     private static final int WAIT_TIME_CHANNEL_ITEM_LINK_INIT = 1;
 
+    /**
+     * The default priority of the channels of a tracked process. All channels of an entry are refreshed together, so
+     * they are served by the same scan of the processes.
+     */
+    private static final String TRACKED_PROCESS_PRIORITY = "High";
+
+    /**
+     * The channels created for each tracked process.
+     */
+    private enum TrackedProcessChannel {
+        LOAD("load", "load", "Load"),
+        USED("used", "used", "Used"),
+        THREADS("threads", "threads", "Number of threads"),
+        COUNT("count", "processCount", "Number of processes");
+
+        private final String channelID;
+        private final String channelTypeID;
+        private final String label;
+
+        private TrackedProcessChannel(String channelID, String channelTypeID, String label) {
+            this.channelID = channelID;
+            this.channelTypeID = channelTypeID;
+            this.label = label;
+        }
+    }
+
     private OshiSysteminfo systeminfo;
 
     ScheduledFuture<?> highPriorityTasks;
@@ -96,7 +125,8 @@ public class SysteminfoHandler extends BaseThingHandler {
     public void initialize() {
         logger.debug("Start initializing!");
 
-        if (instantiateSysteminfoLibrary() && isConfigurationValid() && updateProperties()) {
+        if (instantiateSysteminfoLibrary() && isConfigurationValid() && updateProperties()
+                && updateTrackedProcessChannels()) {
             groupChannelsByPriority();
             scheduleUpdates();
             logger.debug("Thing is successfully initialized!");
@@ -159,8 +189,64 @@ public class SysteminfoHandler extends BaseThingHandler {
 
     }
 
+    /**
+     * Creates the channels for the processes configured with the thing configuration parameter processes and removes
+     * the channels of processes, which are not tracked anymore.
+     */
+    private boolean updateTrackedProcessChannels() {
+        List<String> keys;
+        try {
+            String processes = (String) this.thing.getConfiguration().get(TRACKED_PROCESSES);
+            keys = systeminfo.setTrackedProcesses(processes);
+        } catch (IllegalArgumentException | ClassCastException e) {
+            logger.error("Tracked processes are invalid! Please change the thing configuration!", e);
+            return false;
+        }
+
+        Set<String> groupIDs = new HashSet<String>();
+        for (String key : keys) {
+            groupIDs.add(TRACKED_PROCESS_GROUP_PREFIX + key);
+        }
+
+        ThingBuilder thingBuilder = editThing();
+        boolean isChanged = false;
+        for (Channel channel : this.thing.getChannels()) {
+            String channelGroupID = channel.getUID().getGroupId();
+            if (channelGroupID != null && channelGroupID.startsWith(TRACKED_PROCESS_GROUP_PREFIX)
+                    && !groupIDs.contains(channelGroupID)) {
+                logger.debug("Process {} is not tracked anymore, removing channel {}", channelGroupID,
+                        channel.getUID());
+                thingBuilder.withoutChannel(channel.getUID());
+                isChanged = true;
+            }
+        }
+        for (String key : keys) {
+            for (TrackedProcessChannel trackedChannel : TrackedProcessChannel.values()) {
+                ChannelUID channelUID = new ChannelUID(this.thing.getUID(), TRACKED_PROCESS_GROUP_PREFIX + key,
+                        trackedChannel.channelID);
+                if (this.thing.getChannel(channelUID.getId()) == null) {
+                    Configuration channelConfig = new Configuration();
+                    channelConfig.put(PRIOIRITY_PARAM, TRACKED_PROCESS_PRIORITY);
+                    thingBuilder.withChannel(ChannelBuilder.create(channelUID, "Number")
+                            .withType(new ChannelTypeUID(BINDING_ID, trackedChannel.channelTypeID))
+                            .withLabel(key + " " + trackedChannel.label).withConfiguration(channelConfig).build());
+                    isChanged = true;
+                }
+            }
+        }
+
+        if (isChanged) {
+            updateThing(thingBuilder.build());
+        }
+        logger.debug("Tracking processes {}", keys);
+        return true;
+    }
+
     private void groupChannelsByPriority() {
         logger.trace("Grouping channels by priority.");
+        highPriorityChannels.clear();
+        mediumPriorityChannels.clear();
+        lowPriorityChannels.clear();
         List<Channel> channels = this.thing.getChannels();
 
         for (Channel channel : channels) {
@@ -237,20 +323,29 @@ public class SysteminfoHandler extends BaseThingHandler {
 
     }
 
+    /**
+     * Publishes the state of all linked channels in the given set. All channels are served from one snapshot of the
+     * system information, so each value is read only once per refresh.
+     */
     private void publishData(Set<ChannelUID> channels) {
         if (channels != null) {
+            SysteminfoInterface snapshot = systeminfo.createSnapshot();
             Iterator<ChannelUID> iter = channels.iterator();
             while (iter.hasNext()) {
                 ChannelUID channeUID = iter.next();
                 if (isLinked(channeUID.getId())) {
-                    publishDataForChannel(channeUID);
+                    publishDataForChannel(channeUID, snapshot);
                 }
             }
         }
     }
 
     private void publishDataForChannel(ChannelUID channelUID) {
-        State state = getInfoForChannel(channelUID);
+        publishDataForChannel(channelUID, systeminfo);
+    }
+
+    private void publishDataForChannel(ChannelUID channelUID, SysteminfoInterface source) {
+        State state = getInfoForChannel(channelUID, source);
         String channelID = channelUID.getId();
         if (state != null) {
             updateState(channelID, state);
@@ -266,20 +361,30 @@ public class SysteminfoHandler extends BaseThingHandler {
      * multiple devices, for reference see {@link #getDeviceIndex(String)}})
      *
      * @param channelUID - the UID of the channel
+     * @param systeminfo - the source of the information, e.g. a snapshot shared by all channels of a refresh
      * @return State object or null, if there is no information for the device with this index
      */
-    private State getInfoForChannel(ChannelUID channelUID) {
+    private State getInfoForChannel(ChannelUID channelUID, SysteminfoInterface systeminfo) {
         State state = null;
         String channelID = channelUID.getId();
         String channelIDWithoutGroup = channelUID.getIdWithoutGroup();
         String channelGroupID = channelUID.getGroupId();
 
-        int deviceIndex = getDeviceIndex(channelUID);
+        int deviceIndex = 0;
+        String trackedProcessKey = null;
+
+        if (channelGroupID.startsWith(TRACKED_PROCESS_GROUP_PREFIX)) {
+            // The channelGroup of a tracked process contains the key of the process instead of a deviceIndex.
+            trackedProcessKey = channelGroupID.substring(TRACKED_PROCESS_GROUP_PREFIX.length());
+            channelID = CHANNEL_GROUP_TRACKED_PROCESS + "#" + channelIDWithoutGroup;
+        } else {
+            deviceIndex = getDeviceIndex(channelUID);
 
-        // The channelGroup may contain deviceIndex. It must be deleted from the channelID, because otherwise the
-        // switch will not find the correct method below.
-        // All digits are deleted from the ID
-        channelID = channelGroupID.replaceAll("\\d+", "") + "#" + channelIDWithoutGroup;
+            // The channelGroup may contain deviceIndex. It must be deleted from the channelID, because otherwise the
+            // switch will not find the correct method below.
+            // All digits are deleted from the ID
+            channelID = channelGroupID.replaceAll("\\d+", "") + "#" + channelIDWithoutGroup;
+        }
 
         try {
             switch (channelID) {
@@ -430,6 +535,54 @@ public class SysteminfoHandler extends BaseThingHandler {
                 case CHANNEL_PROCESS_THREADS:
                     state = systeminfo.getProcessThreads(deviceIndex);
                     break;
+                case CHANNEL_JVM_HEAP_USED:
+                    state = systeminfo.getJvmHeapUsed();
+                    break;
+                case CHANNEL_JVM_HEAP_COMMITTED:
+                    state = systeminfo.getJvmHeapCommitted();
+                    break;
+                case CHANNEL_JVM_HEAP_MAX:
+                    state = systeminfo.getJvmHeapMax();
+                    break;
+                case CHANNEL_JVM_NON_HEAP_USED:
+                    state = systeminfo.getJvmNonHeapUsed();
+                    break;
+                case CHANNEL_JVM_THREADS:
+                    state = systeminfo.getJvmThreads();
+                    break;
+                case CHANNEL_JVM_DAEMON_THREADS:
+                    state = systeminfo.getJvmDaemonThreads();
+                    break;
+                case CHANNEL_JVM_PEAK_THREADS:
+                    state = systeminfo.getJvmPeakThreads();
+                    break;
+                case CHANNEL_JVM_POOL_THREADS:
+                    state = systeminfo.getJvmPoolThreads(getPoolName(channelUID));
+                    break;
+                case CHANNEL_JVM_ALLOCATION_RATE:
+                    state = systeminfo.getJvmAllocationRate();
+                    break;
+                case CHANNEL_GC_NAME:
+                    state = systeminfo.getGarbageCollectorName(deviceIndex);
+                    break;
+                case CHANNEL_GC_COUNT:
+                    state = systeminfo.getGarbageCollectorCount(deviceIndex);
+                    break;
+                case CHANNEL_GC_TIME:
+                    state = systeminfo.getGarbageCollectorTime(deviceIndex);
+                    break;
+                case CHANNEL_TRACKED_PROCESS_LOAD:
+                    state = systeminfo.getTrackedProcessLoad(trackedProcessKey);
+                    break;
+                case CHANNEL_TRACKED_PROCESS_MEMORY:
+                    state = systeminfo.getTrackedProcessMemory(trackedProcessKey);
+                    break;
+                case CHANNEL_TRACKED_PROCESS_THREADS:
+                    state = systeminfo.getTrackedProcessThreads(trackedProcessKey);
+                    break;
+                case CHANNEL_TRACKED_PROCESS_COUNT:
+                    state = systeminfo.getTrackedProcessCount(trackedProcessKey);
+                    break;
                 default:
                     logger.error("Channel with unknown ID: {} !", channelID);
             }
@@ -496,6 +649,18 @@ public class SysteminfoHandler extends BaseThingHandler {
         return pid;
     }
 
+    /**
+     * This method gets the name of the thread pool tracked by a channel
+     *
+     * @param channelUID - channel unique identifier
+     * @return the name of the pool or null, if it is not configured
+     */
+    private String getPoolName(ChannelUID channelUID) {
+        Configuration channelProperties = this.thing.getChannel(channelUID.getId()).getConfiguration();
+        Object poolName = channelProperties.get(POOL_PARAM);
+        return poolName != null ? poolName.toString().trim() : null;
+    }
+
     @Override
     public void handleCommand(ChannelUID channelUID, Command command) {
         if (thing.getStatus().equals(ThingStatus.ONLINE)) {
@@ -555,6 +720,11 @@ public class SysteminfoHandler extends BaseThingHandler {
                 isChannelConfigChanged = true;
                 handleChannelConfigurationChange(oldChannel, newChannelConfig, PID_PARAM);
             }
+
+            if (isConfigurationKeyChanged(currentChannelConfig, newChannelConfig, POOL_PARAM)) {
+                isChannelConfigChanged = true;
+                handleChannelConfigurationChange(oldChannel, newChannelConfig, POOL_PARAM);
+            }
         }
 
         if (!(isInitialized() && isChannelConfigChanged)) {
@@ -0,0 +1,91 @@
+/**
+ * Copyright (c) 2010-2017 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.binding.systeminfo.model;
+
+import java.lang.management.ManagementFactory;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Measures the rate, at which the threads of the Java virtual machine allocate heap memory. It uses the allocation
+ * counters of the HotSpot {@link com.sun.management.ThreadMXBean}. The allocations are counted per thread, so threads
+ * started or terminated between two samples don't distort the rate. Only the allocations of threads terminated
+ * between two samples are missing.
+ *
+ * @author agent - Initial contribution
+ *
+ */
+class AllocationRateMeter {
+
+    private final com.sun.management.ThreadMXBean threadBean;
+
+    private Map<Long, Long> allocatedBytes = new HashMap<>();
+    private long sampleTime;
+
+    private AllocationRateMeter(com.sun.management.ThreadMXBean threadBean) {
+        this.threadBean = threadBean;
+        sample();
+    }
+
+    /**
+     * Creates a meter, if the Java virtual machine supports the measurement of the allocated memory.
+     *
+     * @return the meter or null, if the measurement is not supported
+     */
+    static AllocationRateMeter create() {
+        try {
+            java.lang.management.ThreadMXBean threadBean = ManagementFactory.getThreadMXBean();
+            if (threadBean instanceof com.sun.management.ThreadMXBean) {
+                com.sun.management.ThreadMXBean hotspotThreadBean = (com.sun.management.ThreadMXBean) threadBean;
+                if (hotspotThreadBean.isThreadAllocatedMemorySupported()) {
+                    hotspotThreadBean.setThreadAllocatedMemoryEnabled(true);
+                    return new AllocationRateMeter(hotspotThreadBean);
+                }
+            }
+        } catch (NoClassDefFoundError | UnsupportedOperationException | SecurityException e) {
+            // not a HotSpot based Java virtual machine
+        }
+        return null;
+    }
+
+    /**
+     * Returns the average allocation rate since the previous call.
+     *
+     * @return the rate in bytes per second
+     */
+    synchronized double getBytesPerSecond() {
+        long previousTime = sampleTime;
+        Map<Long, Long> previous = allocatedBytes;
+        sample();
+
+        long allocated = 0;
+        for (Map.Entry<Long, Long> entry : allocatedBytes.entrySet()) {
+            Long previousBytes = previous.get(entry.getKey());
+            // a thread started after the previous sample has allocated all its memory since then
+            allocated += entry.getValue() - (previousBytes != null ? previousBytes : 0);
+        }
+        long elapsedNanos = sampleTime - previousTime;
+        return elapsedNanos > 0 ? allocated * 1e9 / elapsedNanos : 0;
+    }
+
+    private void sample() {
+        long[] threadIds = threadBean.getAllThreadIds();
+        long[] bytes = threadBean.getThreadAllocatedBytes(threadIds);
+        sampleTime = System.nanoTime();
+
+        Map<Long, Long> sample = new HashMap<>(threadIds.length * 2);
+        for (int i = 0; i < threadIds.length; i++) {
+            // -1 for threads terminated in the meantime
+            if (bytes[i] >= 0) {
+                sample.put(threadIds[i], bytes[i]);
+            }
+        }
+        allocatedBytes = sample;
+    }
+}
@@ -8,11 +8,21 @@
  */
 package org.openhab.binding.systeminfo.model;
 
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.lang.management.MemoryUsage;
+import java.lang.management.ThreadInfo;
+import java.lang.management.ThreadMXBean;
 import java.math.BigDecimal;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
 
 import org.apache.commons.lang.ArrayUtils;
 import org.eclipse.smarthome.core.library.types.DecimalType;
 import org.eclipse.smarthome.core.library.types.StringType;
+import org.openhab.binding.systeminfo.model.ProcessTracker.ProcessSample;
 
 import oshi.SystemInfo;
 import oshi.hardware.CentralProcessor;
@@ -54,8 +64,21 @@ public class OshiSysteminfo implements SysteminfoInterface {
     private PowerSource[] powerSources;
     private HWDiskStore[] drives;
 
+    // Objects of the Java virtual machine running this binding
+    private MemoryMXBean jvmMemory;
+    private ThreadMXBean jvmThreads;
+    private GarbageCollectorMXBean[] garbageCollectors;
+    private AllocationRateMeter allocationRateMeter;
+
+    private ProcessTracker processTracker;
+
     public static final int PRECISION_AFTER_DECIMAl_SIGN = 1;
 
+    /**
+     * Prefix of the thread names of the Eclipse SmartHome thread pools, followed by the pool name
+     */
+    private static final String POOL_THREAD_NAME_PREFIX = "ESH-";
+
     /**
      * Some of the methods used in this constructor execute native code and require execute permissions
      *
@@ -72,9 +95,58 @@ public class OshiSysteminfo implements SysteminfoInterface {
         operatingSystem = systemInfo.getOperatingSystem();
         displays = hal.getDisplays();
 
+        jvmMemory = ManagementFactory.getMemoryMXBean();
+        jvmThreads = ManagementFactory.getThreadMXBean();
+        garbageCollectors = ManagementFactory.getGarbageCollectorMXBeans().toArray(new GarbageCollectorMXBean[0]);
+        allocationRateMeter = AllocationRateMeter.create();
+
         updateStaticObjects();
     }
 
+    /**
+     * Creates a copy, which shares the OSHI objects of the given instance. The device lists are copied at the time of
+     * the call, so a later {@link #updateStaticObjects()} of the source doesn't change the copy.
+     */
+    protected OshiSysteminfo(OshiSysteminfo source) {
+        hal = source.hal;
+        memory = source.memory;
+        cpu = source.cpu;
+        sensors = source.sensors;
+        operatingSystem = source.operatingSystem;
+        displays = source.displays;
+        fileStores = source.fileStores;
+        powerSources = source.powerSources;
+        networks = source.networks;
+        drives = source.drives;
+        jvmMemory = source.jvmMemory;
+        jvmThreads = source.jvmThreads;
+        garbageCollectors = source.garbageCollectors;
+        allocationRateMeter = source.allocationRateMeter;
+        processTracker = source.processTracker;
+    }
+
+    /**
+     * Sets the processes to track, see {@link ProcessTracker#create(String, OperatingSystem)}.
+     *
+     * @param processes - comma separated list of PIDs, regular expressions for the process name or "self"
+     * @return the keys of the tracked entries
+     * @throws IllegalArgumentException - if an entry is not a valid regular expression
+     */
+    public List<String> setTrackedProcesses(String processes) {
+        processTracker = ProcessTracker.create(processes, operatingSystem);
+        return processTracker.getKeys();
+    }
+
+    /**
+     * Creates a snapshot for a single refresh of several channels. Each value of the system is read at most once by
+     * the snapshot, so all channels are served from the same sample instead of reading the system for every channel.
+     *
+     * @return a new snapshot, which should be discarded after the refresh
+     */
+    public SysteminfoInterface createSnapshot() {
+        return new SysteminfoSnapshot(this);
+    }
+
     public void updateStaticObjects() {
         // In OSHI 4.0.0. it is planed to change this mechanism - see https://github.com/oshi/oshi/issues/310
         fileStores = operatingSystem.getFileSystem().getFileStores();
@@ -91,7 +163,7 @@ public class OshiSysteminfo implements SysteminfoInterface {
         return devices[index];
     }
 
-    private OSProcess getProcess(int pid) throws DeviceNotFoundException {
+    protected OSProcess getProcess(int pid) throws DeviceNotFoundException {
         OSProcess process = operatingSystem.getProcess(pid);
         if (process == null) {
             throw new DeviceNotFoundException("Error while getting information for process with PID " + pid);
@@ -99,6 +171,75 @@ public class OshiSysteminfo implements SysteminfoInterface {
         return process;
     }
 
+    protected GlobalMemory getGlobalMemory() {
+        return memory;
+    }
+
+    protected Sensors getSensors() {
+        return sensors;
+    }
+
+    protected double getSystemCpuLoad() {
+        return cpu.getSystemCpuLoad();
+    }
+
+    /**
+     * @return the system load averages for the last 1, 5 and 15 minutes
+     */
+    protected double[] getSystemLoadAverages() {
+        return cpu.getSystemLoadAverage(3);
+    }
+
+    protected long getSystemUptime() {
+        return cpu.getSystemUptime();
+    }
+
+    protected int getThreadCount() {
+        return operatingSystem.getThreadCount();
+    }
+
+    protected MemoryUsage getHeapMemoryUsage() {
+        return jvmMemory.getHeapMemoryUsage();
+    }
+
+    protected ThreadInfo[] getJvmThreadInfos() {
+        return jvmThreads.getThreadInfo(jvmThreads.getAllThreadIds(), 0);
+    }
+
+    /**
+     * @return the allocation rate in bytes per second since the previous call or null, if it is not supported
+     */
+    protected Double getAllocationRate() {
+        return allocationRateMeter != null ? allocationRateMeter.getBytesPerSecond() : null;
+    }
+
+    /**
+     * @return the samples of all tracked processes by key
+     */
+    protected Map<String, ProcessSample> getTrackedProcessSamples() {
+        if (processTracker == null) {
+            return Collections.emptyMap();
+        }
+        return processTracker.sample(operatingSystem);
+    }
+
+    private ProcessSample getTrackedProcessSample(String key) throws DeviceNotFoundException {
+        ProcessSample sample = getTrackedProcessSamples().get(key);
+        if (sample == null) {
+            throw new DeviceNotFoundException("No tracked process with key " + key);
+        }
+        return sample;
+    }
+
+    /**
+     * Returns the network interface with updated statistics.
+     */
+    protected NetworkIF getNetworkStats(int index) throws DeviceNotFoundException {
+        NetworkIF network = (NetworkIF) getDevice(networks, index);
+        network.updateNetworkStats();
+        return network;
+    }
+
     @Override
     public StringType getOsFamily() {
         String osFamily = operatingSystem.getFamily();
@@ -152,29 +293,29 @@ public class OshiSysteminfo implements SysteminfoInterface {
 
     @Override
     public DecimalType getCpuLoad() {
-        double processorLoad = cpu.getSystemCpuLoad();
+        double processorLoad = getSystemCpuLoad();
         BigDecimal processorLoadPercent = getPercentsValue(processorLoad);
         return new DecimalType(processorLoadPercent);
     }
 
     @Override
     public DecimalType getMemoryTotal() {
-        long totalMemory = memory.getTotal();
+        long totalMemory = getGlobalMemory().getTotal();
         totalMemory = getSizeInMB(totalMemory);
         return new DecimalType(totalMemory);
     }
 
     @Override
     public DecimalType getMemoryAvailable() {
-        long availableMemory = memory.getAvailable();
+        long availableMemory = getGlobalMemory().getAvailable();
         availableMemory = getSizeInMB(availableMemory);
         return new DecimalType(availableMemory);
     }
 
     @Override
     public DecimalType getMemoryUsed() {
-        long totalMemory = memory.getTotal();
-        long availableMemory = memory.getAvailable();
+        long totalMemory = getGlobalMemory().getTotal();
+        long availableMemory = getGlobalMemory().getAvailable();
         long usedMemory = totalMemory - availableMemory;
         usedMemory = getSizeInMB(usedMemory);
         return new DecimalType(usedMemory);
@@ -296,21 +437,21 @@ public class OshiSysteminfo implements SysteminfoInterface {
 
     @Override
     public DecimalType getSensorsCpuTemperature() {
-        BigDecimal cpuTemp = new BigDecimal(sensors.getCpuTemperature());
+        BigDecimal cpuTemp = new BigDecimal(getSensors().getCpuTemperature());
         cpuTemp = cpuTemp.setScale(PRECISION_AFTER_DECIMAl_SIGN, BigDecimal.ROUND_HALF_UP);
         return cpuTemp.signum() == 1 ? new DecimalType(cpuTemp) : null;
     }
 
     @Override
     public DecimalType getSensorsCpuVoltage() {
-        BigDecimal cpuVoltage = new BigDecimal(sensors.getCpuVoltage());
+        BigDecimal cpuVoltage = new BigDecimal(getSensors().getCpuVoltage());
         cpuVoltage = cpuVoltage.setScale(PRECISION_AFTER_DECIMAl_SIGN, BigDecimal.ROUND_HALF_UP);
         return cpuVoltage.signum() == 1 ? new DecimalType(cpuVoltage) : null;
     }
 
     @Override
     public DecimalType getSensorsFanSpeed(int index) throws DeviceNotFoundException {
-        int[] fanSpeeds = sensors.getFanSpeeds();
+        int[] fanSpeeds = getSensors().getFanSpeeds();
         int speed = (int) getDevice(ArrayUtils.toObject(fanSpeeds), index);
         return speed > 0 ? new DecimalType(speed) : null;
     }
@@ -341,8 +482,8 @@ public class OshiSysteminfo implements SysteminfoInterface {
 
     @Override
     public DecimalType getMemoryAvailablePercent() {
-        long availableMemory = memory.getAvailable();
-        long totalMemory = memory.getTotal();
+        long availableMemory = getGlobalMemory().getAvailable();
+        long totalMemory = getGlobalMemory().getTotal();
         if (totalMemory > 0) {
             double freePercentDecimal = (double) availableMemory / (double) totalMemory;
             BigDecimal freePercent = getPercentsValue(freePercentDecimal);
@@ -354,8 +495,8 @@ public class OshiSysteminfo implements SysteminfoInterface {
 
     @Override
     public DecimalType getMemoryUsedPercent() {
-        long availableMemory = memory.getAvailable();
-        long totalMemory = memory.getTotal();
+        long availableMemory = getGlobalMemory().getAvailable();
+        long totalMemory = getGlobalMemory().getTotal();
         long usedMemory = totalMemory - availableMemory;
         if (totalMemory > 0) {
             double usedPercentDecimal = (double) usedMemory / (double) totalMemory;
@@ -389,15 +530,15 @@ public class OshiSysteminfo implements SysteminfoInterface {
 
     @Override
     public DecimalType getSwapTotal() {
-        long swapTotal = memory.getSwapTotal();
+        long swapTotal = getGlobalMemory().getSwapTotal();
         swapTotal = getSizeInMB(swapTotal);
         return swapTotal > 0 ? new DecimalType(swapTotal) : null;
     }
 
     @Override
     public DecimalType getSwapAvailable() {
-        long swapTotal = memory.getSwapTotal();
-        long swapUsed = memory.getSwapUsed();
+        long swapTotal = getGlobalMemory().getSwapTotal();
+        long swapUsed = getGlobalMemory().getSwapUsed();
         long swapAvaialble = swapTotal - swapUsed;
         swapAvaialble = getSizeInMB(swapAvaialble);
         return swapAvaialble > 0 ? new DecimalType(swapAvaialble) : null;
@@ -405,15 +546,15 @@ public class OshiSysteminfo implements SysteminfoInterface {
 
     @Override
     public DecimalType getSwapUsed() {
-        long swapTotal = memory.getSwapUsed();
+        long swapTotal = getGlobalMemory().getSwapUsed();
         swapTotal = getSizeInMB(swapTotal);
         return swapTotal > 0 ? new DecimalType(swapTotal) : null;
     }
 
     @Override
     public DecimalType getSwapAvailablePercent() {
-        long usedSwap = memory.getSwapUsed();
-        long totalSwap = memory.getSwapTotal();
+        long usedSwap = getGlobalMemory().getSwapUsed();
+        long totalSwap = getGlobalMemory().getSwapTotal();
         long freeSwap = totalSwap - usedSwap;
         if (totalSwap > 0) {
             double freePercentDecimal = (double) freeSwap / (double) totalSwap;
@@ -426,8 +567,8 @@ public class OshiSysteminfo implements SysteminfoInterface {
 
     @Override
     public DecimalType getSwapUsedPercent() {
-        long usedSwap = memory.getSwapUsed();
-        long totalSwap = memory.getSwapTotal();
+        long usedSwap = getGlobalMemory().getSwapUsed();
+        long totalSwap = getGlobalMemory().getSwapTotal();
         if (totalSwap > 0) {
             double usedPercentDecimal = (double) usedSwap / (double) totalSwap;
             BigDecimal usedPercent = getPercentsValue(usedPercentDecimal);
@@ -502,7 +643,7 @@ public class OshiSysteminfo implements SysteminfoInterface {
             default:
                 index = 2;
         }
-        double processorLoads[] = cpu.getSystemLoadAverage(index + 1);
+        double processorLoads[] = getSystemLoadAverages();
         BigDecimal result = new BigDecimal(processorLoads[index]);
         result = result.setScale(PRECISION_AFTER_DECIMAl_SIGN, BigDecimal.ROUND_HALF_UP);
         return result;
@@ -510,13 +651,13 @@ public class OshiSysteminfo implements SysteminfoInterface {
 
     @Override
     public DecimalType getCpuUptime() {
-        long seconds = cpu.getSystemUptime();
+        long seconds = getSystemUptime();
         return new DecimalType(getTimeInMinutes(seconds));
     }
 
     @Override
     public DecimalType getCpuThreads() {
-        int threadCount = operatingSystem.getThreadCount();
+        int threadCount = getThreadCount();
         return new DecimalType(threadCount);
     }
 
@@ -529,32 +670,28 @@ public class OshiSysteminfo implements SysteminfoInterface {
 
     @Override
     public DecimalType getNetworkPacketsReceived(int networkIndex) throws DeviceNotFoundException {
-        NetworkIF network = (NetworkIF) getDevice(networks, networkIndex);
-        network.updateNetworkStats();
+        NetworkIF network = getNetworkStats(networkIndex);
         long packRecv = network.getPacketsRecv();
         return new DecimalType(packRecv);
     }
 
     @Override
     public DecimalType getNetworkPacketsSent(int networkIndex) throws DeviceNotFoundException {
-        NetworkIF network = (NetworkIF) getDevice(networks, networkIndex);
-        network.updateNetworkStats();
+        NetworkIF network = getNetworkStats(networkIndex);
         long packSent = network.getPacketsSent();
         return new DecimalType(packSent);
     }
 
     @Override
     public DecimalType getNetworkDataSent(int networkIndex) throws DeviceNotFoundException {
-        NetworkIF network = (NetworkIF) getDevice(networks, networkIndex);
-        network.updateNetworkStats();
+        NetworkIF network = getNetworkStats(networkIndex);
         long bytesSent = network.getBytesSent();
         return new DecimalType(getSizeInMB(bytesSent));
     }
 
     @Override
     public DecimalType getNetworkDataReceived(int networkIndex) throws DeviceNotFoundException {
-        NetworkIF network = (NetworkIF) getDevice(networks, networkIndex);
-        network.updateNetworkStats();
+        NetworkIF network = getNetworkStats(networkIndex);
         long bytesRecv = network.getBytesRecv();
         return new DecimalType(getSizeInMB(bytesRecv));
     }
@@ -616,4 +753,127 @@ public class OshiSysteminfo implements SysteminfoInterface {
         }
     }
 
+    @Override
+    public DecimalType getJvmHeapUsed() {
+        long used = getHeapMemoryUsage().getUsed();
+        return new DecimalType(getSizeInMB(used));
+    }
+
+    @Override
+    public DecimalType getJvmHeapCommitted() {
+        long committed = getHeapMemoryUsage().getCommitted();
+        return new DecimalType(getSizeInMB(committed));
+    }
+
+    @Override
+    public DecimalType getJvmHeapMax() {
+        // The getMax() method returns -1 if the maximum is undefined.
+        long max = getHeapMemoryUsage().getMax();
+        return max >= 0 ? new DecimalType(getSizeInMB(max)) : null;
+    }
+
+    @Override
+    public DecimalType getJvmNonHeapUsed() {
+        long used = jvmMemory.getNonHeapMemoryUsage().getUsed();
+        return new DecimalType(getSizeInMB(used));
+    }
+
+    @Override
+    public DecimalType getJvmThreads() {
+        int threadCount = jvmThreads.getThreadCount();
+        return new DecimalType(threadCount);
+    }
+
+    @Override
+    public DecimalType getJvmDaemonThreads() {
+        int threadCount = jvmThreads.getDaemonThreadCount();
+        return new DecimalType(threadCount);
+    }
+
+    @Override
+    public DecimalType getJvmPeakThreads() {
+        int threadCount = jvmThreads.getPeakThreadCount();
+        return new DecimalType(threadCount);
+    }
+
+    @Override
+    public DecimalType getJvmPoolThreads(String poolName) {
+        if (poolName == null || poolName.isEmpty()) {
+            return null;
+        }
+        String threadNamePrefix = POOL_THREAD_NAME_PREFIX + poolName + "-";
+        int threadCount = 0;
+        for (ThreadInfo thread : getJvmThreadInfos()) {
+            // null for threads terminated in the meantime
+            if (thread != null && thread.getThreadName().startsWith(threadNamePrefix)) {
+                threadCount++;
+            }
+        }
+        return new DecimalType(threadCount);
+    }
+
+    @Override
+    public DecimalType getJvmAllocationRate() {
+        Double bytesPerSecond = getAllocationRate();
+        if (bytesPerSecond != null) {
+            BigDecimal rate = new BigDecimal(bytesPerSecond / (1024 * 1024));
+            rate = rate.setScale(PRECISION_AFTER_DECIMAl_SIGN, BigDecimal.ROUND_HALF_UP);
+            return new DecimalType(rate);
+        } else {
+            return null;
+        }
+    }
+
+    @Override
+    public StringType getGarbageCollectorName(int deviceIndex) throws DeviceNotFoundException {
+        GarbageCollectorMXBean collector = (GarbageCollectorMXBean) getDevice(garbageCollectors, deviceIndex);
+        String name = collector.getName();
+        return new StringType(name);
+    }
+
+    @Override
+    public DecimalType getGarbageCollectorCount(int deviceIndex) throws DeviceNotFoundException {
+        GarbageCollectorMXBean collector = (GarbageCollectorMXBean) getDevice(garbageCollectors, deviceIndex);
+        // The getCollectionCount() method returns -1 if the count is undefined for this collector.
+        long count = collector.getCollectionCount();
+        return count >= 0 ? new DecimalType(count) : null;
+    }
+
+    @Override
+    public DecimalType getGarbageCollectorTime(int deviceIndex) throws DeviceNotFoundException {
+        GarbageCollectorMXBean collector = (GarbageCollectorMXBean) getDevice(garbageCollectors, deviceIndex);
+        long timeInMillis = collector.getCollectionTime();
+        return timeInMillis >= 0 ? new DecimalType(timeInMillis) : null;
+    }
+
+    @Override
+    public DecimalType getTrackedProcessLoad(String key) throws DeviceNotFoundException {
+        Double cpuLoad = getTrackedProcessSample(key).getCpuLoad();
+        if (cpuLoad != null) {
+            BigDecimal load = new BigDecimal(cpuLoad);
+            load = load.setScale(PRECISION_AFTER_DECIMAl_SIGN, BigDecimal.ROUND_HALF_UP);
+            return new DecimalType(load);
+        } else {
+            return null;
+        }
+    }
+
+    @Override
+    public DecimalType getTrackedProcessMemory(String key) throws DeviceNotFoundException {
+        long memoryInBytes = getTrackedProcessSample(key).getResidentSetSize();
+        return new DecimalType(getSizeInMB(memoryInBytes));
+    }
+
+    @Override
+    public DecimalType getTrackedProcessThreads(String key) throws DeviceNotFoundException {
+        int threadCount = getTrackedProcessSample(key).getThreadCount();
+        return new DecimalType(threadCount);
+    }
+
+    @Override
+    public DecimalType getTrackedProcessCount(String key) throws DeviceNotFoundException {
+        int processCount = getTrackedProcessSample(key).getProcessCount();
+        return new DecimalType(processCount);
+    }
+
 }
@@ -0,0 +1,287 @@
+/**
+ * Copyright (c) 2010-2017 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.binding.systeminfo.model;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+import oshi.software.os.OSProcess;
+import oshi.software.os.OperatingSystem;
+
+/**
+ * Tracks the resource usage of several processes. The processes are selected by PID, by a regular expression matched
+ * against the process name, or with the keyword {@value #SELF} for the process running this binding. All processes
+ * are sampled with a single scan of the operating system.
+ *
+ * The CPU load is computed from the difference of the CPU time used by each process between two samples, so it is the
+ * average load since the previous sample. 100% correspond to one fully used logical processor.
+ *
+ * @author agent - Initial contribution
+ *
+ */
+public class ProcessTracker {
+
+    /**
+     * Keyword for the process running this binding
+     */
+    public static final String SELF = "self";
+
+    private static final Pattern PID_PATTERN = Pattern.compile("\\d+");
+
+    /**
+     * Maximum difference of the start time in ms, which is still considered as the same process. The start time is
+     * calculated from the system uptime on some platforms and may differ slightly between two reads.
+     */
+    private static final long PID_REUSE_TOLERANCE = 1000;
+
+    /**
+     * A process selected by PID or by name.
+     */
+    private static class TrackedProcess {
+        private final String entry;
+        private final String key;
+        private final int pid;
+        private final Pattern namePattern;
+
+        TrackedProcess(String entry, int pid, Pattern namePattern) {
+            this.entry = entry;
+            this.key = getKey(entry);
+            this.pid = pid;
+            this.namePattern = namePattern;
+        }
+
+        boolean matches(OSProcess process) {
+            if (namePattern != null) {
+                return process.getName() != null && namePattern.matcher(process.getName()).matches();
+            }
+            return process.getProcessID() == pid;
+        }
+    }
+
+    /**
+     * The CPU time of a process at the time of a sample. The start time identifies the process, if the PID is reused.
+     */
+    private static class CpuTime {
+        private final long startTime;
+        private final long cpuTime;
+
+        CpuTime(OSProcess process) {
+            startTime = process.getStartTime();
+            cpuTime = process.getKernelTime() + process.getUserTime();
+        }
+    }
+
+    /**
+     * The resources used by all processes matching a tracked entry.
+     */
+    public static class ProcessSample {
+        private final int processCount;
+        private final Double cpuLoad;
+        private final long residentSetSize;
+        private final int threadCount;
+
+        ProcessSample(int processCount, Double cpuLoad, long residentSetSize, int threadCount) {
+            this.processCount = processCount;
+            this.cpuLoad = cpuLoad;
+            this.residentSetSize = residentSetSize;
+            this.threadCount = threadCount;
+        }
+
+        /**
+         * @return the number of matching processes
+         */
+        public int getProcessCount() {
+            return processCount;
+        }
+
+        /**
+         * @return the CPU load in percent since the previous sample or null, if there is no previous sample
+         */
+        public Double getCpuLoad() {
+            return cpuLoad;
+        }
+
+        /**
+         * @return the resident set size in bytes
+         */
+        public long getResidentSetSize() {
+            return residentSetSize;
+        }
+
+        public int getThreadCount() {
+            return threadCount;
+        }
+    }
+
+    private final List<TrackedProcess> trackedProcesses;
+    private final boolean scanAllProcesses;
+
+    private Map<Integer, CpuTime> previousCpuTimes;
+    private long previousSampleTime;
+
+    private ProcessTracker(List<TrackedProcess> trackedProcesses) {
+        this.trackedProcesses = trackedProcesses;
+
+        boolean hasNamePattern = false;
+        for (TrackedProcess trackedProcess : trackedProcesses) {
+            hasNamePattern |= trackedProcess.namePattern != null;
+        }
+        // processes tracked only by PID are read directly, which is cheaper than a scan of all processes
+        this.scanAllProcesses = hasNamePattern;
+    }
+
+    /**
+     * Creates a tracker from a comma separated list of PIDs, regular expressions for the process name or the keyword
+     * {@value #SELF}.
+     *
+     * @param processes - the list of processes, e.g. "mosquitto, mysqld, self, 1234"
+     * @param operatingSystem - used to resolve the PID of this process
+     * @throws IllegalArgumentException - if an entry is not a valid regular expression or two different entries have
+     *             the same key
+     */
+    public static ProcessTracker create(String processes, OperatingSystem operatingSystem) {
+        Map<String, TrackedProcess> trackedProcesses = new LinkedHashMap<>();
+        if (processes != null) {
+            for (String entry : processes.split(",")) {
+                entry = entry.trim();
+                if (entry.isEmpty()) {
+                    continue;
+                }
+                String key = getKey(entry);
+                TrackedProcess trackedProcess = trackedProcesses.get(key);
+                if (trackedProcess != null) {
+                    if (trackedProcess.entry.equals(entry)) {
+                        // listed twice
+                        continue;
+                    }
+                    throw new IllegalArgumentException(String.format(
+                            "The processes '%s' and '%s' would share the channel group of '%s'", trackedProcess.entry,
+                            entry, key));
+                }
+                if (SELF.equals(entry)) {
+                    trackedProcess = new TrackedProcess(entry, operatingSystem.getProcessId(), null);
+                } else if (PID_PATTERN.matcher(entry).matches()) {
+                    trackedProcess = new TrackedProcess(entry, Integer.parseInt(entry), null);
+                } else {
+                    try {
+                        trackedProcess = new TrackedProcess(entry, 0, Pattern.compile(entry));
+                    } catch (PatternSyntaxException e) {
+                        throw new IllegalArgumentException("Invalid process name pattern: " + entry, e);
+                    }
+                }
+                trackedProcesses.put(key, trackedProcess);
+            }
+        }
+        return new ProcessTracker(new ArrayList<>(trackedProcesses.values()));
+    }
+
+    /**
+     * Returns the key of an entry, which can be used as part of a channel ID.
+     */
+    static String getKey(String entry) {
+        return entry.trim().replaceAll("[^\\w-]", "_");
+    }
+
+    /**
+     * @return the keys of all tracked entries in the configured order
+     */
+    public List<String> getKeys() {
+        List<String> keys = new ArrayList<>(trackedProcesses.size());
+        for (TrackedProcess trackedProcess : trackedProcesses) {
+            keys.add(trackedProcess.key);
+        }
+        return keys;
+    }
+
+    /**
+     * Samples all tracked processes at once.
+     *
+     * @return the samples by key of the tracked entry
+     */
+    public synchronized Map<String, ProcessSample> sample(OperatingSystem operatingSystem) {
+        if (trackedProcesses.isEmpty()) {
+            return Collections.emptyMap();
+        }
+
+        List<OSProcess> processes = new ArrayList<>();
+        if (scanAllProcesses) {
+            Collections.addAll(processes, operatingSystem.getProcesses(0, null));
+        } else {
+            for (TrackedProcess trackedProcess : trackedProcesses) {
+                OSProcess process = operatingSystem.getProcess(trackedProcess.pid);
+                if (process != null) {
+                    processes.add(process);
+                }
+            }
+        }
+        return sample(processes, System.currentTimeMillis());
+    }
+
+    /**
+     * Computes the samples of all tracked processes from the processes read at the given time.
+     */
+    synchronized Map<String, ProcessSample> sample(List<OSProcess> processes, long sampleTime) {
+        Map<Integer, CpuTime> cpuTimes = new HashMap<>();
+        Map<String, ProcessSample> samples = new HashMap<>();
+        for (TrackedProcess trackedProcess : trackedProcesses) {
+            int processCount = 0;
+            long usedCpuTime = 0;
+            long residentSetSize = 0;
+            int threadCount = 0;
+            for (OSProcess process : processes) {
+                if (!trackedProcess.matches(process)) {
+                    continue;
+                }
+                CpuTime cpuTime = new CpuTime(process);
+                cpuTimes.put(process.getProcessID(), cpuTime);
+
+                processCount++;
+                usedCpuTime += getUsedCpuTime(process.getProcessID(), cpuTime);
+                residentSetSize += process.getResidentSetSize();
+                threadCount += process.getThreadCount();
+            }
+
+            Double cpuLoad = null;
+            long elapsedTime = sampleTime - previousSampleTime;
+            if (previousCpuTimes != null && elapsedTime > 0) {
+                cpuLoad = 100.0 * usedCpuTime / elapsedTime;
+            }
+            samples.put(trackedProcess.key, new ProcessSample(processCount, cpuLoad, residentSetSize, threadCount));
+        }
+
+        previousCpuTimes = cpuTimes;
+        previousSampleTime = sampleTime;
+        return samples;
+    }
+
+    /**
+     * Returns the CPU time used by the process since the previous sample.
+     */
+    private long getUsedCpuTime(int pid, CpuTime cpuTime) {
+        if (previousCpuTimes == null) {
+            return 0;
+        }
+        CpuTime previousCpuTime = previousCpuTimes.get(pid);
+        if (previousCpuTime != null && Math.abs(previousCpuTime.startTime - cpuTime.startTime) < PID_REUSE_TOLERANCE) {
+            return Math.max(0, cpuTime.cpuTime - previousCpuTime.cpuTime);
+        }
+        if (cpuTime.startTime >= previousSampleTime) {
+            // the process has been started after the previous sample
+            return cpuTime.cpuTime;
+        }
+        // the process was not tracked at the previous sample
+        return 0;
+    }
+}
@@ -433,4 +433,132 @@ public interface SysteminfoInterface {
      */
     public DecimalType getProcessThreads(int pid) throws DeviceNotFoundException;
 
+    // JVM info
+    /**
+     * Returns the heap memory used by the Java virtual machine running this binding
+     *
+     * @return memory size in MB
+     */
+    public DecimalType getJvmHeapUsed();
+
+    /**
+     * Returns the heap memory committed by the Java virtual machine
+     *
+     * @return memory size in MB
+     */
+    public DecimalType getJvmHeapCommitted();
+
+    /**
+     * Returns the maximum heap memory of the Java virtual machine
+     *
+     * @return memory size in MB or null, if the maximum is not defined
+     */
+    public DecimalType getJvmHeapMax();
+
+    /**
+     * Returns the non-heap memory (e.g. metaspace and code cache) used by the Java virtual machine
+     *
+     * @return memory size in MB
+     */
+    public DecimalType getJvmNonHeapUsed();
+
+    /**
+     * Get the number of live threads of the Java virtual machine
+     *
+     * @return number of threads
+     */
+    public DecimalType getJvmThreads();
+
+    /**
+     * Get the number of live daemon threads of the Java virtual machine
+     *
+     * @return number of threads
+     */
+    public DecimalType getJvmDaemonThreads();
+
+    /**
+     * Get the peak number of live threads since the Java virtual machine has been started
+     *
+     * @return number of threads
+     */
+    public DecimalType getJvmPeakThreads();
+
+    /**
+     * Get the number of threads of a thread pool, e.g. the pool "thingHandler" of the Eclipse SmartHome framework
+     *
+     * @param poolName - the name of the thread pool
+     * @return number of threads or null, if no pool name is given
+     */
+    public DecimalType getJvmPoolThreads(String poolName);
+
+    /**
+     * Returns the rate, at which the threads of the Java virtual machine allocate heap memory. The rate is the average
+     * since the previous call.
+     *
+     * @return the rate in MB per second or null, if the Java virtual machine doesn't support the measurement
+     */
+    public DecimalType getJvmAllocationRate();
+
+    /**
+     * Get the name of the garbage collector
+     *
+     * @param deviceIndex - the index of the garbage collector
+     * @throws DeviceNotFoundException
+     */
+    public StringType getGarbageCollectorName(int deviceIndex) throws DeviceNotFoundException;
+
+    /**
+     * Get the number of collections since the Java virtual machine has been started
+     *
+     * @param deviceIndex - the index of the garbage collector
+     * @return number of collections or null, if no information is available
+     * @throws DeviceNotFoundException
+     */
+    public DecimalType getGarbageCollectorCount(int deviceIndex) throws DeviceNotFoundException;
+
+    /**
+     * Get the accumulated collection time (the pause time for stop-the-world collectors) since the Java virtual
+     * machine has been started
+     *
+     * @param deviceIndex - the index of the garbage collector
+     * @return time in ms or null, if no information is available
+     * @throws DeviceNotFoundException
+     */
+    public DecimalType getGarbageCollectorTime(int deviceIndex) throws DeviceNotFoundException;
+
+    // Tracked processes info
+    /**
+     * Returns the CPU load of the tracked processes since the previous sample
+     *
+     * @param key - the key of the tracked entry
+     * @return percentage value, 100% correspond to one logical processor, or null if there is no previous sample
+     * @throws DeviceNotFoundException - thrown if no entry with this key is tracked
+     */
+    public DecimalType getTrackedProcessLoad(String key) throws DeviceNotFoundException;
+
+    /**
+     * Returns the size of RAM memory used by the tracked processes
+     *
+     * @param key - the key of the tracked entry
+     * @return memory size in MB
+     * @throws DeviceNotFoundException - thrown if no entry with this key is tracked
+     */
+    public DecimalType getTrackedProcessMemory(String key) throws DeviceNotFoundException;
+
+    /**
+     * Returns the number of threads of the tracked processes
+     *
+     * @param key - the key of the tracked entry
+     * @throws DeviceNotFoundException - thrown if no entry with this key is tracked
+     */
+    public DecimalType getTrackedProcessThreads(String key) throws DeviceNotFoundException;
+
+    /**
+     * Returns the number of running processes matching the tracked entry
+     *
+     * @param key - the key of the tracked entry
+     * @throws DeviceNotFoundException - thrown if no entry with this key is tracked
+     */
+    public DecimalType getTrackedProcessCount(String key) throws DeviceNotFoundException;
+
 }
@@ -0,0 +1,235 @@
+/**
+ * Copyright (c) 2010-2017 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.binding.systeminfo.model;
+
+import java.lang.management.MemoryUsage;
+import java.lang.management.ThreadInfo;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.openhab.binding.systeminfo.model.ProcessTracker.ProcessSample;
+
+import oshi.hardware.GlobalMemory;
+import oshi.hardware.NetworkIF;
+import oshi.hardware.Sensors;
+import oshi.software.os.OSProcess;
+
+/**
+ * A snapshot of the system information used to refresh a group of channels at once. Every value is read from the
+ * system on first use and then kept for the lifetime of the snapshot, so e.g. the memory is read only once, even if
+ * all memory and swap channels are refreshed. Values, which are not used by any channel, are not read at all.
+ *
+ * A snapshot is created with {@link OshiSysteminfo#createSnapshot()} and should be discarded after the refresh.
+ *
+ * @author agent - Initial contribution
+ *
+ */
+class SysteminfoSnapshot extends OshiSysteminfo {
+
+    private GlobalMemory memorySample;
+    private SensorsSample sensorsSample;
+    private Double systemCpuLoad;
+    private double[] systemLoadAverages;
+    private Long systemUptime;
+    private Integer threadCount;
+    private MemoryUsage heapMemoryUsage;
+    private ThreadInfo[] jvmThreadInfos;
+    private boolean allocationRateSampled;
+    private Double allocationRate;
+    private final Map<Integer, NetworkIF> updatedNetworks = new HashMap<>();
+    private final Map<Integer, OSProcess> processes = new HashMap<>();
+    private Map<String, ProcessSample> trackedProcessSamples;
+
+    SysteminfoSnapshot(OshiSysteminfo source) {
+        super(source);
+    }
+
+    @Override
+    protected synchronized GlobalMemory getGlobalMemory() {
+        if (memorySample == null) {
+            memorySample = new MemorySample(super.getGlobalMemory());
+        }
+        return memorySample;
+    }
+
+    @Override
+    protected synchronized Sensors getSensors() {
+        if (sensorsSample == null) {
+            sensorsSample = new SensorsSample(super.getSensors());
+        }
+        return sensorsSample;
+    }
+
+    @Override
+    protected synchronized double getSystemCpuLoad() {
+        if (systemCpuLoad == null) {
+            systemCpuLoad = super.getSystemCpuLoad();
+        }
+        return systemCpuLoad;
+    }
+
+    @Override
+    protected synchronized double[] getSystemLoadAverages() {
+        if (systemLoadAverages == null) {
+            systemLoadAverages = super.getSystemLoadAverages();
+        }
+        return systemLoadAverages;
+    }
+
+    @Override
+    protected synchronized long getSystemUptime() {
+        if (systemUptime == null) {
+            systemUptime = super.getSystemUptime();
+        }
+        return systemUptime;
+    }
+
+    @Override
+    protected synchronized int getThreadCount() {
+        if (threadCount == null) {
+            threadCount = super.getThreadCount();
+        }
+        return threadCount;
+    }
+
+    @Override
+    protected synchronized MemoryUsage getHeapMemoryUsage() {
+        if (heapMemoryUsage == null) {
+            heapMemoryUsage = super.getHeapMemoryUsage();
+        }
+        return heapMemoryUsage;
+    }
+
+    @Override
+    protected synchronized ThreadInfo[] getJvmThreadInfos() {
+        if (jvmThreadInfos == null) {
+            jvmThreadInfos = super.getJvmThreadInfos();
+        }
+        return jvmThreadInfos;
+    }
+
+    @Override
+    protected synchronized Double getAllocationRate() {
+        // the rate is measured between two calls, so it must be sampled only once
+        if (!allocationRateSampled) {
+            allocationRate = super.getAllocationRate();
+            allocationRateSampled = true;
+        }
+        return allocationRate;
+    }
+
+    @Override
+    protected synchronized Map<String, ProcessSample> getTrackedProcessSamples() {
+        // all tracked processes are sampled with one scan, which also defines the interval of the CPU load
+        if (trackedProcessSamples == null) {
+            trackedProcessSamples = super.getTrackedProcessSamples();
+        }
+        return trackedProcessSamples;
+    }
+
+    @Override
+    protected synchronized NetworkIF getNetworkStats(int index) throws DeviceNotFoundException {
+        NetworkIF network = updatedNetworks.get(index);
+        if (network == null) {
+            network = super.getNetworkStats(index);
+            updatedNetworks.put(index, network);
+        }
+        return network;
+    }
+
+    @Override
+    protected synchronized OSProcess getProcess(int pid) throws DeviceNotFoundException {
+        OSProcess process = processes.get(pid);
+        if (process == null) {
+            process = super.getProcess(pid);
+            processes.put(pid, process);
+        }
+        return process;
+    }
+
+    /**
+     * The memory values read at once.
+     */
+    private static class MemorySample implements GlobalMemory {
+        private static final long serialVersionUID = 1L;
+
+        private final long total;
+        private final long available;
+        private final long swapTotal;
+        private final long swapUsed;
+
+        MemorySample(GlobalMemory memory) {
+            total = memory.getTotal();
+            available = memory.getAvailable();
+            swapTotal = memory.getSwapTotal();
+            swapUsed = memory.getSwapUsed();
+        }
+
+        @Override
+        public long getTotal() {
+            return total;
+        }
+
+        @Override
+        public long getAvailable() {
+            return available;
+        }
+
+        @Override
+        public long getSwapTotal() {
+            return swapTotal;
+        }
+
+        @Override
+        public long getSwapUsed() {
+            return swapUsed;
+        }
+    }
+
+    /**
+     * The sensor values, each read on first use. Reading the sensors may be slow on some platforms, so only the
+     * values used by a channel are read.
+     */
+    private static class SensorsSample implements Sensors {
+        private static final long serialVersionUID = 1L;
+
+        private final transient Sensors sensors;
+        private Double cpuTemperature;
+        private Double cpuVoltage;
+        private int[] fanSpeeds;
+
+        SensorsSample(Sensors sensors) {
+            this.sensors = sensors;
+        }
+
+        @Override
+        public double getCpuTemperature() {
+            if (cpuTemperature == null) {
+                cpuTemperature = sensors.getCpuTemperature();
+            }
+            return cpuTemperature;
+        }
+
+        @Override
+        public int[] getFanSpeeds() {
+            if (fanSpeeds == null) {
+                fanSpeeds = sensors.getFanSpeeds();
+            }
+            return fanSpeeds;
+        }
+
+        @Override
+        public double getCpuVoltage() {
+            if (cpuVoltage == null) {
+                cpuVoltage = sensors.getCpuVoltage();
+            }
+            return cpuVoltage;
+        }
+    }
+}
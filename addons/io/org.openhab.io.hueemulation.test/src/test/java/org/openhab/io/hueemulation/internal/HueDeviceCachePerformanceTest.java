@@ -0,0 +1,154 @@
+/**
+ * Copyright (c) 2010-2017 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.io.hueemulation.internal;
+
+import static org.junit.Assert.*;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.eclipse.smarthome.core.items.GenericItem;
+import org.eclipse.smarthome.core.items.Item;
+import org.eclipse.smarthome.core.library.items.ColorItem;
+import org.eclipse.smarthome.core.library.items.DimmerItem;
+import org.eclipse.smarthome.core.library.items.SwitchItem;
+import org.eclipse.smarthome.core.library.types.DecimalType;
+import org.eclipse.smarthome.core.library.types.HSBType;
+import org.eclipse.smarthome.core.library.types.OnOffType;
+import org.eclipse.smarthome.core.library.types.PercentType;
+import org.eclipse.smarthome.core.types.State;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.openhab.io.hueemulation.internal.api.HueDataStore;
+import org.openhab.io.hueemulation.internal.api.HueDevice;
+import org.openhab.io.hueemulation.test.PerformanceTests;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.gson.Gson;
+
+/**
+ * Compares the polling of all lights and their names from the {@link HueDeviceCache} with a serialization of all
+ * tagged items on every poll, with one state change between two polls. The load can be changed with the system
+ * properties hueemulation.performance.items, hueemulation.performance.taggedItems and hueemulation.performance.polls.
+ *
+ * @author agent - Initial contribution
+ */
+@Category(PerformanceTests.class)
+public class HueDeviceCachePerformanceTest {
+    private final Logger logger = LoggerFactory.getLogger(HueDeviceCachePerformanceTest.class);
+    private static final int ITEM_COUNT = Integer.getInteger("hueemulation.performance.items", 2000);
+    private static final int TAGGED_ITEM_COUNT = Integer.getInteger("hueemulation.performance.taggedItems", 300);
+    private static final int POLL_COUNT = Integer.getInteger("hueemulation.performance.polls", 3000);
+    private static final int RUNS = 2;
+
+    private final Gson gson = new Gson();
+    private final TestItemRegistry items = new TestItemRegistry();
+    private final List<String> supportedTags = Arrays.asList(HueDeviceCache.SUPPORTED_TAGS);
+    private final ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
+
+    @Before
+    public void setUp() {
+        for (int i = 0; i < ITEM_COUNT; i++) {
+            GenericItem item;
+            State state;
+            if (i % 3 == 0) {
+                item = new SwitchItem("Item_" + i);
+                state = OnOffType.ON;
+            } else if (i % 3 == 1) {
+                item = new DimmerItem("Item_" + i);
+                state = new PercentType(i % 100);
+            } else {
+                item = new ColorItem("Item_" + i);
+                state = new HSBType(new DecimalType(120), new PercentType(50), new PercentType(i % 100));
+            }
+            item.setLabel("Label " + i);
+            item.addTag(i < TAGGED_ITEM_COUNT ? HueDeviceCache.SUPPORTED_TAGS[i % 3] : "Other");
+            item.setState(state);
+            items.put(item);
+        }
+    }
+
+    @Test
+    public void testCachedPolls() {
+        HueDeviceCache cache = new HueDeviceCache(gson, items.getItemRegistry());
+        double[] serializedMicros = null;
+        double[] cachedMicros = null;
+        // the first run warms up the JIT
+        for (int run = 0; run < RUNS; run++) {
+            serializedMicros = poll(false, cache);
+            cachedMicros = poll(true, cache);
+        }
+        logger.info("{} items, {} tagged: serialized {} us wall / {} us CPU per poll, cached {} us wall / {} us CPU",
+                ITEM_COUNT, TAGGED_ITEM_COUNT, format(serializedMicros[0]), format(serializedMicros[1]),
+                format(cachedMicros[0]), format(cachedMicros[1]));
+        assertTrue("Cached polls are slower than serialized polls", cachedMicros[1] < serializedMicros[1]);
+    }
+
+    /**
+     * Polls the lights and their names, after changing the state of a random tagged item.
+     *
+     * @return the wall clock and CPU time of a poll in microseconds
+     */
+    private double[] poll(boolean cached, HueDeviceCache cache) {
+        Random random = new Random(1);
+        long length = 0;
+        long startCpuTime = threadMXBean.getCurrentThreadCpuTime();
+        long startTime = System.nanoTime();
+        for (int i = 0; i < POLL_COUNT; i++) {
+            GenericItem item = (GenericItem) items.getItemRegistry().get("Item_" + random.nextInt(TAGGED_ITEM_COUNT));
+            item.setState(new PercentType(random.nextInt(100)));
+            if (cached) {
+                length += cache.getDevicesJson().length() + cache.getDeviceNamesJson().length();
+            } else {
+                length += serializeDataStore().length() + serializeDeviceNames().length();
+            }
+        }
+        double wallMicros = (System.nanoTime() - startTime) / 1000.0 / POLL_COUNT;
+        double cpuMicros = (threadMXBean.getCurrentThreadCpuTime() - startCpuTime) / 1000.0 / POLL_COUNT;
+        logger.debug("{} bytes per poll", length / POLL_COUNT);
+        return new double[] { wallMicros, cpuMicros };
+    }
+
+    /**
+     * Serializes all tagged items like the servlet did before the devices were cached.
+     */
+    private String serializeDataStore() {
+        Map<String, HueDevice> devices = new HashMap<String, HueDevice>();
+        for (Item item : items.getItems()) {
+            if (!Collections.disjoint(item.getTags(), supportedTags)) {
+                devices.put(item.getName(), HueDeviceCache.itemToDevice(item));
+            }
+        }
+        HueDataStore dataStore = new HueDataStore();
+        dataStore.lights = devices;
+        return gson.toJson(dataStore);
+    }
+
+    private String serializeDeviceNames() {
+        Map<String, String> names = new HashMap<String, String>();
+        for (Item item : items.getItems()) {
+            if (!Collections.disjoint(item.getTags(), supportedTags)) {
+                names.put(item.getName(), item.getLabel());
+            }
+        }
+        return gson.toJson(names);
+    }
+
+    private String format(double micros) {
+        return String.format("%.1f", micros);
+    }
+}
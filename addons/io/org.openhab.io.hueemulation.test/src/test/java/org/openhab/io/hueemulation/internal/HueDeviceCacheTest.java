@@ -0,0 +1,224 @@
+/**
+ * Copyright (c) 2010-2017 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.io.hueemulation.internal;
+
+import static org.junit.Assert.*;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Random;
+
+import org.eclipse.smarthome.core.items.GenericItem;
+import org.eclipse.smarthome.core.items.Item;
+import org.eclipse.smarthome.core.library.items.ColorItem;
+import org.eclipse.smarthome.core.library.items.DimmerItem;
+import org.eclipse.smarthome.core.library.items.NumberItem;
+import org.eclipse.smarthome.core.library.items.SwitchItem;
+import org.eclipse.smarthome.core.library.types.DecimalType;
+import org.eclipse.smarthome.core.library.types.HSBType;
+import org.eclipse.smarthome.core.library.types.OnOffType;
+import org.eclipse.smarthome.core.library.types.PercentType;
+import org.junit.Test;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonParser;
+
+/**
+ * Tests for the {@link HueDeviceCache}, which has to return the same JSON as a serialization of all tagged items.
+ *
+ * @author agent - Initial contribution
+ */
+public class HueDeviceCacheTest {
+    private final Gson gson = new Gson();
+    private final JsonParser parser = new JsonParser();
+    private final TestItemRegistry items = new TestItemRegistry();
+
+    @Test
+    public void testOnlyTaggedItemsAreDevices() {
+        items.put(item(new SwitchItem("Light"), "Lighting"));
+        items.put(item(new SwitchItem("Plug"), "Switchable"));
+        items.put(item(new NumberItem("Heating"), "TargetTemperature"));
+        items.put(item(new SwitchItem("Alarm"), "Other"));
+        items.put(item(new SwitchItem("Untagged")));
+        HueDeviceCache cache = new HueDeviceCache(gson, items.getItemRegistry());
+
+        assertEquals(new HashSet<String>(Arrays.asList("Light", "Plug", "Heating")),
+                new HashSet<String>(Arrays.asList(cache.getDeviceNames())));
+        assertNull(cache.getDeviceJson("Alarm"));
+        assertNull(cache.getDeviceJson("Unknown"));
+    }
+
+    @Test
+    public void testAddedTaggedItemIsDevice() {
+        HueDeviceCache cache = new HueDeviceCache(gson, items.getItemRegistry());
+        SwitchItem light = items.put(item(new SwitchItem("Light"), "Lighting"));
+        cache.added(light);
+
+        assertJsonEquals("{\"Light\":\"Label Light\"}", cache.getDeviceNamesJson());
+        assertNotNull(cache.getDeviceJson("Light"));
+    }
+
+    @Test
+    public void testRemovedItemIsNoDevice() {
+        SwitchItem light = items.put(item(new SwitchItem("Light"), "Lighting"));
+        HueDeviceCache cache = new HueDeviceCache(gson, items.getItemRegistry());
+        items.remove("Light");
+        cache.removed(light);
+
+        assertJsonEquals("{}", cache.getDeviceNamesJson());
+        assertJsonEquals("{}", cache.getDevicesJson());
+    }
+
+    @Test
+    public void testTagAddedByUpdate() {
+        SwitchItem untagged = items.put(item(new SwitchItem("Light")));
+        HueDeviceCache cache = new HueDeviceCache(gson, items.getItemRegistry());
+        assertEquals(0, cache.getDeviceNames().length);
+
+        SwitchItem tagged = items.put(item(new SwitchItem("Light"), "Lighting"));
+        cache.updated(untagged, tagged);
+        assertArrayEquals(new String[] { "Light" }, cache.getDeviceNames());
+    }
+
+    @Test
+    public void testTagRemovedByUpdate() {
+        SwitchItem tagged = items.put(item(new SwitchItem("Light"), "Lighting"));
+        HueDeviceCache cache = new HueDeviceCache(gson, items.getItemRegistry());
+        assertEquals(1, cache.getDeviceNames().length);
+
+        SwitchItem untagged = items.put(item(new SwitchItem("Light")));
+        cache.updated(tagged, untagged);
+        assertEquals(0, cache.getDeviceNames().length);
+        assertNull(cache.getDeviceJson("Light"));
+    }
+
+    @Test
+    public void testLabelChangedByUpdate() {
+        SwitchItem light = items.put(item(new SwitchItem("Light"), "Lighting"));
+        HueDeviceCache cache = new HueDeviceCache(gson, items.getItemRegistry());
+        cache.getDeviceJson("Light");
+
+        SwitchItem renamed = item(new SwitchItem("Light"), "Lighting");
+        renamed.setLabel("Ceiling");
+        items.put(renamed);
+        cache.updated(light, renamed);
+        assertJsonEquals("{\"Light\":\"Ceiling\"}", cache.getDeviceNamesJson());
+        assertJsonEquals(gson.toJson(HueDeviceCache.itemToDevice(renamed)), cache.getDeviceJson("Light"));
+    }
+
+    @Test
+    public void testAllItemsChangedReindexes() {
+        items.put(item(new SwitchItem("Light"), "Lighting"));
+        HueDeviceCache cache = new HueDeviceCache(gson, items.getItemRegistry());
+        items.remove("Light");
+        items.put(item(new SwitchItem("Plug"), "Switchable"));
+        cache.allItemsChanged(Collections.singleton("Light"));
+
+        assertArrayEquals(new String[] { "Plug" }, cache.getDeviceNames());
+    }
+
+    @Test
+    public void testStateChangeIsSerialized() {
+        SwitchItem light = items.put(item(new SwitchItem("Light"), "Lighting"));
+        light.setState(OnOffType.ON);
+        HueDeviceCache cache = new HueDeviceCache(gson, items.getItemRegistry());
+        String on = cache.getDeviceJson("Light");
+        assertSame(on, cache.getDeviceJson("Light"));
+
+        light.setState(OnOffType.OFF);
+        String off = cache.getDeviceJson("Light");
+        assertNotEquals(on, off);
+        assertJsonEquals(gson.toJson(HueDeviceCache.itemToDevice(light)), off);
+    }
+
+    @Test
+    public void testDeviceJsonEqualsSerializedDevice() {
+        SwitchItem light = items.put(item(new SwitchItem("Light"), "Lighting"));
+        light.setState(OnOffType.ON);
+        DimmerItem dimmer = items.put(item(new DimmerItem("Dimmer"), "Lighting"));
+        dimmer.setState(new PercentType(42));
+        ColorItem color = items.put(item(new ColorItem("Color"), "Lighting"));
+        color.setState(new HSBType(new DecimalType(120), new PercentType(50), new PercentType(75)));
+        NumberItem heating = items.put(item(new NumberItem("Heating"), "TargetTemperature"));
+        heating.setState(new DecimalType(21));
+        items.put(item(new SwitchItem("Undefined"), "Switchable"));
+        HueDeviceCache cache = new HueDeviceCache(gson, items.getItemRegistry());
+
+        for (Item item : items.getItems()) {
+            assertJsonEquals(gson.toJson(HueDeviceCache.itemToDevice(item)), cache.getDeviceJson(item.getName()));
+        }
+    }
+
+    @Test
+    public void testManyItemsEqualSerializedDevices() {
+        Random random = new Random(1);
+        for (int i = 0; i < 2000; i++) {
+            if (i < 300) {
+                String tag = HueDeviceCache.SUPPORTED_TAGS[i % HueDeviceCache.SUPPORTED_TAGS.length];
+                items.put(item(new DimmerItem("Item_" + i), tag)).setState(new PercentType(i % 100));
+            } else {
+                items.put(item(new SwitchItem("Item_" + i), "Other")).setState(OnOffType.ON);
+            }
+        }
+        HueDeviceCache cache = new HueDeviceCache(gson, items.getItemRegistry());
+        assertEquals(300, cache.getDeviceNames().length);
+
+        for (int poll = 0; poll < 10; poll++) {
+            assertJsonEquals(serializeDevices(), cache.getDevicesJson());
+            assertJsonEquals(serializeDeviceNames(), cache.getDeviceNamesJson());
+            ((GenericItem) items.getItemRegistry().get("Item_" + random.nextInt(300)))
+                    .setState(new PercentType(random.nextInt(100)));
+        }
+    }
+
+    /**
+     * Serializes all tagged items like the servlet did before the devices were cached.
+     */
+    private String serializeDevices() {
+        Map<String, Object> devices = new HashMap<String, Object>();
+        for (Item item : items.getItems()) {
+            if (isTagged(item)) {
+                devices.put(item.getName(), HueDeviceCache.itemToDevice(item));
+            }
+        }
+        return gson.toJson(devices);
+    }
+
+    private String serializeDeviceNames() {
+        Map<String, String> names = new HashMap<String, String>();
+        for (Item item : items.getItems()) {
+            if (isTagged(item)) {
+                names.put(item.getName(), item.getLabel());
+            }
+        }
+        return gson.toJson(names);
+    }
+
+    private boolean isTagged(Item item) {
+        return !Collections.disjoint(item.getTags(), Arrays.asList(HueDeviceCache.SUPPORTED_TAGS));
+    }
+
+    private <T extends GenericItem> T item(T item, String... tags) {
+        item.setLabel("Label " + item.getName());
+        for (String tag : tags) {
+            item.addTag(tag);
+        }
+        return item;
+    }
+
+    private void assertJsonEquals(String expected, String actual) {
+        JsonElement expectedJson = parser.parse(expected);
+        JsonElement actualJson = parser.parse(actual);
+        assertEquals(expectedJson, actualJson);
+    }
+}
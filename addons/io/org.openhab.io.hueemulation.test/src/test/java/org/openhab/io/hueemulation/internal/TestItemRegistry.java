@@ -0,0 +1,62 @@
+/**
+ * Copyright (c) 2010-2017 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.io.hueemulation.internal;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.eclipse.smarthome.core.items.Item;
+import org.eclipse.smarthome.core.items.ItemRegistry;
+
+/**
+ * The items of a test, with an {@link ItemRegistry} implementing the methods used by the {@link HueDeviceCache}.
+ *
+ * @author agent - Initial contribution
+ */
+class TestItemRegistry {
+    private final Map<String, Item> items = new LinkedHashMap<String, Item>();
+
+    private final ItemRegistry itemRegistry = (ItemRegistry) Proxy.newProxyInstance(
+            ItemRegistry.class.getClassLoader(), new Class<?>[] { ItemRegistry.class }, new InvocationHandler() {
+
+                @Override
+                public Object invoke(Object proxy, Method method, Object[] args) {
+                    if (method.getName().equals("get") && args != null && args.length == 1) {
+                        return items.get(args[0]);
+                    } else if (method.getName().equals("getItems") && args == null) {
+                        return new ArrayList<Item>(items.values());
+                    }
+                    throw new UnsupportedOperationException(method.toString());
+                }
+            });
+
+    ItemRegistry getItemRegistry() {
+        return itemRegistry;
+    }
+
+    /**
+     * Adds or replaces an item, without notifying any listener.
+     */
+    <T extends Item> T put(T item) {
+        items.put(item.getName(), item);
+        return item;
+    }
+
+    void remove(String itemName) {
+        items.remove(itemName);
+    }
+
+    Iterable<Item> getItems() {
+        return items.values();
+    }
+}
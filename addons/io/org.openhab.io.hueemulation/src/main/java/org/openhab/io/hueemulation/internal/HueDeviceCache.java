@@ -0,0 +1,252 @@
+/**
+ * Copyright (c) 2010-2017 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.io.hueemulation.internal;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.commons.lang.ArrayUtils;
+import org.apache.commons.lang.ObjectUtils;
+import org.eclipse.smarthome.core.items.Item;
+import org.eclipse.smarthome.core.items.ItemRegistry;
+import org.eclipse.smarthome.core.items.ItemRegistryChangeListener;
+import org.eclipse.smarthome.core.library.types.DecimalType;
+import org.eclipse.smarthome.core.library.types.HSBType;
+import org.eclipse.smarthome.core.library.types.OnOffType;
+import org.eclipse.smarthome.core.types.State;
+import org.openhab.io.hueemulation.internal.api.HueDevice;
+import org.openhab.io.hueemulation.internal.api.HueState;
+
+import com.google.gson.Gson;
+
+/**
+ * Keeps the items with a supported tag and the JSON of their Hue devices, so polling clients (Amazon Echo, Harmony
+ * Hub) do not cause a scan of all items and a serialization of all devices on every request.
+ *
+ * The index of tagged items is updated by the item registry events. The JSON of a device is serialized again, when
+ * the state of its item differs from the state it was serialized with.
+ *
+ * @author agent - Initial contribution
+ *
+ */
+public class HueDeviceCache implements ItemRegistryChangeListener {
+
+    static final String[] SUPPORTED_TAGS = new String[] { "Switchable", "Lighting", "TargetTemperature" };
+
+    private final Gson gson;
+    private final ItemRegistry itemRegistry;
+
+    /**
+     * tagged items by name
+     */
+    private final Map<String, CachedDevice> devices = new ConcurrentHashMap<String, CachedDevice>();
+
+    /**
+     * A tagged item with its pre-serialized JSON fragments
+     */
+    private static class CachedDevice {
+        private final String name;
+        private final String label;
+
+        /**
+         * the quoted item name, used as the JSON key of the device
+         */
+        private final String jsonName;
+
+        /**
+         * "name":"label" of the device listing
+         */
+        private final String jsonNameEntry;
+
+        private volatile SerializedState serialized;
+
+        CachedDevice(Gson gson, Item item) {
+            this.name = item.getName();
+            this.label = item.getLabel();
+            this.jsonName = gson.toJson(name);
+            this.jsonNameEntry = jsonName + ":" + gson.toJson(label);
+        }
+    }
+
+    /**
+     * The JSON of a device and the item state it has been serialized with
+     */
+    private static class SerializedState {
+        private final State state;
+        private final String json;
+
+        SerializedState(State state, String json) {
+            this.state = state;
+            this.json = json;
+        }
+    }
+
+    public HueDeviceCache(Gson gson, ItemRegistry itemRegistry) {
+        this.gson = gson;
+        this.itemRegistry = itemRegistry;
+        indexItems();
+    }
+
+    /**
+     * @return the names of all tagged items
+     */
+    public String[] getDeviceNames() {
+        return devices.keySet().toArray(new String[0]);
+    }
+
+    /**
+     * Returns the JSON object of a tagged item's Hue device
+     *
+     * @param itemName
+     * @return
+     *         the JSON or null, if the item is not tagged or does not exist anymore
+     */
+    public String getDeviceJson(String itemName) {
+        CachedDevice device = devices.get(itemName);
+        if (device == null) {
+            return null;
+        }
+        return getDeviceJson(device);
+    }
+
+    /**
+     * Returns the JSON object of all tagged items with their names as keys and their Hue devices as values
+     *
+     * @return
+     *         JSON object {"item name":{device},...}
+     */
+    public String getDevicesJson() {
+        StringBuilder json = new StringBuilder(devices.size() * 400);
+        json.append('{');
+        for (CachedDevice device : devices.values()) {
+            String deviceJson = getDeviceJson(device);
+            if (deviceJson == null) {
+                continue;
+            }
+            if (json.length() > 1) {
+                json.append(',');
+            }
+            json.append(device.jsonName).append(':').append(deviceJson);
+        }
+        return json.append('}').toString();
+    }
+
+    /**
+     * Returns the JSON object of all tagged items with their names as keys and their labels as values
+     *
+     * @return
+     *         JSON object {"item name":"item label",...}
+     */
+    public String getDeviceNamesJson() {
+        StringBuilder json = new StringBuilder(devices.size() * 40);
+        json.append('{');
+        for (CachedDevice device : devices.values()) {
+            if (json.length() > 1) {
+                json.append(',');
+            }
+            json.append(device.jsonNameEntry);
+        }
+        return json.append('}').toString();
+    }
+
+    private String getDeviceJson(CachedDevice device) {
+        Item item = itemRegistry.get(device.name);
+        if (item == null) {
+            return null;
+        }
+        State state = item.getState();
+        SerializedState serialized = device.serialized;
+        if (serialized == null || !ObjectUtils.equals(serialized.state, state)) {
+            // concurrent requests may both serialize the new state, which is cheaper than locking every request
+            serialized = new SerializedState(state, gson.toJson(itemToDevice(item.getName(), device.label, state)));
+            device.serialized = serialized;
+        }
+        return serialized.json;
+    }
+
+    /**
+     * Converts an Item to a HueDevice
+     *
+     * @param item
+     * @return
+     *         HueDevice
+     */
+    public static HueDevice itemToDevice(Item item) {
+        return itemToDevice(item.getName(), item.getLabel(), item.getState());
+    }
+
+    private static HueDevice itemToDevice(String name, String label, State itemState) {
+        HueState hueState;
+        if (itemState instanceof HSBType) {
+            HSBType color = (HSBType) itemState;
+            hueState = new HueState(color);
+        } else if (itemState instanceof DecimalType) {
+            short bri = (short) ((((DecimalType) itemState).intValue() * 255) / 100);
+            hueState = new HueState(bri);
+        } else if (itemState instanceof OnOffType) {
+            short bri = (short) (((OnOffType) itemState) == OnOffType.ON ? 255 : 0);
+            hueState = new HueState(bri);
+        } else {
+            hueState = new HueState((short) 0);
+        }
+
+        return new HueDevice(hueState, label, name);
+    }
+
+    private static boolean hasSupportedTag(Item item) {
+        for (String tag : item.getTags()) {
+            if (ArrayUtils.contains(SUPPORTED_TAGS, tag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void indexItems() {
+        List<String> names = new ArrayList<String>();
+        for (Item item : itemRegistry.getItems()) {
+            if (hasSupportedTag(item)) {
+                devices.put(item.getName(), new CachedDevice(gson, item));
+                names.add(item.getName());
+            }
+        }
+        devices.keySet().retainAll(names);
+    }
+
+    @Override
+    public void added(Item element) {
+        if (hasSupportedTag(element)) {
+            devices.put(element.getName(), new CachedDevice(gson, element));
+        } else {
+            devices.remove(element.getName());
+        }
+    }
+
+    @Override
+    public void removed(Item element) {
+        devices.remove(element.getName());
+    }
+
+    @Override
+    public void updated(Item oldElement, Item element) {
+        // the tags or the label may have changed
+        if (!oldElement.getName().equals(element.getName())) {
+            devices.remove(oldElement.getName());
+        }
+        added(element);
+    }
+
+    @Override
+    public void allItemsChanged(Collection<String> oldItemNames) {
+        indexItems();
+    }
+}
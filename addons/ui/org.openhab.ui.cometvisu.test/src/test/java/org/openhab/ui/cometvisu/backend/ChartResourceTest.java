@@ -0,0 +1,57 @@
+/**
+ * Copyright (c) 2010-2017 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.ui.cometvisu.backend;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+/**
+ * Tests for the number of points, to which the {@link ChartResource} reduces a series.
+ *
+ * @author agent - Initial contribution
+ */
+public class ChartResourceTest {
+    private static final long DAY = 86400;
+
+    @Test
+    public void testSeriesIsNotReducedWithoutPointsAndResolution() {
+        assertEquals(0, ChartResource.getMaxPoints(DAY, 0, 0));
+        assertEquals(0, ChartResource.getMaxPoints(DAY, 0, -1));
+        assertEquals(0, ChartResource.getMaxPoints(0, 60, 0));
+    }
+
+    @Test
+    public void testRequestedPoints() {
+        assertEquals(500, ChartResource.getMaxPoints(DAY, 0, 500));
+    }
+
+    @Test
+    public void testPointsOfTheResolution() {
+        assertEquals(1440, ChartResource.getMaxPoints(DAY, 60, 0));
+    }
+
+    @Test
+    public void testLowerOfRequestedPointsAndPointsOfTheResolution() {
+        assertEquals(288, ChartResource.getMaxPoints(DAY, 300, 500));
+        assertEquals(500, ChartResource.getMaxPoints(DAY, 60, 500));
+    }
+
+    @Test
+    public void testMinimumPoints() {
+        assertEquals(10, ChartResource.getMaxPoints(DAY, 0, 3));
+        assertEquals(10, ChartResource.getMaxPoints(DAY, DAY / 5, 0));
+        assertEquals(10, ChartResource.getMaxPoints(DAY, 2 * DAY, 0));
+    }
+
+    @Test
+    public void testPointsOfAFineResolutionAreLimited() {
+        assertEquals(Integer.MAX_VALUE, ChartResource.getMaxPoints(Long.MAX_VALUE, 1, 0));
+    }
+}
@@ -0,0 +1,174 @@
+/**
+ * Copyright (c) 2010-2017 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.ui.cometvisu.backend;
+
+import static org.junit.Assert.*;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+/**
+ * Tests for the expiry and the eviction of the {@link ChartSeriesCache}.
+ *
+ * @author agent - Initial contribution
+ */
+public class ChartSeriesCacheTest {
+    private static final int HALF_MAX_ROWS = 100000;
+
+    private long now = 1000000L;
+
+    private final ChartSeriesCache cache = new ChartSeriesCache() {
+        @Override
+        long currentTimeMillis() {
+            return now;
+        }
+    };
+
+    @Test
+    public void testSeriesIsCached() {
+        CountingLoader loader = new CountingLoader(10);
+        ChartSeries series = cache.get("Temperature", 10000, loader);
+
+        assertSame(series, cache.get("Temperature", 10000, loader));
+        assertEquals(1, loader.loaded.get());
+    }
+
+    @Test
+    public void testSeriesExpires() {
+        CountingLoader loader = new CountingLoader(10);
+        cache.get("Temperature", 10000, loader);
+
+        now += 9999;
+        cache.get("Temperature", 10000, loader);
+        assertEquals(1, loader.loaded.get());
+
+        now += 1;
+        cache.get("Temperature", 10000, loader);
+        assertEquals(2, loader.loaded.get());
+    }
+
+    @Test
+    public void testShortTimeToLiveIsExtended() {
+        CountingLoader loader = new CountingLoader(10);
+        cache.get("Temperature", 1000, loader);
+
+        now += 4999;
+        cache.get("Temperature", 1000, loader);
+        assertEquals(1, loader.loaded.get());
+
+        now += 1;
+        cache.get("Temperature", 1000, loader);
+        assertEquals(2, loader.loaded.get());
+    }
+
+    @Test
+    public void testLongTimeToLiveIsLimited() {
+        CountingLoader loader = new CountingLoader(10);
+        cache.get("Temperature", 3600000, loader);
+
+        now += 60000;
+        cache.get("Temperature", 3600000, loader);
+        assertEquals(2, loader.loaded.get());
+    }
+
+    @Test
+    public void testLeastRecentlyUsedSeriesIsEvicted() {
+        CountingLoader first = new CountingLoader(HALF_MAX_ROWS);
+        CountingLoader second = new CountingLoader(HALF_MAX_ROWS);
+        CountingLoader third = new CountingLoader(1);
+        cache.get("First", 60000, first);
+        cache.get("Second", 60000, second);
+        // the first series is used again, so the second one is the least recently used
+        cache.get("First", 60000, first);
+
+        cache.get("Third", 60000, third);
+        cache.get("First", 60000, first);
+        cache.get("Third", 60000, third);
+        assertEquals(1, first.loaded.get());
+        assertEquals(1, third.loaded.get());
+
+        cache.get("Second", 60000, second);
+        assertEquals(2, second.loaded.get());
+    }
+
+    @Test
+    public void testSeriesUpToTheRowLimitAreKept() {
+        CountingLoader first = new CountingLoader(HALF_MAX_ROWS);
+        CountingLoader second = new CountingLoader(HALF_MAX_ROWS);
+        cache.get("First", 60000, first);
+        cache.get("Second", 60000, second);
+
+        cache.get("First", 60000, first);
+        cache.get("Second", 60000, second);
+        assertEquals(1, first.loaded.get());
+        assertEquals(1, second.loaded.get());
+    }
+
+    @Test
+    public void testReplacedSeriesIsNotCountedTwice() {
+        CountingLoader first = new CountingLoader(HALF_MAX_ROWS);
+        CountingLoader second = new CountingLoader(HALF_MAX_ROWS);
+        cache.get("First", 60000, first);
+        cache.get("Second", 60000, second);
+
+        // the expired series is replaced, so the rows of both series are still within the limit
+        now += 60000;
+        cache.get("First", 5000, first);
+        cache.get("Second", 5000, second);
+        assertEquals(2, first.loaded.get());
+        assertEquals(2, second.loaded.get());
+
+        cache.get("First", 5000, first);
+        cache.get("Second", 5000, second);
+        assertEquals(2, first.loaded.get());
+        assertEquals(2, second.loaded.get());
+    }
+
+    @Test
+    public void testFailedLoadIsNotCached() {
+        final AtomicInteger attempts = new AtomicInteger();
+        Callable<ChartSeries> failingLoader = new Callable<ChartSeries>() {
+
+            @Override
+            public ChartSeries call() {
+                attempts.incrementAndGet();
+                throw new IllegalArgumentException("no persistence service");
+            }
+        };
+        for (int i = 0; i < 2; i++) {
+            try {
+                cache.get("Temperature", 10000, failingLoader);
+                fail("Expected an IllegalArgumentException");
+            } catch (IllegalArgumentException e) {
+                assertEquals("no persistence service", e.getMessage());
+            }
+        }
+        assertEquals(2, attempts.get());
+    }
+
+    /**
+     * Loads a series with the given number of rows and counts the loads.
+     */
+    private static class CountingLoader implements Callable<ChartSeries> {
+        private final int rowCount;
+        private final AtomicInteger loaded = new AtomicInteger();
+
+        CountingLoader(int rowCount) {
+            this.rowCount = rowCount;
+        }
+
+        @Override
+        public ChartSeries call() {
+            loaded.incrementAndGet();
+            return new ChartSeries(new long[rowCount], new double[1][rowCount]);
+        }
+    }
+}
@@ -0,0 +1,161 @@
+/**
+ * Copyright (c) 2010-2017 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.ui.cometvisu.backend;
+
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.junit.Test;
+
+/**
+ * Tests for merging, downsampling and writing a {@link ChartSeries}.
+ *
+ * @author agent - Initial contribution
+ */
+public class ChartSeriesTest {
+    private static final double DELTA = 0.000001;
+
+    @Test
+    public void testDownsampleKeepsFirstAndLastRow() {
+        double[] values = new double[100];
+        for (int row = 0; row < values.length; row++) {
+            values[row] = Math.sin(row / 10.0);
+        }
+        ChartSeries series = createSeries(values);
+
+        ChartSeries sampled = series.downsample(10);
+        assertEquals(10, sampled.getRowCount());
+        assertEquals(series.getTimestamp(0), sampled.getTimestamp(0));
+        assertEquals(series.getTimestamp(99), sampled.getTimestamp(9));
+        assertEquals(series.getValue(0, 99), sampled.getValue(0, 9), DELTA);
+        for (int row = 1; row < sampled.getRowCount(); row++) {
+            assertTrue(sampled.getTimestamp(row - 1) < sampled.getTimestamp(row));
+        }
+    }
+
+    @Test
+    public void testDownsampleKeepsSpike() {
+        double[] values = new double[100];
+        Arrays.fill(values, 1.0);
+        values[57] = 100.0;
+        ChartSeries series = createSeries(values);
+
+        assertRowKept(series.downsample(10), 57000, 0, 100.0);
+    }
+
+    @Test
+    public void testDownsampleKeepsSpikeOfAnyColumn() {
+        double[] first = new double[100];
+        Arrays.fill(first, 1.0);
+        double[] second = new double[100];
+        Arrays.fill(second, 2.0);
+        second[23] = -50.0;
+        ChartSeries series = createSeries(first, second);
+
+        assertRowKept(series.downsample(10), 23000, 1, -50.0);
+    }
+
+    @Test
+    public void testDownsampleIgnoresMissingValues() {
+        double[] values = new double[100];
+        Arrays.fill(values, 1.0);
+        Arrays.fill(values, 10, 30, Double.NaN);
+        values[57] = Double.NaN;
+        values[58] = 100.0;
+        ChartSeries series = createSeries(values);
+
+        assertRowKept(series.downsample(10), 58000, 0, 100.0);
+    }
+
+    @Test
+    public void testDownsampleReturnsSeriesWithoutEnoughRowsUnchanged() {
+        ChartSeries series = createSeries(new double[100]);
+        assertSame(series, series.downsample(100));
+        assertSame(series, series.downsample(1000));
+        assertSame(series, series.downsample(2));
+        assertSame(series, series.downsample(0));
+    }
+
+    @Test
+    public void testMergeOfOneSeriesReturnsIt() {
+        ChartSeries series = createSeries(new double[10]);
+        assertSame(series, ChartSeries.merge(Collections.singletonList(series)));
+    }
+
+    @Test
+    public void testMergeOfSeriesWithTheSameTimestamps() {
+        ChartSeries first = new ChartSeries(new long[] { 0, 1000 }, new double[][] { { 1, 2 } });
+        ChartSeries second = new ChartSeries(new long[] { 0, 1000 }, new double[][] { { 10, 20 }, { 30, 40 } });
+
+        ChartSeries merged = ChartSeries.merge(Arrays.asList(first, second));
+        assertEquals(2, merged.getRowCount());
+        assertEquals(3, merged.getColumnCount());
+        assertEquals(2, merged.getValue(0, 1), DELTA);
+        assertEquals(20, merged.getValue(1, 1), DELTA);
+        assertEquals(40, merged.getValue(2, 1), DELTA);
+    }
+
+    @Test
+    public void testMergeAlignsColumnsWithMismatchedTimestamps() {
+        ChartSeries first = new ChartSeries(new long[] { 0, 1000, 2000 }, new double[][] { { 1, 2, 3 } });
+        ChartSeries second = new ChartSeries(new long[] { 1000, 1500, 3000 }, new double[][] { { 10, 15, 30 } });
+
+        ChartSeries merged = ChartSeries.merge(Arrays.asList(first, second));
+        assertEquals(5, merged.getRowCount());
+        assertEquals(2, merged.getColumnCount());
+
+        long[] timestamps = { 0, 1000, 1500, 2000, 3000 };
+        double[] firstColumn = { 1, 2, Double.NaN, 3, Double.NaN };
+        double[] secondColumn = { Double.NaN, 10, 15, Double.NaN, 30 };
+        for (int row = 0; row < timestamps.length; row++) {
+            assertEquals(timestamps[row], merged.getTimestamp(row));
+            assertEquals(firstColumn[row], merged.getValue(0, row), DELTA);
+            assertEquals(secondColumn[row], merged.getValue(1, row), DELTA);
+        }
+    }
+
+    @Test
+    public void testWriteToFormatsValuesLikeRrdTool() throws IOException {
+        ChartSeries series = new ChartSeries(new long[] { 1000, 2000 },
+                new double[][] { { 21.5, Double.NaN }, { -0.25, 3 } });
+        StringWriter writer = new StringWriter();
+        series.writeTo(writer);
+
+        assertEquals("[[1000,[\"2.1500000000E01\",\"-2.5000000000E-01\"]],"
+                + "[2000,[\"null\",\"3.0000000000E00\"]]]", writer.toString());
+    }
+
+    /**
+     * Asserts that the row with the given timestamp and value is contained in the series.
+     */
+    private void assertRowKept(ChartSeries series, long timestamp, int column, double value) {
+        for (int row = 0; row < series.getRowCount(); row++) {
+            if (series.getTimestamp(row) == timestamp) {
+                assertEquals(value, series.getValue(column, row), DELTA);
+                return;
+            }
+        }
+        fail("The row at " + timestamp + " has not been kept");
+    }
+
+    /**
+     * Creates a series with the given columns and a row every second.
+     */
+    private ChartSeries createSeries(double[]... columns) {
+        long[] timestamps = new long[columns[0].length];
+        for (int row = 0; row < timestamps.length; row++) {
+            timestamps[row] = row * 1000L;
+        }
+        return new ChartSeries(timestamps, columns);
+    }
+}
@@ -0,0 +1,289 @@
+/**
+ * Copyright (c) 2010-2017 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.ui.cometvisu.internal.config;
+
+import static org.junit.Assert.*;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.eclipse.smarthome.core.items.GenericItem;
+import org.eclipse.smarthome.core.items.GroupItem;
+import org.eclipse.smarthome.core.items.Item;
+import org.eclipse.smarthome.core.library.items.SwitchItem;
+import org.eclipse.smarthome.model.core.EventType;
+import org.junit.After;
+import org.junit.Test;
+
+/**
+ * Tests for the invalidation rules and the concurrent generation of the {@link VisuConfigCache}.
+ *
+ * @author agent - Initial contribution
+ */
+public class VisuConfigCacheTest {
+    private static final String SCHEMA_LOCATION = "../visu_config.xsd";
+    private static final String XML = "<pages/>";
+    private static final long WAIT_SECONDS = 10;
+
+    private final Map<String, Item> items = new HashMap<String, Item>();
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+
+    private final VisuConfigCache cache = new VisuConfigCache(null) {
+        @Override
+        Item getItem(String itemName) {
+            return items.get(itemName);
+        }
+    };
+
+    @After
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void testConfigIsCached() {
+        TestConfig config = new TestConfig("Light");
+        assertEquals(XML, get("demo", config));
+        assertEquals(XML, get("demo", config));
+        assertEquals(1, config.generated.get());
+    }
+
+    @Test
+    public void testChangedSitemapIsGeneratedAgain() {
+        TestConfig config = new TestConfig("Light");
+        get("demo", config);
+        get("other", config);
+
+        cache.modelChanged("demo.sitemap", EventType.MODIFIED);
+        get("demo", config);
+        get("other", config);
+        assertEquals(3, config.generated.get());
+    }
+
+    @Test
+    public void testChangedItemInvalidatesConfigsUsingIt() {
+        TestConfig config = new TestConfig("Light");
+        get("demo", config);
+
+        cache.updated(new SwitchItem("Light"), new SwitchItem("Light"));
+        get("demo", config);
+        assertEquals(2, config.generated.get());
+    }
+
+    @Test
+    public void testUnusedItemKeepsConfig() {
+        TestConfig config = new TestConfig("Light");
+        get("demo", config);
+
+        cache.added(new SwitchItem("Heating"));
+        get("demo", config);
+        assertEquals(1, config.generated.get());
+    }
+
+    @Test
+    public void testNewMemberInvalidatesConfigsUsingItsGroup() {
+        TestConfig config = new TestConfig("Lights");
+        get("demo", config);
+
+        cache.added(member("Light", "Lights"));
+        get("demo", config);
+        assertEquals(2, config.generated.get());
+    }
+
+    @Test
+    public void testNewMemberInvalidatesConfigsUsingAnyGroupContainingIt() {
+        addGroup("Lights");
+        addGroup("GroundFloor", "Lights");
+        addGroup("LivingRoom", "GroundFloor");
+        TestConfig config = new TestConfig("Lights");
+        get("demo", config);
+
+        cache.added(member("Light", "LivingRoom"));
+        get("demo", config);
+        assertEquals(2, config.generated.get());
+
+        cache.removed(member("Light", "LivingRoom"));
+        get("demo", config);
+        assertEquals(3, config.generated.get());
+    }
+
+    @Test
+    public void testCyclicGroupsAreWalkedOnce() {
+        addGroup("Lights", "LivingRoom");
+        addGroup("LivingRoom", "Lights");
+        TestConfig config = new TestConfig("Heating");
+        get("demo", config);
+
+        cache.added(member("Light", "LivingRoom"));
+        get("demo", config);
+        assertEquals(1, config.generated.get());
+    }
+
+    @Test
+    public void testAllItemsChangedInvalidatesAllConfigs() {
+        TestConfig config = new TestConfig("Light");
+        get("demo", config);
+
+        cache.allItemsChanged(Collections.<String> emptyList());
+        get("demo", config);
+        assertEquals(2, config.generated.get());
+    }
+
+    @Test
+    public void testFailedConfigIsNotCached() {
+        FailingConfig config = new FailingConfig("Light");
+        try {
+            get("demo", config);
+            fail("Expected an IllegalStateException");
+        } catch (IllegalStateException e) {
+            assertEquals("marshalling failed", e.getMessage());
+        }
+
+        config.fail = false;
+        assertEquals(XML, get("demo", config));
+        assertEquals(2, config.generated.get());
+    }
+
+    @Test
+    public void testConfigChangedDuringGenerationIsNotCached() throws Exception {
+        final BlockingConfig config = new BlockingConfig("Light");
+        Future<String> result = executor.submit(() -> get("demo", config));
+        assertTrue(config.started.await(WAIT_SECONDS, TimeUnit.SECONDS));
+
+        cache.updated(new SwitchItem("Light"), new SwitchItem("Light"));
+        config.release.countDown();
+        assertEquals(XML, result.get(WAIT_SECONDS, TimeUnit.SECONDS));
+
+        get("demo", config);
+        assertEquals(2, config.generated.get());
+    }
+
+    @Test
+    public void testConcurrentRequestsOfTheSameConfigGenerateItOnce() throws Exception {
+        final BlockingConfig config = new BlockingConfig("Light");
+        Future<String> first = executor.submit(() -> get("demo", config));
+        assertTrue(config.started.await(WAIT_SECONDS, TimeUnit.SECONDS));
+        Future<String> second = executor.submit(() -> get("demo", config));
+
+        config.release.countDown();
+        assertEquals(XML, first.get(WAIT_SECONDS, TimeUnit.SECONDS));
+        assertEquals(XML, second.get(WAIT_SECONDS, TimeUnit.SECONDS));
+        assertEquals(1, config.generated.get());
+    }
+
+    @Test
+    public void testDifferentConfigsAreGeneratedConcurrently() throws Exception {
+        final BlockingConfig blockingConfig = new BlockingConfig("Light");
+        Future<String> blocked = executor.submit(() -> get("demo", blockingConfig));
+        assertTrue(blockingConfig.started.await(WAIT_SECONDS, TimeUnit.SECONDS));
+
+        Future<String> other = executor.submit(() -> get("other", new TestConfig("Light")));
+        assertEquals(XML, other.get(WAIT_SECONDS, TimeUnit.SECONDS));
+        assertFalse(blocked.isDone());
+
+        blockingConfig.release.countDown();
+        assertEquals(XML, blocked.get(WAIT_SECONDS, TimeUnit.SECONDS));
+    }
+
+    private String get(String sitemapName, VisuConfig config) {
+        return new String(cache.getConfigXml(sitemapName, SCHEMA_LOCATION, config), StandardCharsets.UTF_8);
+    }
+
+    private void addGroup(String name, String... groupNames) {
+        items.put(name, member(new GroupItem(name), groupNames));
+    }
+
+    private Item member(String name, String... groupNames) {
+        return member(new SwitchItem(name), groupNames);
+    }
+
+    private Item member(GenericItem item, String... groupNames) {
+        for (String groupName : groupNames) {
+            item.addGroupName(groupName);
+        }
+        return item;
+    }
+
+    /**
+     * A config using the given items, which counts its generations.
+     */
+    private static class TestConfig extends VisuConfig {
+        private final Set<String> itemNames;
+        final AtomicInteger generated = new AtomicInteger();
+        TestConfig(String... itemNames) {
+            super(null, null, null);
+            this.itemNames = new HashSet<String>(Arrays.asList(itemNames));
+        }
+
+        @Override
+        public byte[] getConfigXml(String schemaLocation) {
+            generated.incrementAndGet();
+            return XML.getBytes(StandardCharsets.UTF_8);
+        }
+
+        @Override
+        public Set<String> getItemNames() {
+            return itemNames;
+        }
+    }
+
+    /**
+     * A config, whose marshalling fails until it is fixed.
+     */
+    private static class FailingConfig extends TestConfig {
+        private volatile boolean fail = true;
+
+        FailingConfig(String... itemNames) {
+            super(itemNames);
+        }
+
+        @Override
+        public byte[] getConfigXml(String schemaLocation) {
+            byte[] xml = super.getConfigXml(schemaLocation);
+            if (fail) {
+                throw new IllegalStateException("marshalling failed");
+            }
+            return xml;
+        }
+    }
+
+    /**
+     * A config, whose generation blocks until it is released.
+     */
+    private static class BlockingConfig extends TestConfig {
+        private final CountDownLatch started = new CountDownLatch(1);
+        private final CountDownLatch release = new CountDownLatch(1);
+
+        BlockingConfig(String... itemNames) {
+            super(itemNames);
+        }
+
+        @Override
+        public byte[] getConfigXml(String schemaLocation) {
+            started.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return super.getConfigXml(schemaLocation);
+        }
+    }
+}
@@ -0,0 +1,136 @@
+/**
+ * Copyright (c) 2010-2017 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.ui.cometvisu.servlet;
+
+import static org.junit.Assert.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests for the {@link StaticFileCache}.
+ *
+ * @author agent - Initial contribution
+ */
+public class StaticFileCacheTest {
+    private static final long WAIT_SECONDS = 10;
+
+    private File folder;
+    private StaticFileCache cache;
+
+    @Before
+    public void setUp() throws IOException {
+        folder = Files.createTempDirectory("cometvisu").toFile();
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        if (cache != null) {
+            cache.dispose();
+        }
+        FileUtils.deleteDirectory(folder);
+    }
+
+    @Test
+    public void testFileIsCached() throws IOException {
+        File rootFolder = new File(folder, "root");
+        File file = write(new File(rootFolder, "index.html"), "<html></html>");
+        cache = new StaticFileCache(rootFolder);
+
+        assertSame(cache.get(file, false), cache.get(file, false));
+        assertEquals("<html></html>", read(cache.get(file, false)));
+    }
+
+    @Test
+    public void testChangedFileInWatchedFolderIsReloaded() throws Exception {
+        File rootFolder = new File(folder, "root");
+        File file = write(new File(rootFolder, "index.html"), "<html></html>");
+        cache = new StaticFileCache(rootFolder);
+        assertEquals("<html></html>", read(cache.get(file, false)));
+
+        write(file, "<html><body></body></html>");
+        waitForContent(file, "<html><body></body></html>");
+    }
+
+    @Test
+    public void testChangedFileInFolderCreatedLaterIsReloaded() throws Exception {
+        File userFileFolder = new File(folder, "config");
+        cache = new StaticFileCache(new File(folder, "root"), userFileFolder);
+
+        File file = write(new File(userFileFolder, "visu_config.xml"), "<pages/>");
+        assertEquals("<pages/>", read(cache.get(file, false)));
+
+        write(file, "<pages design=\"metal\"/>");
+        waitForContent(file, "<pages design=\"metal\"/>");
+    }
+
+    @Test
+    public void testChangedFileOutsideTheFoldersIsReloaded() throws IOException {
+        cache = new StaticFileCache(new File(folder, "root"));
+
+        File file = write(new File(folder, "other.html"), "<html></html>");
+        assertEquals("<html></html>", read(cache.get(file, false)));
+
+        write(file, "<html><body></body></html>");
+        assertEquals("<html><body></body></html>", read(cache.get(file, false)));
+    }
+
+    @Test
+    public void testCompressedCopy() throws IOException {
+        File rootFolder = new File(folder, "root");
+        StringBuilder content = new StringBuilder();
+        for (int i = 0; i < 100; i++) {
+            content.append("<div class=\"widget\"></div>\n");
+        }
+        File file = write(new File(rootFolder, "index.html"), content.toString());
+        cache = new StaticFileCache(rootFolder);
+
+        StaticFileCache.CachedFile cachedFile = cache.get(file, true);
+        assertTrue(cachedFile.isGzipAvailable());
+        assertTrue(cachedFile.getGzipLength() < cachedFile.getLength());
+        assertFalse(cache.get(write(new File(rootFolder, "empty.html"), ""), true).isGzipAvailable());
+    }
+
+    /**
+     * Waits until the cache returns the expected content, the watch service reports changes asynchronously.
+     */
+    private void waitForContent(File file, String expected) throws Exception {
+        long end = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(WAIT_SECONDS);
+        String content;
+        while (!expected.equals(content = read(cache.get(file, false)))) {
+            if (System.currentTimeMillis() > end) {
+                fail("Expected '" + expected + "' within " + WAIT_SECONDS + " seconds, but got '" + content + "'");
+            }
+            Thread.sleep(50);
+        }
+    }
+
+    private File write(File file, String content) throws IOException {
+        Path path = file.toPath();
+        Files.createDirectories(path.getParent());
+        Files.write(path, content.getBytes(StandardCharsets.UTF_8));
+        return file;
+    }
+
+    private String read(StaticFileCache.CachedFile cachedFile) throws IOException {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        cachedFile.writeTo(output, 0, cachedFile.getLength());
+        return new String(output.toByteArray(), StandardCharsets.UTF_8);
+    }
+}
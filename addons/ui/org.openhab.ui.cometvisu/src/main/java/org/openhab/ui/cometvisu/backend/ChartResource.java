@@ -8,20 +8,24 @@
  */
 package org.openhab.ui.cometvisu.backend;
 
+import java.io.BufferedWriter;
 import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.IOException;
-import java.text.DecimalFormat;
-import java.text.NumberFormat;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
-import java.util.Locale;
 import java.util.Map;
 import java.util.Map.Entry;
-import java.util.TreeMap;
+import java.util.concurrent.Callable;
 
 import javax.ws.rs.GET;
 import javax.ws.rs.Path;
@@ -31,6 +35,7 @@ import javax.ws.rs.core.Context;
 import javax.ws.rs.core.HttpHeaders;
 import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.Response;
+import javax.ws.rs.core.StreamingOutput;
 import javax.ws.rs.core.UriInfo;
 
 import org.eclipse.smarthome.core.items.GroupItem;
@@ -68,16 +73,17 @@ public class ChartResource implements RESTResource {
     // pattern RRDTool uses to format doubles in XML files
     static final String PATTERN = "0.0000000000E00";
 
-    static final DecimalFormat df;
-
     protected static final String RRD_FOLDER = org.eclipse.smarthome.config.core.ConfigConstants.getUserDataFolder()
             + File.separator + "persistence" + File.separator + "rrd4j";
 
-    static {
-        df = (DecimalFormat) NumberFormat.getNumberInstance(Locale.ENGLISH);
-        df.applyPattern(PATTERN);
-        // df.setPositivePrefix("+");
-    }
+    /**
+     * minimum number of points of a reduced series
+     */
+    private static final int MIN_POINTS = 10;
+
+    private static final int DEFAULT_CAPACITY = 256;
+
+    private final ChartSeriesCache seriesCache = new ChartSeriesCache();
 
     protected static Map<String, QueryablePersistenceService> persistenceServices = new HashMap<String, QueryablePersistenceService>();
 
@@ -112,21 +118,21 @@ public class ChartResource implements RESTResource {
     @Produces({ MediaType.APPLICATION_JSON })
     public Response getChartSeries(@Context HttpHeaders headers, @QueryParam("rrd") String itemName,
             @QueryParam("ds") String consFunction, @QueryParam("start") String start, @QueryParam("end") String end,
-            @QueryParam("res") long resolution) {
+            @QueryParam("res") long resolution, @QueryParam("points") int points) {
         if (logger.isDebugEnabled()) {
             logger.debug("Received GET request at '{}' for rrd '{}'.", uriInfo.getPath(), itemName);
         }
         String responseType = MediaType.APPLICATION_JSON;
 
         // RRD specific: no equivalent in PersistenceService known
-        ConsolFun consilidationFunction = ConsolFun.valueOf(consFunction);
+        final ConsolFun consilidationFunction = ConsolFun.valueOf(consFunction);
 
         // read the start/end time as they are provided in the RRD-way, we use
         // the RRD4j to read them
         long[] times = Util.getTimestamps(start, end);
-        Date startTime = new Date();
+        final Date startTime = new Date();
         startTime.setTime(times[0] * 1000L);
-        Date endTime = new Date();
+        final Date endTime = new Date();
         endTime.setTime(times[1] * 1000L);
 
         if (itemName.endsWith(".rrd")) {
@@ -140,9 +146,11 @@ public class ChartResource implements RESTResource {
             service = parts[0];
         }
 
-        Item item;
+        // the number of points the client can display, more points are reduced
+        final int maxPoints = getMaxPoints(times[1] - times[0], resolution, points);
+
         try {
-            item = itemRegistry.getItem(itemName);
+            final Item item = itemRegistry.getItem(itemName);
             logger.debug("item '{}' found ", item);
 
             // Prefer RRD-Service
@@ -157,13 +165,37 @@ public class ChartResource implements RESTResource {
                     throw new IllegalArgumentException("No Persistence service found.");
                 }
             }
-            Object data = null;
-            if (persistenceService.getId().equals("rrd4j")) {
-                data = getRrdSeries(persistenceService, item, consilidationFunction, startTime, endTime, resolution);
-            } else {
-                data = getPersistenceSeries(persistenceService, item, startTime, endTime, resolution);
-            }
-            return Response.ok(data, responseType).build();
+            final QueryablePersistenceService queryService = persistenceService;
+            final long resolutionParam = resolution;
+            String cacheKey = queryService.getId() + ":" + itemName + ":" + consFunction + ":" + start + ":" + end
+                    + ":" + resolution + ":" + maxPoints;
+            // a point of the reduced series covers this time, so a cached series is not outdated before
+            long ttl = maxPoints > 0 ? (times[1] - times[0]) * 1000L / maxPoints : 0;
+
+            final ChartSeries data = seriesCache.get(cacheKey, ttl, new Callable<ChartSeries>() {
+
+                @Override
+                public ChartSeries call() {
+                    ChartSeries series;
+                    if (queryService.getId().equals("rrd4j")) {
+                        series = getRrdSeries(queryService, item, consilidationFunction, startTime, endTime,
+                                resolutionParam);
+                    } else {
+                        series = getPersistenceSeries(queryService, item, startTime, endTime, resolutionParam);
+                    }
+                    return maxPoints > 0 ? series.downsample(maxPoints) : series;
+                }
+            });
+            StreamingOutput output = new StreamingOutput() {
+
+                @Override
+                public void write(OutputStream outputStream) throws IOException {
+                    Writer writer = new BufferedWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8));
+                    data.writeTo(writer);
+                    writer.flush();
+                }
+            };
+            return Response.ok(output, responseType).build();
         } catch (ItemNotFoundException e1) {
             logger.error("Item '{}' not found error while requesting series data.", itemName);
 
@@ -171,10 +203,32 @@ public class ChartResource implements RESTResource {
         return Response.serverError().build();
     }
 
-    public Object getPersistenceSeries(QueryablePersistenceService persistenceService, Item item, Date timeBegin,
-            Date timeEnd, long resolution) {
-        Map<Long, ArrayList<String>> data = new HashMap<Long, ArrayList<String>>();
+    /**
+     * returns the maximum number of points of a series, which is the given
+     * number of points or the number of points in the requested resolution
+     *
+     * @param range
+     *            - the requested time range in seconds
+     * @param resolution
+     *            - the requested resolution in seconds
+     * @param points
+     *            - the requested number of points
+     * @return the maximum number of points or 0, if the series should not be
+     *         reduced
+     */
+    static int getMaxPoints(long range, long resolution, int points) {
+        int maxPoints = points > 0 ? points : 0;
+        if (resolution > 0 && range > 0) {
+            long resolutionPoints = Math.max(1, range / resolution);
+            if (maxPoints == 0 || resolutionPoints < maxPoints) {
+                maxPoints = (int) Math.min(Integer.MAX_VALUE, resolutionPoints);
+            }
+        }
+        return maxPoints > 0 ? Math.max(MIN_POINTS, maxPoints) : 0;
+    }
 
+    public ChartSeries getPersistenceSeries(QueryablePersistenceService persistenceService, Item item,
+            Date timeBegin, Date timeEnd, long resolution) {
         // Define the data filter
         FilterCriteria filter = new FilterCriteria();
         filter.setBeginDate(timeBegin);
@@ -188,19 +242,57 @@ public class ChartResource implements RESTResource {
 
         // Iterate through the data
         int dataCounter = 0;
+        long[] timestamps = new long[DEFAULT_CAPACITY];
+        double[] values = new double[DEFAULT_CAPACITY];
+        int rowCount = 0;
+        boolean sorted = true;
         while (it.hasNext()) {
             dataCounter++;
             HistoricItem historicItem = it.next();
             org.eclipse.smarthome.core.types.State state = historicItem.getState();
             if (state instanceof DecimalType) {
-                ArrayList<String> vals = new ArrayList<String>();
-                vals.add(formatDouble(((DecimalType) state).doubleValue(), "null", true));
-                data.put(historicItem.getTimestamp().getTime(), vals);
+                if (rowCount == timestamps.length) {
+                    timestamps = Arrays.copyOf(timestamps, rowCount * 2);
+                    values = Arrays.copyOf(values, rowCount * 2);
+                }
+                timestamps[rowCount] = historicItem.getTimestamp().getTime();
+                values[rowCount] = ((DecimalType) state).doubleValue();
+                sorted &= rowCount == 0 || timestamps[rowCount - 1] <= timestamps[rowCount];
+                rowCount++;
             }
         }
         logger.debug("'{}' querying item '{}' from '{}' to '{}' => '{}' results", persistenceService.getId(),
                 filter.getItemName(), filter.getBeginDate(), filter.getEndDate(), dataCounter);
-        return convertToRrd(data);
+        timestamps = Arrays.copyOf(timestamps, rowCount);
+        values = Arrays.copyOf(values, rowCount);
+        if (!sorted) {
+            sort(timestamps, values);
+        }
+        return new ChartSeries(timestamps, new double[][] { values });
+    }
+
+    /**
+     * sorts the values by timestamp, if the persistence service ignores the
+     * ordering of the filter
+     */
+    private void sort(long[] timestamps, double[] values) {
+        Integer[] order = new Integer[timestamps.length];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = i;
+        }
+        final long[] unsortedTimestamps = timestamps.clone();
+        Arrays.sort(order, new Comparator<Integer>() {
+
+            @Override
+            public int compare(Integer a, Integer b) {
+                return Long.compare(unsortedTimestamps[a], unsortedTimestamps[b]);
+            }
+        });
+        double[] unsortedValues = values.clone();
+        for (int i = 0; i < order.length; i++) {
+            timestamps[i] = unsortedTimestamps[order[i]];
+            values[i] = unsortedValues[order[i]];
+        }
     }
 
     /**
@@ -214,9 +306,8 @@ public class ChartResource implements RESTResource {
      * @param resolution
      * @return
      */
-    public Object getRrdSeries(QueryablePersistenceService persistenceService, Item item,
+    public ChartSeries getRrdSeries(QueryablePersistenceService persistenceService, Item item,
             ConsolFun consilidationFunction, Date timeBegin, Date timeEnd, long resolution) {
-        Map<Long, ArrayList<String>> data = new TreeMap<Long, ArrayList<String>>();
         try {
             List<String> itemNames = new ArrayList<String>();
 
@@ -228,10 +319,11 @@ public class ChartResource implements RESTResource {
             } else {
                 itemNames.add(item.getName());
             }
+            List<ChartSeries> series = new ArrayList<ChartSeries>();
             for (String itemName : itemNames) {
-                addRrdData(data, itemName, consilidationFunction, timeBegin, timeEnd, resolution);
+                series.add(getRrdData(itemName, consilidationFunction, timeBegin, timeEnd, resolution));
             }
-
+            return ChartSeries.merge(series);
         } catch (FileNotFoundException e) {
             // rrd file does not exist, fallback to generic persistance service
             logger.debug("no rrd file found '{}'", (RRD_FOLDER + File.separator + item.getName() + ".rrd"));
@@ -240,60 +332,28 @@ public class ChartResource implements RESTResource {
             logger.error("{}: fallback to generic persistance service", e.getLocalizedMessage());
             return getPersistenceSeries(persistenceService, item, timeBegin, timeEnd, resolution);
         }
-        return convertToRrd(data);
     }
 
-    private ArrayList<Object> convertToRrd(Map<Long, ArrayList<String>> data) {
-        // sort data by key
-        Map<Long, ArrayList<String>> treeMap = new TreeMap<Long, ArrayList<String>>(data);
-        ArrayList<Object> rrd = new ArrayList<Object>();
-        for (Long time : treeMap.keySet()) {
-            Object[] entry = new Object[2];
-            entry[0] = time;
-            entry[1] = data.get(time);
-            rrd.add(entry);
-        }
-        return rrd;
-    }
-
-    private Map<Long, ArrayList<String>> addRrdData(Map<Long, ArrayList<String>> data, String itemName,
-            ConsolFun consilidationFunction, Date timeBegin, Date timeEnd, long resolution) throws IOException {
+    private ChartSeries getRrdData(String itemName, ConsolFun consilidationFunction, Date timeBegin, Date timeEnd,
+            long resolution) throws IOException {
         RrdDb rrdDb = new RrdDb(RRD_FOLDER + File.separator + itemName + ".rrd");
-        FetchRequest fetchRequest = rrdDb.createFetchRequest(consilidationFunction, Util.getTimestamp(timeBegin),
-                Util.getTimestamp(timeEnd), resolution);
-        FetchData fetchData = fetchRequest.fetchData();
-        // logger.info(fetchData.toString());
-        long[] timestamps = fetchData.getTimestamps();
-        double[][] values = fetchData.getValues();
-
-        logger.debug("RRD fetch returned '{}' rows and '{}' columns", fetchData.getRowCount(),
-                fetchData.getColumnCount());
-
-        for (int row = 0; row < fetchData.getRowCount(); row++) {
-            // change to microseconds
-            long time = timestamps[row] * 1000;
-
-            if (!data.containsKey(time)) {
-                data.put(time, new ArrayList<String>());
-            }
-            ArrayList<String> vals = data.get(time);
-            int indexOffset = vals.size();
-            for (int dsIndex = 0; dsIndex < fetchData.getColumnCount(); dsIndex++) {
-                vals.add(dsIndex + indexOffset, formatDouble(values[dsIndex][row], "null", true));
+        try {
+            FetchRequest fetchRequest = rrdDb.createFetchRequest(consilidationFunction,
+                    Util.getTimestamp(timeBegin), Util.getTimestamp(timeEnd), resolution);
+            FetchData fetchData = fetchRequest.fetchData();
+            long[] timestamps = fetchData.getTimestamps();
+
+            logger.debug("RRD fetch returned '{}' rows and '{}' columns", fetchData.getRowCount(),
+                    fetchData.getColumnCount());
+
+            // change to milliseconds
+            long[] times = new long[timestamps.length];
+            for (int row = 0; row < timestamps.length; row++) {
+                times[row] = timestamps[row] * 1000;
             }
+            return new ChartSeries(times, fetchData.getValues());
+        } finally {
+            rrdDb.close();
         }
-        rrdDb.close();
-
-        return data;
-    }
-
-    static String formatDouble(double x, String nanString, boolean forceExponents) {
-        if (Double.isNaN(x)) {
-            return nanString;
-        }
-        if (forceExponents) {
-            return df.format(x);
-        }
-        return "" + x;
     }
 }
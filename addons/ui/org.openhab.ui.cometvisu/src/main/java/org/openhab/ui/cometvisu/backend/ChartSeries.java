@@ -0,0 +1,264 @@
+/**
+ * Copyright (c) 2010-2017 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.ui.cometvisu.backend;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.text.DecimalFormat;
+import java.text.NumberFormat;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Series data of a chart with one or more values per timestamp. The values are stored per column like in the
+ * {@link org.rrd4j.core.FetchData} of rrd4j, missing values are NaN.
+ *
+ * @author agent - Initial contribution
+ * @since 2.2.0
+ */
+public class ChartSeries {
+
+    private final long[] timestamps;
+    private final double[][] values;
+
+    /**
+     * @param timestamps
+     *            - the timestamps in ms in ascending order
+     * @param values
+     *            - the values as values[column][row]
+     */
+    public ChartSeries(long[] timestamps, double[][] values) {
+        this.timestamps = timestamps;
+        this.values = values;
+    }
+
+    public int getRowCount() {
+        return timestamps.length;
+    }
+
+    public int getColumnCount() {
+        return values.length;
+    }
+
+    public long getTimestamp(int row) {
+        return timestamps[row];
+    }
+
+    /**
+     * @return the value or NaN, if the value is missing
+     */
+    public double getValue(int column, int row) {
+        return values[column][row];
+    }
+
+    /**
+     * Merges the series of several items, e.g. of the members of a group, into one series with the columns of all
+     * series. Values of timestamps not contained in a series are NaN.
+     *
+     * @param series
+     *            - the series to merge
+     * @return the merged series
+     */
+    public static ChartSeries merge(List<ChartSeries> series) {
+        if (series.size() == 1) {
+            return series.get(0);
+        }
+
+        // the series of rrd files with the same step usually have the same timestamps
+        long[] timestamps = series.get(0).timestamps;
+        for (ChartSeries s : series) {
+            if (!Arrays.equals(timestamps, s.timestamps)) {
+                timestamps = mergeTimestamps(timestamps, s.timestamps);
+            }
+        }
+
+        int columnCount = 0;
+        for (ChartSeries s : series) {
+            columnCount += s.getColumnCount();
+        }
+        double[][] values = new double[columnCount][];
+        int column = 0;
+        for (ChartSeries s : series) {
+            for (double[] columnValues : s.values) {
+                if (Arrays.equals(timestamps, s.timestamps)) {
+                    values[column++] = columnValues;
+                } else {
+                    values[column++] = alignColumn(timestamps, s.timestamps, columnValues);
+                }
+            }
+        }
+        return new ChartSeries(timestamps, values);
+    }
+
+    private static long[] mergeTimestamps(long[] a, long[] b) {
+        long[] merged = new long[a.length + b.length];
+        int i = 0, j = 0, k = 0;
+        while (i < a.length || j < b.length) {
+            long next;
+            if (j >= b.length || i < a.length && a[i] <= b[j]) {
+                next = a[i++];
+            } else {
+                next = b[j++];
+            }
+            if (k == 0 || merged[k - 1] != next) {
+                merged[k++] = next;
+            }
+        }
+        return Arrays.copyOf(merged, k);
+    }
+
+    private static double[] alignColumn(long[] timestamps, long[] columnTimestamps, double[] columnValues) {
+        double[] aligned = new double[timestamps.length];
+        int j = 0;
+        for (int i = 0; i < timestamps.length; i++) {
+            while (j < columnTimestamps.length && columnTimestamps[j] < timestamps[i]) {
+                j++;
+            }
+            aligned[i] = j < columnTimestamps.length && columnTimestamps[j] == timestamps[i] ? columnValues[j]
+                    : Double.NaN;
+        }
+        return aligned;
+    }
+
+    /**
+     * Reduces the series to the given number of rows with the Largest-Triangle-Three-Buckets algorithm, which keeps
+     * the visual shape of the series including its peaks. For series with several columns, the triangle areas of all
+     * columns are summed up.
+     *
+     * @param maxRows
+     *            - the maximum number of rows
+     * @return the reduced series or this series, if it does not have more rows
+     */
+    public ChartSeries downsample(int maxRows) {
+        int rowCount = getRowCount();
+        if (maxRows >= rowCount || maxRows < 3) {
+            return this;
+        }
+
+        int[] selectedRows = new int[maxRows];
+        // the first and the last row are always kept
+        selectedRows[0] = 0;
+        selectedRows[maxRows - 1] = rowCount - 1;
+
+        double bucketSize = (double) (rowCount - 2) / (maxRows - 2);
+        double[] average = new double[getColumnCount()];
+        int selected = 0;
+        for (int bucket = 0; bucket < maxRows - 2; bucket++) {
+            int start = (int) (bucket * bucketSize) + 1;
+            int end = (int) ((bucket + 1) * bucketSize) + 1;
+
+            // the average of the next bucket is the third point of the triangles
+            int nextStart = end;
+            int nextEnd = Math.min((int) ((bucket + 2) * bucketSize) + 1, rowCount);
+            double averageTime = average(nextStart, nextEnd, average);
+
+            double maxArea = -1;
+            int maxRow = start;
+            for (int row = start; row < end; row++) {
+                double area = getArea(selected, row, averageTime, average);
+                if (area > maxArea) {
+                    maxArea = area;
+                    maxRow = row;
+                }
+            }
+            selectedRows[bucket + 1] = maxRow;
+            selected = maxRow;
+        }
+
+        long[] sampledTimestamps = new long[maxRows];
+        double[][] sampledValues = new double[getColumnCount()][maxRows];
+        for (int i = 0; i < maxRows; i++) {
+            sampledTimestamps[i] = timestamps[selectedRows[i]];
+            for (int column = 0; column < getColumnCount(); column++) {
+                sampledValues[column][i] = values[column][selectedRows[i]];
+            }
+        }
+        return new ChartSeries(sampledTimestamps, sampledValues);
+    }
+
+    /**
+     * Calculates the average time and the average of each column of the rows in [start, end).
+     *
+     * @return the average time relative to the first timestamp
+     */
+    private double average(int start, int end, double[] average) {
+        double time = 0;
+        for (int row = start; row < end; row++) {
+            time += timestamps[row] - timestamps[0];
+        }
+        for (int column = 0; column < getColumnCount(); column++) {
+            double sum = 0;
+            int count = 0;
+            for (int row = start; row < end; row++) {
+                if (!Double.isNaN(values[column][row])) {
+                    sum += values[column][row];
+                    count++;
+                }
+            }
+            average[column] = count > 0 ? sum / count : Double.NaN;
+        }
+        return time / (end - start);
+    }
+
+    /**
+     * Sums up the doubled areas of the triangles between the selected row, the candidate row and the average of the
+     * next bucket for all columns. Columns with a missing value are ignored.
+     */
+    private double getArea(int selectedRow, int row, double averageTime, double[] average) {
+        double selectedTime = timestamps[selectedRow] - timestamps[0];
+        double time = timestamps[row] - timestamps[0];
+        double area = 0;
+        for (int column = 0; column < getColumnCount(); column++) {
+            double selectedValue = values[column][selectedRow];
+            double value = values[column][row];
+            if (Double.isNaN(selectedValue) || Double.isNaN(value) || Double.isNaN(average[column])) {
+                continue;
+            }
+            area += Math.abs((selectedTime - averageTime) * (value - selectedValue)
+                    - (selectedTime - time) * (average[column] - selectedValue));
+        }
+        return area;
+    }
+
+    /**
+     * Writes the series in the format of the CometVisu diagram plugin, an array of [timestamp,[value1,value2,...]].
+     * The values are formatted like RRDTool does in XML files and missing values are written as "null".
+     *
+     * @param writer
+     *            - the writer to write the JSON to
+     * @throws IOException
+     */
+    public void writeTo(Writer writer) throws IOException {
+        // DecimalFormat is not thread safe, so each request uses its own
+        DecimalFormat format = (DecimalFormat) NumberFormat.getNumberInstance(Locale.ENGLISH);
+        format.applyPattern(ChartResource.PATTERN);
+
+        writer.write('[');
+        for (int row = 0; row < getRowCount(); row++) {
+            if (row > 0) {
+                writer.write(',');
+            }
+            writer.write('[');
+            writer.write(Long.toString(timestamps[row]));
+            writer.write(",[");
+            for (int column = 0; column < getColumnCount(); column++) {
+                if (column > 0) {
+                    writer.write(',');
+                }
+                double value = values[column][row];
+                writer.write('"');
+                writer.write(Double.isNaN(value) ? "null" : format.format(value));
+                writer.write('"');
+            }
+            writer.write("]]");
+        }
+        writer.write(']');
+    }
+}
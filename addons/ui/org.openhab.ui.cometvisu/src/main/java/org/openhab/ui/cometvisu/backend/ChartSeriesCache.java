@@ -0,0 +1,136 @@
+/**
+ * Copyright (c) 2010-2017 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.ui.cometvisu.backend;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+
+/**
+ * Keeps the series of recent chart requests for a short time, so several clients showing the same diagram query the
+ * persistence service only once. Concurrent requests of the same series wait for the first one to query it.
+ *
+ * @author agent - Initial contribution
+ * @since 2.2.0
+ */
+public class ChartSeriesCache {
+
+    /**
+     * minimum and maximum time in ms a series is kept
+     */
+    private static final long MIN_TTL = 5000;
+    private static final long MAX_TTL = 60000;
+
+    /**
+     * maximum number of rows of all cached series
+     */
+    private static final int MAX_ROWS = 200000;
+
+    private static class CachedSeries {
+        private final ChartSeries series;
+        private final long expires;
+
+        CachedSeries(ChartSeries series, long expires) {
+            this.series = series;
+            this.expires = expires;
+        }
+    }
+
+    private final Map<String, CachedSeries> cache = new LinkedHashMap<>(16, 0.75f, true);
+    private final Map<String, FutureTask<ChartSeries>> loadingSeries = new HashMap<>();
+    private int rowCount;
+
+    /**
+     * Returns the cached series or loads it, if it is not cached or expired.
+     *
+     * @param key
+     *            - identifies the series by item, time range and resolution
+     * @param ttl
+     *            - the time in ms the series may be cached, it is limited to 5 to 60 seconds
+     * @param loader
+     *            - loads the series
+     * @return the series
+     */
+    public ChartSeries get(String key, long ttl, Callable<ChartSeries> loader) {
+        FutureTask<ChartSeries> loadingTask;
+        boolean load = false;
+        synchronized (this) {
+            CachedSeries cachedSeries = cache.get(key);
+            if (cachedSeries != null) {
+                if (cachedSeries.expires > currentTimeMillis()) {
+                    return cachedSeries.series;
+                }
+                remove(key);
+            }
+            loadingTask = loadingSeries.get(key);
+            if (loadingTask == null) {
+                loadingTask = new FutureTask<>(loader);
+                loadingSeries.put(key, loadingTask);
+                load = true;
+            }
+        }
+
+        if (load) {
+            loadingTask.run();
+        }
+        try {
+            ChartSeries series = loadingTask.get();
+            if (load) {
+                long expires = currentTimeMillis() + Math.min(MAX_TTL, Math.max(MIN_TTL, ttl));
+                put(key, new CachedSeries(series, expires));
+            }
+            return series;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("interrupted while loading the series", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IllegalStateException(e.getCause());
+        } finally {
+            if (load) {
+                synchronized (this) {
+                    loadingSeries.remove(key);
+                }
+            }
+        }
+    }
+
+    private synchronized void put(String key, CachedSeries cachedSeries) {
+        remove(key);
+        cache.put(key, cachedSeries);
+        rowCount += cachedSeries.series.getRowCount();
+
+        Iterator<CachedSeries> iterator = cache.values().iterator();
+        while (rowCount > MAX_ROWS && iterator.hasNext()) {
+            // least recently used first
+            rowCount -= iterator.next().series.getRowCount();
+            iterator.remove();
+        }
+    }
+
+    /**
+     * returns the current time in ms, tests replace the clock to let series expire
+     */
+    long currentTimeMillis() {
+        return System.currentTimeMillis();
+    }
+
+    private void remove(String key) {
+        CachedSeries removed = cache.remove(key);
+        if (removed != null) {
+            rowCount -= removed.series.getRowCount();
+        }
+    }
+}
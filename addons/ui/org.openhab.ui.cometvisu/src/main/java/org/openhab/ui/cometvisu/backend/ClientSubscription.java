@@ -0,0 +1,176 @@
+/**
+ * Copyright (c) 2010-2017 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.ui.cometvisu.backend;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.eclipse.smarthome.core.types.State;
+import org.glassfish.jersey.media.sse.EventOutput;
+import org.openhab.ui.cometvisu.backend.beans.StateBean;
+import org.openhab.ui.cometvisu.internal.Config;
+import org.openhab.ui.cometvisu.internal.util.SseUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * SSE connection of one CometVisu client and the addresses it has requested. State updates are collected per address
+ * and sent in one event, so an item changing several times before the event is sent is only transmitted with its
+ * latest state. While an event is written to a slow client, further updates are collected and older states of the
+ * same address are dropped.
+ *
+ * @author agent - Initial contribution
+ * @since 2.2.0
+ */
+public class ClientSubscription {
+    private final Logger logger = LoggerFactory.getLogger(ClientSubscription.class);
+
+    private final EventOutput eventOutput;
+
+    /**
+     * maps the openHAB item names to the requested CometVisu addresses and their state class
+     */
+    private final Map<String, Map<String, Class<? extends State>>> items = new HashMap<>();
+
+    private final Set<String> addresses = new HashSet<>();
+
+    private final Map<String, String> pendingStates = new LinkedHashMap<>();
+
+    /**
+     * true from scheduling a flush until the last pending state has been written
+     */
+    private boolean flushPending;
+
+    private volatile boolean closed;
+
+    /**
+     * @param eventOutput
+     *            - the SSE connection to the client
+     * @param addresses
+     *            - the CometVisu addresses requested by the client, e.g. "number:Temperature"
+     */
+    public ClientSubscription(EventOutput eventOutput, List<String> addresses) {
+        this.eventOutput = eventOutput;
+        for (String address : addresses) {
+            String[] parts = address.split(":");
+            String itemName = address;
+            Class<? extends State> stateClass = null;
+            if (parts.length == 2) {
+                String classPrefix = parts[0].toLowerCase();
+                if (Config.itemTypeMapper.containsKey(classPrefix)) {
+                    stateClass = Config.itemTypeMapper.get(classPrefix);
+                } else {
+                    logger.debug("no type found for '{}'", classPrefix);
+                }
+                itemName = parts[1];
+            }
+            if (!items.containsKey(itemName)) {
+                items.put(itemName, new HashMap<>());
+            }
+            items.get(itemName).put(address, stateClass);
+            this.addresses.add(address);
+        }
+    }
+
+    /**
+     * @return the names of all openHAB items requested by the client
+     */
+    public Set<String> getItemNames() {
+        return Collections.unmodifiableSet(items.keySet());
+    }
+
+    /**
+     * @param itemName
+     *            - the name of the openHAB item
+     * @return the CometVisu addresses of the item and their state class or null, if the client has not requested the
+     *         item
+     */
+    public Map<String, Class<? extends State>> getAddresses(String itemName) {
+        return items.get(itemName);
+    }
+
+    /**
+     * Adds the state of an address to the next event, replacing a state of the same address, which has not been sent
+     * yet. States of addresses not requested by the client are ignored.
+     *
+     * @param stateBean
+     *            - the new state of a CometVisu address
+     * @return true, if a flush must be scheduled to send the state
+     */
+    public synchronized boolean update(StateBean stateBean) {
+        if (closed || !addresses.contains(stateBean.name)) {
+            return false;
+        }
+        pendingStates.put(stateBean.name, stateBean.state);
+        if (flushPending) {
+            // sent by the scheduled flush or, if it is already writing, by the following one
+            return false;
+        }
+        flushPending = true;
+        return true;
+    }
+
+    /**
+     * Sends all pending states to the client in one event. This blocks, until the client has received the event.
+     *
+     * @return true, if states have been updated while writing and another flush must be scheduled
+     */
+    public boolean flush() {
+        List<StateBean> states = new ArrayList<>();
+        synchronized (this) {
+            for (Map.Entry<String, String> entry : pendingStates.entrySet()) {
+                StateBean stateBean = new StateBean();
+                stateBean.name = entry.getKey();
+                stateBean.state = entry.getValue();
+                states.add(stateBean);
+            }
+            pendingStates.clear();
+        }
+
+        if (!states.isEmpty() && !closed) {
+            try {
+                eventOutput.write(SseUtil.buildEvent(states));
+            } catch (IOException e) {
+                logger.debug("closing SSE connection: {}", e.getMessage());
+                close();
+            }
+        }
+
+        synchronized (this) {
+            if (pendingStates.isEmpty() || closed) {
+                flushPending = false;
+                return false;
+            }
+            return true;
+        }
+    }
+
+    public boolean isClosed() {
+        return closed || eventOutput.isClosed();
+    }
+
+    public void close() {
+        closed = true;
+        synchronized (this) {
+            pendingStates.clear();
+        }
+        try {
+            eventOutput.close();
+        } catch (IOException e) {
+            logger.debug("error closing SSE connection: {}", e.getMessage());
+        }
+    }
+}
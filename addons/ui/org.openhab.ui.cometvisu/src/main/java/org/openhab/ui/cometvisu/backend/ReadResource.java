@@ -9,7 +9,6 @@
 package org.openhab.ui.cometvisu.backend;
 
 import java.io.IOException;
-import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.List;
@@ -17,6 +16,9 @@ import java.util.Map;
 import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
@@ -35,12 +37,10 @@ import org.eclipse.smarthome.core.items.ItemRegistry;
 import org.eclipse.smarthome.core.types.State;
 import org.eclipse.smarthome.io.rest.RESTResource;
 import org.glassfish.jersey.media.sse.EventOutput;
-import org.glassfish.jersey.media.sse.SseBroadcaster;
 import org.glassfish.jersey.media.sse.SseFeature;
 import org.openhab.ui.cometvisu.backend.beans.StateBean;
 import org.openhab.ui.cometvisu.internal.Config;
 import org.openhab.ui.cometvisu.internal.listeners.StateEventListener;
-import org.openhab.ui.cometvisu.internal.util.SseUtil;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -55,17 +55,24 @@ import org.slf4j.LoggerFactory;
 public class ReadResource implements EventBroadcaster, RESTResource {
     private final Logger logger = LoggerFactory.getLogger(ReadResource.class);
 
-    private SseBroadcaster broadcaster = new SseBroadcaster();
+    /**
+     * time in ms to collect state updates, which are sent to a client in one event
+     */
+    private static final long EVENT_WINDOW = 100;
+
+    private final List<ClientSubscription> subscriptions = new CopyOnWriteArrayList<ClientSubscription>();
+
+    private final ScheduledExecutorService scheduler;
 
+    /**
+     * writes the events, each client blocks at most one thread while it is reading
+     */
     private final ExecutorService executorService;
 
     private ItemRegistry itemRegistry;
 
     private StateEventListener stateEventListener;
 
-    private List<String> itemNames = new ArrayList<String>();
-    private Map<Item, Map<String, Class<? extends State>>> items = new HashMap<Item, Map<String, Class<? extends State>>>();
-
     @Context
     private UriInfo uriInfo;
 
@@ -78,11 +85,21 @@ public class ReadResource implements EventBroadcaster, RESTResource {
     private Collection<ItemFactory> itemFactories = new CopyOnWriteArrayList<ItemFactory>();
 
     public ReadResource() {
-        this.executorService = Executors.newSingleThreadExecutor();
+        this.scheduler = Executors.newSingleThreadScheduledExecutor();
+        this.executorService = Executors.newCachedThreadPool();
         this.stateEventListener = new StateEventListener();
         this.stateEventListener.setEventBroadcaster(this);
     }
 
+    protected void deactivate() {
+        for (ClientSubscription subscription : subscriptions) {
+            subscription.close();
+        }
+        subscriptions.clear();
+        scheduler.shutdownNow();
+        executorService.shutdownNow();
+    }
+
     protected void setItemRegistry(ItemRegistry itemRegistry) {
         this.itemRegistry = itemRegistry;
     }
@@ -100,10 +117,11 @@ public class ReadResource implements EventBroadcaster, RESTResource {
     }
 
     /**
-     * Subscribes the connecting client to the stream of events filtered by the
-     * given eventFilter.
+     * Subscribes the connecting client to the state changes of the requested
+     * items. Only the states of these items are sent to the client.
      *
-     * @param eventFilter
+     * @param itemNames
+     *            - the CometVisu addresses requested by the client
      * @return {@link EventOutput} object associated with the incoming
      *         connection.
      * @throws IOException
@@ -115,55 +133,43 @@ public class ReadResource implements EventBroadcaster, RESTResource {
             @QueryParam("t") long time) throws IOException, InterruptedException {
         final EventOutput eventOutput = new EventOutput();
 
-        this.itemNames = itemNames;
+        removeClosedSubscriptions();
+        ClientSubscription subscription = new ClientSubscription(eventOutput, itemNames);
+        subscriptions.add(subscription);
 
-        broadcaster.add(eventOutput);
-
-        // get all requested items and send their states to the client
-        items = new HashMap<Item, Map<String, Class<? extends State>>>();
-        // send the current states of all items to the client
+        // send the current states of all requested items to the client
         if (this.itemRegistry != null) {
-            List<StateBean> states = new ArrayList<StateBean>();
-            for (String cvItemName : itemNames) {
+            int stateCount = 0;
+            boolean flush = false;
+            for (String ohItemName : subscription.getItemNames()) {
                 try {
-                    String[] parts = cvItemName.split(":");
-                    String ohItemName = cvItemName;
-                    Class<? extends State> stateClass = null;
-                    if (parts.length == 2) {
-                        String classPrefix = parts[0].toLowerCase();
-                        if (Config.itemTypeMapper.containsKey(classPrefix)) {
-                            stateClass = Config.itemTypeMapper.get(classPrefix);
-                            classPrefix += ":";
+                    Item item = this.itemRegistry.getItem(ohItemName);
+                    Map<String, Class<? extends State>> addresses = subscription.getAddresses(ohItemName);
+                    for (String cvItemName : addresses.keySet()) {
+                        Class<? extends State> stateClass = addresses.get(cvItemName);
+                        StateBean itemState = new StateBean();
+                        itemState.name = cvItemName;
+
+                        if (stateClass != null) {
+                            itemState.state = item.getStateAs(stateClass).toString();
+                            logger.trace("get state of '{}' as '{}' == '{}'", item, stateClass, itemState.state);
                         } else {
-                            logger.debug("no type found for '{}'", classPrefix);
-                            classPrefix = "";
+                            itemState.state = item.getState().toString();
                         }
-                        ohItemName = parts[1];
-                    }
-                    Item item = this.itemRegistry.getItem(ohItemName);
-                    if (!items.containsKey(item)) {
-                        items.put(item, new HashMap<String, Class<? extends State>>());
+                        flush |= subscription.update(itemState);
+                        stateCount++;
                     }
-                    items.get(item).put(cvItemName, stateClass);
-                    StateBean itemState = new StateBean();
-                    itemState.name = cvItemName;
-
-                    if (stateClass != null) {
-                        itemState.state = item.getStateAs(stateClass).toString();
-                        logger.trace("get state of '{}' as '{}' == '{}'", item, stateClass, itemState.state);
-                    } else {
-                        itemState.state = item.getState().toString();
-                    }
-                    states.add(itemState);
                 } catch (ItemNotFoundException e) {
                     logger.error("{}", e.getLocalizedMessage());
                 }
             }
-            logger.debug("initially broadcasting {}/{} item states", states.size(), itemNames.size());
-            broadcaster.broadcast(SseUtil.buildEvent(states));
+            logger.debug("initially sending {}/{} item states", stateCount, itemNames.size());
+            if (flush) {
+                scheduleFlush(subscription, 0);
+            }
         }
         // listen to state changes of the requested items
-        registerItems();
+        registerItems(subscription);
 
         return eventOutput;
     }
@@ -173,8 +179,19 @@ public class ReadResource implements EventBroadcaster, RESTResource {
      */
     @Override
     public void registerItems() {
-        for (Item item : items.keySet()) {
+        for (ClientSubscription subscription : subscriptions) {
+            registerItems(subscription);
+        }
+    }
+
+    private void registerItems(ClientSubscription subscription) {
+        if (this.itemRegistry == null) {
+            return;
+        }
+        for (String itemName : subscription.getItemNames()) {
+            Item item = this.itemRegistry.get(itemName);
             if (item instanceof GenericItem) {
+                // the listeners of an item are a set, so adding it again has no effect
                 ((GenericItem) item).addStateChangeListener(stateEventListener);
             }
         }
@@ -189,7 +206,7 @@ public class ReadResource implements EventBroadcaster, RESTResource {
      */
     @Override
     public void registerItem(Item item) {
-        if (item == null || items.containsKey(item) || !itemNames.contains(item.getName())) {
+        if (item == null || !isRequested(item.getName())) {
             return;
         }
         if (item instanceof GenericItem) {
@@ -198,45 +215,116 @@ public class ReadResource implements EventBroadcaster, RESTResource {
     }
 
     /**
-     * listens to state changes of the given item, if it is part of the
-     * requested items
+     * stops listening to state changes of the given item
      *
      * @param item
-     *            - the new item, that should be listened to
+     *            - the item, that should not be listened to anymore
      */
     @Override
     public void unregisterItem(Item item) {
-        if (item == null || items.containsKey(item) || !itemNames.contains(item.getName())) {
-            return;
-        }
         if (item instanceof GenericItem) {
             ((GenericItem) item).removeStateChangeListener(stateEventListener);
-            items.remove(item);
         }
     }
 
+    private boolean isRequested(String itemName) {
+        for (ClientSubscription subscription : subscriptions) {
+            if (subscription.getAddresses(itemName) != null) {
+                return true;
+            }
+        }
+        return false;
+    }
+
     /**
-     * Broadcasts an event described by the given parameters to all currently
-     * listening clients.
+     * Sends an event described by the given parameters to all currently
+     * listening clients, which have requested the address of the state.
      *
-     * @param item
-     *            - the item which has changed
      * @param eventObject
-     *            - bean that can be converted to a JSON object.
+     *            - {@link StateBean} or list of {@link StateBean}s
      */
     @Override
     public void broadcastEvent(final Object eventObject) {
-        executorService.execute(new Runnable() {
+        if (eventObject instanceof StateBean) {
+            broadcastState((StateBean) eventObject);
+        } else if (eventObject instanceof List<?>) {
+            for (Object bean : (List<?>) eventObject) {
+                if (bean instanceof StateBean) {
+                    broadcastState((StateBean) bean);
+                }
+            }
+        }
+    }
+
+    private void broadcastState(StateBean stateBean) {
+        for (ClientSubscription subscription : subscriptions) {
+            if (subscription.update(stateBean)) {
+                scheduleFlush(subscription, EVENT_WINDOW);
+            }
+        }
+    }
+
+    private void scheduleFlush(final ClientSubscription subscription, long delay) {
+        final Runnable flush = new Runnable() {
 
             @Override
             public void run() {
-                broadcaster.broadcast(SseUtil.buildEvent(eventObject));
+                if (subscription.flush()) {
+                    // the client has been too slow to receive the updates in time, send the latest states
+                    scheduleFlush(subscription, EVENT_WINDOW);
+                } else if (subscription.isClosed()) {
+                    removeSubscription(subscription);
+                }
+            }
+        };
+        try {
+            scheduler.schedule(new Runnable() {
+
+                @Override
+                public void run() {
+                    executorService.execute(flush);
+                }
+            }, delay, TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException e) {
+            logger.debug("not sending states, the CometVisu backend is stopped");
+        }
+    }
+
+    private void removeClosedSubscriptions() {
+        for (ClientSubscription subscription : subscriptions) {
+            if (subscription.isClosed()) {
+                removeSubscription(subscription);
             }
-        });
+        }
     }
 
+    private void removeSubscription(ClientSubscription subscription) {
+        if (!subscriptions.remove(subscription) || this.itemRegistry == null) {
+            return;
+        }
+        // stop listening to items no other client has requested
+        for (String itemName : subscription.getItemNames()) {
+            if (!isRequested(itemName)) {
+                unregisterItem(this.itemRegistry.get(itemName));
+            }
+        }
+    }
+
+    /**
+     * lists the addresses of the item requested by all clients
+     */
     @Override
     public Map<String, Class<? extends State>> getClientItems(Item item) {
-        return items.get(item);
+        Map<String, Class<? extends State>> clientItems = null;
+        for (ClientSubscription subscription : subscriptions) {
+            Map<String, Class<? extends State>> addresses = subscription.getAddresses(item.getName());
+            if (addresses != null) {
+                if (clientItems == null) {
+                    clientItems = new HashMap<String, Class<? extends State>>();
+                }
+                clientItems.putAll(addresses);
+            }
+        }
+        return clientItems;
     }
 }
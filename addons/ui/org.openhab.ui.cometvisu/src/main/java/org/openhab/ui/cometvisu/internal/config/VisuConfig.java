@@ -8,10 +8,12 @@
  */
 package org.openhab.ui.cometvisu.internal.config;
 
+import java.io.ByteArrayOutputStream;
 import java.io.File;
-import java.io.StringWriter;
 import java.math.BigDecimal;
 import java.math.BigInteger;
+import java.util.HashSet;
+import java.util.Set;
 
 import javax.servlet.http.HttpServletRequest;
 import javax.xml.XMLConstants;
@@ -83,7 +85,12 @@ public class VisuConfig {
     /**
      * relative path to the config XSD schema
      */
-    private final String schemaFile = "visu_config.xsd";
+    private static final String SCHEMA_FILE = "visu_config.xsd";
+
+    private static JAXBContext jaxbContext;
+    private static Schema schema;
+    private static File schemaSource;
+    private static long schemaLastModified;
 
     private CometVisuApp app;
 
@@ -92,18 +99,50 @@ public class VisuConfig {
 
     private ObjectFactory factory = new ObjectFactory();
 
+    private Set<String> itemNames = new HashSet<String>();
+
     public VisuConfig(Sitemap sitemap, CometVisuApp app, File rootFolder) {
         this.sitemap = sitemap;
         this.app = app;
         this.rootFolder = rootFolder;
     }
 
+    /**
+     * returns the location of the XSD schema relative to the requested config
+     * file
+     *
+     * @param req
+     *            - the request of the config file
+     * @return the relative location of the schema
+     */
+    public static String getSchemaLocation(HttpServletRequest req) {
+        // set relative path to XSD file
+        int requestFolders = req.getPathInfo().substring(1).split("/").length;
+        String relXsd = "";
+        for (int i = 1; i < requestFolders; i++) {
+            relXsd += "../";
+        }
+        return relXsd + SCHEMA_FILE;
+    }
+
+    /**
+     * returns the names of all items used by the generated config including
+     * the group items of the sitemap
+     */
+    public Set<String> getItemNames() {
+        return itemNames;
+    }
+
     /**
      * generates a CometVisu config file from a sitemap
      *
-     * @return valid XML config
+     * @param schemaLocation
+     *            - location of the XSD schema relative to the config file
+     * @return valid XML config in UTF-8
+     * @throws IllegalStateException
+     *             if the config could not be marshalled
      */
-    public String getConfigXml(HttpServletRequest req) {
+    public byte[] getConfigXml(String schemaLocation) {
         SchemaPages pagesBean = new SchemaPages();
         pagesBean.setBackend("oh2");
         pagesBean.setDesign("metal");
@@ -113,14 +152,7 @@ public class VisuConfig {
         pagesBean.setLibVersion(BigInteger.valueOf(LibVersion.no));
         pagesBean.setScrollSpeed(new BigDecimal(0));
 
-        // set relative path to XSD file
-        int requestFolders = req.getPathInfo().substring(1).split("/").length;
-        logger.debug("requestPath '{}' has '{}' parts", req.getPathInfo(), requestFolders);
-        String relXsd = "";
-        for (int i = 1; i < requestFolders; i++) {
-            relXsd += "../";
-        }
-        pagesBean.setNoNamespaceSchemaLocation(relXsd + schemaFile);
+        pagesBean.setNoNamespaceSchemaLocation(schemaLocation);
 
         Meta meta = new Meta();
         pagesBean.setMeta(meta);
@@ -128,29 +160,49 @@ public class VisuConfig {
         configHelper = new ConfigHelper(pagesBean, app, sitemap.getName());
         createPages(pagesBean);
 
-        return marshal(pagesBean, rootFolder.getAbsolutePath() + File.separator + schemaFile);
+        return marshal(pagesBean, new File(rootFolder, SCHEMA_FILE));
     }
 
-    private String marshal(Pages bean, String xsdSchema) {
-        String res = "";
+    private byte[] marshal(Pages bean, File xsdSchema) {
         try {
-            JAXBContext jaxbContext = JAXBContext.newInstance(bean.getClass());
-            SchemaFactory schemaFactory = SchemaFactory.newInstance(XMLConstants.W3C_XML_SCHEMA_NS_URI);
-            Schema schema = (xsdSchema == null || xsdSchema.trim().length() == 0) ? null
-                    : schemaFactory.newSchema(new File(xsdSchema));
-            Marshaller marshaller = jaxbContext.createMarshaller();
-            marshaller.setSchema(schema);
+            Marshaller marshaller = getJAXBContext().createMarshaller();
+            marshaller.setSchema(getSchema(xsdSchema));
             marshaller.setProperty(Marshaller.JAXB_ENCODING, "UTF-8");
             marshaller.setProperty(Marshaller.JAXB_FORMATTED_OUTPUT, Boolean.TRUE);
-            StringWriter sw = new StringWriter();
-            marshaller.marshal(bean, sw);
-            res = sw.toString();
-        } catch (JAXBException e) {
-            logger.error("{}", e.getMessage(), e);
-        } catch (SAXException e) {
-            logger.error("{}", e.getMessage(), e);
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            marshaller.marshal(bean, out);
+            return out.toByteArray();
+        } catch (JAXBException | SAXException e) {
+            throw new IllegalStateException("Failed to marshal the config of sitemap '" + sitemap.getName() + "'", e);
+        }
+    }
+
+    /**
+     * the JAXB context is thread safe and expensive to create, so it is
+     * created only once
+     */
+    private static synchronized JAXBContext getJAXBContext() throws JAXBException {
+        if (jaxbContext == null) {
+            jaxbContext = JAXBContext.newInstance(SchemaPages.class);
+        }
+        return jaxbContext;
+    }
+
+    /**
+     * the parsed schema is thread safe, it is parsed again, if the schema
+     * file has been changed
+     */
+    private static synchronized Schema getSchema(File xsdSchema) throws SAXException {
+        if (!xsdSchema.exists()) {
+            return null;
+        }
+        if (schema == null || !xsdSchema.equals(schemaSource) || xsdSchema.lastModified() != schemaLastModified) {
+            SchemaFactory schemaFactory = SchemaFactory.newInstance(XMLConstants.W3C_XML_SCHEMA_NS_URI);
+            schemaLastModified = xsdSchema.lastModified();
+            schema = schemaFactory.newSchema(xsdSchema);
+            schemaSource = xsdSchema;
         }
-        return res;
+        return schema;
     }
 
     private Pages createPages(Pages pagesBean) {
@@ -189,6 +241,7 @@ public class VisuConfig {
     private void processWidget(Object rootPage, Widget widget, Pages pages, int level) {
         Item item = null;
         if (widget.getItem() != null) {
+            itemNames.add(widget.getItem());
             try {
                 item = app.getItemUIRegistry().getItem(widget.getItem());
             } catch (ItemNotFoundException e) {
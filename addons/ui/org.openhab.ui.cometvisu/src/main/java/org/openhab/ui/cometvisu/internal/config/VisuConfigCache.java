@@ -0,0 +1,269 @@
+/**
+ * Copyright (c) 2010-2017 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.ui.cometvisu.internal.config;
+
+import java.io.File;
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+
+import org.eclipse.smarthome.core.items.Item;
+import org.eclipse.smarthome.core.items.ItemNotFoundException;
+import org.eclipse.smarthome.core.items.ItemRegistryChangeListener;
+import org.eclipse.smarthome.model.core.EventType;
+import org.eclipse.smarthome.model.core.ModelRepositoryChangeListener;
+import org.eclipse.smarthome.model.sitemap.Sitemap;
+import org.eclipse.smarthome.ui.items.ItemUIRegistry;
+import org.openhab.ui.cometvisu.servlet.CometVisuApp;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Keeps the configs generated from the sitemaps, so a config is only generated and marshalled again, if its sitemap
+ * or one of its items has been changed.
+ *
+ * @author agent - Initial contribution
+ * @since 2.2.0
+ */
+public class VisuConfigCache implements ModelRepositoryChangeListener, ItemRegistryChangeListener {
+    private final Logger logger = LoggerFactory.getLogger(VisuConfigCache.class);
+
+    private static final String SITEMAP_FILE_EXTENSION = ".sitemap";
+
+    private static class CachedConfig {
+        private final String sitemapName;
+        private final byte[] xml;
+        private final Set<String> itemNames;
+
+        CachedConfig(String sitemapName, byte[] xml, Set<String> itemNames) {
+            this.sitemapName = sitemapName;
+            this.xml = xml;
+            this.itemNames = itemNames;
+        }
+    }
+
+    private final CometVisuApp app;
+
+    /**
+     * configs by sitemap name and schema location
+     */
+    private final Map<String, CachedConfig> configs = new HashMap<String, CachedConfig>();
+
+    /**
+     * configs being generated by sitemap name and schema location
+     */
+    private final Map<String, FutureTask<CachedConfig>> generatingConfigs =
+            new HashMap<String, FutureTask<CachedConfig>>();
+
+    /**
+     * incremented on every invalidation, a config generated meanwhile may be outdated
+     */
+    private long generation;
+
+    public VisuConfigCache(CometVisuApp app) {
+        this.app = app;
+    }
+
+    /**
+     * returns the config generated from the sitemap
+     *
+     * @param sitemap
+     *            - the sitemap to generate the config from
+     * @param rootFolder
+     *            - the CometVisu folder containing the XSD schema
+     * @param schemaLocation
+     *            - location of the XSD schema relative to the config
+     * @return the XML config in UTF-8
+     * @throws IllegalStateException
+     *             if the config could not be marshalled, a failed config is not cached
+     */
+    public byte[] getConfigXml(Sitemap sitemap, File rootFolder, String schemaLocation) {
+        return getConfigXml(sitemap.getName(), schemaLocation, new VisuConfig(sitemap, app, rootFolder));
+    }
+
+    /**
+     * returns the cached config or generates it with the given {@link VisuConfig}
+     */
+    byte[] getConfigXml(final String sitemapName, final String schemaLocation, final VisuConfig visuConfig) {
+        String key = sitemapName + ":" + schemaLocation;
+        FutureTask<CachedConfig> generatingConfig;
+        boolean generate = false;
+        long startGeneration;
+        synchronized (this) {
+            CachedConfig config = configs.get(key);
+            if (config != null) {
+                return config.xml;
+            }
+            startGeneration = generation;
+            // generating a config is expensive, so concurrent requests of the same config wait for the first one
+            generatingConfig = generatingConfigs.get(key);
+            if (generatingConfig == null) {
+                generatingConfig = new FutureTask<CachedConfig>(new Callable<CachedConfig>() {
+
+                    @Override
+                    public CachedConfig call() {
+                        byte[] xml = visuConfig.getConfigXml(schemaLocation);
+                        return new CachedConfig(sitemapName, xml, visuConfig.getItemNames());
+                    }
+                });
+                generatingConfigs.put(key, generatingConfig);
+                generate = true;
+            }
+        }
+
+        if (generate) {
+            generatingConfig.run();
+        }
+        try {
+            CachedConfig config = generatingConfig.get();
+            if (generate) {
+                synchronized (this) {
+                    generatingConfigs.remove(key);
+                    if (startGeneration == generation) {
+                        configs.put(key, config);
+                    }
+                }
+            }
+            return config.xml;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            // do not wait any longer, but generate the config without caching it
+            return visuConfig.getConfigXml(schemaLocation);
+        } catch (ExecutionException e) {
+            if (generate) {
+                synchronized (this) {
+                    generatingConfigs.remove(key);
+                }
+            }
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            } else if (e.getCause() instanceof Error) {
+                throw (Error) e.getCause();
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    /**
+     * removes all configs, e.g. after a change of the icon mappings
+     */
+    public synchronized void clear() {
+        generation++;
+        configs.clear();
+    }
+
+    private synchronized void invalidateSitemap(String sitemapName) {
+        generation++;
+        Iterator<CachedConfig> iterator = configs.values().iterator();
+        while (iterator.hasNext()) {
+            if (iterator.next().sitemapName.equals(sitemapName)) {
+                iterator.remove();
+            }
+        }
+    }
+
+    private void invalidateItem(Item item) {
+        // the registry is not queried while holding the lock of the cache
+        invalidateItem(item.getName(), getAncestorGroupNames(item));
+    }
+
+    private synchronized void invalidateItem(String itemName, Set<String> groupNames) {
+        generation++;
+        Iterator<CachedConfig> iterator = configs.values().iterator();
+        while (iterator.hasNext()) {
+            CachedConfig config = iterator.next();
+            // a changed member of a group changes the pages and diagrams of the group and of all groups containing it
+            if (config.itemNames.contains(itemName) || containsAny(config.itemNames, groupNames)) {
+                logger.debug("item '{}' changed, config of sitemap '{}' is generated again", itemName,
+                        config.sitemapName);
+                iterator.remove();
+            }
+        }
+    }
+
+    /**
+     * returns the names of all groups the item is a direct or indirect member of
+     */
+    private Set<String> getAncestorGroupNames(Item item) {
+        Set<String> groupNames = new HashSet<String>();
+        Deque<String> pendingGroupNames = new ArrayDeque<String>(item.getGroupNames());
+        while (!pendingGroupNames.isEmpty()) {
+            String groupName = pendingGroupNames.poll();
+            if (groupNames.add(groupName)) {
+                Item group = getItem(groupName);
+                if (group != null) {
+                    pendingGroupNames.addAll(group.getGroupNames());
+                }
+            }
+        }
+        return groupNames;
+    }
+
+    /**
+     * returns the item with the given name or null, if it does not exist
+     */
+    Item getItem(String itemName) {
+        ItemUIRegistry itemUIRegistry = app.getItemUIRegistry();
+        if (itemUIRegistry == null) {
+            return null;
+        }
+        try {
+            return itemUIRegistry.getItem(itemName);
+        } catch (ItemNotFoundException e) {
+            return null;
+        }
+    }
+
+    private boolean containsAny(Set<String> itemNames, Collection<String> names) {
+        for (String name : names) {
+            if (itemNames.contains(name)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public void modelChanged(String modelName, EventType type) {
+        if (modelName.endsWith(SITEMAP_FILE_EXTENSION)) {
+            String sitemapName = modelName.substring(0, modelName.length() - SITEMAP_FILE_EXTENSION.length());
+            logger.debug("sitemap '{}' changed, config is generated again", sitemapName);
+            invalidateSitemap(sitemapName);
+        }
+    }
+
+    @Override
+    public void added(Item element) {
+        invalidateItem(element);
+    }
+
+    @Override
+    public void removed(Item element) {
+        invalidateItem(element);
+    }
+
+    @Override
+    public void updated(Item oldElement, Item element) {
+        invalidateItem(oldElement);
+        invalidateItem(element);
+    }
+
+    @Override
+    public void allItemsChanged(Collection<String> oldItemNames) {
+        clear();
+    }
+}
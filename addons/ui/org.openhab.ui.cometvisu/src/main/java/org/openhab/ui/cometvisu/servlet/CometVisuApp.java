@@ -27,6 +27,7 @@ import org.eclipse.smarthome.model.sitemap.SitemapProvider;
 import org.eclipse.smarthome.ui.icon.IconProvider;
 import org.eclipse.smarthome.ui.items.ItemUIRegistry;
 import org.openhab.ui.cometvisu.internal.Config;
+import org.openhab.ui.cometvisu.internal.config.VisuConfigCache;
 import org.openhab.ui.cometvisu.php.PHProvider;
 import org.osgi.framework.BundleContext;
 import org.osgi.service.cm.ConfigurationException;
@@ -61,6 +62,8 @@ public class CometVisuApp {
 
     private PHProvider phpProvider;
 
+    private final VisuConfigCache visuConfigCache = new VisuConfigCache(this);
+
     protected static Map<String, QueryablePersistenceService> persistenceServices = new HashMap<>();
 
     protected void setEventPublisher(EventPublisher eventPublisher) {
@@ -95,14 +98,17 @@ public class CometVisuApp {
 
     public void addIconProvider(IconProvider iconProvider) {
         this.iconProviders.add(iconProvider);
+        visuConfigCache.clear();
     }
 
     public void removeIconProvider(IconProvider iconProvider) {
         this.iconProviders.remove(iconProvider);
+        visuConfigCache.clear();
     }
 
     protected void setItemRegistry(ItemRegistry itemRegistry) {
         this.itemRegistry = itemRegistry;
+        this.itemRegistry.addRegistryChangeListener(visuConfigCache);
     }
 
     public ItemRegistry getItemRegistry() {
@@ -110,6 +116,7 @@ public class CometVisuApp {
     }
 
     protected void unsetItemRegistry(ItemRegistry itemRegistry) {
+        itemRegistry.removeRegistryChangeListener(visuConfigCache);
         this.itemRegistry = null;
     }
 
@@ -123,10 +130,13 @@ public class CometVisuApp {
 
     public void addSitemapProvider(SitemapProvider provider) {
         sitemapProviders.add(provider);
+        provider.addModelChangeListener(visuConfigCache);
     }
 
     public void removeSitemapProvider(SitemapProvider provider) {
+        provider.removeModelChangeListener(visuConfigCache);
         sitemapProviders.remove(provider);
+        visuConfigCache.clear();
     }
 
     public ItemUIRegistry getItemUIRegistry() {
@@ -137,6 +147,13 @@ public class CometVisuApp {
         return sitemapProviders;
     }
 
+    /**
+     * returns the cache of the configs generated from sitemaps
+     */
+    public VisuConfigCache getVisuConfigCache() {
+        return visuConfigCache;
+    }
+
     protected void setHttpService(HttpService httpService) {
         this.httpService = httpService;
     }
@@ -251,6 +268,8 @@ public class CometVisuApp {
             unregisterServlet();
         }
         readConfiguration(configProps);
+        // the icon mappings are used by the generated configs
+        visuConfigCache.clear();
         if (configProps.containsKey(Config.COMETVISU_WEBFOLDER_PROPERTY)
                 || configProps.containsKey(Config.COMETVISU_WEBAPP_ALIAS_PROPERTY)) {
             registerServlet();
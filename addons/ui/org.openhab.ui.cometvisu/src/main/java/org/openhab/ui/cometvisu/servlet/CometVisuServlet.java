@@ -101,6 +101,8 @@ public class CometVisuServlet extends HttpServlet {
 
     private CometVisuApp cometVisuApp;
 
+    private StaticFileCache fileCache;
+
     public CometVisuServlet(String filesystemDir, CometVisuApp cometVisuApp) {
         root = filesystemDir;
         rootFolder = new File(root);
@@ -108,6 +110,7 @@ public class CometVisuServlet extends HttpServlet {
                 + Config.COMETVISU_WEBAPP_USERFILE_FOLDER);
         defaultUserDir = System.getProperty("user.dir");
         this.cometVisuApp = cometVisuApp;
+        fileCache = new StaticFileCache(rootFolder, userFileFolder);
 
         PHProvider prov = cometVisuApp.getPHProvider();
         if (prov != null) {
@@ -154,6 +157,12 @@ public class CometVisuServlet extends HttpServlet {
         }
     }
 
+    @Override
+    public void destroy() {
+        fileCache.dispose();
+        super.destroy();
+    }
+
     /**
      * {@inheritDoc}
      *
@@ -206,11 +215,20 @@ public class CometVisuServlet extends HttpServlet {
                 Sitemap sitemap = getSitemap(matcher.group(2));
                 if (sitemap != null) {
                     logger.debug("reading sitemap '{}'", sitemap);
-                    VisuConfig config = new VisuConfig(sitemap, cometVisuApp, rootFolder);
+                    byte[] config;
+                    try {
+                        config = cometVisuApp.getVisuConfigCache().getConfigXml(sitemap, rootFolder,
+                                VisuConfig.getSchemaLocation(req));
+                    } catch (IllegalStateException e) {
+                        logger.error("{}", e.getMessage(), e);
+                        resp.sendError(HttpServletResponse.SC_INTERNAL_SERVER_ERROR);
+                        return;
+                    }
 
-                    // logger.info("response: "+config.getConfigXml());
                     resp.setContentType(MediaType.APPLICATION_XML);
-                    resp.getWriter().write(config.getConfigXml(req));
+                    resp.setCharacterEncoding("UTF-8");
+                    resp.setContentLength(config.length);
+                    resp.getOutputStream().write(config);
                     resp.flushBuffer();
 
                     return;
@@ -515,8 +533,22 @@ public class CometVisuServlet extends HttpServlet {
             // file object.
             file = new File(rootFolder, URLDecoder.decode(requestedFile, "UTF-8"));
         }
+        // Get content type by file name, compressible files are also cached
+        // gzipped.
+        String fileName = file.getName();
+        String contentType = getServletContext().getMimeType(fileName);
+
+        // If content type is unknown, then set the default value.
+        // For all content types, see:
+        // http://www.w3schools.com/media/media_mimeref.asp
+        // To add new content types, add new mime-mapping entry in web.xml.
+        if (contentType == null) {
+            contentType = "application/octet-stream";
+        }
+        StaticFileCache.CachedFile cachedFile = fileCache.get(file, StaticFileCache.isCompressible(contentType));
+
         // Check if file actually exists in filesystem.
-        if (!file.exists()) {
+        if (cachedFile == null && !file.exists()) {
             // show installation hints if the CometVisu-Clients main index.html is requested but cannot be found
             if (file.getParent().equals(rootFolder.getPath())
                     && (file.getName().equalsIgnoreCase("index.html") || file.getName().length() == 0)) {
@@ -528,10 +560,9 @@ public class CometVisuServlet extends HttpServlet {
         }
 
         // Prepare some variables. The ETag is an unique identifier of the file.
-        String fileName = file.getName();
-        long length = file.length();
-        long lastModified = file.lastModified();
-        String eTag = fileName + "_" + length + "_" + lastModified;
+        long length = cachedFile != null ? cachedFile.getLength() : file.length();
+        long lastModified = cachedFile != null ? cachedFile.getLastModified() : file.lastModified();
+        String eTag = cachedFile != null ? cachedFile.getETag() : fileName + "_" + length + "_" + lastModified;
         long expires = System.currentTimeMillis() + DEFAULT_EXPIRE_TIME;
 
         // Validate request headers for caching
@@ -629,7 +660,8 @@ public class CometVisuServlet extends HttpServlet {
                     long end = sublong(part, part.indexOf("-") + 1, part.length());
 
                     if (start == -1) {
-                        start = length - end;
+                        // a suffix longer than the file selects the whole file
+                        start = Math.max(0, length - end);
                         end = length - 1;
                     } else if (end == -1 || end > length - 1) {
                         end = length - 1;
@@ -654,27 +686,21 @@ public class CometVisuServlet extends HttpServlet {
         // Prepare and initialize response
         // --------------------------------------------------------
 
-        // Get content type by file name and set default GZIP support and
-        // content disposition.
-        String contentType = getServletContext().getMimeType(fileName);
+        // Set default GZIP support and content disposition.
         boolean acceptsGzip = false;
         String disposition = "inline";
 
-        // If content type is unknown, then set the default value.
-        // For all content types, see:
-        // http://www.w3schools.com/media/media_mimeref.asp
-        // To add new content types, add new mime-mapping entry in web.xml.
-        if (contentType == null) {
-            contentType = "application/octet-stream";
+        // If content type is text or a cached gzipped copy exists, then
+        // determine whether GZIP content encoding is supported by the browser.
+        if (contentType.startsWith("text") || cachedFile != null && cachedFile.isGzipAvailable()) {
+            String acceptEncoding = request.getHeader("Accept-Encoding");
+            acceptsGzip = acceptEncoding != null && accepts(acceptEncoding, "gzip");
+            response.setHeader("Vary", "Accept-Encoding");
         }
 
-        // If content type is text, then determine whether GZIP content encoding
-        // is supported by
-        // the browser and expand content type with the one and right character
-        // encoding.
+        // If content type is text, then expand content type with the one and
+        // right character encoding.
         if (contentType.startsWith("text")) {
-            String acceptEncoding = request.getHeader("Accept-Encoding");
-            acceptsGzip = acceptEncoding != null && accepts(acceptEncoding, "gzip");
             contentType += ";charset=UTF-8";
         }
 
@@ -702,8 +728,10 @@ public class CometVisuServlet extends HttpServlet {
         OutputStream output = null;
 
         try {
-            // Open streams.
-            input = new RandomAccessFile(file, "r");
+            // Open streams. Cached files are served from memory.
+            if (cachedFile == null) {
+                input = new RandomAccessFile(file, "r");
+            }
             output = response.getOutputStream();
 
             if (ranges.isEmpty() || ranges.get(0) == full) {
@@ -713,7 +741,18 @@ public class CometVisuServlet extends HttpServlet {
                 response.setContentType(contentType);
                 response.setHeader("Content-Range", "bytes " + r.start + "-" + r.end + "/" + r.total);
 
-                if (content) {
+                if (content && cachedFile != null) {
+                    if (acceptsGzip && cachedFile.isGzipAvailable()) {
+                        // The browser accepts GZIP, so send the cached GZIP
+                        // content, its length is known.
+                        response.setHeader("Content-Encoding", "gzip");
+                        response.setHeader("Content-Length", String.valueOf(cachedFile.getGzipLength()));
+                        cachedFile.writeGzipTo(output);
+                    } else {
+                        response.setHeader("Content-Length", String.valueOf(r.length));
+                        cachedFile.writeTo(output, r.start, r.length);
+                    }
+                } else if (content) {
                     if (acceptsGzip) {
                         // The browser accepts GZIP, so GZIP the content.
                         response.setHeader("Content-Encoding", "gzip");
@@ -741,7 +780,7 @@ public class CometVisuServlet extends HttpServlet {
 
                 if (content) {
                     // Copy single part range.
-                    copy(input, output, r.start, r.length);
+                    copy(cachedFile, input, output, r.start, r.length);
                 }
 
             } else {
@@ -765,7 +804,7 @@ public class CometVisuServlet extends HttpServlet {
                         sos.println("Content-Range: bytes " + r.start + "-" + r.end + "/" + r.total);
 
                         // Copy single part range of multi part range.
-                        copy(input, output, r.start, r.length);
+                        copy(cachedFile, input, output, r.start, r.length);
                     }
 
                     // End with multipart boundary.
@@ -1042,6 +1081,33 @@ public class CometVisuServlet extends HttpServlet {
         }
     }
 
+    /**
+     * Copy the given byte range of the cached file or, if the file is not
+     * cached, of the given input to the given output.
+     *
+     * @param cachedFile
+     *            The cached file or null, if the file is not cached.
+     * @param input
+     *            The input to copy the given range from, if the file is not
+     *            cached.
+     * @param output
+     *            The output to copy the given range to.
+     * @param start
+     *            Start of the byte range.
+     * @param length
+     *            Length of the byte range.
+     * @throws IOException
+     *             If something fails at I/O level.
+     */
+    private static void copy(StaticFileCache.CachedFile cachedFile, RandomAccessFile input, OutputStream output,
+            long start, long length) throws IOException {
+        if (cachedFile != null) {
+            cachedFile.writeTo(output, start, length);
+        } else {
+            copy(input, output, start, length);
+        }
+    }
+
     /**
      * Close the given resource.
      *
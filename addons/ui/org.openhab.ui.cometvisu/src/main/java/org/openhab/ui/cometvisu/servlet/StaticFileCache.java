@@ -0,0 +1,457 @@
+/**
+ * Copyright (c) 2010-2017 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.ui.cometvisu.servlet;
+
+import static java.nio.file.StandardWatchEventKinds.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.zip.GZIPOutputStream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Keeps the content of the static CometVisu files in memory, together with a gzip compressed copy of compressible
+ * files. So the files are compressed once, instead of on every request. The least recently used files are removed,
+ * when the cache exceeds {@link #MAX_CACHE_SIZE}.
+ *
+ * The folders are watched for changes, which remove the changed files from the cache. The modification time of a
+ * cached file is checked on every request, if it is not located in a watched folder, e.g. because the folders cannot be
+ * watched or its folder did not exist yet. A folder is watched as soon as it exists.
+ *
+ * @author agent - Initial contribution
+ * @since 2.2.0
+ */
+public class StaticFileCache {
+    private final Logger logger = LoggerFactory.getLogger(StaticFileCache.class);
+
+    /**
+     * maximum size in bytes of all cached files including their compressed copies
+     */
+    private static final long MAX_CACHE_SIZE = 32 * 1024 * 1024;
+
+    /**
+     * maximum size in bytes of a single file to be cached, bigger files are read from disk on every request
+     */
+    private static final long MAX_FILE_SIZE = 2 * 1024 * 1024;
+
+    private final Map<String, CachedFile> files = new LinkedHashMap<>(64, 0.75f, true);
+    private final Map<String, FutureTask<CachedFile>> loadingFiles = new HashMap<>();
+    private long cacheSize;
+
+    /**
+     * incremented on every change of the watched folders, a file loaded during a change may be outdated
+     */
+    private long generation;
+
+    private volatile WatchService watchService;
+    private final Map<WatchKey, Path> watchedFolders = new HashMap<>();
+
+    private final List<Path> rootFolders = new ArrayList<>();
+    private final List<Path> watchedRootFolders = new ArrayList<>();
+
+    /**
+     * The content of a cached file.
+     */
+    public static class CachedFile {
+        private final long length;
+        private final long lastModified;
+        private final String eTag;
+        private final ByteBuffer content;
+        private final ByteBuffer gzipContent;
+
+        private CachedFile(File file, long length, long lastModified, byte[] content, byte[] gzipContent) {
+            this.length = length;
+            this.lastModified = lastModified;
+            this.eTag = file.getName() + "_" + length + "_" + lastModified;
+            this.content = ByteBuffer.wrap(content);
+            this.gzipContent = gzipContent != null ? ByteBuffer.wrap(gzipContent) : null;
+        }
+
+        public long getLength() {
+            return length;
+        }
+
+        public long getLastModified() {
+            return lastModified;
+        }
+
+        public String getETag() {
+            return eTag;
+        }
+
+        /**
+         * @return true, if a gzip compressed copy of the content exists
+         */
+        public boolean isGzipAvailable() {
+            return gzipContent != null;
+        }
+
+        public long getGzipLength() {
+            return gzipContent != null ? gzipContent.capacity() : -1;
+        }
+
+        /**
+         * Writes a range of the uncompressed content.
+         *
+         * @param output
+         *            - the stream to write to
+         * @param start
+         *            - the first byte of the range
+         * @param length
+         *            - the length of the range
+         * @throws IOException
+         */
+        public void writeTo(OutputStream output, long start, long length) throws IOException {
+            write(content, output, (int) start, (int) length);
+        }
+
+        /**
+         * Writes the gzip compressed content.
+         *
+         * @param output
+         *            - the stream to write to
+         * @throws IOException
+         */
+        public void writeGzipTo(OutputStream output) throws IOException {
+            write(gzipContent, output, 0, gzipContent.capacity());
+        }
+
+        private static void write(ByteBuffer buffer, OutputStream output, int start, int length) throws IOException {
+            // the buffers wrap an array, which is written directly without copying it
+            output.write(buffer.array(), buffer.arrayOffset() + start, length);
+        }
+
+        private int getSize() {
+            return content.capacity() + (gzipContent != null ? gzipContent.capacity() : 0);
+        }
+    }
+
+    /**
+     * Creates a cache for the files in the given folders.
+     *
+     * @param folders
+     *            - the folders containing the static files, folders which do not exist yet are watched as soon as they
+     *            are created
+     */
+    public StaticFileCache(File... folders) {
+        for (File folder : folders) {
+            rootFolders.add(folder.toPath().toAbsolutePath().normalize());
+        }
+        try {
+            final WatchService watcher = FileSystems.getDefault().newWatchService();
+            watchService = watcher;
+            watchNewRootFolders();
+            Thread watchThread = new Thread(new Runnable() {
+
+                @Override
+                public void run() {
+                    processWatchEvents(watcher);
+                }
+            }, "CometVisu file watcher");
+            watchThread.setDaemon(true);
+            watchThread.start();
+        } catch (IOException | UnsupportedOperationException e) {
+            logger.debug("cannot watch the CometVisu folders, checking cached files on every request: {}",
+                    e.getMessage());
+            dispose();
+        }
+    }
+
+    /**
+     * @param contentType
+     *            - the content type of a file
+     * @return true, if files of the content type should be compressed
+     */
+    public static boolean isCompressible(String contentType) {
+        return contentType.startsWith("text") || contentType.equals("application/javascript")
+                || contentType.equals("application/x-javascript") || contentType.equals("application/json")
+                || contentType.equals("application/xml") || contentType.equals("image/svg+xml");
+    }
+
+    /**
+     * Returns the content of the file from the cache or reads it, if it is not cached.
+     *
+     * @param file
+     *            - the requested file
+     * @param compress
+     *            - true, if a gzip compressed copy should be created, when the file is read
+     * @return the cached file or null, if the file does not exist or is too big to be cached
+     */
+    public CachedFile get(File file, boolean compress) {
+        String key = getKey(file.toPath());
+        FutureTask<CachedFile> loadingFile;
+        boolean load = false;
+        long loadGeneration;
+        synchronized (this) {
+            watchNewRootFolders();
+            CachedFile cachedFile = files.get(key);
+            if (cachedFile != null && (isWatched(key) || isUnchanged(file, cachedFile))) {
+                return cachedFile;
+            }
+            loadGeneration = generation;
+            // concurrent requests of the same file wait for the first one to read it
+            loadingFile = loadingFiles.get(key);
+            if (loadingFile == null) {
+                loadingFile = new FutureTask<>(new FileLoader(file, compress));
+                loadingFiles.put(key, loadingFile);
+                load = true;
+            }
+        }
+
+        if (load) {
+            loadingFile.run();
+        }
+        try {
+            CachedFile cachedFile = loadingFile.get();
+            if (load) {
+                synchronized (this) {
+                    loadingFiles.remove(key);
+                    if (cachedFile != null && loadGeneration == generation) {
+                        put(key, cachedFile);
+                    }
+                }
+            }
+            return cachedFile;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            logger.debug("cannot cache file '{}': {}", file, e.getCause().getMessage());
+            if (load) {
+                synchronized (this) {
+                    loadingFiles.remove(key);
+                }
+            }
+        }
+        return null;
+    }
+
+    private static String getKey(Path path) {
+        return path.toAbsolutePath().normalize().toString();
+    }
+
+    /**
+     * @return true, if changes of the file with the given key are reported by the watch service
+     */
+    private synchronized boolean isWatched(String key) {
+        if (watchService == null) {
+            return false;
+        }
+        for (Path folder : watchedRootFolders) {
+            if (key.startsWith(folder.toString() + File.separator)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Starts watching the root folders, which have been created since the last call. Their files may have been
+     * cached before without being watched, so they are removed from the cache.
+     */
+    private synchronized void watchNewRootFolders() {
+        WatchService watcher = watchService;
+        if (watcher == null || watchedRootFolders.size() == rootFolders.size()) {
+            return;
+        }
+        for (Path folder : rootFolders) {
+            if (!watchedRootFolders.contains(folder) && Files.isDirectory(folder)) {
+                try {
+                    watchRecursively(watcher, folder);
+                    watchedRootFolders.add(folder);
+                    invalidate(folder);
+                } catch (IOException | ClosedWatchServiceException e) {
+                    logger.debug("cannot watch the folder '{}': {}", folder, e.getMessage());
+                }
+            }
+        }
+    }
+
+    /**
+     * Stops treating a root folder as watched, after its watch key has been cancelled, e.g. because it was deleted.
+     */
+    private synchronized void rootFolderRemoved(Path folder) {
+        if (watchedRootFolders.remove(folder)) {
+            invalidate(folder);
+        }
+    }
+
+    private boolean isUnchanged(File file, CachedFile cachedFile) {
+        return file.lastModified() == cachedFile.lastModified && file.length() == cachedFile.length;
+    }
+
+    private void put(String key, CachedFile cachedFile) {
+        CachedFile previous = files.put(key, cachedFile);
+        if (previous != null) {
+            cacheSize -= previous.getSize();
+        }
+        cacheSize += cachedFile.getSize();
+
+        Iterator<CachedFile> iterator = files.values().iterator();
+        while (cacheSize > MAX_CACHE_SIZE && iterator.hasNext()) {
+            // least recently used first
+            cacheSize -= iterator.next().getSize();
+            iterator.remove();
+        }
+    }
+
+    /**
+     * Reads a file and compresses its content.
+     */
+    private static class FileLoader implements Callable<CachedFile> {
+        private final File file;
+        private final boolean compress;
+
+        FileLoader(File file, boolean compress) {
+            this.file = file;
+            this.compress = compress;
+        }
+
+        @Override
+        public CachedFile call() throws IOException {
+            long lastModified = file.lastModified();
+            long length = file.length();
+            if (!file.isFile() || length > MAX_FILE_SIZE) {
+                return null;
+            }
+            byte[] content = Files.readAllBytes(file.toPath());
+
+            byte[] gzipContent = null;
+            if (compress) {
+                ByteArrayOutputStream compressed = new ByteArrayOutputStream(content.length / 2);
+                try (GZIPOutputStream output = new GZIPOutputStream(compressed)) {
+                    output.write(content);
+                }
+                // already compressed content, e.g. a minified and gzipped file, is not compressed again
+                if (compressed.size() < content.length) {
+                    gzipContent = compressed.toByteArray();
+                }
+            }
+            return new CachedFile(file, content.length, lastModified, content, gzipContent);
+        }
+    }
+
+    private void watchRecursively(final WatchService watcher, Path folder) throws IOException {
+        Files.walkFileTree(folder, new SimpleFileVisitor<Path>() {
+            @Override
+            public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) throws IOException {
+                WatchKey key = dir.register(watcher, ENTRY_CREATE, ENTRY_DELETE, ENTRY_MODIFY);
+                synchronized (watchedFolders) {
+                    watchedFolders.put(key, dir);
+                }
+                return FileVisitResult.CONTINUE;
+            }
+        });
+    }
+
+    private void processWatchEvents(WatchService watcher) {
+        while (true) {
+            WatchKey key;
+            try {
+                key = watcher.take();
+            } catch (InterruptedException | ClosedWatchServiceException e) {
+                return;
+            }
+            Path folder;
+            synchronized (watchedFolders) {
+                folder = watchedFolders.get(key);
+            }
+            for (WatchEvent<?> event : key.pollEvents()) {
+                if (event.kind() == OVERFLOW || folder == null) {
+                    clear();
+                    continue;
+                }
+                Path path = folder.resolve((Path) event.context());
+                invalidate(path);
+                if (event.kind() == ENTRY_CREATE && Files.isDirectory(path)) {
+                    try {
+                        watchRecursively(watcher, path);
+                        // files of the folder may have been cached before it was watched
+                        invalidate(path);
+                    } catch (IOException | ClosedWatchServiceException e) {
+                        logger.debug("cannot watch the new folder '{}': {}", path, e.getMessage());
+                    }
+                }
+            }
+            if (!key.reset()) {
+                synchronized (watchedFolders) {
+                    watchedFolders.remove(key);
+                }
+                if (folder != null) {
+                    rootFolderRemoved(folder);
+                }
+            }
+        }
+    }
+
+    /**
+     * Removes a file or all files of a folder from the cache.
+     */
+    private synchronized void invalidate(Path path) {
+        generation++;
+        String prefix = getKey(path);
+        Iterator<Map.Entry<String, CachedFile>> iterator = files.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<String, CachedFile> entry = iterator.next();
+            String key = entry.getKey();
+            if (key.equals(prefix) || key.startsWith(prefix + File.separator)) {
+                cacheSize -= entry.getValue().getSize();
+                iterator.remove();
+            }
+        }
+    }
+
+    /**
+     * Removes all files from the cache.
+     */
+    public synchronized void clear() {
+        generation++;
+        files.clear();
+        cacheSize = 0;
+    }
+
+    /**
+     * Stops watching the folders and removes all files from the cache.
+     */
+    public void dispose() {
+        WatchService watcher = watchService;
+        watchService = null;
+        if (watcher != null) {
+            try {
+                watcher.close();
+            } catch (IOException e) {
+                logger.debug("error closing the CometVisu file watcher: {}", e.getMessage());
+            }
+        }
+        clear();
+    }
+}